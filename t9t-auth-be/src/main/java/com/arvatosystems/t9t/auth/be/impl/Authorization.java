@@ -56,10 +56,44 @@ import com.arvatosystems.t9t.server.services.IAuthorize;
 public class Authorization implements IAuthorize {
     private static final Logger LOGGER = LoggerFactory.getLogger(Authorization.class);
     private static final List<PermissionEntry> EMPTY_PERMISSION_LIST = ImmutableList.of();
-    private static final Cache<Long, List<PermissionEntry>> PERMISSION_CACHE = Caffeine.newBuilder().maximumSize(1000L)
+    private static final Cache<Long, PermissionIndex> PERMISSION_CACHE = Caffeine.newBuilder().maximumSize(1000L)
             .expireAfterWrite(5L, TimeUnit.MINUTES).build();
+    private static final Cache<String, ResourcePatterns> JWT_RESOURCE_CACHE = Caffeine.newBuilder().maximumSize(1000L).build();
     private final IAuthPersistenceAccess authPersistenceAccess = Jdp.getRequired(IAuthPersistenceAccess.class);
 
+    /** The parsed form of the comma separated JWT resource field. */
+    private static final class ResourcePatterns {
+        private final String[] patterns;    // the nonempty patterns
+        private final boolean includesDb;   // true if the list contains an empty entry
+
+        private ResourcePatterns(final String resource) {
+            final String[] parts = resource.split(",", -1);
+            int numEmpty = 0;
+            for (final String part : parts) {
+                if (part.isEmpty()) {
+                    ++numEmpty;
+                }
+            }
+            includesDb = numEmpty > 0;
+            patterns = new String[parts.length - numEmpty];
+            int i = 0;
+            for (final String part : parts) {
+                if (!part.isEmpty()) {
+                    patterns[i++] = part;
+                }
+            }
+        }
+
+        private boolean anyIsPrefixOf(final String resource) {
+            for (final String p : patterns) {
+                if (resource.startsWith(p)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     public Authorization() { // make the sets immutable
         NO_PERMISSIONS.freeze();
         ALL_PERMISSIONS.freeze();
@@ -157,13 +191,10 @@ public class Authorization implements IAuthorize {
                         return jwtInfo.getPermissionsMin() == null ? EXEC_PERMISSION : jwtInfo.getPermissionsMin();
                 } else {
                     // iterate list of patterns. An empty entry adds the DB as possible resource
-                    final String[] patterns = jwtInfo.getResource().split(",", -1);
-                    for (String p : patterns) {
-                        if (p.length() == 0)
-                            useDb = true;
-                        else if (resource.startsWith(p))
-                            return jwtInfo.getPermissionsMin() == null ? EXEC_PERMISSION : jwtInfo.getPermissionsMin();
-                    }
+                    final ResourcePatterns patterns = getResourcePatterns(jwtInfo.getResource());
+                    if (patterns.anyIsPrefixOf(resource))
+                        return jwtInfo.getPermissionsMin() == null ? EXEC_PERMISSION : jwtInfo.getPermissionsMin();
+                    useDb = patterns.includesDb;
                 }
             } else {
                 // AND condition of JWT resources with DB setup. The JWT limits what has been configured in the DB (API-Key for subset of functionality)
@@ -172,13 +203,7 @@ public class Authorization implements IAuthorize {
                     if (!resource.startsWith(jwtInfo.getResource()))
                         return NO_PERMISSIONS;
                 } else {
-                    final String[] patterns = jwtInfo.getResource().split(",", -1);
-                    for (String p : patterns) {
-                        if (p.length() > 0) {
-                            if (resource.startsWith(p))
-                                useDb = true;
-                        }
-                    }
+                    useDb = getResourcePatterns(jwtInfo.getResource()).anyIsPrefixOf(resource);
                 }
             }
             if (!useDb)
@@ -187,36 +212,32 @@ public class Authorization implements IAuthorize {
 
         // no restriction rule in JWT. Also no grant. Must check permissions assignment from cache or DB
         // after the call, the permissions contain everything which is not conflicting with the JWT
-        List<PermissionEntry> permissions = getAllPermissionsSub(jwtInfo);
-        // now find the longest substring of resource in the list
-        // TODO: tune via binary search, as the list is sorted!
-        for (PermissionEntry p : permissions) {
-            if (resource.startsWith(p.getResourceId())) {
-                if (jwtInfo.getPermissionsMin() == null) {
-                    return p.getPermissions();
-                }
-                final Permissionset pp = new Permissionset(p.getPermissions().getBitmap());
-                pp.unifyWith(jwtInfo.getPermissionsMin());
-                return pp;
-            }
-        }
+        // now find the longest prefix of resource in the list. The permissions of the entries already include the JWT's permissionsMin.
+        final Permissionset permissions = getPermissionIndex(jwtInfo).findLongestPrefix(resource);
+        return permissions == null ? NO_PERMISSIONS : permissions;
+    }
 
-        return NO_PERMISSIONS;
+    /** Returns the parsed form of a comma separated JWT resource field. */
+    private ResourcePatterns getResourcePatterns(final String jwtResource) {
+        return JWT_RESOURCE_CACHE.get(jwtResource, ResourcePatterns::new);
+    }
 
+    /** Returns the sorted and merged permissions of the user as a lookup structure, from the cache if a session is known. */
+    protected PermissionIndex getPermissionIndex(final JwtInfo jwtInfo) {
+        if (jwtInfo.getSessionRef() == null) {
+            // no session defined - get from DB
+            return new PermissionIndex(getAllFilteredPermissions(jwtInfo));
+        }
+        return PERMISSION_CACHE.get(jwtInfo.getSessionRef(), unused -> new PermissionIndex(getAllFilteredPermissions(jwtInfo)));
     }
 
     protected List<PermissionEntry> getAllPermissionsSub(final JwtInfo jwtInfo) {
 
         List<PermissionEntry> entries = null;
-        if (jwtInfo.getSessionRef() == null) {
-            // no session defined - get from DB
-            entries = getAllFilteredPermissions(jwtInfo);
-        } else {
-            try {
-                entries = PERMISSION_CACHE.get(jwtInfo.getSessionRef(), unused -> getAllFilteredPermissions(jwtInfo));
-            } catch (Exception e) {
-                LOGGER.error("Error while filtering permissions: {}", e.getMessage());
-            }
+        try {
+            entries = getPermissionIndex(jwtInfo).getEntries();
+        } catch (Exception e) {
+            LOGGER.error("Error while filtering permissions: {}", e.getMessage());
         }
         return entries;
     }
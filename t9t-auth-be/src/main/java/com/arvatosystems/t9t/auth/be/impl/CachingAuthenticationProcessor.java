@@ -15,23 +15,33 @@
  */
 package com.arvatosystems.t9t.auth.be.impl;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.jpaw.bonaparte.pojos.api.auth.JwtInfo;
 import de.jpaw.dp.Jdp;
 import de.jpaw.dp.Singleton;
+import de.jpaw.util.ExceptionUtil;
 
 import com.arvatosystems.t9t.auth.jwt.IJWT;
 import com.arvatosystems.t9t.base.T9tConstants;
+import com.arvatosystems.t9t.base.T9tUtil;
 import com.arvatosystems.t9t.base.auth.ApiKeyAuthentication;
 import com.arvatosystems.t9t.base.auth.AuthenticationInfo;
 import com.arvatosystems.t9t.base.auth.AuthenticationRequest;
@@ -40,14 +50,39 @@ import com.arvatosystems.t9t.base.auth.PasswordAuthentication;
 import com.arvatosystems.t9t.base.services.IAuthCacheInvalidation;
 import com.arvatosystems.t9t.base.services.ICacheInvalidationRegistry;
 import com.arvatosystems.t9t.base.services.SessionInvalidation;
+import com.arvatosystems.t9t.cfg.be.ApplicationConfiguration;
+import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
+import com.arvatosystems.t9t.metrics.IMetricsProvider;
 import com.arvatosystems.t9t.server.services.IAuthenticate;
 import com.arvatosystems.t9t.server.services.ICachingAuthenticationProcessor;
 
+/**
+ * Authenticates the authorization headers of the gateways and caches the results, in order to avoid JWT signature verification
+ * or a database roundtrip for every request.
+ * The cache is keyed by a SHA-256 based hash of the header, which keeps the entries small and avoids holding credentials in memory.
+ * Successful results are kept for authCacheExpiry seconds, but never beyond the expiry of the JWT. Rejected headers are kept for
+ * authCacheNegativeExpiry seconds only, in order to absorb repeated attempts without locking out a corrected key for long.
+ * Entries obtained by API key are renewed in the background after 3/4 of their lifetime, while the current entry is still being served.
+ * Hit and miss statistics are exported as metrics with tag cache = "auth".
+ */
 @Singleton
 public class CachingAuthenticationProcessor implements ICachingAuthenticationProcessor {
     private static final Logger LOGGER = LoggerFactory.getLogger(CachingAuthenticationProcessor.class);
-    protected static final Cache<String, AuthenticationInfo> AUTH_CACHE = Caffeine.newBuilder()
-            .expireAfterWrite(110L, TimeUnit.SECONDS).maximumSize(200L).build();
+    protected static final int DEFAULT_AUTH_CACHE_MAX_ENTRIES = 10_000;
+    protected static final int DEFAULT_AUTH_CACHE_EXPIRY = 110;             // seconds
+    protected static final int DEFAULT_AUTH_CACHE_NEGATIVE_EXPIRY = 10;     // seconds
+    private static final int REFRESH_POOL_SIZE = 2;
+    /** Renews API key authentications, which requires a database access. */
+    private static final ExecutorService REFRESH_EXECUTOR = ExecutorServiceFactory.newBackgroundExecutor("t9t-AuthCacheRefresh-", REFRESH_POOL_SIZE);
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported by this JVM", e);
+        }
+    });
+
     protected static final AuthenticationInfo ACCESS_DENIED_DUE_TO_EXCEPTION = new AuthenticationInfo();
     static {
         ACCESS_DENIED_DUE_TO_EXCEPTION.setHttpStatusCode(403);
@@ -79,13 +114,79 @@ public class CachingAuthenticationProcessor implements ICachingAuthenticationPro
         UNSUPPORTED_AUTH_METHOD.freeze();
     }
 
+    /** Cache key: the first 128 bits of the SHA-256 of the authorization header. */
+    protected record HeaderHash(long high, long low) {
+        public static HeaderHash of(final String header) {
+            final MessageDigest digest = SHA256.get();
+            final ByteBuffer hash = ByteBuffer.wrap(digest.digest(header.getBytes(StandardCharsets.UTF_8)));
+            return new HeaderHash(hash.getLong(), hash.getLong());
+        }
+    }
+
+    /** Cached result. The API key is stored for successful API key authentications only, in order to renew them. */
+    protected static final class CacheEntry {
+        protected final AuthenticationInfo authInfo;
+        protected final UUID apiKey;
+        protected final long ttlInNanos;
+        protected final long refreshAtNanos;
+        protected final AtomicBoolean refreshing = new AtomicBoolean();
+
+        protected CacheEntry(final AuthenticationInfo authInfo, final UUID apiKey, final long ttlInNanos) {
+            this.authInfo = authInfo;
+            this.apiKey = apiKey;
+            this.ttlInNanos = ttlInNanos;
+            this.refreshAtNanos = System.nanoTime() + ttlInNanos - (ttlInNanos >> 2);
+        }
+
+        protected boolean isDueForRefresh() {
+            return apiKey != null && System.nanoTime() - refreshAtNanos >= 0L && refreshing.compareAndSet(false, true);
+        }
+    }
+
     protected final IJWT jwt = Jdp.getRequired(IJWT.class);
     protected final IAuthenticate authModule = Jdp.getRequired(IAuthenticate.class);
+    protected final Cache<HeaderHash, CacheEntry> authCache;
+    protected final long expiryInNanos;
+    protected final long negativeExpiryInNanos;
 
     public CachingAuthenticationProcessor() {
+        final ApplicationConfiguration applCfg = ConfigProvider.getConfiguration().getApplicationConfiguration();
+        final int maxEntries = applCfg == null ? DEFAULT_AUTH_CACHE_MAX_ENTRIES : T9tUtil.nvl(applCfg.getAuthCacheMaxEntries(), DEFAULT_AUTH_CACHE_MAX_ENTRIES);
+        final int expiry = applCfg == null ? DEFAULT_AUTH_CACHE_EXPIRY : T9tUtil.nvl(applCfg.getAuthCacheExpiry(), DEFAULT_AUTH_CACHE_EXPIRY);
+        final int negativeExpiry = applCfg == null
+          ? DEFAULT_AUTH_CACHE_NEGATIVE_EXPIRY : T9tUtil.nvl(applCfg.getAuthCacheNegativeExpiry(), DEFAULT_AUTH_CACHE_NEGATIVE_EXPIRY);
+        expiryInNanos = TimeUnit.SECONDS.toNanos(expiry);
+        negativeExpiryInNanos = TimeUnit.SECONDS.toNanos(negativeExpiry);
+        LOGGER.info("Authentication cache for up to {} entries, expiry {} s, expiry of rejections {} s", maxEntries, expiry, negativeExpiry);
+
+        authCache = Caffeine.newBuilder()
+          .maximumSize(maxEntries)
+          .expireAfter(new Expiry<HeaderHash, CacheEntry>() {
+              @Override
+              public long expireAfterCreate(final HeaderHash key, final CacheEntry entry, final long currentTime) {
+                  return entry.ttlInNanos;
+              }
+
+              @Override
+              public long expireAfterUpdate(final HeaderHash key, final CacheEntry entry, final long currentTime, final long currentDuration) {
+                  return entry.ttlInNanos;
+              }
+
+              @Override
+              public long expireAfterRead(final HeaderHash key, final CacheEntry entry, final long currentTime, final long currentDuration) {
+                  return currentDuration;
+              }
+          })
+          .recordStats()
+          .build();
+
         final ICacheInvalidationRegistry cacheInvalidationRegistry = Jdp.getOptional(ICacheInvalidationRegistry.class);
         if (cacheInvalidationRegistry != null) {
-            cacheInvalidationRegistry.registerInvalidator(IAuthCacheInvalidation.AUTH_CACHE_ID, dto -> AUTH_CACHE.invalidateAll());
+            cacheInvalidationRegistry.registerInvalidator(IAuthCacheInvalidation.AUTH_CACHE_ID, dto -> authCache.invalidateAll());
+        }
+        final IMetricsProvider metricsProvider = Jdp.getOptional(IMetricsProvider.class);
+        if (metricsProvider != null) {
+            metricsProvider.addMeter(new CaffeineCacheMetrics<>(authCache, "auth", Tags.of("type", "auth")));
         }
     }
 
@@ -98,47 +199,75 @@ public class CachingAuthenticationProcessor implements ICachingAuthenticationPro
         return expiresAt == null || expiresAt.isAfter(Instant.now());
     }
 
-    protected AuthenticationInfo storeSuccessful(String header, String encodedJwt, JwtInfo jwtInfo) {
+    protected AuthenticationInfo storeRejected(final HeaderHash key, final AuthenticationInfo rejection) {
+        authCache.put(key, new CacheEntry(rejection, null, negativeExpiryInNanos));
+        return rejection;
+    }
+
+    protected AuthenticationInfo storeSuccessful(final HeaderHash key, final String encodedJwt, final JwtInfo jwtInfo, final UUID apiKey) {
         final AuthenticationInfo authInfo = new AuthenticationInfo();
         authInfo.setEncodedJwt(encodedJwt);
         authInfo.setJwtInfo(jwtInfo);
-        AUTH_CACHE.put(header, authInfo);
+        long ttl = expiryInNanos;
+        if (jwtInfo.getExpiresAt() != null) {
+            // do not keep the entry beyond the validity of the JWT
+            ttl = Math.max(0L, Math.min(ttl, TimeUnit.MILLISECONDS.toNanos(jwtInfo.getExpiresAt().toEpochMilli() - System.currentTimeMillis())));
+        }
+        authCache.put(key, new CacheEntry(authInfo, apiKey, ttl));
         return authInfo;
     }
 
-    protected AuthenticationInfo authByJwtAndStoreResult(String header) {
+    protected AuthenticationInfo authByJwtAndStoreResult(final HeaderHash key, final String header) {
         final String jwtToken = header.substring(7).trim();
         try {
             final JwtInfo info = jwt.decode(jwtToken);
             if (SessionInvalidation.isSessionInvalidated(info)) {
-                AUTH_CACHE.put(header, ACCESS_DENIED_DUE_TO_EXCEPTION);
-                return ACCESS_DENIED_DUE_TO_EXCEPTION;
+                return storeRejected(key, ACCESS_DENIED_DUE_TO_EXCEPTION);
             }
-            return storeSuccessful(header, jwtToken, info);
+            return storeSuccessful(key, jwtToken, info, null);
         } catch (Exception e) {
             LOGGER.info("JWT rejected: {}: {}", e.getClass().getSimpleName(), e.getMessage());
-            AUTH_CACHE.put(header, ACCESS_DENIED_DUE_TO_EXCEPTION);
         }
-        return ACCESS_DENIED_DUE_TO_EXCEPTION;
+        return storeRejected(key, ACCESS_DENIED_DUE_TO_EXCEPTION);
     }
 
-    protected AuthenticationInfo authByApiKeyAndStoreResult(String header) {
+    protected AuthenticationInfo authByApiKeyAndStoreResult(final HeaderHash key, final String header) {
         try {
             final UUID uuid = UUID.fromString(header.substring(8).trim());
             final AuthenticationResponse authResp = authModule.login(new AuthenticationRequest(new ApiKeyAuthentication(uuid)));
             if (authResp.getReturnCode() == 0) {
-                return storeSuccessful(header, authResp.getEncodedJwt(), authResp.getJwtInfo());
+                return storeSuccessful(key, authResp.getEncodedJwt(), authResp.getJwtInfo(), uuid);
             } else {
                 LOGGER.info("Auth by API key rejected: Code {}: {} {}", authResp.getReturnCode(), authResp.getErrorMessage(), authResp.getErrorDetails());
             }
         } catch (Exception e) {
             LOGGER.info("Bad API Key auth: {}: {}", e.getClass().getSimpleName(), e.getMessage());
         }
-        AUTH_CACHE.put(header, ACCESS_DENIED_INVALID_API_KEY);
-        return ACCESS_DENIED_INVALID_API_KEY;
+        return storeRejected(key, ACCESS_DENIED_INVALID_API_KEY);
     }
 
-    protected AuthenticationInfo authByUserPasswordAndStoreResult(String header) {
+    /**
+     * Renews an API key authentication in the background. The previous entry is served until the new one is available.
+     * If the key has been revoked meanwhile, the entry is replaced by a rejection. Technical errors keep the previous entry,
+     * which will be refreshed again by a subsequent request, or expire.
+     */
+    protected void refreshApiKey(final HeaderHash key, final CacheEntry entry) {
+        try {
+            final AuthenticationResponse authResp = authModule.login(new AuthenticationRequest(new ApiKeyAuthentication(entry.apiKey)));
+            if (authResp.getReturnCode() == 0) {
+                storeSuccessful(key, authResp.getEncodedJwt(), authResp.getJwtInfo(), entry.apiKey);
+            } else {
+                LOGGER.info("Refresh of auth by API key rejected: Code {}: {} {}",
+                  authResp.getReturnCode(), authResp.getErrorMessage(), authResp.getErrorDetails());
+                storeRejected(key, ACCESS_DENIED_INVALID_API_KEY);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Refresh of auth by API key failed, keeping the current entry: {}", ExceptionUtil.causeChain(e));
+            entry.refreshing.set(false);
+        }
+    }
+
+    protected AuthenticationInfo authByUserPasswordAndStoreResult(final HeaderHash key, final String header) {
         try {
             final String decoded = new String(Base64.getUrlDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
             final int colonPos = decoded.indexOf(':');
@@ -146,7 +275,7 @@ public class CachingAuthenticationProcessor implements ICachingAuthenticationPro
                 final AuthenticationResponse authResp = authModule.login(new AuthenticationRequest(
                   new PasswordAuthentication(decoded.substring(0, colonPos), decoded.substring(colonPos + 1))));
                 if (authResp.getReturnCode() == 0) {
-                    return storeSuccessful(header, authResp.getEncodedJwt(), authResp.getJwtInfo());
+                    return storeSuccessful(key, authResp.getEncodedJwt(), authResp.getJwtInfo(), null);
                 } else {
                     LOGGER.info("Auth by Basic username / PW rejected: Code {}: {} {}",
                       authResp.getReturnCode(), authResp.getErrorMessage(), authResp.getErrorDetails());
@@ -155,15 +284,16 @@ public class CachingAuthenticationProcessor implements ICachingAuthenticationPro
         } catch (Exception e) {
             LOGGER.warn("Bad Basic auth: {}: {}", e.getClass().getSimpleName(), e.getMessage());
         }
-        AUTH_CACHE.put(header, ACCESS_DENIED_INVALID_BASIC);
-        return ACCESS_DENIED_INVALID_BASIC;
+        return storeRejected(key, ACCESS_DENIED_INVALID_BASIC);
     }
 
     @Override
     public AuthenticationInfo getCachedJwt(String authorizationHeader) {
         // cache test is common for all types of headers
-        final AuthenticationInfo cachedUser = AUTH_CACHE.getIfPresent(authorizationHeader);
-        if (cachedUser != null) {
+        final HeaderHash key = HeaderHash.of(authorizationHeader);
+        final CacheEntry cachedEntry = authCache.getIfPresent(key);
+        if (cachedEntry != null) {
+            final AuthenticationInfo cachedUser = cachedEntry.authInfo;
             if (isOrWasValid(cachedUser)) {
                 if (isStillValid(cachedUser)) {
                     LOGGER.debug("Found cached authentication entry for user {}, method {}",
@@ -172,6 +302,10 @@ public class CachingAuthenticationProcessor implements ICachingAuthenticationPro
                         LOGGER.debug("But session for user {} has been invalidated or logged out", cachedUser.getJwtInfo().getUserId());
                         return ACCESS_DENIED_DUE_TO_EXCEPTION;
                     }
+                    if (cachedEntry.isDueForRefresh()) {
+                        LOGGER.debug("Refreshing cached API key authentication for user {}", cachedUser.getJwtInfo().getUserId());
+                        REFRESH_EXECUTOR.execute(() -> refreshApiKey(key, cachedEntry));
+                    }
                     return cachedUser;
                 } else {
                     LOGGER.debug("Authentication: cached JWT for {} has expired, performing new authentication",
@@ -180,20 +314,20 @@ public class CachingAuthenticationProcessor implements ICachingAuthenticationPro
                 }
             } else {
                 // denied! Do not waste time, this may be a DOS attack
-                LOGGER.debug("Repeated attempt for declined header {}", authorizationHeader);
+                LOGGER.debug("Repeated attempt for declined header of type {}", authorizationHeader.substring(0, 7));
                 return HANDS_OFF;
             }
         }
 
         LOGGER.debug("New authentication for {}", authorizationHeader.substring(0, 7));   // do not log the full credentials, just the type
         if (authorizationHeader.startsWith(T9tConstants.HTTP_AUTH_PREFIX_JWT)) {
-            return authByJwtAndStoreResult(authorizationHeader);
+            return authByJwtAndStoreResult(key, authorizationHeader);
         }
         if (authorizationHeader.startsWith(T9tConstants.HTTP_AUTH_PREFIX_API_KEY)) {
-            return authByApiKeyAndStoreResult(authorizationHeader);
+            return authByApiKeyAndStoreResult(key, authorizationHeader);
         }
         if (authorizationHeader.startsWith(T9tConstants.HTTP_AUTH_PREFIX_USER_PW)) {
-            return authByUserPasswordAndStoreResult(authorizationHeader);
+            return authByUserPasswordAndStoreResult(key, authorizationHeader);
         }
 
         return UNSUPPORTED_AUTH_METHOD;
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.auth.be.impl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import de.jpaw.bonaparte.pojos.api.auth.Permissionset;
+
+import com.arvatosystems.t9t.base.auth.PermissionEntry;
+
+/**
+ * Compiled form of a sorted list of permission entries, which allows a longest prefix match of a resource in O(log n).
+ * The lookup uses a binary search for the greatest resourceId not exceeding the resource, and then follows the chain
+ * of entries which are prefixes of each other. Any prefix of the resource must be in that chain, because all entries
+ * between a prefix and the resource (in sort order) start with that prefix.
+ * Lookups do not allocate any objects.
+ */
+public final class PermissionIndex {
+    private static final int NO_PARENT = -1;
+
+    private final List<PermissionEntry> entries;
+    private final String[] resourceIds;
+    private final Permissionset[] permissions;
+    private final int[] parent;             // index of the longest entry which is a proper prefix of this one, or NO_PARENT
+
+    /**
+     * Creates an index from a list of entries, which must be sorted by resourceId (ascending).
+     */
+    public PermissionIndex(@Nonnull final List<PermissionEntry> sortedEntries) {
+        final int n = sortedEntries.size();
+        entries = sortedEntries;
+        resourceIds = new String[n];
+        permissions = new Permissionset[n];
+        parent = new int[n];
+        for (int i = 0; i < n; ++i) {
+            final PermissionEntry entry = sortedEntries.get(i);
+            resourceIds[i] = entry.getResourceId();
+            permissions[i] = entry.getPermissions();
+            // the parent is among the ancestors of the previous entry (or the previous entry itself)
+            int p = i - 1;
+            while (p != NO_PARENT && !resourceIds[i].startsWith(resourceIds[p])) {
+                p = parent[p];
+            }
+            parent[i] = p;
+        }
+    }
+
+    /** Returns the entries this index has been built from. */
+    @Nonnull
+    public List<PermissionEntry> getEntries() {
+        return entries;
+    }
+
+    /** Returns the permissions of the longest resourceId which is a prefix of the given resource, or null if there is none. */
+    @Nullable
+    public Permissionset findLongestPrefix(@Nonnull final String resource) {
+        final int pos = Arrays.binarySearch(resourceIds, resource);
+        int i = pos >= 0 ? pos : -pos - 2;  // index of the greatest entry which is <= resource
+        while (i != NO_PARENT && !resource.startsWith(resourceIds[i])) {
+            i = parent[i];
+        }
+        return i == NO_PARENT ? null : permissions[i];
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.auth.be.tests;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.jpaw.bonaparte.pojos.api.auth.Permissionset;
+
+import com.arvatosystems.t9t.auth.be.impl.PermissionIndex;
+import com.arvatosystems.t9t.base.auth.PermissionEntry;
+
+public class PermissionIndexTest {
+    private static final Permissionset P1 = new Permissionset(1);
+    private static final Permissionset P2 = new Permissionset(2);
+    private static final Permissionset P3 = new Permissionset(4);
+    private static final Permissionset P4 = new Permissionset(8);
+
+    // sorted by resourceId
+    private final PermissionIndex index = new PermissionIndex(List.of(
+        new PermissionEntry("B.core.", P1),
+        new PermissionEntry("B.core.a", P2),
+        new PermissionEntry("B.core.ab", P3),
+        new PermissionEntry("B.core.b", P4)
+    ));
+
+    @Test
+    public void testExactMatch() {
+        Assertions.assertSame(P2, index.findLongestPrefix("B.core.a"));
+        Assertions.assertSame(P4, index.findLongestPrefix("B.core.b"));
+    }
+
+    @Test
+    public void testLongestPrefixWins() {
+        Assertions.assertSame(P3, index.findLongestPrefix("B.core.abc"));
+        Assertions.assertSame(P2, index.findLongestPrefix("B.core.aa"));
+    }
+
+    @Test
+    public void testSkipsNonPrefixNeighbours() {
+        // "B.core.ab" sorts directly before the resource, but is not a prefix of it
+        Assertions.assertSame(P2, index.findLongestPrefix("B.core.ac"));
+        Assertions.assertSame(P1, index.findLongestPrefix("B.core.c"));
+    }
+
+    @Test
+    public void testNoMatch() {
+        Assertions.assertNull(index.findLongestPrefix("A.core.a"));
+        Assertions.assertNull(index.findLongestPrefix("B.cor"));
+        Assertions.assertNull(index.findLongestPrefix("C.x"));
+        Assertions.assertNull(new PermissionIndex(List.of()).findLongestPrefix("B.core.a"));
+    }
+}
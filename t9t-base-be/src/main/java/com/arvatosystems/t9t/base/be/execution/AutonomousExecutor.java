@@ -19,7 +19,6 @@ import java.time.Instant;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -40,6 +39,7 @@ import com.arvatosystems.t9t.base.services.IAutonomousExecutor;
 import com.arvatosystems.t9t.base.services.RequestContext;
 import com.arvatosystems.t9t.cfg.be.ApplicationConfiguration;
 import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
 import com.arvatosystems.t9t.server.InternalHeaderParameters;
 import com.arvatosystems.t9t.server.services.IRequestProcessor;
 
@@ -58,7 +58,7 @@ public class AutonomousExecutor implements IAutonomousExecutor {
         LOGGER.info("Creating a new thread pool for autonomous transactions of size {}", autoPoolSize);
 
         final AtomicInteger counter = new AtomicInteger();
-        executorService = Executors.newFixedThreadPool(autoPoolSize, (final Runnable r) -> {
+        executorService = ExecutorServiceFactory.newRequestExecutor("t9t-autonomous-", autoPoolSize, (final Runnable r) -> {
             final String threadName = "t9t-autonomous-" + counter.incrementAndGet();
             LOGGER.debug("Launching thread {} of {} for local autonomous transactions", threadName, autoPoolSize);
             return new Thread(r, threadName);
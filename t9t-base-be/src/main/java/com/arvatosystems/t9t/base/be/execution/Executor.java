@@ -56,6 +56,7 @@ import com.arvatosystems.t9t.cfg.be.ConfigProvider;
 import com.arvatosystems.t9t.cfg.be.RelationalDatabaseConfiguration;
 import com.arvatosystems.t9t.server.InternalHeaderParameters;
 import com.arvatosystems.t9t.server.services.IAuthorize;
+import com.arvatosystems.t9t.server.services.IRequestPhaseTimer;
 
 /**
  * Class serving as key entry point for intra-module communication.
@@ -69,6 +70,7 @@ public class Executor implements IExecutor {
     protected final IAsyncRequestProcessor asyncProcessor = Jdp.getRequired(IAsyncRequestProcessor.class);
     protected final Provider<RequestContext> contextProvider = Jdp.getProvider(RequestContext.class);
     protected final IAuthorize authorizer = Jdp.getRequired(IAuthorize.class);
+    protected final IRequestPhaseTimer phaseTimer = Jdp.getRequired(IRequestPhaseTimer.class);
     protected final boolean readonlyOptimization; // if set, the JPA session will be set to readonly in case the top level request handler says that's possible.
 
     public Executor() {
@@ -85,7 +87,13 @@ public class Executor implements IExecutor {
     // execute a sub-request within the same existing (and known) context, if sufficient permissions available
     @Override
     public ServiceResponse executeSynchronousWithPermissionCheck(final RequestContext ctx, final RequestParameters params) {
+        // only time top level requests, checks of nested ones are part of the handler execution
+        final boolean timed = ctx.isTopLevelRequest() && phaseTimer.isEnabled();
+        final long start = timed ? System.nanoTime() : 0L;
         final ServiceResponse errorResp = permissionCheck(ctx, params);
+        if (timed) {
+            phaseTimer.record(IRequestPhaseTimer.Phase.PERMISSION_CHECK, params.ret$PQON(), ctx.tenantId, System.nanoTime() - start);
+        }
         if (errorResp != null) {
             return errorResp;
         }
@@ -156,11 +164,26 @@ public class Executor implements IExecutor {
             ctx.pushCallStack(params.ret$PQON());
 
             final IRequestHandler<RequestParameters> handler = ctx.customization.<RequestParameters>getRequestHandler(params);
-            if (ctx.isTopLevelRequest()) {
+            final boolean isTopLevel = ctx.isTopLevelRequest();
+            if (isTopLevel) {
                 // top level request: check for read-only session
                 ctx.setReadOnlyMode(handler.isReadOnly(params), handler.useShadowDatabase(params));
             }
-            response = handler.execute(ctx, params); // execute the new method, possibly redirected temporarily by AbstractRequestHandler
+            // only time top level requests, nested ones are part of that duration
+            final boolean timed = isTopLevel && phaseTimer.isEnabled();
+            final long start = timed ? System.nanoTime() : 0L;
+            try {
+                response = handler.execute(ctx, params); // execute the new method, possibly redirected temporarily by AbstractRequestHandler
+            } catch (final RuntimeException e) {
+                if (isTopLevel && params.was$Frozen() && FrozenRequestModifiedException.isModificationOfFrozenObject(e)) {
+                    // copy on retry mode: the request processor repeats the request with a mutable copy
+                    throw new FrozenRequestModifiedException(params.ret$PQON(), e);
+                }
+                throw e;
+            }
+            if (timed) {
+                phaseTimer.record(IRequestPhaseTimer.Phase.HANDLER_EXECUTION, bp.getPqon(), ctx.tenantId, System.nanoTime() - start);
+            }
             // verify the promise concerning the return type has been kept. As all BonaPortableClass'es are singletons, == should be fine
             if (!ServiceResponse.BClass.INSTANCE.equals(bp.getReturns())) {
                 // we expect something different than the default... Check it in case of OK messages, as the API could be misleading otherwise!
@@ -174,6 +197,8 @@ public class Executor implements IExecutor {
             }
             // finally we're done, return the response
             return response;
+        } catch (final FrozenRequestModifiedException e) {
+            throw e;  // not an error, handled by the request processor
         } catch (final ApplicationException e) {
             // log a stack trace in case of 8000 or 9000 type errors
             final int classification = e.getClassification();
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.be.execution;
+
+/**
+ * Signals that the handler of a top level request tried to modify its frozen request parameters.
+ * Thrown by the {@link Executor} only for requests which are executed without a mutable copy (copy on retry mode),
+ * and caught by the {@link RequestProcessor}, which repeats the request with a copy.
+ */
+final class FrozenRequestModifiedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private static final String BONAPARTE_PACKAGE = "de.jpaw.bonaparte.";
+    private static final String GUAVA_COLLECTIONS_PACKAGE = "com.google.common.collect.";
+
+    FrozenRequestModifiedException(final String pqon, final Throwable cause) {
+        super("Handler for " + pqon + " modifies its frozen request parameters", cause);
+    }
+
+    /**
+     * Checks if an exception (or one of its causes) reports a modification of a frozen object.
+     * Bonaparte rejects setters on frozen objects by a plain RuntimeException, and modifications of frozen collections
+     * by an UnsupportedOperationException thrown by Bonaparte or the Guava immutable collections. Other UnsupportedOperationExceptions,
+     * for example of List.of(), are not related to the frozen request and therefore do not match.
+     */
+    static boolean isModificationOfFrozenObject(final Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof UnsupportedOperationException && isThrownBy(t, BONAPARTE_PACKAGE, GUAVA_COLLECTIONS_PACKAGE)) {
+                return true;
+            }
+            if (t.getClass() == RuntimeException.class && t.getMessage() != null && t.getMessage().contains("frozen instance")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Checks if the top stack frame of an exception belongs to a class of one of the given packages. */
+    private static boolean isThrownBy(final Throwable t, final String... packagePrefixes) {
+        final StackTraceElement[] stackTrace = t.getStackTrace();
+        if (stackTrace.length == 0) {
+            return false;
+        }
+        for (final String prefix : packagePrefixes) {
+            if (stackTrace[0].getClassName().startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -16,7 +16,6 @@
 package com.arvatosystems.t9t.base.be.execution;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
@@ -32,6 +31,7 @@ import com.arvatosystems.t9t.base.event.EventData;
 import com.arvatosystems.t9t.base.services.IAsyncRequestProcessor;
 import com.arvatosystems.t9t.base.services.IEventHandler;
 import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
 import com.arvatosystems.t9t.cfg.be.T9tServerConfiguration;
 import com.arvatosystems.t9t.server.services.IUnauthenticatedServiceRequestExecutor;
 
@@ -53,7 +53,7 @@ public class LocalAsyncProcessor implements IAsyncRequestProcessor {
                 poolSize);
         final AtomicInteger counter = new AtomicInteger();
 
-        executorService = Executors.newFixedThreadPool(poolSize, (final Runnable r) -> {
+        executorService = ExecutorServiceFactory.newRequestExecutor("t9t-async-", poolSize, (final Runnable r) -> {
             final String threadName = "t9t-async-" + counter.incrementAndGet();
             LOGGER.info("Launching thread {} for local async processing", threadName);
             return new Thread(r, threadName);
@@ -18,7 +18,9 @@ package com.arvatosystems.t9t.base.be.execution;
 import java.time.Instant;
 import java.util.ConcurrentModificationException;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,12 +64,15 @@ import com.arvatosystems.t9t.cfg.be.StatusProvider;
 import com.arvatosystems.t9t.server.ExecutionSummary;
 import com.arvatosystems.t9t.server.InternalHeaderParameters;
 import com.arvatosystems.t9t.server.services.IRequestLogger;
+import com.arvatosystems.t9t.server.services.IRequestPhaseTimer;
+import com.arvatosystems.t9t.server.services.IRequestPhaseTimer.Phase;
 import com.arvatosystems.t9t.server.services.IRequestProcessor;
 
 //process requests once the user has been authenticated
 @Singleton
 public class RequestProcessor implements IRequestProcessor {
     private static final Logger LOGGER = LoggerFactory.getLogger(RequestProcessor.class);
+    protected static final long NOT_TIMED = Long.MIN_VALUE;  // start time of phases if no timings are collected
 
     protected final IRefGenerator refGenerator = Jdp.getRequired(IRefGenerator.class);
     protected final IExecutor executor = Jdp.getRequired(IExecutor.class);
@@ -77,6 +82,7 @@ public class RequestProcessor implements IRequestProcessor {
     protected final ICustomization customizationProvider = Jdp.getRequired(ICustomization.class);
     protected final IBackendStringSanitizerFactory backendStringSanitizerFactory = Jdp.getRequired(IBackendStringSanitizerFactory.class);
     protected final RequestContextScope ctxScope = Jdp.getRequired(RequestContextScope.class); // should be the same as the previous
+    protected final IRequestPhaseTimer phaseTimer = Jdp.getRequired(IRequestPhaseTimer.class);
 
     // an implementation which is independent of customization
     protected final IRequestHandlerResolver defaultRequestHandlerResolver = new DefaultRequestHandlerResolver();
@@ -88,6 +94,10 @@ public class RequestProcessor implements IRequestProcessor {
     protected final int    numberOfRetriesDatabaseConnect  = T9tUtil.nvl(applCfg == null ? null : applCfg.getNumberOfRetriesDatabaseConnect(),   3);
     protected final Long   pauseBeforeDatabaseConnectRetry = T9tUtil.nvl(applCfg == null ? null : applCfg.getPauseBeforeDatabaseConnectRetry(), 10).longValue();
     protected final double pauseIncreaseFactor             = T9tUtil.nvl(applCfg == null ? null : applCfg.getPauseIncreaseFactor(),            1.5);
+    protected final boolean copyRequestOnRetryOnly         = applCfg != null && Boolean.TRUE.equals(applCfg.getCopyRequestOnRetryOnly());
+
+    /** PQONs of requests whose handlers have been seen to modify the request parameters (only used if copyRequestOnRetryOnly is set). */
+    protected final Set<String> requestsModifyingParameters = ConcurrentHashMap.newKeySet();
 
     /** Common entry point for all executions - web service calls as well as scheduled tasks (via IUnauthenticatedServiceRequestExecutor). */
     @Override
@@ -118,7 +128,9 @@ public class RequestProcessor implements IRequestProcessor {
         // first thing to do is to validate (and sanitize) the business part of the request
         if (stringSanitizer != null) {
             try {
+                final long start = startPhase();
                 rp.treeWalkString(stringSanitizer, true);
+                recordPhase(Phase.SANITIZING, pqon, jwtInfo.getTenantId(), start);
             } catch (final ApplicationException e) {
                 LOGGER.error("Request {}({})) rejected due to exception during sanitizing", rp.ret$PQON(), LogSanitizer.sanitize(rp.getEssentialKey()));
                 return MessagingUtil.createServiceResponse(e.getErrorCode(), e.getErrorDetails(), messageId, jwtInfo.getTenantId(), null);
@@ -191,7 +203,9 @@ public class RequestProcessor implements IRequestProcessor {
             if (messageId != null && (idempotencyBehaviour == RetryAdviceType.NEVER_RETRY || idempotencyBehaviour == RetryAdviceType.RETRY_ON_ERROR)) {
                 // a message ID has been set, and also a retry behaviour, asking to not repeat the request in all cases
                 // must do a check for a prior execution of this request
+                final long start = startPhase();
                 final ServiceResponse idempotenceResponse = idempotencyChecker.runIdempotencyCheck(jwtInfo.getTenantId(), messageId, idempotencyBehaviour, rp);
+                recordPhase(Phase.IDEMPOTENCY_CHECK, pqon, jwtInfo.getTenantId(), start);
                 if (idempotenceResponse != null) {
                     return idempotenceResponse;
                 }
@@ -205,7 +219,9 @@ public class RequestProcessor implements IRequestProcessor {
             ihdr.setJwtInfo(jwtInfo);
             ihdr.setEncodedUserJwt(encodedUserJwt);
             ihdr.setUserJwtInfo(userJwtInfo);
+            final long startRefGeneration = startPhase();
             ihdr.setProcessRef(refGenerator.generateRef(T9tInternalConstants.TABLENAME_MESSAGE_LOG, T9tInternalConstants.RTTI_MESSAGE_LOG));
+            recordPhase(Phase.REF_GENERATION, pqon, jwtInfo.getTenantId(), startRefGeneration);
             ihdr.setLanguageCode(jwtInfo.getLocale());
             ihdr.setRequestParameterPqon(pqon);
             if (optHdr != null) {
@@ -248,7 +264,9 @@ public class RequestProcessor implements IRequestProcessor {
                 summary.setReturnCode(resp.getReturnCode());
                 summary.setErrorDetails(resp.getErrorDetails());
                 summary.setPartitionUsed(partition);
+                final long startLogging = startPhase();
                 messageLogger.logRequest(ihdr, summary, rp, resp, retryCounter.getValue());
+                recordPhase(Phase.MESSAGE_LOGGING, pqon, jwtInfo.getTenantId(), startLogging);
             }
             return resp;
         } finally {
@@ -297,10 +315,36 @@ public class RequestProcessor implements IRequestProcessor {
         int numberOfRetriesLeftForDatabaseConnects = numberOfRetriesDatabaseConnect;
         // we freeze all parameters to ensure that data is not modified and we retry with different parameters
         rq.freeze();
+        // in copy on retry mode, the first attempt works on the frozen request, unless its handler is known to modify it
+        boolean useFrozenRequest = copyRequestOnRetryOnly && !requestsModifyingParameters.contains(rq.ret$PQON());
+        String frozenModificationCause = null;  // cause chain of a failed attempt on the frozen request
         for (;;) {
-            // temporarily create a new object with mutable main record
-            final RequestParameters mutableRequestParameters = rq.ret$MutableClone(true, true);  // omit deep copy of arrays: (search request sortColumns!)
-            final ServiceResponse response = executeSynchronous(mutableRequestParameters, ihdr, skipAuthorization);
+            final ServiceResponse response;
+            if (useFrozenRequest) {
+                useFrozenRequest = false;
+                try {
+                    response = executeSynchronous(rq, ihdr, skipAuthorization);
+                } catch (final FrozenRequestModifiedException e) {
+                    // the transaction has been rolled back. Run it again with a copy, without counting this as a retry
+                    frozenModificationCause = MessagingUtil.truncErrorDetails(ExceptionUtil.causeChain(e.getCause()));
+                    continue;
+                }
+            } else {
+                // temporarily create a new object with mutable main record
+                final RequestParameters mutableRequestParameters = rq.ret$MutableClone(true, true);  // omit deep copy of arrays: (search request sortColumns!)
+                response = executeSynchronous(mutableRequestParameters, ihdr, skipAuthorization);
+                if (frozenModificationCause != null) {
+                    if (frozenModificationCause.equals(response.getErrorDetails())) {
+                        // the copy fails the same way, therefore the exception was not caused by a modification of the request
+                        LOGGER.info("Handler for {} fails on a mutable copy of the request as well - not remembered as modifying its request", rq.ret$PQON());
+                    } else {
+                        // remember the request type
+                        LOGGER.info("Handler for {} modifies its request parameters - will use a mutable copy from now on", rq.ret$PQON());
+                        requestsModifyingParameters.add(rq.ret$PQON());
+                    }
+                    frozenModificationCause = null;
+                }
+            }
 
             int numberOfRetries = 0;
             Long sleepTime = null;
@@ -385,6 +429,11 @@ public class RequestProcessor implements IRequestProcessor {
                     final IRequestHandler<ContextlessRequestParameters> handler = (IRequestHandler<ContextlessRequestParameters>) defaultRequestHandlerResolver
                             .getHandlerInstance(rq.getClass());
                     return handler.execute(ctx, cRq);
+                } catch (final RuntimeException e) {
+                    if (rq.was$Frozen() && FrozenRequestModifiedException.isModificationOfFrozenObject(e)) {
+                        throw new FrozenRequestModifiedException(rq.ret$PQON(), e);
+                    }
+                    throw e;
                 } finally {
                     ctx.close();
                 }
@@ -421,10 +470,13 @@ public class RequestProcessor implements IRequestProcessor {
                     // both OK and DENIED responses are technically OK and must be committed. Only
                     // PARAMETER ERRORs etc are technical exceptions which must be rolled back
                     try {
+                        final long startCommit = startPhase();
                         ctx.commit();
+                        final long startPostCommit = recordPhase(Phase.COMMIT, rq.ret$PQON(), ctx.tenantId, startCommit);
                         ctx.applyPostCommitActions(rq, resp);
                         // also apply any bucket writes...
                         ctx.postBucketEntriesToQueue(bucketWriter);
+                        recordPhase(Phase.POST_COMMIT, rq.ret$PQON(), ctx.tenantId, startPostCommit);
                     } catch (final Exception e) {
                         // commit exception: some constraint will be violated, we urgently need the cause in the log for analysis. Descend exception list...
                         final String causeChain = ExceptionUtil.causeChain(e);
@@ -451,6 +503,11 @@ public class RequestProcessor implements IRequestProcessor {
                     ctx.applyPostFailureActions(rq, resp);
                 }
                 return resp;
+            } catch (final FrozenRequestModifiedException e) {
+                // the attempt is repeated with a copy of the request, therefore no post failure actions
+                ctx.rollback();
+                ctx.discardPostCommitActions();
+                throw e;
             } catch (final Exception e) {
                 final String causeChain = ExceptionUtil.causeChain(e);
                 LOGGER.error("Unhandled exception: {}", causeChain);
@@ -472,6 +529,8 @@ public class RequestProcessor implements IRequestProcessor {
                 ctxScope.close();
                 ctx.close();
             }
+        } catch (final FrozenRequestModifiedException e) {
+            throw e;
         } catch (final NullPointerException npe) {
             LOGGER.error("NullPointerException (outer scope): ", npe);  // lists stack trace!
             return createServiceResponse(T9tException.NULL_POINTER, null, ihdr);
@@ -498,6 +557,21 @@ public class RequestProcessor implements IRequestProcessor {
         }
     }
 
+    /** Returns the start time of a processing phase, or NOT_TIMED if phase timings are not collected. */
+    protected long startPhase() {
+        return phaseTimer.isEnabled() ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /** Reports the duration of a processing phase which started at the given time, and returns the current time (or NOT_TIMED). */
+    protected long recordPhase(final Phase phase, final String pqon, final String tenantId, final long startedAtNanos) {
+        if (startedAtNanos == NOT_TIMED) {
+            return NOT_TIMED;
+        }
+        final long now = System.nanoTime();
+        phaseTimer.record(phase, pqon, tenantId, now - startedAtNanos);
+        return now;
+    }
+
     /** Proxy to create an error response with some parameters from InternalHeaderParameters. */
     private ServiceResponse createServiceResponse(final int errorCode, final String errorDetails, final InternalHeaderParameters ihdr) {
         return MessagingUtil.createServiceResponse(errorCode, errorDetails, ihdr.getMessageId(), ihdr.getJwtInfo().getTenantId(), null);
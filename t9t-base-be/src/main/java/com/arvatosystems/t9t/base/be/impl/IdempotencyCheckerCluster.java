@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.be.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import de.jpaw.dp.Jdp;
+import de.jpaw.dp.Named;
+import de.jpaw.dp.Singleton;
+import de.jpaw.util.ApplicationException;
+import de.jpaw.util.ExceptionUtil;
+
+import com.arvatosystems.t9t.base.T9tException;
+import com.arvatosystems.t9t.base.api.RequestParameters;
+import com.arvatosystems.t9t.base.api.RetryAdviceType;
+import com.arvatosystems.t9t.base.api.ServiceResponse;
+import com.arvatosystems.t9t.base.services.IIdempotencyStore;
+
+/**
+ * Cluster wide idempotency checker. A new messageId is claimed synchronously in the shared {@link IIdempotencyStore},
+ * which guarantees that only one node of the cluster executes the request.
+ * Results are kept in the per tenant near cache of the superclass (if idempotencyCacheMaxEntries is configured)
+ * and written to the store asynchronously, in batches. Until a result has been written, other nodes report the request as still processing.
+ * Batches which cannot be written are retried, and pending results are flushed on shutdown.
+ * Store entries are purged after idempotencyCacheExpiry seconds, or after one day if no expiry has been configured.
+ *
+ * Activate by setting idempotencyStrategy = "cluster" in the application configuration.
+ */
+@Singleton
+@Named("cluster")
+public class IdempotencyCheckerCluster extends IdempotencyCheckerSingleNode {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyCheckerCluster.class);
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long PURGE_INTERVAL_IN_MS = 60_000L;
+    private static final long DEFAULT_STORE_EXPIRY_IN_S = 86_400L;
+    private static final long MIN_RETRY_DELAY_IN_MS = 1_000L;
+    private static final long MAX_RETRY_DELAY_IN_MS = 60_000L;
+
+    protected final IIdempotencyStore store = Jdp.getRequired(IIdempotencyStore.class);
+    protected final BlockingQueue<IIdempotencyStore.Result> pendingResults = new LinkedBlockingQueue<>();
+    private final Object writeLock = new Object();  // serializes batches of the writer thread and flushes
+
+    public IdempotencyCheckerCluster() {
+        super();
+        final Thread writer = new Thread(this::writeResults, "t9t-IdempotencyWriter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public ServiceResponse runIdempotencyCheck(final String tenantId, final UUID messageId, final RetryAdviceType idempotencyBehaviour,
+            final RequestParameters rp) {
+        final Cache<UUID, ServiceResponse> tenantCache = getTenantCache(tenantId);
+        if (tenantCache != null) {
+            final ServiceResponse known = tenantCache.getIfPresent(messageId);
+            if (known != null) {
+                // processed or processing on this node, no need to ask the store
+                return known;
+            }
+        }
+        final ServiceResponse prior = store.claim(tenantId, messageId);
+        if (prior == null) {
+            if (tenantCache != null) {
+                tenantCache.put(messageId, JdbcIdempotencyStore.stillProcessing(tenantId, messageId));
+            }
+            return null;
+        }
+        if (tenantCache != null && prior.getReturnCode() != T9tException.REQUEST_STILL_PROCESSING) {
+            // final results do not change any more, avoid further roundtrips
+            tenantCache.put(messageId, prior);
+        }
+        return prior;
+    }
+
+    @Override
+    public void storeIdempotencyResult(final String tenantId, final UUID messageId, final RetryAdviceType idempotencyBehaviour,
+      final RequestParameters rp, final ServiceResponse resp) {
+        final Cache<UUID, ServiceResponse> tenantCache = getTenantCache(tenantId);
+        if (idempotencyBehaviour == RetryAdviceType.RETRY_ON_ERROR && resp.getReturnCode() >= 2 * ApplicationException.CLASSIFICATION_FACTOR) {
+            // this is an error. We should retry, so remove the entry
+            if (tenantCache != null) {
+                tenantCache.invalidate(messageId);
+            }
+            pendingResults.add(new IIdempotencyStore.Result(tenantId, messageId, null));
+        } else {
+            if (tenantCache != null) {
+                tenantCache.put(messageId, resp);
+            }
+            pendingResults.add(new IIdempotencyStore.Result(tenantId, messageId, resp));
+        }
+    }
+
+    /** Returns the near cache of the tenant, or null if no near cache has been configured. */
+    protected Cache<UUID, ServiceResponse> getTenantCache(final String tenantId) {
+        return requestCache == null ? null : requestCache.computeIfAbsent(tenantId, id -> buildNewCache());
+    }
+
+    /** Writes all pending results synchronously. Called on shutdown, and when the writer thread is interrupted. */
+    @Override
+    public void flushPendingResults() {
+        final List<IIdempotencyStore.Result> batch = new ArrayList<>();
+        synchronized (writeLock) {
+            // any batch taken by the writer thread before has been written or requeued when we obtain the lock
+            pendingResults.drainTo(batch);
+            if (!batch.isEmpty()) {
+                try {
+                    store.storeResults(batch);
+                    LOGGER.info("Flushed {} pending idempotency results", batch.size());
+                } catch (final Exception e) {
+                    // the entries stay "in progress" in the store until the processing timeout
+                    LOGGER.error("Could not flush {} idempotency results: {}", batch.size(), ExceptionUtil.causeChain(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Main loop of the writer thread: writes pending results in batches, and removes expired entries from time to time.
+     * A batch which cannot be written is queued again and retried after a delay, which grows with every consecutive failure.
+     */
+    protected void writeResults() {
+        final List<IIdempotencyStore.Result> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        final long expiryInSeconds = idempotencyCacheExpiry != null ? idempotencyCacheExpiry.longValue() : DEFAULT_STORE_EXPIRY_IN_S;
+        long nextPurge = System.currentTimeMillis();
+        long retryDelayInMs = MIN_RETRY_DELAY_IN_MS;
+        for (;;) {
+            try {
+                final IIdempotencyStore.Result first = pendingResults.poll(PURGE_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    try {
+                        synchronized (writeLock) {
+                            batch.add(first);
+                            pendingResults.drainTo(batch, MAX_BATCH_SIZE - 1);
+                            try {
+                                store.storeResults(batch);
+                            } catch (final Exception e) {
+                                pendingResults.addAll(batch);
+                                throw e;
+                            }
+                        }
+                        retryDelayInMs = MIN_RETRY_DELAY_IN_MS;
+                    } finally {
+                        batch.clear();
+                    }
+                }
+                if (System.currentTimeMillis() >= nextPurge) {
+                    nextPurge = System.currentTimeMillis() + PURGE_INTERVAL_IN_MS;
+                    store.purgeOlderThan(Instant.now().minusSeconds(expiryInSeconds));
+                }
+            } catch (final InterruptedException e) {
+                LOGGER.warn("Idempotency writer interrupted with {} pending results - flushing and terminating", pendingResults.size());
+                flushPendingResults();
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final Exception e) {
+                LOGGER.error("Could not write idempotency results, {} pending, retrying in {} ms: {}", pendingResults.size(), retryDelayInMs,
+                  ExceptionUtil.causeChain(e));
+                try {
+                    Thread.sleep(retryDelayInMs);
+                } catch (final InterruptedException e2) {
+                    LOGGER.warn("Idempotency writer interrupted with {} pending results - flushing and terminating", pendingResults.size());
+                    flushPendingResults();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                retryDelayInMs = Math.min(2 * retryDelayInMs, MAX_RETRY_DELAY_IN_MS);
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.be.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jpaw.bonaparte.core.BonaPortable;
+import de.jpaw.bonaparte.core.CompactByteArrayComposer;
+import de.jpaw.bonaparte.core.CompactByteArrayParser;
+import de.jpaw.bonaparte.core.MessageParserException;
+import de.jpaw.bonaparte.core.StaticMeta;
+import de.jpaw.dp.Fallback;
+import de.jpaw.dp.Jdp;
+import de.jpaw.dp.Singleton;
+import de.jpaw.util.ExceptionUtil;
+
+import com.arvatosystems.t9t.base.T9tException;
+import com.arvatosystems.t9t.base.T9tUtil;
+import com.arvatosystems.t9t.base.api.ServiceResponse;
+import com.arvatosystems.t9t.base.services.IIdempotencyStore;
+import com.arvatosystems.t9t.base.services.IJdbcConnectionProvider;
+import com.arvatosystems.t9t.cfg.be.ApplicationConfiguration;
+import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+
+/**
+ * Database backed idempotency store, using table p28_int_idempotency.
+ * The claim is a plain insert, which relies on the primary key to detect a prior request. Therefore the path for a new messageId
+ * requires a single statement only, and no read.
+ * All statements use independent (autocommit) connections, in order to be visible to other nodes immediately.
+ * An entry which is still processing after idempotencyProcessingTimeout seconds (for example because its node died) can be claimed again,
+ * without having to wait for the expiry of the entry.
+ */
+@Singleton
+@Fallback
+public class JdbcIdempotencyStore implements IIdempotencyStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcIdempotencyStore.class);
+
+    private static final String SQL_CLAIM  = "INSERT INTO p28_int_idempotency (tenant_id, message_id, c_timestamp) VALUES (?, ?, ?)";
+    private static final String SQL_READ   = "SELECT return_code, response FROM p28_int_idempotency WHERE tenant_id = ? AND message_id = ?";
+    private static final String SQL_TAKEOVER = "UPDATE p28_int_idempotency SET c_timestamp = ? WHERE tenant_id = ? AND message_id = ? AND response IS NULL AND c_timestamp < ?";
+    private static final String SQL_UPDATE = "UPDATE p28_int_idempotency SET return_code = ?, response = ? WHERE tenant_id = ? AND message_id = ?";
+    private static final String SQL_DELETE = "DELETE FROM p28_int_idempotency WHERE tenant_id = ? AND message_id = ?";
+    private static final String SQL_PURGE  = "DELETE FROM p28_int_idempotency WHERE c_timestamp < ?";
+    private static final String SQLSTATE_CLASS_INTEGRITY_CONSTRAINT_VIOLATION = "23";
+    private static final int MAX_CLAIM_ATTEMPTS = 3;  // protects against entries being removed between insert and select
+    private static final int DEFAULT_PROCESSING_TIMEOUT_IN_S = 900;
+
+    protected final IJdbcConnectionProvider jdbcProvider = Jdp.getRequired(IJdbcConnectionProvider.class, "independent");
+    protected final long processingTimeoutInSeconds;
+
+    public JdbcIdempotencyStore() {
+        final ApplicationConfiguration applCfg = ConfigProvider.getConfiguration().getApplicationConfiguration();
+        processingTimeoutInSeconds = T9tUtil.nvl(applCfg == null ? null : applCfg.getIdempotencyProcessingTimeout(), DEFAULT_PROCESSING_TIMEOUT_IN_S);
+    }
+
+    @Override
+    public ServiceResponse claim(@Nonnull final String tenantId, @Nonnull final UUID messageId) {
+        try (Connection conn = getConnection()) {
+            for (int attempt = 1; attempt <= MAX_CLAIM_ATTEMPTS; ++attempt) {
+                if (tryInsert(conn, tenantId, messageId)) {
+                    return null;
+                }
+                final ServiceResponse prior = read(conn, tenantId, messageId);
+                if (prior != null) {
+                    if (prior.getReturnCode() == T9tException.REQUEST_STILL_PROCESSING && tryTakeOver(conn, tenantId, messageId)) {
+                        LOGGER.warn("Idempotency entry {} for tenant {} was processing for more than {} seconds - claimed again",
+                          messageId, tenantId, processingTimeoutInSeconds);
+                        return null;
+                    }
+                    return prior;
+                }
+                LOGGER.debug("Idempotency entry {} for tenant {} vanished before it could be read, attempt {}", messageId, tenantId, attempt);
+            }
+            return stillProcessing(tenantId, messageId);
+        } catch (final SQLException e) {
+            LOGGER.error("Could not claim idempotency entry {} for tenant {}: {}", messageId, tenantId, ExceptionUtil.causeChain(e));
+            throw new T9tException(T9tException.JDBC_GENERAL_SQL, ExceptionUtil.causeChain(e));
+        }
+    }
+
+    /** Obtains a connection from the provider, which returns null if none is available. */
+    @Nonnull
+    protected Connection getConnection() {
+        final Connection conn = jdbcProvider.getJDBCConnection();
+        if (conn == null) {
+            LOGGER.error("No JDBC connection available for the idempotency store");
+            throw new T9tException(T9tException.JDBC_GENERAL_SQL, "No JDBC connection available for the idempotency store");
+        }
+        return conn;
+    }
+
+    /** Inserts a new entry and returns true, or returns false if an entry exists already. */
+    protected boolean tryInsert(final Connection conn, final String tenantId, final UUID messageId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_CLAIM)) {
+            ps.setString(1, tenantId);
+            ps.setObject(2, messageId);
+            ps.setTimestamp(3, Timestamp.from(Instant.now()));
+            ps.executeUpdate();
+            return true;
+        } catch (final SQLException e) {
+            final String sqlState = e.getSQLState();
+            if (sqlState != null && sqlState.startsWith(SQLSTATE_CLASS_INTEGRITY_CONSTRAINT_VIOLATION)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Claims an entry which has been processing for longer than the processing timeout, and returns true if successful.
+     * The update is conditional, therefore at most one of several concurrent callers succeeds.
+     */
+    protected boolean tryTakeOver(final Connection conn, final String tenantId, final UUID messageId) throws SQLException {
+        final Instant now = Instant.now();
+        try (PreparedStatement ps = conn.prepareStatement(SQL_TAKEOVER)) {
+            ps.setTimestamp(1, Timestamp.from(now));
+            ps.setString(2, tenantId);
+            ps.setObject(3, messageId);
+            ps.setTimestamp(4, Timestamp.from(now.minusSeconds(processingTimeoutInSeconds)));
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /** Reads an existing entry. Returns null if there is none. */
+    @Nullable
+    protected ServiceResponse read(final Connection conn, final String tenantId, final UUID messageId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_READ)) {
+            ps.setString(1, tenantId);
+            ps.setObject(2, messageId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                final byte[] response = rs.getBytes(2);
+                if (response == null) {
+                    return stillProcessing(tenantId, messageId);
+                }
+                final BonaPortable obj = new CompactByteArrayParser(response, 0, -1).readRecord();
+                if (obj instanceof ServiceResponse resp) {
+                    resp.freeze();
+                    return resp;
+                }
+                LOGGER.error("Stored idempotency entry {} for tenant {} is of unexpected type {}", messageId, tenantId,
+                  obj == null ? "null" : obj.ret$PQON());
+                throw new T9tException(T9tException.JDBC_BAD_TYPE_RETURNED, obj == null ? "null" : obj.ret$PQON());
+            }
+        } catch (final MessageParserException e) {
+            LOGGER.error("Could not deserialize idempotency entry {} for tenant {}: {}", messageId, tenantId, ExceptionUtil.causeChain(e));
+            throw new T9tException(T9tException.JDBC_BAD_TYPE_RETURNED, ExceptionUtil.causeChain(e));
+        }
+    }
+
+    @Override
+    public void storeResults(@Nonnull final List<Result> results) {
+        try (Connection conn = getConnection();
+          PreparedStatement update = conn.prepareStatement(SQL_UPDATE);
+          PreparedStatement delete = conn.prepareStatement(SQL_DELETE)) {
+            int numUpdates = 0;
+            int numDeletes = 0;
+            for (final Result result : results) {
+                if (result.response() == null) {
+                    delete.setString(1, result.tenantId());
+                    delete.setObject(2, result.messageId());
+                    delete.addBatch();
+                    ++numDeletes;
+                } else {
+                    update.setInt(1, result.response().getReturnCode());
+                    update.setBytes(2, CompactByteArrayComposer.marshalAsByteArray(StaticMeta.OUTER_BONAPORTABLE, result.response()));
+                    update.setString(3, result.tenantId());
+                    update.setObject(4, result.messageId());
+                    update.addBatch();
+                    ++numUpdates;
+                }
+            }
+            if (numUpdates > 0) {
+                update.executeBatch();
+            }
+            if (numDeletes > 0) {
+                delete.executeBatch();
+            }
+            LOGGER.trace("Stored {} idempotency results and removed {} entries", numUpdates, numDeletes);
+        } catch (final SQLException e) {
+            LOGGER.error("Could not store {} idempotency results: {}", results.size(), ExceptionUtil.causeChain(e));
+            throw new T9tException(T9tException.JDBC_GENERAL_SQL, ExceptionUtil.causeChain(e));
+        }
+    }
+
+    @Override
+    public void purgeOlderThan(@Nonnull final Instant cutoff) {
+        try (Connection conn = getConnection();
+          PreparedStatement ps = conn.prepareStatement(SQL_PURGE)) {
+            ps.setTimestamp(1, Timestamp.from(cutoff));
+            final int num = ps.executeUpdate();
+            if (num > 0) {
+                LOGGER.debug("Purged {} idempotency entries created before {}", num, cutoff);
+            }
+        } catch (final SQLException e) {
+            LOGGER.error("Could not purge idempotency entries: {}", ExceptionUtil.causeChain(e));
+            throw new T9tException(T9tException.JDBC_GENERAL_SQL, ExceptionUtil.causeChain(e));
+        }
+    }
+
+    /** Creates the response which indicates that a request with this messageId is currently being processed. */
+    @Nonnull
+    public static ServiceResponse stillProcessing(@Nonnull final String tenantId, @Nonnull final UUID messageId) {
+        final ServiceResponse inProgress = new ServiceResponse();
+        inProgress.setMessageId(messageId);
+        inProgress.setTenantId(tenantId);
+        inProgress.setReturnCode(T9tException.REQUEST_STILL_PROCESSING);
+        inProgress.setErrorMessage(T9tException.MSG_REQUEST_STILL_PROCESSING);
+        inProgress.freeze();
+        return inProgress;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.be.impl;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link MeterBinder} for exporting lock contention statistics of {@link MutexSingleJVM}.<br>
+ * Sample output:
+ * <pre>
+ * t9t_mutex_active 3.0
+ * t9t_mutex_acquired_total 5000.0
+ * t9t_mutex_wait_time_seconds_count 120.0
+ * t9t_mutex_wait_time_seconds_sum 4.2
+ * t9t_mutex_timeouts_total 2.0
+ * </pre>
+ */
+public class MutexMetrics implements MeterBinder {
+
+    private static final String PREFIX = "t9t.mutex";
+
+    private static final String METRIC_ACTIVE = PREFIX + ".active";
+    private static final String METRIC_ACTIVE_DESC = "Number of objects currently locked or waited for";
+
+    private static final String METRIC_ACQUIRED = PREFIX + ".acquired";
+    private static final String METRIC_ACQUIRED_DESC = "Number of locks obtained";
+
+    private static final String METRIC_WAIT_TIME = PREFIX + ".wait.time";
+    private static final String METRIC_WAIT_TIME_DESC = "Time spent waiting for a lock held by a different thread";
+
+    private static final String METRIC_TIMEOUTS = PREFIX + ".timeouts";
+    private static final String METRIC_TIMEOUTS_DESC = "Number of lock attempts which gave up after the timeout";
+
+    private final Map<?, ?> activeLocks;
+
+    private volatile Counter acquired;
+    private volatile Timer waitTime;
+    private volatile Counter timeouts;
+
+    public MutexMetrics(final Map<?, ?> activeLocks) {
+        this.activeLocks = activeLocks;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder(METRIC_ACTIVE, () -> activeLocks.size()).description(METRIC_ACTIVE_DESC).register(registry);
+        acquired = Counter.builder(METRIC_ACQUIRED).description(METRIC_ACQUIRED_DESC).register(registry);
+        waitTime = Timer.builder(METRIC_WAIT_TIME).description(METRIC_WAIT_TIME_DESC).publishPercentileHistogram().register(registry);
+        timeouts = Counter.builder(METRIC_TIMEOUTS).description(METRIC_TIMEOUTS_DESC).register(registry);
+    }
+
+    /** Records a lock which was free immediately. Does nothing as long as no registry has been bound. */
+    public void recordUncontended() {
+        final Counter currentAcquired = acquired;
+        if (currentAcquired != null) {
+            currentAcquired.increment();
+        }
+    }
+
+    /** Records a lock which has been obtained after waiting. */
+    public void recordContended(final long waitTimeInNanos) {
+        recordUncontended();
+        final Timer currentWaitTime = waitTime;
+        if (currentWaitTime != null) {
+            currentWaitTime.record(waitTimeInNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Records a lock attempt which timed out. */
+    public void recordTimeout() {
+        final Counter currentTimeouts = timeouts;
+        if (currentTimeouts != null) {
+            currentTimeouts.increment();
+        }
+    }
+}
@@ -15,42 +15,111 @@
  */
 package com.arvatosystems.t9t.base.be.impl;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.jpaw.dp.Jdp;
 import de.jpaw.dp.Singleton;
 import de.jpaw.util.ApplicationException;
 import de.jpaw.util.ExceptionUtil;
 
 import com.arvatosystems.t9t.base.T9tException;
 import com.arvatosystems.t9t.base.services.IMutex;
+import com.arvatosystems.t9t.metrics.IMetricsProvider;
 
+/**
+ * Mutex implementation for a single JVM, based on a table of reference counted locks.
+ * An entry exists as long as any thread holds or waits for the lock of that objectRef, therefore all threads always use the same lock
+ * for a given objectRef. The locks do not pin virtual threads, and support waiting with a timeout.
+ */
 @Singleton
 public class MutexSingleJVM<T> implements IMutex<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(MutexSingleJVM.class);
-    private static final Cache<Long, Object> ACTIVE_MUTEXES = Caffeine.newBuilder().expireAfterAccess(1, TimeUnit.MINUTES).build();
+    private static final long NO_TIMEOUT = -1L;
+
+    private static final class LockEntry {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users;  // number of threads holding or waiting for the lock, only modified within compute()
+    }
+
+    private static final Map<Long, LockEntry> ACTIVE_MUTEXES = new ConcurrentHashMap<>();
+    private static final MutexMetrics METRICS = new MutexMetrics(ACTIVE_MUTEXES);
+    private static final AtomicBoolean METRICS_REGISTERED = new AtomicBoolean();
+
+    public MutexSingleJVM() {
+        if (METRICS_REGISTERED.compareAndSet(false, true)) {
+            final IMetricsProvider metricsProvider = Jdp.getOptional(IMetricsProvider.class);
+            if (metricsProvider != null) {
+                metricsProvider.addMeter(METRICS);
+            }
+        }
+    }
 
     @Override
     public T runSynchronizedOn(final Long objectRef, final Supplier<T> code) {
+        return runLocked(objectRef, NO_TIMEOUT, code);
+    }
 
+    @Override
+    public T runSynchronizedOn(final Long objectRef, final long timeout, final TimeUnit unit, final Supplier<T> code) {
+        return runLocked(objectRef, Math.max(0L, unit.toNanos(timeout)), code);
+    }
+
+    protected T runLocked(final Long objectRef, final long timeoutInNanos, final Supplier<T> code) {
+        final LockEntry entry = ACTIVE_MUTEXES.compute(objectRef, (ref, existing) -> {
+            final LockEntry result = existing != null ? existing : new LockEntry();
+            ++result.users;
+            return result;
+        });
         try {
-            // acquire the lock. For every objectRef there is a separate lock
-            final Object lock = ACTIVE_MUTEXES.get(objectRef, unused -> {
-                return new Object();
-            });
-            synchronized (lock) {
+            acquire(objectRef, entry.lock, timeoutInNanos);
+            try {
                 return code.get();
+            } catch (final Exception e) {
+                LOGGER.error("running synchronized exited with {}", ExceptionUtil.causeChain(e));
+                if (e instanceof ApplicationException ae)
+                    throw ae;
+                if (e.getCause() instanceof ApplicationException ae)
+                    throw ae;
+                throw new T9tException(T9tException.GENERAL_EXCEPTION, e.getCause());
+            } finally {
+                entry.lock.unlock();
+            }
+        } finally {
+            // drop the entry once no other thread is interested in it any more
+            ACTIVE_MUTEXES.compute(objectRef, (ref, existing) -> --existing.users == 0 ? null : existing);
+        }
+    }
+
+    private void acquire(final Long objectRef, final ReentrantLock lock, final long timeoutInNanos) {
+        if (lock.tryLock()) {
+            METRICS.recordUncontended();
+            return;
+        }
+        final long start = System.nanoTime();
+        if (timeoutInNanos == NO_TIMEOUT) {
+            lock.lock();
+        } else {
+            boolean locked = false;
+            try {
+                locked = timeoutInNanos > 0L && lock.tryLock(timeoutInNanos, TimeUnit.NANOSECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new T9tException(T9tException.THREAD_INTERRUPTED, "waiting for lock on " + objectRef);
+            }
+            if (!locked) {
+                METRICS.recordTimeout();
+                LOGGER.debug("Could not obtain lock on {} within {} ms", objectRef, TimeUnit.NANOSECONDS.toMillis(timeoutInNanos));
+                throw new T9tException(T9tException.COULD_NOT_ACQUIRE_LOCK, "objectRef " + objectRef);
             }
-        } catch (final Exception e) {
-            LOGGER.error("running synchronized exited with {}", ExceptionUtil.causeChain(e));
-            if (e.getCause() instanceof ApplicationException ae)
-                throw ae;
-            throw new T9tException(T9tException.GENERAL_EXCEPTION, e.getCause());
         }
+        METRICS.recordContended(System.nanoTime() - start);
     }
 }
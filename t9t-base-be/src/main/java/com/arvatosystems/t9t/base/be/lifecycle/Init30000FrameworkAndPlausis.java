@@ -20,15 +20,16 @@ import org.slf4j.LoggerFactory;
 
 import de.jpaw.dp.Jdp;
 import de.jpaw.dp.Startup;
-import de.jpaw.dp.StartupOnly;
+import de.jpaw.dp.StartupShutdown;
 
 import com.arvatosystems.t9t.base.services.AbstractRequestHandler;
+import com.arvatosystems.t9t.base.services.IIdempotencyChecker;
 import com.arvatosystems.t9t.base.services.ITextSearch;
 import com.arvatosystems.t9t.cfg.be.T9tServerConfiguration;
 import com.arvatosystems.t9t.server.services.IRequestLogger;
 
 @Startup(30000)
-public class Init30000FrameworkAndPlausis implements StartupOnly {
+public class Init30000FrameworkAndPlausis implements StartupShutdown {
     private static final Logger LOGGER = LoggerFactory.getLogger(Init30000FrameworkAndPlausis.class);
     private static final String UNSPECIFIED = "noop";
 
@@ -44,10 +45,21 @@ public class Init30000FrameworkAndPlausis implements StartupOnly {
         Jdp.bindByQualifierWithFallback(IRequestLogger.class,
             cfg.getLogWriterConfiguration() == null ? UNSPECIFIED : cfg.getLogWriterConfiguration().getStrategy());
 
+        // select the idempotency checker (the single node implementation is the default)
+        if (cfg.getApplicationConfiguration() != null && cfg.getApplicationConfiguration().getIdempotencyStrategy() != null) {
+            Jdp.bindByQualifierWithFallback(IIdempotencyChecker.class, cfg.getApplicationConfiguration().getIdempotencyStrategy());
+        }
+
         // launch SOLR or a comparable text search engine
         Jdp.bindByQualifierWithFallback(ITextSearch.class,
             cfg.getSearchConfiguration() == null ? UNSPECIFIED : cfg.getSearchConfiguration().getStrategy());
 
         // Jdp.bindByQualifierWithFallback(ICustomization.class, "hammanish");  // use the default
     }
+
+    @Override
+    public void onShutdown() {
+        // write the results of the cluster wide idempotency checker which are still pending
+        Jdp.getRequired(IIdempotencyChecker.class).flushPendingResults();
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.be.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.jpaw.dp.Jdp;
+import de.jpaw.util.ApplicationException;
+
+import com.arvatosystems.t9t.base.api.RequestParameters;
+import com.arvatosystems.t9t.base.api.ServiceResponse;
+import com.arvatosystems.t9t.base.request.BatchWithResponsesRequest;
+import com.arvatosystems.t9t.base.request.BatchWithResponsesResponse;
+import com.arvatosystems.t9t.base.services.AbstractRequestHandler;
+import com.arvatosystems.t9t.base.services.IExecutor;
+import com.arvatosystems.t9t.base.services.RequestContext;
+
+public class BatchWithResponsesRequestHandler extends AbstractRequestHandler<BatchWithResponsesRequest> {
+
+    private final IExecutor messaging = Jdp.getRequired(IExecutor.class);
+
+    @Override
+    public ServiceResponse execute(final RequestContext ctx, final BatchWithResponsesRequest request) {
+        final List<ServiceResponse> responses = new ArrayList<>(request.getCommands().size());
+        for (final RequestParameters r : request.getCommands()) {
+            final ServiceResponse resp = messaging.executeSynchronousWithPermissionCheck(ctx, r);
+            if (resp.getReturnCode() >= 2 * ApplicationException.CLASSIFICATION_FACTOR) {
+                return resp; // technical error: stop, the transaction will be rolled back
+            }
+            responses.add(resp);
+            ctx.incrementProgress();  // one per request done
+        }
+        final BatchWithResponsesResponse batchResponse = new BatchWithResponsesResponse();
+        batchResponse.setResponses(responses);
+        return batchResponse;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.be.stubs;
+
+import de.jpaw.dp.Any;
+import de.jpaw.dp.Fallback;
+import de.jpaw.dp.Singleton;
+
+import com.arvatosystems.t9t.server.services.IRequestPhaseTimer;
+
+@Fallback
+@Any
+@Singleton
+public class NoopRequestPhaseTimer implements IRequestPhaseTimer {
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void record(final Phase phase, final String pqon, final String tenantId, final long durationInNanos) {
+        // NO OP
+    }
+}
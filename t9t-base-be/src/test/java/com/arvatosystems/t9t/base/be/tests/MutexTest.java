@@ -15,15 +15,18 @@
  */
 package com.arvatosystems.t9t.base.be.tests;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.arvatosystems.t9t.base.T9tException;
 import com.arvatosystems.t9t.base.be.impl.MutexSingleJVM;
 import com.arvatosystems.t9t.base.services.IMutex;
 
@@ -58,4 +61,30 @@ public class MutexTest {
         execs.shutdown();
         execs.awaitTermination(2, TimeUnit.MINUTES);
     }
+
+    @Test
+    public void mutexTimeoutTest() throws InterruptedException {
+        final IMutex<Integer> mutex = new MutexSingleJVM<Integer>();
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread holder = new Thread(() -> mutex.runSynchronizedOn(4711L, () -> {
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                LOGGER.error("Caught an InterruptedException.", e);
+            }
+            return 1;
+        }));
+        holder.start();
+        locked.await();
+
+        final T9tException e = Assertions.assertThrows(T9tException.class, () -> mutex.runSynchronizedOn(4711L, 10L, TimeUnit.MILLISECONDS, () -> 2));
+        Assertions.assertEquals(T9tException.COULD_NOT_ACQUIRE_LOCK, e.getErrorCode());
+        Assertions.assertEquals(3, mutex.runSynchronizedOn(4712L, 0L, TimeUnit.MILLISECONDS, () -> 3));  // other objects are not affected
+
+        release.countDown();
+        holder.join();
+        Assertions.assertEquals(4, mutex.runSynchronizedOn(4711L, 0L, TimeUnit.MILLISECONDS, () -> 4));
+    }
 }
@@ -19,9 +19,11 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
 
 import de.jpaw.bonaparte.core.BonaPortable;
 import de.jpaw.bonaparte.jpa.BonaPersistableKey;
@@ -177,6 +179,19 @@ public interface IEntityMapper<KEY extends Serializable, DTO extends BonaPortabl
     @Nonnull
     ReadAllResponse<DTO, TRACKING> createReadAllResponse(@Nonnull List<ENTITY> data, @Nullable OutputSessionParameters op) throws Exception;
 
+    /**
+     * Exports a stream of entities via IOutputSession and returns the sinkRef.
+     * The entities are mapped and written in chunks. After each chunk, the persistence context of the entity manager is cleared,
+     * therefore the memory required does not depend on the size of the result. Pending changes are flushed before the export starts.
+     * @param data input data (stream of entities, usually obtained by IResolverAnyKey.searchStream)
+     * @param op  OutputSessionParameters of the export
+     * @param em the entity manager which loaded the entities, or null if the entities should not be detached
+     * @return the full web service response structure
+     */
+    @Nonnull
+    ReadAllResponse<DTO, TRACKING> createReadAllResponse(@Nonnull Stream<ENTITY> data, @Nonnull OutputSessionParameters op, @Nullable EntityManager em)
+      throws Exception;
+
     /** returns the entity's tenantId without the use of reflection, or null if the entity does not contain
      * a tenantId field.
      * @param e
@@ -17,16 +17,19 @@ package com.arvatosystems.t9t.base.jpa;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.stream.Stream;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaQuery;
 
 import de.jpaw.bonaparte.jpa.BonaPersistableKey;
 import de.jpaw.bonaparte.jpa.BonaPersistableTracking;
 import de.jpaw.bonaparte.pojos.api.SearchFilter;
+import de.jpaw.bonaparte.pojos.api.SortColumn;
 import de.jpaw.bonaparte.pojos.api.TrackingBase;
 
 import com.arvatosystems.t9t.base.T9tException;
@@ -173,6 +176,29 @@ public interface IResolverAnyKey<
     @Nonnull
     List<ENTITY> search(@Nonnull SearchCriteria criteria);
 
+    /**
+     * Performs a generic search and returns the result set (full entities) as a stream, which reads the rows from the database
+     * in portions of fetchSize while being consumed. The entities are loaded read-only.
+     * Intended for exports of large result sets. The stream must be closed after use, because it holds an open database cursor.
+     *
+     * @param criteria the search, sort and result subset criteria
+     * @param fetchSize the number of rows to transfer per database roundtrip
+     * @return a stream of entities
+     */
+    @Nonnull
+    Stream<ENTITY> searchStream(@Nonnull SearchCriteria criteria, int fetchSize);
+
+    /**
+     * Returns the continuation token for the next page of a search with keyset pagination, or null if keyset pagination has not been requested,
+     * or the page was the last one. The token contains the sort column values of the last entity of the page.
+     *
+     * @param criteria the search criteria the page has been obtained with
+     * @param page the result of the search
+     * @return the token to pass as continuationToken in the next request, or null
+     */
+    @Nullable
+    String getContinuationToken(@Nonnull SearchCriteria criteria, @Nonnull List<ENTITY> page);
+
     /**
      * Performs generic search and return the size of the result set.
      *
@@ -194,6 +220,38 @@ public interface IResolverAnyKey<
     @Nonnull
     Long count(@Nonnull SearchFilter filter, Boolean applyDistinct);
 
+    /**
+     * Constructs the query used by count(), including the tenant restriction. The query can be executed by a different entity manager,
+     * for example to count asynchronously. It must be constructed within the request context, because the tenant is taken from it.
+     *
+     * @param filter the search filter
+     * @param applyDistinct if TRUE, count distinct rows
+     * @return the count query
+     */
+    @Nonnull
+    CriteriaQuery<Long> buildCountQuery(@Nullable SearchFilter filter, @Nullable Boolean applyDistinct);
+
+    /**
+     * Constructs a query for the keys of all entities which match the filter, including the tenant restriction.
+     * As for buildCountQuery(), the query can be executed by a different entity manager, but must be constructed within the request context.
+     *
+     * @param filter the search filter
+     * @param sortColumns the order of the keys, or null if any order is acceptable. The default sort columns are appended, to make the order unique.
+     * @return the key query, without pagination
+     */
+    @Nonnull
+    CriteriaQuery<KEY> buildKeyQuery(@Nullable SearchFilter filter, @Nullable List<SortColumn> sortColumns);
+
+    /**
+     * Returns an estimate of the number of rows which match the filter, based on database statistics, or null if no estimate is available.
+     * Estimates are currently provided for unfiltered searches on PostgreSQL only, and only if no tenant restriction applies.
+     *
+     * @param filter the search filter
+     * @return the estimated number of rows, or null
+     */
+    @Nullable
+    Long estimateCount(@Nullable SearchFilter filter);
+
     /**
      * Performs a generic search and return the result set (keys only).
      *
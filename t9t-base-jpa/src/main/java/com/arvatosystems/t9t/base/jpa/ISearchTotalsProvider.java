@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.jpa;
+
+import jakarta.annotation.Nonnull;
+
+import com.arvatosystems.t9t.base.search.SearchCriteria;
+import com.arvatosystems.t9t.base.search.SinkCreatedResponse;
+import com.arvatosystems.t9t.base.services.RequestContext;
+
+/**
+ * Determines the total number of results of searches with countTotals, if the page does not contain all results.
+ * The strategy is selected by searchTotalsStrategy of the application configuration:
+ * <ul>
+ * <li>"exact" (default): counts within the request.</li>
+ * <li>"cached": counts within the request, and reuses the result for searches with the same filter of the same tenant for a short time.</li>
+ * <li>"async": returns a cached count if available, otherwise starts the count in background and returns no total for now.</li>
+ * <li>"estimate": as "async", but returns an estimate based on database statistics while the exact count is not yet available.</li>
+ * </ul>
+ */
+public interface ISearchTotalsProvider {
+    String STRATEGY_EXACT    = "exact";
+    String STRATEGY_CACHED   = "cached";
+    String STRATEGY_ASYNC    = "async";
+    String STRATEGY_ESTIMATE = "estimate";
+
+    /** Sets numResults of the response, and numResultsEstimated if the value is an estimate. numResults stays null if no total is available yet. */
+    void setTotals(@Nonnull RequestContext ctx, @Nonnull IResolverAnyKey<?, ?, ?> resolver, @Nonnull SearchCriteria criteria,
+      @Nonnull SinkCreatedResponse response);
+}
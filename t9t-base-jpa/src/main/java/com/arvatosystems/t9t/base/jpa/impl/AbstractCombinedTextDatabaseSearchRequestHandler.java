@@ -16,14 +16,21 @@
 package com.arvatosystems.t9t.base.jpa.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaQuery;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,10 +50,13 @@ import de.jpaw.bonaparte.pojos.apiw.Ref;
 import de.jpaw.bonaparte.util.FreezeTools;
 import de.jpaw.bonaparte.util.ToStringHelper;
 import de.jpaw.dp.Jdp;
+import de.jpaw.util.ExceptionUtil;
 
 import com.arvatosystems.t9t.base.T9tException;
+import com.arvatosystems.t9t.base.T9tUtil;
 import com.arvatosystems.t9t.base.jpa.IEntityMapper;
 import com.arvatosystems.t9t.base.jpa.IResolverSurrogateKey;
+import com.arvatosystems.t9t.base.jpa.ormspecific.IQueryHintSetter;
 import com.arvatosystems.t9t.base.search.ReadAllResponse;
 import com.arvatosystems.t9t.base.search.SearchCriteria;
 import com.arvatosystems.t9t.base.search.SearchFilterMatchTypeEnum;
@@ -61,6 +71,7 @@ import com.arvatosystems.t9t.base.services.ITextSearch.DocumentTypeNeeded;
 import com.arvatosystems.t9t.base.services.RequestContext;
 import com.arvatosystems.t9t.cfg.be.ApplicationConfiguration;
 import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
 
 /**
  * The combined search evaluates if we have filter and/or sort criteria for DB and SOLR,
@@ -78,6 +89,11 @@ import com.arvatosystems.t9t.cfg.be.ConfigProvider;
  * - BOTH can sort
  * In case of no sort but SOLR filter criteria, the ordering of the SOLR result is preserved
  * because it is assumed that it reflects the phonetic match quality (relevance).
+ *
+ * Searches which require both engines are first attempted with a single round trip per engine: the keys matching the DB filter
+ * are read by a background thread (or, if all are busy, by the request thread before), while the request thread queries SOLR,
+ * and both results are intersected in memory.
+ * Only if one of the results exceeds combinedSearchMaxRefs, the iterative search (alternating between the engines) is used.
  */
 public abstract class AbstractCombinedTextDatabaseSearchRequestHandler<
   REF extends Ref,
@@ -90,7 +106,15 @@ public abstract class AbstractCombinedTextDatabaseSearchRequestHandler<
 
     static final int MAX_ITERATIONS = 50; // limit the number of loop iterations. Will produce results too small, but that
                                           // is better than choking the system.
+    static final int DEFAULT_COMBINED_SEARCH_MAX_REFS = 50_000;
+    private static final int KEY_FETCH_SIZE = 5000;
+    private static final int COMBINED_SEARCH_MAX_THREADS = 32;
+    /** Runs the DB part of single round trip combined searches, while the request thread queries the text search engine. Never queues tasks. */
+    private static final ExecutorService COMBINED_SEARCH_EXECUTOR
+      = ExecutorServiceFactory.newCallerRunsExecutor("t9t-CombinedSearch-", COMBINED_SEARCH_MAX_THREADS);
+
     protected final IExecutor executor = Jdp.getRequired(IExecutor.class);
+    protected final IQueryHintSetter queryHintSetter = Jdp.getRequired(IQueryHintSetter.class);
     protected final ISearchTools searchTools = Jdp.getRequired(ISearchTools.class);
     protected final ITextSearch textSearch = Jdp.getRequired(ITextSearch.class);
     protected final IResolverSurrogateKey<REF, TRACKING, ENTITY> resolver;
@@ -102,6 +126,8 @@ public abstract class AbstractCombinedTextDatabaseSearchRequestHandler<
     protected final BonaPortableClass<SearchRequest<DTO, TRACKING>> bclass;
     protected final ApplicationConfiguration applConfig = ConfigProvider.getConfiguration().getApplicationConfiguration();
     protected final boolean useShadowDatabase = applConfig != null && Boolean.TRUE.equals(applConfig.getUseShadowDatabaseForCombinedTextSearch());
+    protected final int combinedSearchMaxRefs = applConfig == null
+      ? DEFAULT_COMBINED_SEARCH_MAX_REFS : T9tUtil.nvl(applConfig.getCombinedSearchMaxRefs(), DEFAULT_COMBINED_SEARCH_MAX_REFS);
 
     public AbstractCombinedTextDatabaseSearchRequestHandler(final IResolverSurrogateKey<REF, TRACKING, ENTITY> resolver,
             final IEntityMapper<Long, DTO, TRACKING, ENTITY> mapper,
@@ -298,6 +324,9 @@ public abstract class AbstractCombinedTextDatabaseSearchRequestHandler<
         final SearchFilter dbRequestFilter = dbRequest.getSearchFilter(); // save for later use
         searchTools.mapNames(solrRequest, textSearchFieldMappings);
         processPrefixes(dbRequest);
+        if (executeBOTHSearchSingleRoundTrip(ctx, rq, solrRequest, dbRequest, true, finalResultList)) {
+            return;
+        }
 
         int resultsToSkip = rq.getOffset();
         final int increasedLimit = Math.min(rq.getLimit() * 4, 1000); // use a higher limit because we expect to lose some when intersecting with the
@@ -377,6 +406,9 @@ public abstract class AbstractCombinedTextDatabaseSearchRequestHandler<
         LOGGER.debug("Prefixes and Names mapped");
         xtensiveLog(solrRequest, "SOLR");
         xtensiveLog(dbRequest, "DB");
+        if (executeBOTHSearchSingleRoundTrip(ctx, rq, solrRequest, dbRequest, false, finalResultList)) {
+            return;
+        }
 
         int resultsToSkip = rq.getOffset();
         // use a higher limit because we expect to lose some when intersecting with the
@@ -445,6 +477,126 @@ public abstract class AbstractCombinedTextDatabaseSearchRequestHandler<
         }
     }
 
+    /**
+     * Performs a combined search with a single round trip per engine. The keys which match the DB filter are read by a background thread
+     * with a separate entity manager, while the request thread obtains the refs from SOLR. The results are intersected in memory,
+     * in the order of the driving engine, and the entities are read for the requested page only.
+     * The requests must have been mapped for their engines already.
+     *
+     * Returns false (and leaves finalResultList untouched) if a result exceeded combinedSearchMaxRefs and the page could therefore be incomplete.
+     * In that case, the caller must fall back to the iterative search. If the SOLR result decides this (or is empty), the DB part is cancelled
+     * without waiting for it.
+     */
+    protected boolean executeBOTHSearchSingleRoundTrip(final RequestContext ctx, final REQ rq, final SearchRequest<DTO, TRACKING> solrRequest,
+      final SearchRequest<DTO, TRACKING> dbRequest, final boolean drivenBySolr, final ArrayList<ENTITY> finalResultList) {
+        if (combinedSearchMaxRefs <= 0 || rq.getLimit() <= 0) {
+            return false;
+        }
+        // the query must be built within the request context, because it contains the tenant restriction
+        final CriteriaQuery<Long> keyQuery = resolver.buildKeyQuery(dbRequest.getSearchFilter(), drivenBySolr ? null : dbRequest.getSortColumns());
+        final EntityManagerFactory emf = resolver.getEntityManager().getEntityManagerFactory();
+        final Future<List<Long>> dbKeysFuture = COMBINED_SEARCH_EXECUTOR.submit(() -> readKeys(emf, keyQuery));
+
+        final List<Long> solrRefs;
+        try {
+            solrRequest.setOffset(0);
+            solrRequest.setLimit(combinedSearchMaxRefs + 1);  // one more, to detect truncation
+            solrRefs = textSearch.search(ctx, solrRequest, documentName, keyFieldName);
+        } catch (final RuntimeException e) {
+            dbKeysFuture.cancel(true);
+            throw e;
+        }
+        final boolean solrComplete = solrRefs.size() <= combinedSearchMaxRefs;
+        if (solrRefs.isEmpty()) {
+            // the intersection is empty, whatever the DB returns
+            dbKeysFuture.cancel(true);
+            LOGGER.debug("Combined search: no SOLR refs, DB part cancelled");
+            return true;
+        }
+        if (!drivenBySolr && !solrComplete) {
+            dbKeysFuture.cancel(true);
+            LOGGER.debug("Combined search: SOLR result exceeds {} refs, using iterative search", combinedSearchMaxRefs);
+            return false;
+        }
+        final List<Long> dbKeys = awaitKeys(dbKeysFuture);
+        final boolean dbComplete = dbKeys.size() <= combinedSearchMaxRefs;
+        if (drivenBySolr && !dbComplete) {
+            LOGGER.debug("Combined search: DB result exceeds {} refs, using iterative search", combinedSearchMaxRefs);
+            return false;
+        }
+
+        // walk the driving result in its order, and keep the refs also contained in the other one
+        final List<Long> orderedRefs = drivenBySolr ? solrRefs : dbKeys;
+        final long[] otherRefs = toSortedArray(drivenBySolr ? dbKeys : solrRefs);
+        final int numOrderedRefs = Math.min(orderedRefs.size(), combinedSearchMaxRefs);
+        final List<Long> pageRefs = new ArrayList<>(rq.getLimit());
+        int resultsToSkip = rq.getOffset();
+        for (int i = 0; i < numOrderedRefs && pageRefs.size() < rq.getLimit(); ++i) {
+            final Long ref = orderedRefs.get(i);
+            if (Arrays.binarySearch(otherRefs, ref.longValue()) >= 0) {
+                if (resultsToSkip > 0) {
+                    --resultsToSkip;
+                } else {
+                    pageRefs.add(ref);
+                }
+            }
+        }
+        if (pageRefs.size() < rq.getLimit() && !(drivenBySolr ? solrComplete : dbComplete)) {
+            LOGGER.debug("Combined search: page incomplete within the first {} refs, using iterative search", combinedSearchMaxRefs);
+            return false;
+        }
+        LOGGER.debug("Single round trip combined search intersected {} SOLR refs with {} DB keys, {} on page", solrRefs.size(), dbKeys.size(),
+          pageRefs.size());
+        if (!pageRefs.isEmpty()) {
+            // obtain the entities of the page
+            final SearchRequest<DTO, TRACKING> pageRequest = bclass.newInstance();
+            pageRequest.setSearchFilter(new LongFilter("objectRef", null, null, null, pageRefs));
+            xfer(pageRefs, finalResultList, resolver.search(pageRequest, null), true);
+        }
+        return true;
+    }
+
+    /** Reads the keys of the DB part of a combined search, using a separate entity manager. Runs in a background thread. */
+    protected List<Long> readKeys(final EntityManagerFactory emf, final CriteriaQuery<Long> keyQuery) {
+        final EntityManager em = emf.createEntityManager();
+        try {
+            final TypedQuery<Long> query = em.createQuery(keyQuery);
+            queryHintSetter.setReadOnly(query);
+            queryHintSetter.setFetchSize(query, KEY_FETCH_SIZE);
+            query.setMaxResults(combinedSearchMaxRefs + 1);  // one more, to detect truncation
+            return query.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static List<Long> awaitKeys(final Future<List<Long>> keysFuture) {
+        try {
+            return keysFuture.get();
+        } catch (final InterruptedException e) {
+            keysFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new T9tException(T9tException.GENERAL_EXCEPTION, "Interrupted while waiting for the DB part of a combined search");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof T9tException t9tException) {
+                throw t9tException;
+            }
+            LOGGER.error("DB part of combined search failed: {}", ExceptionUtil.causeChain(e.getCause()));
+            throw new T9tException(T9tException.GENERAL_EXCEPTION, ExceptionUtil.causeChain(e.getCause()));
+        }
+    }
+
+    /** Converts refs into a sorted primitive array, which is compact and allows lookups by binary search. */
+    private static long[] toSortedArray(final List<Long> refs) {
+        final long[] sorted = new long[refs.size()];
+        int i = 0;
+        for (final Long ref : refs) {
+            sorted[i++] = ref.longValue();
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
     // add the entities of the temporary result in order, or, if that search was
     // done without sort, in order of the input refs
     protected void xfer(final List<Long> orderForNoSort, final ArrayList<ENTITY> finalResultList, final List<Long> temp) {
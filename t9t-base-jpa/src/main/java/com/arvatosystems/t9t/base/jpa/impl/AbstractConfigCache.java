@@ -19,15 +19,22 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.TypedQuery;
 
-import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.jpaw.bonaparte.core.BonaPortable;
 import de.jpaw.bonaparte.jpa.BonaPersistableKey;
 import de.jpaw.bonaparte.jpa.BonaPersistableTracking;
 import de.jpaw.bonaparte.pojos.api.TrackingBase;
@@ -42,14 +49,28 @@ import com.arvatosystems.t9t.base.jpa.IResolverAnyKey;
 import com.arvatosystems.t9t.base.jpa.ormspecific.IQueryHintSetter;
 import com.arvatosystems.t9t.base.services.ICacheInvalidationRegistry;
 import com.arvatosystems.t9t.base.services.RequestContext;
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
+import com.arvatosystems.t9t.metrics.IMetricsProvider;
 
+/**
+ * Cache of configuration records, which are loaded per tenant.
+ * Entries are refreshed in the background once they are older than the refresh interval, while the previous data is still served.
+ * Invalidation events remove a single record if they specify a key of type {@link Ref}, and otherwise all data of the tenant of the event.
+ * Hit, miss and load time statistics are exported as metrics with tag cache = simple name of the DTO.
+ */
 public abstract class AbstractConfigCache<
   DTO extends Ref,
   TRACKING extends TrackingBase,
   ENTITY extends BonaPersistableKey<Long> & BonaPersistableTracking<TRACKING>> {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractConfigCache.class);
+    protected static final long DEFAULT_REFRESH_AFTER_MINUTES = 5L;
+    protected static final long DEFAULT_EXPIRE_AFTER_MINUTES = 30L;  // only reached if background refreshes fail or the tenant is not used
+    private static final int REFRESH_POOL_SIZE = 2;
+    /** Shared by all config caches, refreshes are rare and short. */
+    private static final ExecutorService REFRESH_EXECUTOR = ExecutorServiceFactory.newBackgroundExecutor("t9t-ConfigCacheRefresh-", REFRESH_POOL_SIZE);
+
     /** The cache is a 2 level map. The index of the first level is the tenantId. A cache always contains all entries for a given tenant or none. */
-    protected final Cache<String, Map<Ref, DTO>> configCache = Caffeine.newBuilder().expireAfterWrite(5L, TimeUnit.MINUTES).build();
+    protected final LoadingCache<String, Map<Ref, DTO>> configCache;
     protected final IResolverAnyKey<Long, TRACKING, ENTITY> resolver;
     protected final Class<DTO> dtoClass;
     protected final boolean fallbackDefaultTenant;
@@ -59,12 +80,39 @@ public abstract class AbstractConfigCache<
     protected final IQueryHintSetter           queryHintSetter = Jdp.getOptional(IQueryHintSetter.class);
 
     protected AbstractConfigCache(final IResolverAnyKey<Long, TRACKING, ENTITY> resolver, final Class<DTO> dtoClass, final boolean fallbackDefaultTenant) {
+        this(resolver, dtoClass, fallbackDefaultTenant, DEFAULT_REFRESH_AFTER_MINUTES, DEFAULT_EXPIRE_AFTER_MINUTES);
+    }
+
+    protected AbstractConfigCache(final IResolverAnyKey<Long, TRACKING, ENTITY> resolver, final Class<DTO> dtoClass, final boolean fallbackDefaultTenant,
+      final long refreshAfterMinutes, final long expireAfterMinutes) {
         LOGGER.info("Creating a new Cache for {}", dtoClass.getSimpleName());
         this.resolver = resolver;
         this.dtoClass = dtoClass;
         this.fallbackDefaultTenant = fallbackDefaultTenant;
+        this.configCache = Caffeine.newBuilder()
+          .refreshAfterWrite(refreshAfterMinutes, TimeUnit.MINUTES)
+          .expireAfterWrite(Math.max(refreshAfterMinutes, expireAfterMinutes), TimeUnit.MINUTES)
+          .executor(REFRESH_EXECUTOR)
+          .recordStats()
+          .build(new CacheLoader<String, Map<Ref, DTO>>() {
+              @Override
+              public Map<Ref, DTO> load(final String tenantId) {
+                  // initial load: runs on the requesting thread, within its transaction
+                  return readWholeTenant(tenantId);
+              }
+
+              @Override
+              public Map<Ref, DTO> reload(final String tenantId, final Map<Ref, DTO> oldValue) {
+                  // refresh ahead: runs in the background, the previous data is served meanwhile
+                  return readWholeTenantInBackground(tenantId);
+              }
+          });
         if (cacheInvalidationRegistry != null)
-            cacheInvalidationRegistry.registerInvalidator(dtoClass.getSimpleName(), (x) -> configCache.invalidateAll());
+            cacheInvalidationRegistry.registerInvalidator(dtoClass.getSimpleName(), this::invalidate);
+        final IMetricsProvider metricsProvider = Jdp.getOptional(IMetricsProvider.class);
+        if (metricsProvider != null) {
+            metricsProvider.addMeter(new CaffeineCacheMetrics<>(configCache, dtoClass.getSimpleName(), Tags.of("type", "config")));
+        }
     }
 
     /** Retrieve DTO by key. key is known to be not null. Return null if no data is available. */
@@ -87,7 +135,7 @@ public abstract class AbstractConfigCache<
     protected DTO getConfigForTenant(final String tenantId, final Ref key) {
         final Map<Ref, DTO> tenantCache;
         try {
-            tenantCache = configCache.get(tenantId, unused -> readWholeTenant(tenantId));
+            tenantCache = configCache.get(tenantId);
         } catch (final Exception e) {
             LOGGER.error("Cannot read {} for tenant {}: {}", dtoClass.getSimpleName(), tenantId, e);
             throw new T9tException(T9tException.RECORD_DOES_NOT_EXIST, ExceptionUtil.causeChain(e));
@@ -97,8 +145,71 @@ public abstract class AbstractConfigCache<
 
     protected abstract void populateCache(Map<Ref, DTO> cache, ENTITY e);
 
+    /**
+     * Invalidator for cache invalidation events. Runs in the context of the event, which has the tenant of the change.
+     * A key of type Ref with an objectRef updates this record only, other keys (or null) invalidate all data of the tenant.
+     */
+    protected void invalidate(final BonaPortable key) {
+        if (key instanceof Ref ref && ref.getObjectRef() != null) {
+            try {
+                refreshRecord(ref.getObjectRef());
+                return;
+            } catch (final Exception e) {
+                LOGGER.warn("Cannot refresh {} for objectRef {} ({}), invalidating the tenant", dtoClass.getSimpleName(), ref.getObjectRef(),
+                  ExceptionUtil.causeChain(e));
+            }
+        }
+        final String tenantId = ctxProvider.get().tenantId;
+        LOGGER.debug("Cache invalidation for {} for tenant {}", dtoClass.getSimpleName(), tenantId);
+        configCache.invalidate(tenantId);
+    }
+
+    /** Replaces a single record in all cached tenants, or removes it if it does not exist any more. */
+    protected void refreshRecord(final Long objectRef) {
+        final ENTITY e = resolver.getEntityManager().find(resolver.getEntityClass(), objectRef);  // read outside of the cache's locks
+        final String ownerTenantId = e == null ? null : resolver.getTenantId(e);
+        LOGGER.debug("Cache invalidation for {} for objectRef {} (tenant {})", dtoClass.getSimpleName(), objectRef, ownerTenantId);
+        for (final String tenantId : configCache.asMap().keySet()) {
+            configCache.asMap().computeIfPresent(tenantId, (unused, oldMap) -> {
+                // maps are never modified once published, therefore create a modified copy
+                final ConcurrentMap<Ref, DTO> newMap = new ConcurrentHashMap<>(oldMap.size() * 4, 0.75f, 1);
+                for (final Map.Entry<Ref, DTO> entry : oldMap.entrySet()) {
+                    if (!objectRef.equals(entry.getValue().getObjectRef())) {
+                        newMap.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                if (tenantId.equals(ownerTenantId)) {
+                    populateCache(newMap, e);
+                }
+                return newMap;
+            });
+        }
+    }
+
     protected Map<Ref, DTO> readWholeTenant(final String tenantId) {
-        final TypedQuery<ENTITY> query = resolver.getEntityManager().createQuery(
+        return readWholeTenant(resolver.getEntityManager(), tenantId);
+    }
+
+    /**
+     * Reads the tenant's data without a request context, using a separate entity manager.
+     * If this fails, the entry is removed, and the next access loads it synchronously.
+     */
+    protected Map<Ref, DTO> readWholeTenantInBackground(final String tenantId) {
+        try {
+            final EntityManager em = Jdp.getRequired(EntityManagerFactory.class).createEntityManager();
+            try {
+                return readWholeTenant(em, tenantId);
+            } finally {
+                em.close();
+            }
+        } catch (final Exception e) {
+            LOGGER.warn("Background refresh of {} for tenant {} failed: {}", dtoClass.getSimpleName(), tenantId, ExceptionUtil.causeChain(e));
+            return null;
+        }
+    }
+
+    protected Map<Ref, DTO> readWholeTenant(final EntityManager em, final String tenantId) {
+        final TypedQuery<ENTITY> query = em.createQuery(
                 "SELECT s FROM " + resolver.getBaseJpaEntityClass().getSimpleName()
                 + " s WHERE s.tenantId = :tenantId", resolver.getEntityClass());
         query.setParameter("tenantId", tenantId);
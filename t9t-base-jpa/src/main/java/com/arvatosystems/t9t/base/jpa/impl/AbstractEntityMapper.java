@@ -20,8 +20,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
 
 import com.google.common.collect.ImmutableList;
 import org.slf4j.Logger;
@@ -56,6 +60,8 @@ public abstract class AbstractEntityMapper<
     protected static final String SEARCH_PREFIX_PROPERTY = "searchprefix";
     protected static final String SEARCH_PREFIX_PROPERTY_TWO = "searchprefix2"; // for third level
     protected static final Map<String, String> NO_GRAPH = Collections.emptyMap();
+    /** Number of entities which are mapped and written per chunk by the streaming export, also used as JDBC fetch size. */
+    public static final int EXPORT_CHUNK_SIZE = 500;
 
     protected final ISearchTools searchTools = Jdp.getRequired(ISearchTools.class);
 
@@ -297,8 +303,9 @@ public abstract class AbstractEntityMapper<
                     }
                 } else {
                     op.setSmartMappingForDataWithTracking(Boolean.TRUE);
-                    final DataWithTrackingS<DTO, TRACKING> entry = new DataWithTrackingS<>();
                     for (final ENTITY entity : data) {
+                        // a new wrapper per record, because pipelined output sessions format the records asynchronously
+                        final DataWithTrackingS<DTO, TRACKING> entry = new DataWithTrackingS<>();
                         entry.setTracking(entity.ret$Tracking());
                         entry.setData(mapToDto(entity));
                         entry.setTenantId(getTenantId(entity)); // tenantId has been defined in the data (category D) or it is of no interest to the caller
@@ -314,6 +321,66 @@ public abstract class AbstractEntityMapper<
         return rs;
     }
 
+    @Override
+    public final ReadAllResponse<DTO, TRACKING> createReadAllResponse(final Stream<ENTITY> data, final OutputSessionParameters op,
+      final EntityManager em) throws Exception {
+        if (em != null) {
+            // the persistence context is cleared after every chunk, which would discard pending changes
+            em.flush();
+        }
+        final ReadAllResponse<DTO, TRACKING> rs = new ReadAllResponse<>();
+        try (IOutputSession outputSession = Jdp.getRequired(IOutputSession.class)) {
+            final Long sinkRef = outputSession.open(op);
+            final boolean unwrapTracking = outputSession.getUnwrapTracking(op.getUnwrapTracking());
+            op.setSmartMappingForDataWithTracking(unwrapTracking ? Boolean.FALSE : Boolean.TRUE);
+            final List<ENTITY> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+            final List<DTO> dtos = new ArrayList<>(EXPORT_CHUNK_SIZE);
+            long numExported = 0L;
+            // do not advance the iterator after a chunk is complete: the next entity would be detached before it has been mapped
+            for (final Iterator<ENTITY> iter = data.iterator(); iter.hasNext();) {
+                chunk.add(iter.next());
+                if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                    numExported += exportChunk(outputSession, chunk, dtos, unwrapTracking, em);
+                }
+            }
+            numExported += exportChunk(outputSession, chunk, dtos, unwrapTracking, em);
+            LOGGER.debug("Streamed {} records into sink {}", numExported, sinkRef);
+            // successful close: store ref
+            rs.setSinkRef(sinkRef);
+            rs.setDataList(EMPTY_RESULT_LIST);
+        }
+        rs.setReturnCode(0);
+        return rs;
+    }
+
+    /** Maps and stores a chunk of entities, then releases them. Returns the number of records written. */
+    private int exportChunk(final IOutputSession outputSession, final List<ENTITY> chunk, final List<DTO> dtos, final boolean unwrapTracking,
+      final EntityManager em) {
+        final int num = chunk.size();
+        if (num == 0) {
+            return 0;
+        }
+        batchMapToDto(chunk, dtos, NO_GRAPH, null, new HashMap<>());
+        for (int i = 0; i < num; ++i) {
+            if (unwrapTracking) {
+                outputSession.store(dtos.get(i));
+            } else {
+                // a new wrapper per record, because pipelined output sessions format the records asynchronously
+                final ENTITY entity = chunk.get(i);
+                final DataWithTrackingS<DTO, TRACKING> entry = new DataWithTrackingS<>();
+                entry.setTracking(entity.ret$Tracking());
+                entry.setData(dtos.get(i));
+                entry.setTenantId(getTenantId(entity)); // tenantId has been defined in the data (category D) or it is of no interest to the caller
+                outputSession.store(entry);
+            }
+        }
+        chunk.clear();
+        dtos.clear();
+        if (em != null) {
+            em.clear();
+        }
+        return num;
+    }
 
     /** returns the entity's tenantId without the use of reflection, or null if the entity does not contain
      * a tenantId field.
@@ -24,12 +24,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import jakarta.persistence.Column;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.Table;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -70,9 +72,13 @@ import com.arvatosystems.t9t.base.T9tUtil;
 import com.arvatosystems.t9t.base.jpa.IDataProcessor;
 import com.arvatosystems.t9t.base.jpa.IJpaFilter;
 import com.arvatosystems.t9t.base.jpa.IResolverAnyKey;
+import com.arvatosystems.t9t.base.jpa.ormspecific.IQueryHintSetter;
 import com.arvatosystems.t9t.base.search.DummySearchCriteria;
 import com.arvatosystems.t9t.base.search.SearchCriteria;
 import com.arvatosystems.t9t.base.services.RequestContext;
+import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+import com.arvatosystems.t9t.cfg.be.DatabaseBrandType;
+import com.arvatosystems.t9t.cfg.be.RelationalDatabaseConfiguration;
 
 /** base implementation of the IEntityResolver interface, only suitable for simple configuration data tables */
 @Alternative
@@ -83,10 +89,13 @@ public abstract class AbstractResolverAnyKey<
 > implements IResolverAnyKey<KEY, TRACKING, ENTITY> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractResolverAnyKey.class);
+    private static final String SQL_ESTIMATE_ROWS = "SELECT reltuples FROM pg_class WHERE oid = to_regclass(?1)";
 
     protected final IJpaFilter jpaFilter = Jdp.getRequired(IJpaFilter.class);
     protected final Provider<PersistenceProviderJPA> jpaContextProvider = Jdp.getProvider(PersistenceProviderJPA.class);
     protected final Provider<RequestContext> contextProvider = Jdp.getProvider(RequestContext.class);
+    protected final IQueryHintSetter queryHintSetter = Jdp.getRequired(IQueryHintSetter.class);
+    protected final SearchQueryPlans searchQueryPlans = Jdp.getRequired(SearchQueryPlans.class);
 
     @Override
     public final EntityManager getEntityManager() {
@@ -314,6 +323,13 @@ public abstract class AbstractResolverAnyKey<
 
     @Override
     public List<KEY> searchKey(final SearchCriteria searchCriteria) {
+        final String keyField = hasArtificialPrimaryKey() ? "objectRef" : "key";
+        final TypedQuery<KEY> plannedQuery = createPlannedSearchQuery(searchCriteria, SearchShape.SELECT_KEY, keyField, getKeyClass());
+        if (plannedQuery != null) {
+            logSearch(getEntityClass(), searchCriteria, "key of entity");
+            return plannedQuery.getResultList();
+        }
+
         // Get the criteria builder to start building the query
         final CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
 
@@ -322,7 +338,7 @@ public abstract class AbstractResolverAnyKey<
         final Class<ENTITY> derivedEntityClass = getEntityClass();
         CriteriaQuery<KEY> criteriaQuery = criteriaBuilder.createQuery(getKeyClass());
         final Root<ENTITY> from = criteriaQuery.from(derivedEntityClass);
-        criteriaQuery = criteriaQuery.select(from.<KEY>get(hasArtificialPrimaryKey() ? "objectRef" : "key"));
+        criteriaQuery = criteriaQuery.select(from.<KEY>get(keyField));
         if (Boolean.TRUE.equals(searchCriteria.getApplyDistinct()))
             criteriaQuery = criteriaQuery.distinct(true);
 
@@ -337,6 +353,11 @@ public abstract class AbstractResolverAnyKey<
      */
     @Override
     public List<ENTITY> search(final SearchCriteria searchCriteria) {
+        final TypedQuery<ENTITY> plannedQuery = createPlannedSearchQuery(searchCriteria, SearchShape.SELECT_ENTITY, null, getEntityClass());
+        if (plannedQuery != null) {
+            logSearch(getEntityClass(), searchCriteria, "entity");
+            return plannedQuery.getResultList();
+        }
 
         // Get the criteria builder to start building the query
         final CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
@@ -377,8 +398,50 @@ public abstract class AbstractResolverAnyKey<
         return runSearch(searchCriteria, criteriaBuilder, from, criteriaQuery, aggregateMap);
     }
 
+    @Override
+    public Stream<ENTITY> searchStream(final SearchCriteria searchCriteria, final int fetchSize) {
+        if (!T9tUtil.isEmpty(searchCriteria.getGroupByColumns())) {
+            // aggregated results are small, no need to stream them
+            return search(searchCriteria).stream();
+        }
+        final Class<ENTITY> derivedEntityClass = getEntityClass();
+        TypedQuery<ENTITY> query = createPlannedSearchQuery(searchCriteria, SearchShape.SELECT_ENTITY, null, derivedEntityClass);
+        if (query == null) {
+            final CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
+            CriteriaQuery<ENTITY> criteriaQuery = criteriaBuilder.createQuery(derivedEntityClass);
+            final Root<ENTITY> from = criteriaQuery.from(derivedEntityClass);
+            criteriaQuery = criteriaQuery.select(from);
+            if (Boolean.TRUE.equals(searchCriteria.getApplyDistinct())) {
+                criteriaQuery = criteriaQuery.distinct(true);
+            }
+            query = buildSearchQuery(searchCriteria, criteriaBuilder, from, criteriaQuery, null);
+        }
+
+        logSearch(derivedEntityClass, searchCriteria, "streamed entity");
+        // the entities are not modified, therefore no snapshot copies are required for dirty checking
+        queryHintSetter.setReadOnly(query);
+        queryHintSetter.setFetchSize(query, fetchSize);
+        return query.getResultStream();
+    }
+
     @Override
     public Long count(final SearchFilter filter, final Boolean applyDistinct) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("SELECT COUNT on {} (distinct={}) with filter criteria {}",
+                getEntityClass().getCanonicalName(),
+                applyDistinct,
+                filter == null ? "NONE" : filter);
+        }
+        final SearchShape shape = getSearchShape(SearchShape.SELECT_COUNT, null, Boolean.TRUE.equals(applyDistinct), filter, null, false);
+        if (shape != null) {
+            return searchQueryPlans.createQuery(getEntityManager(), shape, Long.class, getEntityClass()).getSingleResult();
+        }
+        // Run the query and return the results
+        return getEntityManager().createQuery(buildCountQuery(filter, applyDistinct)).getSingleResult();
+    }
+
+    @Override
+    public CriteriaQuery<Long> buildCountQuery(final SearchFilter filter, final Boolean applyDistinct) {
         // Get the criteria builder to start building the query
         final CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
 
@@ -390,16 +453,78 @@ public abstract class AbstractResolverAnyKey<
         if (Boolean.TRUE.equals(applyDistinct))
             criteriaQuery = criteriaQuery.distinct(true);
 
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("SELECT COUNT on {} (distinct={}) with filter criteria {}",
-                derivedEntityClass.getCanonicalName(),
-                applyDistinct,
-                filter == null ? "NONE" : filter);
-        }
         // apply and specific filters and also the tenant restriction
         createWhereList(filter, criteriaBuilder, from, criteriaQuery);
-        // Run the query and return the results
-        return getEntityManager().createQuery(criteriaQuery).getSingleResult();
+        return criteriaQuery;
+    }
+
+    @Override
+    public CriteriaQuery<KEY> buildKeyQuery(final SearchFilter filter, final List<SortColumn> sortColumns) {
+        final CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
+        final CriteriaQuery<KEY> criteriaQuery = criteriaBuilder.createQuery(getKeyClass());
+        final Root<ENTITY> from = criteriaQuery.from(getEntityClass());
+        criteriaQuery.select(from.<KEY>get(hasArtificialPrimaryKey() ? "objectRef" : "key"));
+        createWhereList(filter, criteriaBuilder, from, criteriaQuery);
+        if (sortColumns != null) {
+            // the result is truncated by the caller, therefore the order must be unique
+            final List<SortColumn> uniqueSortColumns = mergeDefaultSortColumns(sortColumns);
+            final PathResolver r = new PathResolver(getEntityClass(), from);
+            final List<Order> orderList = new ArrayList<>(uniqueSortColumns.size());
+            for (final SortColumn column : uniqueSortColumns) {
+                final Path<?> path = r.getPath(column.getFieldName());
+                orderList.add(column.getDescending() ? criteriaBuilder.desc(path) : criteriaBuilder.asc(path));
+            }
+            criteriaQuery.orderBy(orderList);
+        }
+        return criteriaQuery;
+    }
+
+    @Override
+    public Long estimateCount(final SearchFilter filter) {
+        final RelationalDatabaseConfiguration dbCfg = ConfigProvider.getConfiguration().getDatabaseConfiguration();
+        if (filter != null || dbCfg == null || dbCfg.getDatabaseBrand() != DatabaseBrandType.POSTGRES || requiresTenantRestriction()) {
+            // the planner statistics only cover whole tables
+            return null;
+        }
+        final Table table = findTableAnnotation(getEntityClass());
+        if (table == null) {
+            return null;
+        }
+        final String tableName = table.schema().isEmpty() ? table.name() : table.schema() + "." + table.name();
+        final Object reltuples = getEntityManager().createNativeQuery(SQL_ESTIMATE_ROWS).setParameter(1, tableName).getSingleResult();
+        if (reltuples instanceof Number n && n.doubleValue() >= 0.0) {
+            return Long.valueOf(n.longValue());
+        }
+        return null;  // table not found or never analyzed
+    }
+
+    /** Returns true if searches on this entity are restricted to the current tenant (and possibly the global tenant). */
+    private boolean requiresTenantRestriction() {
+        return getTenantRestriction() != null;
+    }
+
+    /** Returns the tenantIds which searches on this entity are restricted to, or null if no restriction applies. */
+    private List<String> getTenantRestriction() {
+        if (!isTenantIsolated()) {
+            return null;
+        }
+        final String tenantId = getSharedTenantId();
+        if (!tenantId.equals(T9tConstants.GLOBAL_TENANT_ID)) {
+            // regular tenant
+            return isTenantMeOrGlobal() ? List.of(T9tConstants.GLOBAL_TENANT_ID, tenantId) : List.of(tenantId);
+        }
+        // global tenant
+        return globalTenantCanAccessAll() ? null : List.of(tenantId);
+    }
+
+    private static Table findTableAnnotation(final Class<?> entityClass) {
+        for (Class<?> current = entityClass; current != null && current != Object.class; current = current.getSuperclass()) {
+            final Table table = current.getAnnotation(Table.class);
+            if (table != null) {
+                return table;
+            }
+        }
+        return null;
     }
 
     /**
@@ -440,29 +565,12 @@ public abstract class AbstractResolverAnyKey<
         Predicate whereList = buildPredicate(criteriaBuilder, r, filter);
 
         // perform special filtering on tenant
-        if (isTenantIsolated()) {
-            final String tenantId = getSharedTenantId();
-            if (!tenantId.equals(T9tConstants.GLOBAL_TENANT_ID)) {
-                Predicate tenantPredicate = null;
-                // regular tenant
-                if (isTenantMeOrGlobal()) {
-                    // IN (global, me)
-                    final List<String> tenants = new ArrayList<>(2);
-                    tenants.add(T9tConstants.GLOBAL_TENANT_ID);
-                    tenants.add(tenantId);
-                    final Expression<String> exp = from.get(T9tConstants.TENANT_ID_FIELD_NAME);
-                    tenantPredicate = exp.in(tenants);
-                } else {
-                    tenantPredicate = criteriaBuilder.equal(from.<String>get(T9tConstants.TENANT_ID_FIELD_NAME), tenantId);
-                }
-                whereList = whereList == null ? tenantPredicate : criteriaBuilder.and(whereList, tenantPredicate);
-            } else {
-                // global tenant
-                if (!globalTenantCanAccessAll()) {
-                    final Predicate tenantPredicate = criteriaBuilder.equal(from.<String>get(T9tConstants.TENANT_ID_FIELD_NAME), tenantId);
-                    whereList = whereList == null ? tenantPredicate : criteriaBuilder.and(whereList, tenantPredicate);
-                }
-            }
+        final List<String> tenants = getTenantRestriction();
+        if (tenants != null) {
+            final Expression<String> exp = from.get(T9tConstants.TENANT_ID_FIELD_NAME);
+            // IN (global, me) or = me
+            final Predicate tenantPredicate = tenants.size() == 1 ? criteriaBuilder.equal(exp, tenants.get(0)) : exp.in(tenants);
+            whereList = whereList == null ? tenantPredicate : criteriaBuilder.and(whereList, tenantPredicate);
         }
         // Append restrictions to overall query if any available
         if (whereList != null) {
@@ -470,43 +578,64 @@ public abstract class AbstractResolverAnyKey<
         }
     }
 
+    /**
+     * Determines the shape of a search, for the cached JPQL path.
+     * Returns null if the search must use the criteria API, because the plan cache is disabled, the filter implementation
+     * has been customized, or the shape contains filters which are not supported by the JPQL path.
+     */
+    private SearchShape getSearchShape(final char selectKind, final String selectField, final boolean distinct, final SearchFilter filter,
+      final List<SortColumn> sortColumns, final boolean explicitNullOrder) {
+        if (!searchQueryPlans.isEnabled() || jpaFilter.getClass() != JpaFilterImpl.class) {
+            return null;
+        }
+        final SearchShape shape = new SearchShape(getEntityClass(), selectKind, selectField, distinct, filter, getTenantRestriction(), sortColumns,
+          explicitNullOrder);
+        return shape.isSupported() ? shape : null;
+    }
+
+    /** Creates a search query with the requested pagination from the cached JPQL, or returns null if the criteria API must be used. */
+    private <R> TypedQuery<R> createPlannedSearchQuery(final SearchCriteria searchCriteria, final char selectKind, final String selectField,
+      final Class<R> resultClass) {
+        if (!T9tUtil.isEmpty(searchCriteria.getGroupByColumns()) || searchCriteria.getContinuationToken() != null) {
+            return null;
+        }
+        final SearchShape shape = getSearchShape(selectKind, selectField, Boolean.TRUE.equals(searchCriteria.getApplyDistinct()),
+          searchCriteria.getSearchFilter(), getEffectiveSortColumns(searchCriteria), isKeysetSearch(searchCriteria));
+        if (shape == null) {
+            return null;
+        }
+        final TypedQuery<R> query = searchQueryPlans.createQuery(getEntityManager(), shape, resultClass, getEntityClass());
+        final int limit = searchCriteria.getLimit();
+        query.setFirstResult(searchCriteria.getOffset());
+        query.setMaxResults(limit > 0 ? limit : Integer.MAX_VALUE);
+        return query;
+    }
+
     private <R> List<R> runSearch(final SearchCriteria searchCriteria, final CriteriaBuilder criteriaBuilder,
+      final Root<ENTITY> from, final CriteriaQuery<R> select, final Map<String, Expression<?>> aggregateMap) {
+        return buildSearchQuery(searchCriteria, criteriaBuilder, from, select, aggregateMap).getResultList();
+    }
+
+    /** Adds filter and sort criteria to the SELECT query, and creates the query with the requested pagination. */
+    private <R> TypedQuery<R> buildSearchQuery(final SearchCriteria searchCriteria, final CriteriaBuilder criteriaBuilder,
       final Root<ENTITY> from, final CriteriaQuery<R> select, final Map<String, Expression<?>> aggregateMap) {
 
         createWhereList(searchCriteria.getSearchFilter(), criteriaBuilder, from, select);
 
-        // determine the effective sort columns
-        List<SortColumn> sortColumns = searchCriteria.getSortColumns();
+        final List<SortColumn> sortColumns = getEffectiveSortColumns(searchCriteria);
         final int limit = searchCriteria.getLimit();
-        if (searchCriteria.getOffset() != 0 || limit != 0) {
-            // pagination requested
-            final List<SortColumn> defaultColumns = getDefaultSortColumns();
-            if (sortColumns == null || sortColumns.isEmpty()) {
-                // There is no sorting provided. Add a default sort order.
-                sortColumns = defaultColumns;
-            } else {
-                // merge provided sort columns and default sort columns
-                final List<SortColumn> sortColumnsToAdd = new ArrayList<>(defaultColumns.size());
-                for (final SortColumn defaultColumn : defaultColumns) {
-                    boolean found = false;
-                    for (final SortColumn sortColumn : sortColumns) {
-                        if (defaultColumn.getFieldName().equalsIgnoreCase(sortColumn.getFieldName())) {
-                            found = true;
-                            break;
-                        }
-                    }
-                    if (!found) {
-                        sortColumnsToAdd.add(defaultColumn);
-                    }
-                }
-                if (!sortColumnsToAdd.isEmpty()) {
-                    // the provided sort columns can be immutable, we have to merge into a new Array
-                    final List<SortColumn> mergedSortColumns = new ArrayList<>(sortColumns.size() + sortColumnsToAdd.size());
-                    mergedSortColumns.addAll(sortColumns);
-                    mergedSortColumns.addAll(sortColumnsToAdd);
-                    sortColumns = mergedSortColumns;
-                }
+        final boolean seek = searchCriteria.getContinuationToken() != null;
+        final boolean keyset = isKeysetSearch(searchCriteria);
+        if (seek) {
+            if (aggregateMap != null || sortColumns == null || sortColumns.isEmpty()) {
+                throw new T9tException(T9tException.INVALID_FILTER_PARAMETERS, "Keyset pagination requires sort columns and no group by columns");
             }
+            // continue after the last row of the previous page
+            final Object[] lastValues = KeysetPagination.decode(getEntityClass(), sortColumns, searchCriteria.getContinuationToken());
+            final Predicate seekPredicate = KeysetPagination.seekPredicate(criteriaBuilder, new PathResolver(getEntityClass(), from), sortColumns,
+              lastValues);
+            final Predicate whereList = select.getRestriction();
+            select.where(whereList == null ? seekPredicate : criteriaBuilder.and(whereList, seekPredicate));
         }
 
         // Sorting, if supplied
@@ -522,6 +651,9 @@ public abstract class AbstractResolverAnyKey<
                         final Expression<?> selection = aggregateMap.get(column.getFieldName());
                         orderList.add(column.getDescending() ? criteriaBuilder.desc(selection) : criteriaBuilder.asc(selection));
                     }
+                } else if (keyset) {
+                    // the seek predicate relies on a defined position of nulls
+                    orderList.add(KeysetPagination.order(criteriaBuilder, r.getPath(column.getFieldName()), column.getDescending()));
                 } else {
                     final Path<?> path = r.getPath(column.getFieldName());
                     orderList.add(column.getDescending() ? criteriaBuilder.desc(path) : criteriaBuilder.asc(path));
@@ -532,14 +664,71 @@ public abstract class AbstractResolverAnyKey<
             }
         }
 
-        // Run the query and return the results
         final TypedQuery<R> createQuery = getEntityManager().createQuery(select);
 
-        // Apply pagination from searchOptions
-        createQuery.setFirstResult(searchCriteria.getOffset());
+        // Apply pagination from searchOptions. The offset is covered by the seek predicate for keyset pagination.
+        createQuery.setFirstResult(seek ? 0 : searchCriteria.getOffset());
         createQuery.setMaxResults(limit > 0 ? limit : Integer.MAX_VALUE);
+        return createQuery;
+    }
+
+    private static boolean isKeysetSearch(final SearchCriteria searchCriteria) {
+        return Boolean.TRUE.equals(searchCriteria.getKeysetPagination()) || searchCriteria.getContinuationToken() != null;
+    }
+
+    /** Determines the effective sort columns. For paginated searches, the default sort columns are appended to make the order unique. */
+    private List<SortColumn> getEffectiveSortColumns(final SearchCriteria searchCriteria) {
+        final List<SortColumn> sortColumns = searchCriteria.getSortColumns();
+        if (searchCriteria.getOffset() != 0 || searchCriteria.getLimit() != 0 || isKeysetSearch(searchCriteria)) {
+            // pagination requested
+            return mergeDefaultSortColumns(sortColumns);
+        }
+        return sortColumns;
+    }
 
-        return createQuery.getResultList();
+    /** Appends those default sort columns which are not yet part of the provided sort columns, or returns the default ones if none are provided. */
+    private List<SortColumn> mergeDefaultSortColumns(final List<SortColumn> sortColumns) {
+        final List<SortColumn> defaultColumns = getDefaultSortColumns();
+        if (sortColumns == null || sortColumns.isEmpty()) {
+            // There is no sorting provided. Add a default sort order.
+            return defaultColumns;
+        }
+        // merge provided sort columns and default sort columns
+        final List<SortColumn> sortColumnsToAdd = new ArrayList<>(defaultColumns.size());
+        for (final SortColumn defaultColumn : defaultColumns) {
+            boolean found = false;
+            for (final SortColumn sortColumn : sortColumns) {
+                if (defaultColumn.getFieldName().equalsIgnoreCase(sortColumn.getFieldName())) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                sortColumnsToAdd.add(defaultColumn);
+            }
+        }
+        if (sortColumnsToAdd.isEmpty()) {
+            return sortColumns;
+        }
+        // the provided sort columns can be immutable, we have to merge into a new Array
+        final List<SortColumn> mergedSortColumns = new ArrayList<>(sortColumns.size() + sortColumnsToAdd.size());
+        mergedSortColumns.addAll(sortColumns);
+        mergedSortColumns.addAll(sortColumnsToAdd);
+        return mergedSortColumns;
+    }
+
+    @Override
+    public String getContinuationToken(final SearchCriteria searchCriteria, final List<ENTITY> page) {
+        if (!isKeysetSearch(searchCriteria) || !T9tUtil.isEmpty(searchCriteria.getGroupByColumns())
+          || searchCriteria.getLimit() <= 0 || page.size() < searchCriteria.getLimit()) {
+            // no keyset pagination requested, or there are no further rows
+            return null;
+        }
+        final List<SortColumn> sortColumns = getEffectiveSortColumns(searchCriteria);
+        if (sortColumns == null || sortColumns.isEmpty()) {
+            return null;
+        }
+        return KeysetPagination.encode(getEntityClass(), sortColumns, page.get(page.size() - 1));
     }
 
     /** Obtains a default sort order to make backend pagination reliable. */
@@ -16,14 +16,18 @@
 package com.arvatosystems.t9t.base.jpa.impl;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.stream.Stream;
 
 import de.jpaw.bonaparte.core.BonaPortable;
 import de.jpaw.bonaparte.jpa.BonaPersistableKey;
 import de.jpaw.bonaparte.jpa.BonaPersistableTracking;
 import de.jpaw.bonaparte.pojos.api.TrackingBase;
+import de.jpaw.dp.Jdp;
 
 import com.arvatosystems.t9t.base.jpa.IEntityMapper;
 import com.arvatosystems.t9t.base.jpa.IResolverAnyKey;
+import com.arvatosystems.t9t.base.jpa.ISearchTotalsProvider;
 import com.arvatosystems.t9t.base.search.ReadAllResponse;
 import com.arvatosystems.t9t.base.search.SearchRequest;
 import com.arvatosystems.t9t.base.services.AbstractSearchRequestHandler;
@@ -37,6 +41,16 @@ public abstract class AbstractSearchWithTotalsRequestHandler<
   RQ extends SearchRequest<DATA, TRACKING>,
   ENTITY extends BonaPersistableKey<KEY> & BonaPersistableTracking<TRACKING>
 > extends AbstractSearchRequestHandler<RQ> {
+    protected final ISearchTotalsProvider searchTotalsProvider = Jdp.getRequired(ISearchTotalsProvider.class);
+
+    /**
+     * Determines if an export reads the data via a database cursor, in chunks, instead of loading the full result into memory first.
+     * The persistence context is cleared after every chunk, therefore subclasses which keep references to managed entities
+     * across the export should return false.
+     */
+    protected boolean useStreamingExport(final RQ request) {
+        return true;
+    }
 
     protected ReadAllResponse<DATA, TRACKING> execute(
         final RequestContext ctx,
@@ -45,7 +59,18 @@ public abstract class AbstractSearchWithTotalsRequestHandler<
         final IEntityMapper<KEY, DATA, TRACKING, ENTITY> mapper
     ) throws Exception {
         mapper.processSearchPrefixForDB(request);
-        final ReadAllResponse<DATA, TRACKING> result = mapper.createReadAllResponse(resolver.search(request, null), request.getSearchOutputTarget());
+        final ReadAllResponse<DATA, TRACKING> result;
+        if (request.getSearchOutputTarget() != null && useStreamingExport(request)) {
+            try (Stream<ENTITY> data = resolver.searchStream(request, AbstractEntityMapper.EXPORT_CHUNK_SIZE)) {
+                result = mapper.createReadAllResponse(data, request.getSearchOutputTarget(), resolver.getEntityManager());
+            }
+        } else if (request.getSearchOutputTarget() != null) {
+            result = mapper.createReadAllResponse(resolver.search(request, null), request.getSearchOutputTarget());
+        } else {
+            final List<ENTITY> data = resolver.search(request, null);
+            result = mapper.createReadAllResponse(data, null);
+            result.setContinuationToken(resolver.getContinuationToken(request, data));
+        }
         if (Boolean.TRUE.equals(request.getCountTotals())) {
             if (request.getSearchOutputTarget() != null) {
                 if (result.getNumResults() != null) {
@@ -58,14 +83,14 @@ public abstract class AbstractSearchWithTotalsRequestHandler<
 //                    // offset could have been exceeded number of results, must search!
 //                     // fall through, have to query again
 //                }
-                if (request.getLimit() == 0 || actualResults < request.getLimit()) {
+                if (request.getContinuationToken() == null && (request.getLimit() == 0 || actualResults < request.getLimit())) {
                     // all results are known due to query with untruncated result set
                     result.setNumResults(Long.valueOf(actualResults + request.getOffset()));
                     return result;  // we are done
                 }
-                // fall through - must do another query
+                // fall through - must do another query (also for keyset pagination, where the number of preceding rows is not known)
             }
-            result.setNumResults(resolver.count(request.getSearchFilter(), request.getApplyDistinct()));
+            searchTotalsProvider.setTotals(ctx, resolver, request, result);
         }
         return result;
     }
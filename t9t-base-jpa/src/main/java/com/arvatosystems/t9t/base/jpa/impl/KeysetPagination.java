@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.jpa.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Nulls;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+import de.jpaw.bonaparte.pojos.api.SortColumn;
+
+import com.arvatosystems.t9t.base.T9tException;
+
+/**
+ * Keyset (seek) pagination for generic searches.
+ * The continuation token contains the names, directions and values of the effective sort columns of the last row of a page.
+ * The next page is selected by a predicate which compares the sort columns with these values, instead of skipping rows by offset.
+ *
+ * The sort columns must identify a row uniquely, which is ensured by the default sort columns (usually the primary key) being appended.
+ * Null values are supported. Keyset searches sort them explicitly last in ascending and first in descending order (see {@link #order}),
+ * because the default differs between databases (H2 and SQL Server sort them first in ascending order).
+ * Sort fields may refer to embedded objects, but not to associated entities or collections.
+ */
+final class KeysetPagination {
+    private static final byte TOKEN_VERSION = 1;
+    private static final String COMPOUND_ATTRIBUTE_SPLIT_SEPARATOR = "\\.";
+
+    private KeysetPagination() { }
+
+    /** Creates the continuation token for the given sort columns, using the values of the last row of a page. */
+    static String encode(final Class<?> entityClass, final List<SortColumn> sortColumns, final Object lastRow) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(); DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeByte(TOKEN_VERSION);
+            out.writeShort(sortColumns.size());
+            for (final SortColumn column : sortColumns) {
+                final Field[] fields = resolveFields(entityClass, column.getFieldName());
+                checkSupportedType(fields[fields.length - 1].getType(), column.getFieldName());
+                final Object value = readValue(fields, lastRow);
+                out.writeUTF(column.getFieldName());
+                out.writeBoolean(column.getDescending());
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    out.writeUTF(value instanceof Enum<?> e ? e.name() : value.toString());
+                }
+            }
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(baos.toByteArray());
+        } catch (final IOException e) {
+            throw new T9tException(T9tException.GENERAL_EXCEPTION, "Cannot create continuation token: " + e.getMessage());
+        }
+    }
+
+    /** Decodes a continuation token and returns the values of the sort columns, which must match the columns the token has been created for. */
+    static Object[] decode(final Class<?> entityClass, final List<SortColumn> sortColumns, final String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token.getBytes(StandardCharsets.US_ASCII))))) {
+            if (in.readByte() != TOKEN_VERSION || in.readShort() != sortColumns.size()) {
+                throw new T9tException(T9tException.INVALID_FILTER_PARAMETERS, "Continuation token does not match the sort columns");
+            }
+            final Object[] values = new Object[sortColumns.size()];
+            for (int i = 0; i < values.length; ++i) {
+                final SortColumn column = sortColumns.get(i);
+                if (!column.getFieldName().equals(in.readUTF()) || column.getDescending() != in.readBoolean()) {
+                    throw new T9tException(T9tException.INVALID_FILTER_PARAMETERS, "Continuation token does not match the sort columns");
+                }
+                if (in.readBoolean()) {
+                    final Field[] fields = resolveFields(entityClass, column.getFieldName());
+                    values[i] = parse(in.readUTF(), fields[fields.length - 1].getType(), column.getFieldName());
+                }
+            }
+            return values;
+        } catch (final T9tException e) {
+            throw e;
+        } catch (final IOException | RuntimeException e) {
+            // also covers malformed Base64 and values which cannot be parsed
+            throw new T9tException(T9tException.INVALID_FILTER_PARAMETERS, "Invalid continuation token");
+        }
+    }
+
+    /**
+     * Builds the predicate which selects all rows after the given position:
+     * (c1 after v1) OR (c1 = v1 AND c2 after v2) OR ... OR (c1 = v1 AND ... AND cn-1 = vn-1 AND cn after vn).
+     */
+    static Predicate seekPredicate(final CriteriaBuilder cb, final PathResolver pathResolver, final List<SortColumn> sortColumns, final Object[] values) {
+        final List<Predicate> alternatives = new ArrayList<>(sortColumns.size());
+        final List<Predicate> equalPrefix = new ArrayList<>(sortColumns.size());
+        for (int i = 0; i < sortColumns.size(); ++i) {
+            final SortColumn column = sortColumns.get(i);
+            final Path<?> path = pathResolver.getPath(column.getFieldName());
+            final List<Predicate> alternative = new ArrayList<>(equalPrefix);
+            alternative.add(after(cb, path, column.getDescending(), values[i]));
+            alternatives.add(cb.and(alternative.toArray(new Predicate[alternative.size()])));
+            equalPrefix.add(values[i] == null ? cb.isNull(path) : cb.equal(path, values[i]));
+        }
+        return cb.or(alternatives.toArray(new Predicate[alternatives.size()]));
+    }
+
+    /** Creates the sort order of a column for keyset searches, with nulls last in ascending order, which is what the seek predicate expects. */
+    static Order order(final CriteriaBuilder cb, final Expression<?> expression, final boolean descending) {
+        return descending ? cb.desc(expression, Nulls.FIRST) : cb.asc(expression, Nulls.LAST);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Predicate after(final CriteriaBuilder cb, final Path<?> path, final boolean descending, final Object value) {
+        if (value == null) {
+            // nulls are sorted last in ascending order, and first in descending order
+            return descending ? cb.isNotNull(path) : cb.disjunction();
+        }
+        final Expression<Comparable> expression = (Expression<Comparable>) path;
+        return descending ? cb.lessThan(expression, (Comparable) value) : cb.or(cb.greaterThan(expression, (Comparable) value), cb.isNull(path));
+    }
+
+    /** Returns the chain of fields referenced by a (possibly compound) field name. */
+    private static Field[] resolveFields(final Class<?> entityClass, final String fieldName) {
+        final String[] components = fieldName.split(COMPOUND_ATTRIBUTE_SPLIT_SEPARATOR);
+        final Field[] fields = new Field[components.length];
+        Class<?> currentClass = entityClass;
+        for (int i = 0; i < components.length; ++i) {
+            fields[i] = searchField(currentClass, components[i]);
+            currentClass = fields[i].getType();
+            if (Collection.class.isAssignableFrom(currentClass) || Map.class.isAssignableFrom(currentClass)
+              || (i < components.length - 1 && currentClass.isAnnotationPresent(Entity.class))) {
+                throw new T9tException(T9tException.INVALID_FILTER_PARAMETERS,
+                  "Keyset pagination does not support sorting by a field of an associated entity or collection: " + fieldName);
+            }
+        }
+        return fields;
+    }
+
+    private static Field searchField(final Class<?> cls, final String fieldName) {
+        for (Class<?> current = cls; current != null && current != Object.class; current = current.getSuperclass()) {
+            try {
+                final Field field = current.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return field;
+            } catch (final NoSuchFieldException e) {
+                // continue with the superclass
+            }
+        }
+        throw new T9tException(T9tException.INVALID_FILTER_PARAMETERS, "No field of name " + fieldName);
+    }
+
+    private static Object readValue(final Field[] fields, final Object row) {
+        Object current = row;
+        try {
+            for (final Field field : fields) {
+                if (current == null) {
+                    return null;
+                }
+                current = field.get(current);
+            }
+            return current;
+        } catch (final IllegalAccessException e) {
+            throw new T9tException(T9tException.INVALID_FILTER_PARAMETERS, "Denied access to field " + fields[fields.length - 1].getName());
+        }
+    }
+
+    private static void checkSupportedType(final Class<?> type, final String fieldName) {
+        if (!type.isPrimitive() && !type.isEnum() && type != String.class && type != Character.class && type != Boolean.class
+          && type != Byte.class && type != Short.class && type != Integer.class && type != Long.class && type != Float.class && type != Double.class
+          && type != BigDecimal.class && type != BigInteger.class && type != UUID.class
+          && type != Instant.class && type != LocalDate.class && type != LocalDateTime.class && type != LocalTime.class) {
+            throw new T9tException(T9tException.INVALID_FILTER_PARAMETERS,
+              "Keyset pagination does not support sorting by field " + fieldName + " of type " + type.getSimpleName());
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object parse(final String value, final Class<?> type, final String fieldName) {
+        checkSupportedType(type, fieldName);
+        if (type == String.class) {
+            return value;
+        } else if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        } else if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        } else if (type == Short.class || type == short.class) {
+            return Short.valueOf(value);
+        } else if (type == Byte.class || type == byte.class) {
+            return Byte.valueOf(value);
+        } else if (type == Boolean.class || type == boolean.class) {
+            return Boolean.valueOf(value);
+        } else if (type == Character.class || type == char.class) {
+            return Character.valueOf(value.charAt(0));
+        } else if (type == Double.class || type == double.class) {
+            return Double.valueOf(value);
+        } else if (type == Float.class || type == float.class) {
+            return Float.valueOf(value);
+        } else if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+        } else if (type == BigInteger.class) {
+            return new BigInteger(value);
+        } else if (type == UUID.class) {
+            return UUID.fromString(value);
+        } else if (type == Instant.class) {
+            return Instant.parse(value);
+        } else if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        } else if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        } else if (type == LocalTime.class) {
+            return LocalTime.parse(value);
+        } else {
+            return Enum.valueOf((Class<? extends Enum>) type, value);
+        }
+    }
+}
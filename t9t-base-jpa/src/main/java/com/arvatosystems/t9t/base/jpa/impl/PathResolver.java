@@ -16,6 +16,8 @@
 package com.arvatosystems.t9t.base.jpa.impl;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.Map;
 
@@ -42,7 +44,7 @@ public class PathResolver implements IJpaPathResolver {
     }
 
     // looks for the field of name fieldname in the class, or returns null if it cannot be found (which is not good)
-    private Field searchField(Class<?> current, final String fieldname) {
+    private static Field searchField(Class<?> current, final String fieldname) {
         for (;;) {
             // getField() returns only public fields, therefore we have to use getDeclaredField and recurse the class inheritance tree
 
@@ -96,4 +98,46 @@ public class PathResolver implements IJpaPathResolver {
             return root.get(fieldName);
         }
     }
+
+    /**
+     * Validates all components of a field name without a query, for field names which become part of a JPQL text.
+     * Unknown fields are rejected with INVALID_FILTER_PARAMETERS, as by getPath().
+     * Components following a collection or map are validated against its element type (the value type for maps).
+     *
+     * @return true if getPath() joins the first component, because it is a collection or map
+     */
+    static boolean validatePath(final Class<?> entityClass, final String fieldName) {
+        final String[] components = fieldName.split(COMPOUND_ATTRIBUTE_SPLIT_SEPARATOR);
+        Class<?> currentClass = entityClass;
+        boolean joined = false;
+        for (int i = 0; i < components.length; ++i) {
+            if (currentClass == null) {
+                // element type of a raw collection: the remaining components cannot be validated
+                return joined;
+            }
+            if (i > 0 && (currentClass.isPrimitive() || currentClass.isEnum() || currentClass.getName().startsWith("java."))) {
+                throw new T9tException(T9tException.INVALID_FILTER_PARAMETERS, "No field of name " + fieldName);
+            }
+            final Field fld = searchField(currentClass, components[i]);
+            final Class<?> thisType = fld.getType();
+            if (Collection.class.isAssignableFrom(thisType) || Map.class.isAssignableFrom(thisType)) {
+                joined |= i == 0 && components.length > 1;
+                currentClass = elementType(fld.getGenericType());
+            } else {
+                currentClass = thisType;
+            }
+        }
+        return joined;
+    }
+
+    /** Returns the element type of a collection or the value type of a map, or null if it is not known. */
+    private static Class<?> elementType(final Type type) {
+        if (type instanceof ParameterizedType pt) {
+            final Type[] args = pt.getActualTypeArguments();
+            if (args.length > 0 && args[args.length - 1] instanceof Class<?> cls) {
+                return cls;
+            }
+        }
+        return null;
+    }
 }
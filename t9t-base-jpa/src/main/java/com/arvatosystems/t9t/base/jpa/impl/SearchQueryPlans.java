@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.jpa.impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jpaw.dp.Jdp;
+import de.jpaw.dp.Singleton;
+
+import com.arvatosystems.t9t.base.T9tUtil;
+import com.arvatosystems.t9t.cfg.be.ApplicationConfiguration;
+import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+import com.arvatosystems.t9t.metrics.IMetricsProvider;
+
+/**
+ * Cache of the JPQL texts of generic searches, by {@link SearchShape}.
+ * Searches of the same shape (differing in the values only) skip the construction of the criteria query and obtain
+ * an identical query string, which also allows the JPA provider to reuse its parsed query plan.
+ */
+@Singleton
+public class SearchQueryPlans {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchQueryPlans.class);
+    protected static final int DEFAULT_CACHE_MAX_ENTRIES = 1000;
+
+    protected final Cache<String, String> planCache;  // null if disabled
+
+    public SearchQueryPlans() {
+        final ApplicationConfiguration applCfg = ConfigProvider.getConfiguration().getApplicationConfiguration();
+        final int maxEntries = applCfg == null ? DEFAULT_CACHE_MAX_ENTRIES : T9tUtil.nvl(applCfg.getSearchPlanCacheMaxEntries(), DEFAULT_CACHE_MAX_ENTRIES);
+        if (maxEntries <= 0) {
+            LOGGER.info("Search plan cache disabled, generic searches use the criteria API");
+            planCache = null;
+            return;
+        }
+        planCache = Caffeine.newBuilder().maximumSize(maxEntries).recordStats().build();
+        final IMetricsProvider metricsProvider = Jdp.getOptional(IMetricsProvider.class);
+        if (metricsProvider != null) {
+            metricsProvider.addMeter(new CaffeineCacheMetrics<>(planCache, "searchPlans", Tags.of("type", "searchPlans")));
+        }
+    }
+
+    public boolean isEnabled() {
+        return planCache != null;
+    }
+
+    /** Creates the query for a supported shape, with all parameters bound. Pagination and hints are left to the caller. */
+    <R> TypedQuery<R> createQuery(final EntityManager em, final SearchShape shape, final Class<R> resultClass, final Class<?> entityClass) {
+        final String jpql = planCache.get(shape.getKey(), k -> shape.toJpql(em.getMetamodel().entity(entityClass).getName()));
+        final TypedQuery<R> query = em.createQuery(jpql, resultClass);
+        shape.bindParameters(query);
+        return query;
+    }
+}
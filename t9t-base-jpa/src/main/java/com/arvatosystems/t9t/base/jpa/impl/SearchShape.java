@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.jpa.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import jakarta.persistence.Query;
+
+import de.jpaw.bonaparte.pojos.api.AndFilter;
+import de.jpaw.bonaparte.pojos.api.BooleanFilter;
+import de.jpaw.bonaparte.pojos.api.ByteArrayFilter;
+import de.jpaw.bonaparte.pojos.api.ByteFilter;
+import de.jpaw.bonaparte.pojos.api.BytesFilter;
+import de.jpaw.bonaparte.pojos.api.DayFilter;
+import de.jpaw.bonaparte.pojos.api.DecimalFilter;
+import de.jpaw.bonaparte.pojos.api.DoubleFilter;
+import de.jpaw.bonaparte.pojos.api.FieldFilter;
+import de.jpaw.bonaparte.pojos.api.FloatFilter;
+import de.jpaw.bonaparte.pojos.api.InstantFilter;
+import de.jpaw.bonaparte.pojos.api.IntFilter;
+import de.jpaw.bonaparte.pojos.api.LongFilter;
+import de.jpaw.bonaparte.pojos.api.NotFilter;
+import de.jpaw.bonaparte.pojos.api.NullFilter;
+import de.jpaw.bonaparte.pojos.api.OrFilter;
+import de.jpaw.bonaparte.pojos.api.SearchFilter;
+import de.jpaw.bonaparte.pojos.api.ShortFilter;
+import de.jpaw.bonaparte.pojos.api.SortColumn;
+import de.jpaw.bonaparte.pojos.api.StringFilter;
+import de.jpaw.bonaparte.pojos.api.TimeFilter;
+import de.jpaw.bonaparte.pojos.api.TimestampFilter;
+import de.jpaw.bonaparte.pojos.api.UuidFilter;
+
+import com.arvatosystems.t9t.base.T9tConstants;
+import com.arvatosystems.t9t.base.T9tException;
+
+/**
+ * The shape of a generic search: entity, selection, filter structure with field names and operators, tenant restriction and sort columns,
+ * but not the values. The values are collected as positional parameters.
+ * The shape is the key of the {@link SearchQueryPlans} cache, and it can be translated into the equivalent JPQL of the criteria query
+ * which AbstractResolverAnyKey would build, with the same joins and semantics as PathResolver and JpaFilterImpl.
+ *
+ * The key and the JPQL are produced by the same walk over the search, which therefore assigns the parameter positions identically.
+ * Filter types or variants which are not known here make the shape unsupported, then the search uses the criteria API.
+ */
+final class SearchShape {
+    static final char SELECT_ENTITY = 'E';
+    static final char SELECT_KEY    = 'K';
+    static final char SELECT_COUNT  = 'C';
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final String ROOT_ALIAS = "e";
+
+    /** The operands of a field filter, extracted from the type specific filter classes. */
+    private record Operands(List<?> valueList, Object equalsValue, Object likeValue, Object lowerBound, Object upperBound) { }
+
+    private final Class<?> entityClass;
+    private final char selectKind;
+    private final String selectField;
+    private final boolean distinct;
+    private final SearchFilter filter;
+    private final List<String> tenants;
+    private final List<SortColumn> sortColumns;
+    private final boolean explicitNullOrder;
+    private final List<Object> parameters = new ArrayList<>();
+    private final String key;
+    private final boolean supported;
+
+    // state of the current walk. jpql and joins are null while the key is computed
+    private StringBuilder text;
+    private StringBuilder joins;
+    private int parameterCount;
+    private int joinCount;
+
+    /**
+     * Determines the shape of a search.
+     * @param selectField the field to select for SELECT_KEY, null otherwise
+     * @param tenants null if no tenant restriction applies, otherwise the tenantIds to restrict to
+     * @param explicitNullOrder true to sort nulls last in ascending and first in descending order, as required by keyset pagination
+     */
+    SearchShape(final Class<?> entityClass, final char selectKind, final String selectField, final boolean distinct, final SearchFilter filter,
+      final List<String> tenants, final List<SortColumn> sortColumns, final boolean explicitNullOrder) {
+        this.entityClass = entityClass;
+        this.selectKind = selectKind;
+        this.selectField = selectField;
+        this.distinct = distinct;
+        this.filter = filter;
+        this.tenants = tenants;
+        this.sortColumns = sortColumns;
+        this.explicitNullOrder = explicitNullOrder;
+        this.text = new StringBuilder(128);
+        text.append(entityClass.getName()).append('|').append(selectKind).append(distinct ? "D" : "").append(explicitNullOrder ? "N|" : "|");
+        if (selectField != null) {
+            text.append(selectField);
+        }
+        this.supported = walk(false);
+        this.key = text.toString();
+    }
+
+    boolean isSupported() {
+        return supported;
+    }
+
+    /** The cache key, which contains everything of the search except the values. */
+    String getKey() {
+        return key;
+    }
+
+    /** Translates the shape into JPQL, using positional parameters. */
+    String toJpql(final String entityName) {
+        joins = new StringBuilder();
+        text = new StringBuilder(256);
+        walk(true);
+        final StringBuilder jpql = new StringBuilder(64 + joins.length() + text.length());
+        jpql.append("SELECT ").append(distinct ? "DISTINCT " : "");
+        switch (selectKind) {
+        case SELECT_COUNT -> jpql.append("COUNT(").append(ROOT_ALIAS).append(')');
+        case SELECT_KEY -> jpql.append(ROOT_ALIAS).append('.').append(selectField);
+        default -> jpql.append(ROOT_ALIAS);
+        }
+        jpql.append(" FROM ").append(entityName).append(' ').append(ROOT_ALIAS).append(joins).append(text);
+        return jpql.toString();
+    }
+
+    /** Binds the values of this search to a query created from the JPQL of its shape. */
+    void bindParameters(final Query query) {
+        for (int i = 0; i < parameters.size(); ++i) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+    }
+
+    private boolean walk(final boolean jpql) {
+        parameterCount = 0;
+        joinCount = 0;
+        final boolean haveFilter = filter != null;
+        if (haveFilter || tenants != null) {
+            text.append(jpql ? " WHERE " : "|W");
+        }
+        if (haveFilter) {
+            if (tenants != null) {
+                text.append('(');
+            }
+            if (!filter(filter, jpql)) {
+                return false;
+            }
+            if (tenants != null) {
+                text.append(jpql ? ") AND " : ")&");
+            }
+        }
+        if (tenants != null) {
+            if (jpql) {
+                text.append(ROOT_ALIAS).append('.').append(T9tConstants.TENANT_ID_FIELD_NAME);
+            }
+            if (tenants.size() == 1) {
+                text.append(jpql ? " = ?" : "T=").append(parameter(tenants.get(0), jpql));
+            } else {
+                text.append(jpql ? " IN ?" : "T@").append(parameter(tenants, jpql));
+            }
+        }
+        if (sortColumns != null && !sortColumns.isEmpty()) {
+            text.append(jpql ? " ORDER BY " : "|S");
+            boolean first = true;
+            for (final SortColumn column : sortColumns) {
+                if (!first) {
+                    text.append(',');
+                }
+                first = false;
+                if (!path(column.getFieldName(), jpql)) {
+                    return false;
+                }
+                text.append(jpql ? (column.getDescending() ? " DESC" : " ASC") : (column.getDescending() ? "-" : "+"));
+                if (jpql && explicitNullOrder) {
+                    text.append(column.getDescending() ? " NULLS FIRST" : " NULLS LAST");
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean filter(final SearchFilter f, final boolean jpql) {
+        switch (f) {
+        case AndFilter and -> {
+            return junction(and.getFilter1(), and.getFilter2(), jpql ? " AND " : "&", jpql);
+        }
+        case OrFilter or -> {
+            return junction(or.getFilter1(), or.getFilter2(), jpql ? " OR " : "/", jpql);
+        }
+        case NotFilter not -> {
+            text.append(jpql ? "NOT (" : "!(");
+            final boolean ok = filter(not.getFilter(), jpql);
+            text.append(')');
+            return ok;
+        }
+        case FieldFilter fieldFilter -> {
+            return fieldFilter(fieldFilter, jpql);
+        }
+        default -> {
+            return false;
+        }
+        }
+    }
+
+    private boolean junction(final SearchFilter filter1, final SearchFilter filter2, final String operator, final boolean jpql) {
+        text.append('(');
+        if (!filter(filter1, jpql)) {
+            return false;
+        }
+        text.append(operator);
+        if (!filter(filter2, jpql)) {
+            return false;
+        }
+        text.append(')');
+        return true;
+    }
+
+    private boolean fieldFilter(final FieldFilter f, final boolean jpql) {
+        if (f instanceof NullFilter) {
+            if (!path(f.getFieldName(), jpql)) {
+                return false;
+            }
+            text.append(jpql ? " IS NULL" : "~");
+            return true;
+        }
+        if (f instanceof BooleanFilter b) {
+            if (!path(f.getFieldName(), jpql)) {
+                return false;
+            }
+            text.append(jpql ? " = ?" : "=").append(parameter(Boolean.valueOf(b.getBooleanValue()), jpql));
+            return true;
+        }
+        final boolean caseInsensitive = f instanceof StringFilter s && Boolean.TRUE.equals(s.getCaseInsensitive());
+        final Operands ops = operands(f, caseInsensitive);
+        if (ops == null) {
+            return false;
+        }
+        if (caseInsensitive) {
+            text.append(jpql ? "LOWER(" : "i(");
+        }
+        if (!path(f.getFieldName(), jpql)) {
+            return false;
+        }
+        if (caseInsensitive) {
+            text.append(')');
+        }
+        if (ops.valueList() != null) {
+            if (ops.valueList().isEmpty()) {
+                return false;  // rare, left to the criteria API
+            }
+            text.append(jpql ? " IN ?" : "@").append(parameter(ops.valueList(), jpql));
+        } else if (ops.equalsValue() != null) {
+            text.append(jpql ? " = ?" : "=").append(parameter(ops.equalsValue(), jpql));
+        } else if (ops.likeValue() != null) {
+            text.append(jpql ? " LIKE ?" : "%").append(parameter(ops.likeValue(), jpql));
+        } else if (ops.lowerBound() != null && ops.upperBound() != null) {
+            text.append(jpql ? " BETWEEN ?" : "[").append(parameter(ops.lowerBound(), jpql));
+            text.append(jpql ? " AND ?" : ",").append(parameter(ops.upperBound(), jpql));
+        } else if (ops.lowerBound() != null) {
+            text.append(jpql ? " >= ?" : ">").append(parameter(ops.lowerBound(), jpql));
+        } else if (ops.upperBound() != null) {
+            text.append(jpql ? " <= ?" : "<").append(parameter(ops.upperBound(), jpql));
+        } else {
+            return false;  // the criteria API reports the missing values
+        }
+        return true;
+    }
+
+    /** Extracts the operands of the known filter types, or returns null for other filter types. */
+    private static Operands operands(final FieldFilter filter, final boolean caseInsensitive) {
+        return switch (filter) {
+        case StringFilter f -> caseInsensitive
+            ? new Operands(lowerCase(f.getValueList()), lowerCase(f.getEqualsValue()), lowerCase(f.getLikeValue()),
+                lowerCase(f.getLowerBound()), lowerCase(f.getUpperBound()))
+            : new Operands(f.getValueList(), f.getEqualsValue(), f.getLikeValue(), f.getLowerBound(), f.getUpperBound());
+        case IntFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case LongFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case DecimalFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case DayFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case TimestampFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case InstantFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case TimeFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case ByteFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case ShortFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case DoubleFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case FloatFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, f.getLowerBound(), f.getUpperBound());
+        case UuidFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, null, null);
+        case ByteArrayFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, null, null);
+        case BytesFilter f -> new Operands(f.getValueList(), f.getEqualsValue(), null, null, null);
+        default -> null;
+        };
+    }
+
+    private static String lowerCase(final String s) {
+        return s == null ? null : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> lowerCase(final List<String> list) {
+        if (list == null) {
+            return null;
+        }
+        final List<String> lowerList = new ArrayList<>(list.size());
+        for (final String s : list) {
+            lowerList.add(s.toLowerCase(Locale.ROOT));
+        }
+        return lowerList;
+    }
+
+    /** Collects a value (first walk) and returns its position. */
+    private int parameter(final Object value, final boolean jpql) {
+        if (!jpql) {
+            parameters.add(value);
+        }
+        return ++parameterCount;
+    }
+
+    /**
+     * Appends a field reference. The field names are validated, because they become part of the JPQL:
+     * by syntax for the key, and by PathResolver for the JPQL, so that unknown fields are rejected before a plan is cached.
+     * As in PathResolver, a collection as first component of a compound name is joined, with a separate join per reference.
+     */
+    private boolean path(final String fieldName, final boolean jpql) {
+        final String[] components = fieldName.split("\\.");
+        for (final String component : components) {
+            if (!IDENTIFIER.matcher(component).matches()) {
+                throw new T9tException(T9tException.INVALID_FILTER_PARAMETERS, "Invalid field name " + fieldName);
+            }
+        }
+        if (!jpql) {
+            text.append(fieldName);
+            return true;
+        }
+        if (PathResolver.validatePath(entityClass, fieldName)) {
+            final String alias = "j" + (++joinCount);
+            joins.append(" LEFT JOIN ").append(ROOT_ALIAS).append('.').append(components[0]).append(' ').append(alias);
+            text.append(alias).append(fieldName, components[0].length(), fieldName.length());
+            return true;
+        }
+        text.append(ROOT_ALIAS).append('.').append(fieldName);
+        return true;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.jpa.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaQuery;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jpaw.dp.Jdp;
+import de.jpaw.dp.Singleton;
+import de.jpaw.util.ExceptionUtil;
+
+import com.arvatosystems.t9t.base.T9tUtil;
+import com.arvatosystems.t9t.base.jpa.IResolverAnyKey;
+import com.arvatosystems.t9t.base.jpa.ISearchTotalsProvider;
+import com.arvatosystems.t9t.base.jpa.ormspecific.IQueryHintSetter;
+import com.arvatosystems.t9t.base.search.SearchCriteria;
+import com.arvatosystems.t9t.base.search.SinkCreatedResponse;
+import com.arvatosystems.t9t.base.services.RequestContext;
+import com.arvatosystems.t9t.cfg.be.ApplicationConfiguration;
+import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
+import com.arvatosystems.t9t.metrics.IMetricsProvider;
+
+/**
+ * Provides the totals of searches according to the configured strategy.
+ * Cached totals are kept per tenant, entity class, filter (after search prefix processing) and distinct flag.
+ * They are not invalidated by changes of the data, therefore they may be outdated by up to searchTotalsCacheExpiry seconds.
+ * Background counts use a separate entity manager of the same persistence unit. Concurrent searches with the same key share one count.
+ */
+@Singleton
+public class SearchTotalsProvider implements ISearchTotalsProvider {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchTotalsProvider.class);
+    protected static final int DEFAULT_CACHE_EXPIRY = 30;          // seconds
+    protected static final int DEFAULT_CACHE_MAX_ENTRIES = 10_000;
+    private static final int COUNT_POOL_SIZE = 2;
+    /** Runs the background counts. The platform thread pool is small on purpose, in order to limit the additional database load. */
+    private static final ExecutorService COUNT_EXECUTOR = ExecutorServiceFactory.newBackgroundExecutor("t9t-SearchTotals-", COUNT_POOL_SIZE);
+
+    /** Cache key. The filter is represented by its string form, which is immutable and includes all filter values. */
+    protected record CountKey(String tenantId, Class<?> entityClass, String filter, boolean distinct) { }
+
+    protected final IQueryHintSetter queryHintSetter = Jdp.getRequired(IQueryHintSetter.class);
+    protected final String strategy;
+    protected final AsyncCache<CountKey, Long> totalsCache;  // null for strategy "exact"
+
+    public SearchTotalsProvider() {
+        final ApplicationConfiguration applCfg = ConfigProvider.getConfiguration().getApplicationConfiguration();
+        final String configuredStrategy = applCfg == null ? null : applCfg.getSearchTotalsStrategy();
+        if (configuredStrategy == null || STRATEGY_EXACT.equals(configuredStrategy)) {
+            strategy = STRATEGY_EXACT;
+            totalsCache = null;
+            return;
+        }
+        if (!STRATEGY_CACHED.equals(configuredStrategy) && !STRATEGY_ASYNC.equals(configuredStrategy) && !STRATEGY_ESTIMATE.equals(configuredStrategy)) {
+            LOGGER.error("Unknown searchTotalsStrategy {}, using {}", configuredStrategy, STRATEGY_CACHED);
+            strategy = STRATEGY_CACHED;
+        } else {
+            strategy = configuredStrategy;
+        }
+        final int expiry = T9tUtil.nvl(applCfg.getSearchTotalsCacheExpiry(), DEFAULT_CACHE_EXPIRY);
+        final int maxEntries = T9tUtil.nvl(applCfg.getSearchTotalsCacheMaxEntries(), DEFAULT_CACHE_MAX_ENTRIES);
+        LOGGER.info("Search totals strategy {}, caching up to {} totals for {} s", strategy, maxEntries, expiry);
+
+        totalsCache = Caffeine.newBuilder()
+          .maximumSize(maxEntries)
+          .expireAfterWrite(expiry, TimeUnit.SECONDS)
+          .executor(COUNT_EXECUTOR)
+          .recordStats()
+          .buildAsync();
+        final IMetricsProvider metricsProvider = Jdp.getOptional(IMetricsProvider.class);
+        if (metricsProvider != null) {
+            metricsProvider.addMeter(new CaffeineCacheMetrics<>(totalsCache.synchronous(), "searchTotals", Tags.of("type", "searchTotals")));
+        }
+    }
+
+    @Override
+    public void setTotals(final RequestContext ctx, final IResolverAnyKey<?, ?, ?> resolver, final SearchCriteria criteria,
+      final SinkCreatedResponse response) {
+        if (totalsCache == null) {
+            response.setNumResults(resolver.count(criteria.getSearchFilter(), criteria.getApplyDistinct()));
+            return;
+        }
+        final CountKey key = new CountKey(ctx.tenantId, resolver.getEntityClass(), String.valueOf(criteria.getSearchFilter()),
+          Boolean.TRUE.equals(criteria.getApplyDistinct()));
+        if (STRATEGY_CACHED.equals(strategy)) {
+            // the mapping function is invoked by the current thread, therefore the count runs within the request
+            response.setNumResults(totalsCache.get(key, (k, executor) ->
+              CompletableFuture.completedFuture(resolver.count(criteria.getSearchFilter(), criteria.getApplyDistinct()))).join());
+            return;
+        }
+        final CompletableFuture<Long> total = totalsCache.get(key, (k, executor) -> {
+            // the query must be built within the request context, because it contains the tenant restriction
+            final CriteriaQuery<Long> countQuery = resolver.buildCountQuery(criteria.getSearchFilter(), criteria.getApplyDistinct());
+            final EntityManagerFactory emf = resolver.getEntityManager().getEntityManagerFactory();
+            return CompletableFuture.supplyAsync(() -> countInBackground(emf, countQuery, k), executor);
+        });
+        if (total.isDone() && !total.isCompletedExceptionally()) {
+            response.setNumResults(total.join());
+        } else if (STRATEGY_ESTIMATE.equals(strategy)) {
+            final Long estimate = resolver.estimateCount(criteria.getSearchFilter());
+            if (estimate != null) {
+                response.setNumResults(estimate);
+                response.setNumResultsEstimated(Boolean.TRUE);
+            }
+        }
+    }
+
+    /** Runs a count query with a separate entity manager. A failed count is removed from the cache and retried by the next search. */
+    protected Long countInBackground(final EntityManagerFactory emf, final CriteriaQuery<Long> countQuery, final CountKey key) {
+        final EntityManager em = emf.createEntityManager();
+        try {
+            final TypedQuery<Long> query = em.createQuery(countQuery);
+            queryHintSetter.setReadOnly(query);
+            final Long count = query.getSingleResult();
+            LOGGER.debug("Background count on {} for tenant {}: {}", key.entityClass().getSimpleName(), key.tenantId(), count);
+            return count;
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Background count on {} for tenant {} failed: {}", key.entityClass().getSimpleName(), key.tenantId(), ExceptionUtil.causeChain(e));
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+}
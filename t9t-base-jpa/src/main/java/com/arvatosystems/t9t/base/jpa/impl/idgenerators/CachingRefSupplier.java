@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.jpa.impl.idgenerators;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jpaw.util.ExceptionUtil;
+
+import com.arvatosystems.t9t.base.services.ISingleRefGenerator;
+
+/**
+ * Lock free supplier of sequence values, which hands out values of a block obtained by a single sequence fetch.
+ * Values of the current block are distributed via an atomic increment. The next blocks are fetched in background
+ * before the current one is exhausted, the number of prefetched blocks adapts to the observed consumption rate.
+ * If no prefetched block is available, one caller fetches a block synchronously, while concurrent callers wait for it.
+ *
+ * The size of a block is fixed, because it determines the mapping of sequence values to refs for all nodes of a cluster.
+ */
+final class CachingRefSupplier implements LongSupplier {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingRefSupplier.class);
+
+    private static final long FAST_CONSUMPTION_NANOS = 1_000_000_000L;   // block used within 1 second: prefetch more blocks
+    private static final long SLOW_CONSUMPTION_NANOS = 30_000_000_000L;  // block took more than 30 seconds: prefetch fewer blocks
+
+    /** A range of values obtained by a single sequence fetch. */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long last;            // last value of this block (inclusive)
+        private final long refillTrigger;   // the value which triggers a background refill
+
+        private Block(final long first, final long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+            this.refillTrigger = last - (last - first) / 4;
+        }
+    }
+
+    private static final Block EXHAUSTED = new Block(0L, -1L);
+
+    private final AtomicReference<Block> current = new AtomicReference<>(EXHAUSTED);
+    private final Queue<Block> prefetched = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numPrefetched = new AtomicInteger();
+    private final AtomicBoolean refillRunning = new AtomicBoolean();
+    private final ReentrantLock fetchLock = new ReentrantLock();  // not synchronized, in order not to pin virtual threads during the fetch
+    private final int cacheSize;
+    private final String sqlCommandForNextValue;
+    private final ISingleRefGenerator uncachedRefSupplier;
+    private final boolean eagerCache;
+    private final Executor prefetchExecutor;
+    private final int maxPrefetchDepth;
+    private volatile int prefetchDepth;
+    private volatile long lastBlockSwitchAt;
+
+    /**
+     * Creates a new supplier.
+     *
+     * @param sqlCommandForNextValue    the statement (or key) passed to the uncached supplier
+     * @param cacheSize                 the number of values provided per sequence value
+     * @param uncachedRefSupplier       the generator which provides the raw sequence values
+     * @param eagerCache                if true, the sequence has been incremented by cacheSize (postgres gap fix), otherwise it is scaled by cacheSize
+     * @param prefetchExecutor          the executor to run background fetches on, or null to fetch on demand only
+     * @param maxPrefetchDepth          the maximum number of blocks to fetch ahead (0 to fetch on demand only)
+     */
+    CachingRefSupplier(@Nonnull final String sqlCommandForNextValue, final int cacheSize, @Nonnull final ISingleRefGenerator uncachedRefSupplier,
+      final boolean eagerCache, @Nullable final Executor prefetchExecutor, final int maxPrefetchDepth) {
+        this.sqlCommandForNextValue = sqlCommandForNextValue;
+        this.cacheSize = cacheSize;
+        this.uncachedRefSupplier = uncachedRefSupplier;
+        this.eagerCache = eagerCache;
+        this.prefetchExecutor = prefetchExecutor;
+        this.maxPrefetchDepth = prefetchExecutor == null ? 0 : maxPrefetchDepth;
+        this.prefetchDepth = Math.min(1, this.maxPrefetchDepth);
+        this.lastBlockSwitchAt = System.nanoTime();
+    }
+
+    @Override
+    public long getAsLong() {
+        for (;;) {
+            final Block block = current.get();
+            final long value = block.next.getAndIncrement();
+            if (value <= block.last) {
+                if (value == block.refillTrigger) {
+                    triggerRefill();
+                }
+                return value;
+            }
+            // current block is exhausted: switch to a prefetched one, or fetch a new one
+            final Block replacement = prefetched.poll();
+            if (replacement != null) {
+                numPrefetched.decrementAndGet();
+                switchTo(block, replacement);
+            } else {
+                fetchExclusively(block);
+            }
+        }
+    }
+
+    /** Replaces the exhausted block. If some other thread has been faster, the replacement is kept for later use. */
+    private void switchTo(final Block exhausted, final Block replacement) {
+        if (current.compareAndSet(exhausted, replacement)) {
+            adaptPrefetchDepth();
+            triggerRefill();
+        } else {
+            prefetched.offer(replacement);
+            numPrefetched.incrementAndGet();
+        }
+    }
+
+    /**
+     * Fetches a replacement of the exhausted block synchronously. Only one caller fetches, concurrent callers wait for its block,
+     * instead of fetching one each.
+     */
+    private void fetchExclusively(final Block exhausted) {
+        fetchLock.lock();
+        try {
+            if (current.get() != exhausted) {
+                return;  // replaced while we were waiting
+            }
+            final Block replacement = prefetched.poll();
+            if (replacement != null) {
+                // a background fetch completed while we were waiting
+                numPrefetched.decrementAndGet();
+                switchTo(exhausted, replacement);
+            } else {
+                switchTo(exhausted, fetchBlock());
+            }
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    /** Obtains a new block of values from the database. */
+    private Block fetchBlock() {
+        final long nextval = uncachedRefSupplier.getNextSequence(sqlCommandForNextValue);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Sequence next val is {} with cacheSize:{}, eagerCache:{}. SQL Command [{}]",
+                nextval, cacheSize, eagerCache, sqlCommandForNextValue);
+        }
+        if (eagerCache) {
+            return new Block(nextval - cacheSize, nextval);
+        } else {
+            return new Block(nextval * cacheSize, nextval * cacheSize + cacheSize - 1);
+        }
+    }
+
+    /** Increases the number of blocks fetched ahead if blocks are consumed quickly, and decreases it if consumption is slow. */
+    private void adaptPrefetchDepth() {
+        if (maxPrefetchDepth <= 1) {
+            return;
+        }
+        final long now = System.nanoTime();
+        final long elapsed = now - lastBlockSwitchAt;
+        lastBlockSwitchAt = now;
+        final int depth = prefetchDepth;
+        if (elapsed < FAST_CONSUMPTION_NANOS && depth < maxPrefetchDepth) {
+            prefetchDepth = depth + 1;
+            LOGGER.debug("Increasing prefetch depth for [{}] to {}", sqlCommandForNextValue, depth + 1);
+        } else if (elapsed > SLOW_CONSUMPTION_NANOS && depth > 1) {
+            prefetchDepth = depth - 1;
+            LOGGER.debug("Decreasing prefetch depth for [{}] to {}", sqlCommandForNextValue, depth - 1);
+        }
+    }
+
+    /** Schedules a background fetch of further blocks, unless one is running already or enough blocks are available. */
+    private void triggerRefill() {
+        if (maxPrefetchDepth > 0 && numPrefetched.get() < prefetchDepth && refillRunning.compareAndSet(false, true)) {
+            prefetchExecutor.execute(this::refill);
+        }
+    }
+
+    private void refill() {
+        try {
+            while (numPrefetched.get() < prefetchDepth) {
+                prefetched.offer(fetchBlock());
+                numPrefetched.incrementAndGet();
+            }
+        } catch (final Exception e) {
+            // not fatal, the next caller will fetch synchronously
+            LOGGER.warn("Background prefetch of sequence values for [{}] failed: {}", sqlCommandForNextValue, ExceptionUtil.causeChain(e));
+        } finally {
+            refillRunning.set(false);
+        }
+    }
+}
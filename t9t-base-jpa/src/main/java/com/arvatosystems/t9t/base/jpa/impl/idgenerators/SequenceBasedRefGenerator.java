@@ -18,10 +18,9 @@ package com.arvatosystems.t9t.base.jpa.impl.idgenerators;
 import java.security.InvalidParameterException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.LongSupplier;
 
-import jakarta.annotation.Nonnull;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +31,7 @@ import com.arvatosystems.t9t.base.T9tUtil;
 import com.arvatosystems.t9t.base.services.IRefGenerator;
 import com.arvatosystems.t9t.base.services.ISingleRefGenerator;
 import com.arvatosystems.t9t.cfg.be.DatabaseBrandType;
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
 import com.arvatosystems.t9t.cfg.be.KeyPrefetchConfiguration;
 import com.arvatosystems.t9t.cfg.be.T9tServerConfiguration;
 
@@ -54,6 +54,8 @@ public class SequenceBasedRefGenerator extends AbstractIdGenerator implements IR
     private static final int DEFAULT_CACHE_SIZE          = 500; // how many sequences we generate per single DB-sequence fetch for scaled keys
     private static final int DEFAULT_CACHE_SIZE_UNSCALED =  10; // how many sequences we generate per single DB-sequence fetch for unscaled keys
     private static final int NUM_SEQUENCES               = 100; // how many sequences we use to obtain the IDs
+    private static final int DEFAULT_PREFETCHED_BLOCKS   =   4; // up to how many blocks of scaled keys we fetch ahead
+    private static final int DEFAULT_KEY_FETCH_THREADS   =   1; // how many threads fetch blocks in background
     private final LongSupplier[] generatorTab            = new LongSupplier[NUM_SEQUENCES];
     private final Map<String, LongSupplier> generatorMap = new ConcurrentHashMap<>(500);
     private final long scaledOffsetForLocation;
@@ -66,10 +68,13 @@ public class SequenceBasedRefGenerator extends AbstractIdGenerator implements IR
     private final long sequenceReplicationScale;
     private final int cacheSizeUnscaled;
     private final ISingleRefGenerator refGeneratorFactory;
+    private final int maxPrefetchedBlocks;
+    private final Executor prefetchExecutor;
 
     public SequenceBasedRefGenerator() {
         final KeyPrefetchConfiguration keyConfig = configuration.getKeyPrefetchConfiguration();
         final String factoryQualifier;
+        final int numKeyFetchThreads;
 
         if (keyConfig != null) {
             scaledOffsetForLocation = (long) keyConfig.getLocationOffset() * OFFSET_BACKUP_LOCATION;
@@ -79,6 +84,8 @@ public class SequenceBasedRefGenerator extends AbstractIdGenerator implements IR
             useSequencePerTable = !Boolean.FALSE.equals(keyConfig.getUseSequencePerTable());
             sequenceReplicationScale = T9tUtil.nvl(keyConfig.getSequenceReplicationScale(), 1L);
             postgresGapFix = Boolean.TRUE.equals(keyConfig.getPostgresGapFix());
+            maxPrefetchedBlocks = T9tUtil.nvl(keyConfig.getMaxPrefetchedBlocks(), DEFAULT_PREFETCHED_BLOCKS);
+            numKeyFetchThreads = T9tUtil.nvl(keyConfig.getNumKeyFetchThreads(), DEFAULT_KEY_FETCH_THREADS);
         } else {
             scaledOffsetForLocation = 0;
             cacheSize = DEFAULT_CACHE_SIZE;
@@ -87,17 +94,25 @@ public class SequenceBasedRefGenerator extends AbstractIdGenerator implements IR
             useSequencePerTable = true;
             sequenceReplicationScale = 1L;
             postgresGapFix = false;
+            maxPrefetchedBlocks = DEFAULT_PREFETCHED_BLOCKS;
+            numKeyFetchThreads = DEFAULT_KEY_FETCH_THREADS;
         }
         LOGGER.info("Creating object references via sequence per {} for database {} by generator {} with cache sizes {} / {}, locationOffset is {}",
             useSequencePerTable ? "table" : "RTTI",
             dialect.name(), factoryQualifier, cacheSize, cacheSizeUnscaled, scaledOffsetForLocation);
         refGeneratorFactory = Jdp.getRequired(ISingleRefGenerator.class, factoryQualifier);
+        if (maxPrefetchedBlocks > 0 && numKeyFetchThreads > 0) {
+            LOGGER.info("Prefetching up to {} blocks of scaled keys using {} thread(s)", maxPrefetchedBlocks, numKeyFetchThreads);
+            prefetchExecutor = ExecutorServiceFactory.newBackgroundExecutor("t9t-KeyFetch-", numKeyFetchThreads);
+        } else {
+            prefetchExecutor = null;
+        }
 
         if (!useSequencePerTable) {
             for (int i = 0; i < NUM_SEQUENCES; ++i) {
                 final String sequenceName = sequenceNameForIndex(i);
                 final String key = refGeneratorFactory.needSelectStatement() ? selectStatementForSequence(dialect, sequenceName) : sequenceName;
-                generatorTab[i] = new CachingRefSupplier(key, cacheSize, refGeneratorFactory, false);
+                generatorTab[i] = new CachingRefSupplier(key, cacheSize, refGeneratorFactory, false, prefetchExecutor, maxPrefetchedBlocks);
             }
         }
     }
@@ -113,53 +128,12 @@ public class SequenceBasedRefGenerator extends AbstractIdGenerator implements IR
                 tn -> {
                     final String sequenceName = sequenceNameForTable(tablename);
                     final String key = refGeneratorFactory.needSelectStatement() ? selectStatementForSequence(dialect, sequenceName) : sequenceName;
-                    return new CachingRefSupplier(key, cacheSize, refGeneratorFactory, false);
+                    return new CachingRefSupplier(key, cacheSize, refGeneratorFactory, false, prefetchExecutor, maxPrefetchedBlocks);
                 }
               );
         return supplier.getAsLong() * KEY_FACTOR + scaledOffsetForLocation + rttiOffset;
     }
 
-    private static final class CachingRefSupplier implements LongSupplier {
-        private volatile long lastProvidedValue;
-        private volatile int remainingCachedIds;
-        private final int cacheSize;
-        private final String sqlCommandForNextValue;
-        private final ISingleRefGenerator uncachedRefSupplier;
-        private final boolean eagerCache;
-
-        private CachingRefSupplier(@Nonnull final String sqlCommandForNextValue, final int cacheSize, @Nonnull ISingleRefGenerator uncachedRefSupplier,
-            final boolean eagerCache) {
-            lastProvidedValue = -1L;
-            remainingCachedIds = 0;
-            this.sqlCommandForNextValue = sqlCommandForNextValue;
-            this.cacheSize = cacheSize;
-            this.uncachedRefSupplier = uncachedRefSupplier;
-            this.eagerCache = eagerCache;
-        }
-
-        public synchronized long getAsLong() {
-            if (remainingCachedIds > 0) {
-                --remainingCachedIds;
-                ++lastProvidedValue;
-            } else {
-                final long nextval = uncachedRefSupplier.getNextSequence(sqlCommandForNextValue);
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Sequence next val is {} with cacheSize:{}, eagerCache:{}. SQL Command [{}]",
-                        nextval, cacheSize, eagerCache, sqlCommandForNextValue);
-                }
-                if (eagerCache) {
-                    lastProvidedValue = nextval - cacheSize;
-                    remainingCachedIds = cacheSize;
-                } else {
-                    // store data for the next bunch of results
-                    lastProvidedValue = nextval * cacheSize;
-                    remainingCachedIds = cacheSize - 1;
-                }
-            }
-            return lastProvidedValue;
-        }
-    }
-
     @Override
     public long generateUnscaledRef(final String sequenceName) {
         final LongSupplier g = generatorMap.computeIfAbsent(sequenceName,
@@ -169,7 +143,8 @@ public class SequenceBasedRefGenerator extends AbstractIdGenerator implements IR
                     : sequenceName;
                 LOGGER.info("Creating new CachingRefSupplier for UNSCALED refs of key {} with cache size {} and eagerCache {}",
                     key, cacheSizeUnscaled, postgresGapFix);
-                return new CachingRefSupplier(key, cacheSizeUnscaled, refGeneratorFactory, postgresGapFix);
+                // no prefetching for unscaled refs, because they are often used as business keys, where gaps are undesired
+                return new CachingRefSupplier(key, cacheSizeUnscaled, refGeneratorFactory, postgresGapFix, null, 0);
             }
         );
         final long rawValue = g.getAsLong();
@@ -44,4 +44,13 @@ public interface IQueryHintSetter {
 
     /** Provide a query comment. This usually appears in the logs and can be used to identify the source. */
     void setComment(Query q, String text);
+
+    /**
+     * For a query with pessimistic lock mode, skip rows which are currently locked by other transactions (FOR UPDATE SKIP LOCKED).
+     * If not supported, the query waits for the locks instead.
+     */
+    default void setSkipLocked(final Query q) { }
+
+    /** Set the number of rows fetched per JDBC roundtrip, for queries which are consumed as a stream. */
+    default void setFetchSize(final Query q, final int fetchSize) { }
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.jpa.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Nulls;
+import jakarta.persistence.criteria.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import de.jpaw.bonaparte.pojos.api.SortColumn;
+
+import com.arvatosystems.t9t.base.T9tException;
+
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class KeysetPaginationTest {
+    enum Color { RED, GREEN }
+
+    static class Address {
+        String city;
+    }
+
+    static class Row {
+        String name;
+        Integer num;
+        Long objectRef;
+        Instant created;
+        Color color;
+        Address address;
+        List<String> tags;
+    }
+
+    private static Row row() {
+        final Row row = new Row();
+        row.name = "Miller";
+        row.num = 42;
+        row.objectRef = 4711L;
+        row.created = Instant.parse("2026-10-17T12:34:56.789Z");
+        row.color = Color.GREEN;
+        row.address = new Address();
+        row.address.city = "Gütersloh";
+        return row;
+    }
+
+    private static final List<SortColumn> ALL_COLUMNS = List.of(new SortColumn("name", false), new SortColumn("num", true),
+      new SortColumn("created", false), new SortColumn("color", true), new SortColumn("address.city", false), new SortColumn("objectRef", false));
+
+    private final CriteriaBuilder cb = Mockito.mock(CriteriaBuilder.class);
+    private final PathResolver pathResolver = Mockito.mock(PathResolver.class);
+    private final Path name = Mockito.mock(Path.class);
+    private final Path objectRef = Mockito.mock(Path.class);
+
+    private static void assertInvalid(final Runnable r) {
+        final T9tException e = Assertions.assertThrows(T9tException.class, r::run);
+        Assertions.assertEquals(T9tException.INVALID_FILTER_PARAMETERS, e.getErrorCode());
+    }
+
+    @Test
+    public void tokenRoundTrip() {
+        final String token = KeysetPagination.encode(Row.class, ALL_COLUMNS, row());
+        final Object[] values = KeysetPagination.decode(Row.class, ALL_COLUMNS, token);
+        Assertions.assertArrayEquals(new Object[] { "Miller", 42, Instant.parse("2026-10-17T12:34:56.789Z"), Color.GREEN, "Gütersloh", 4711L }, values);
+    }
+
+    @Test
+    public void tokenRoundTripWithNulls() {
+        final Row row = row();
+        row.name = null;
+        row.address = null;
+        final String token = KeysetPagination.encode(Row.class, ALL_COLUMNS, row);
+        final Object[] values = KeysetPagination.decode(Row.class, ALL_COLUMNS, token);
+        Assertions.assertNull(values[0]);
+        Assertions.assertNull(values[4]);
+        Assertions.assertEquals(4711L, values[5]);
+    }
+
+    @Test
+    public void tokenMustMatchSortColumns() {
+        final List<SortColumn> columns = List.of(new SortColumn("name", false), new SortColumn("objectRef", false));
+        final String token = KeysetPagination.encode(Row.class, columns, row());
+        assertInvalid(() -> KeysetPagination.decode(Row.class, List.of(new SortColumn("num", false), new SortColumn("objectRef", false)), token));
+        assertInvalid(() -> KeysetPagination.decode(Row.class, List.of(new SortColumn("name", true), new SortColumn("objectRef", false)), token));
+        assertInvalid(() -> KeysetPagination.decode(Row.class, List.of(new SortColumn("objectRef", false)), token));
+    }
+
+    @Test
+    public void tamperedTokensAreRejected() {
+        final List<SortColumn> columns = List.of(new SortColumn("num", false), new SortColumn("objectRef", false));
+        final String token = KeysetPagination.encode(Row.class, columns, row());
+        final byte[] bytes = Base64.getUrlDecoder().decode(token);
+
+        assertInvalid(() -> KeysetPagination.decode(Row.class, columns, "not base64 !"));
+        assertInvalid(() -> KeysetPagination.decode(Row.class, columns, token.substring(0, token.length() - 3)));
+
+        final byte[] otherVersion = bytes.clone();
+        otherVersion[0] = 99;
+        assertInvalid(() -> KeysetPagination.decode(Row.class, columns, Base64.getUrlEncoder().withoutPadding().encodeToString(otherVersion)));
+
+        // replace the digits of num = 42 by a non numeric value of the same length
+        final String decoded = new String(bytes, StandardCharsets.ISO_8859_1).replace("42", "x2");
+        final String badValue = Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.ISO_8859_1));
+        assertInvalid(() -> KeysetPagination.decode(Row.class, columns, badValue));
+    }
+
+    @Test
+    public void unsupportedSortFieldsAreRejected() {
+        assertInvalid(() -> KeysetPagination.encode(Row.class, List.of(new SortColumn("tags", false)), row()));
+        assertInvalid(() -> KeysetPagination.encode(Row.class, List.of(new SortColumn("unknown", false)), row()));
+    }
+
+    private void seek(final boolean descending, final String lastName) {
+        Mockito.doReturn(name).when(pathResolver).getPath("name");
+        Mockito.doReturn(objectRef).when(pathResolver).getPath("objectRef");
+        final List<SortColumn> columns = List.of(new SortColumn("name", descending), new SortColumn("objectRef", descending));
+        KeysetPagination.seekPredicate(cb, pathResolver, columns, new Object[] { lastName, 4711L });
+    }
+
+    @Test
+    public void seekAscending() {
+        seek(false, "Miller");
+        // (name > 'Miller' OR name IS NULL) OR (name = 'Miller' AND (objectRef > 4711 OR objectRef IS NULL))
+        Mockito.verify(cb).greaterThan((Expression) name, (Comparable) "Miller");
+        Mockito.verify(cb).isNull(name);
+        Mockito.verify(cb).equal(name, "Miller");
+        Mockito.verify(cb).greaterThan((Expression) objectRef, (Comparable) 4711L);
+        Mockito.verify(cb, Mockito.never()).lessThan(Mockito.any(Expression.class), Mockito.any(Comparable.class));
+    }
+
+    @Test
+    public void seekDescending() {
+        seek(true, "Miller");
+        // name < 'Miller' OR (name = 'Miller' AND objectRef < 4711), nulls come first and have been passed already
+        Mockito.verify(cb).lessThan((Expression) name, (Comparable) "Miller");
+        Mockito.verify(cb).equal(name, "Miller");
+        Mockito.verify(cb).lessThan((Expression) objectRef, (Comparable) 4711L);
+        Mockito.verify(cb, Mockito.never()).isNull(Mockito.any());
+        Mockito.verify(cb, Mockito.never()).greaterThan(Mockito.any(Expression.class), Mockito.any(Comparable.class));
+    }
+
+    @Test
+    public void seekAscendingAfterNull() {
+        seek(false, null);
+        // no row follows a null in ascending order, except for the same name and a higher objectRef
+        Mockito.verify(cb).disjunction();
+        Mockito.verify(cb).isNull(name);
+        Mockito.verify(cb, Mockito.never()).equal(Mockito.eq(name), Mockito.<Object>any());
+        Mockito.verify(cb, Mockito.never()).greaterThan(Mockito.eq((Expression) name), Mockito.any(Comparable.class));
+    }
+
+    @Test
+    public void seekDescendingAfterNull() {
+        seek(true, null);
+        // all non null names follow the nulls in descending order
+        Mockito.verify(cb).isNotNull(name);
+        Mockito.verify(cb).isNull(name);
+        Mockito.verify(cb).lessThan((Expression) objectRef, (Comparable) 4711L);
+        Mockito.verify(cb, Mockito.never()).disjunction();
+    }
+
+    @Test
+    public void orderSortsNullsAsExpectedBySeek() {
+        KeysetPagination.order(cb, name, false);
+        KeysetPagination.order(cb, objectRef, true);
+        Mockito.verify(cb).asc(name, Nulls.LAST);
+        Mockito.verify(cb).desc(objectRef, Nulls.FIRST);
+    }
+}
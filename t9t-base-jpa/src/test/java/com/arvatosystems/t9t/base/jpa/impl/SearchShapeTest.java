@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.jpa.impl;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.persistence.Query;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import de.jpaw.bonaparte.pojos.api.AndFilter;
+import de.jpaw.bonaparte.pojos.api.BooleanFilter;
+import de.jpaw.bonaparte.pojos.api.ByteArrayFilter;
+import de.jpaw.bonaparte.pojos.api.ByteFilter;
+import de.jpaw.bonaparte.pojos.api.BytesFilter;
+import de.jpaw.bonaparte.pojos.api.DayFilter;
+import de.jpaw.bonaparte.pojos.api.DecimalFilter;
+import de.jpaw.bonaparte.pojos.api.DoubleFilter;
+import de.jpaw.bonaparte.pojos.api.FloatFilter;
+import de.jpaw.bonaparte.pojos.api.InstantFilter;
+import de.jpaw.bonaparte.pojos.api.IntFilter;
+import de.jpaw.bonaparte.pojos.api.LongFilter;
+import de.jpaw.bonaparte.pojos.api.NotFilter;
+import de.jpaw.bonaparte.pojos.api.NullFilter;
+import de.jpaw.bonaparte.pojos.api.OrFilter;
+import de.jpaw.bonaparte.pojos.api.SearchFilter;
+import de.jpaw.bonaparte.pojos.api.ShortFilter;
+import de.jpaw.bonaparte.pojos.api.SortColumn;
+import de.jpaw.bonaparte.pojos.api.StringFilter;
+import de.jpaw.bonaparte.pojos.api.TimeFilter;
+import de.jpaw.bonaparte.pojos.api.TimestampFilter;
+import de.jpaw.bonaparte.pojos.api.UuidFilter;
+import de.jpaw.util.ByteArray;
+
+import com.arvatosystems.t9t.base.T9tException;
+
+public class SearchShapeTest {
+    private static final String ITEM = Item.class.getName();
+
+    static class Address {
+        String city;
+    }
+
+    static class Tag {
+        String code;
+    }
+
+    static class Item {
+        String tenantId;
+        Long objectRef;
+        String name;
+        Boolean isActive;
+        Byte byteValue;
+        Short shortValue;
+        Integer intValue;
+        Long longValue;
+        Float floatValue;
+        Double doubleValue;
+        BigDecimal decimalValue;
+        LocalDate day;
+        LocalDateTime timestamp;
+        Instant instant;
+        LocalTime time;
+        UUID uuid;
+        ByteArray bytes;
+        byte[] byteArray;
+        Address address;
+        List<Tag> tags;
+    }
+
+    private static SearchShape shape(final SearchFilter filter, final List<String> tenants) {
+        return new SearchShape(Item.class, SearchShape.SELECT_ENTITY, null, false, filter, tenants, null, false);
+    }
+
+    private static SearchFilter and(final SearchFilter filter1, final SearchFilter filter2) {
+        final AndFilter and = new AndFilter();
+        and.setFilter1(filter1);
+        and.setFilter2(filter2);
+        return and;
+    }
+
+    private static SearchFilter or(final SearchFilter filter1, final SearchFilter filter2) {
+        final OrFilter or = new OrFilter();
+        or.setFilter1(filter1);
+        or.setFilter2(filter2);
+        return or;
+    }
+
+    private static SearchFilter not(final SearchFilter filter) {
+        final NotFilter not = new NotFilter();
+        not.setFilter(filter);
+        return not;
+    }
+
+    private static StringFilter stringEquals(final String fieldName, final String value) {
+        final StringFilter f = new StringFilter(fieldName);
+        f.setEqualsValue(value);
+        return f;
+    }
+
+    /** Verifies key, JPQL and bound values of a supported shape. */
+    private static void assertShape(final SearchShape shape, final String expectedKey, final String expectedJpql, final Object... expectedValues) {
+        Assertions.assertTrue(shape.isSupported());
+        Assertions.assertEquals(expectedKey, shape.getKey());
+        Assertions.assertEquals(expectedJpql, shape.toJpql("Item"));
+        final Query query = Mockito.mock(Query.class);
+        shape.bindParameters(query);
+        for (int i = 0; i < expectedValues.length; ++i) {
+            Mockito.verify(query).setParameter(i + 1, expectedValues[i]);
+        }
+        Mockito.verifyNoMoreInteractions(query);
+    }
+
+    private static void assertInvalid(final Runnable r) {
+        final T9tException e = Assertions.assertThrows(T9tException.class, r::run);
+        Assertions.assertEquals(T9tException.INVALID_FILTER_PARAMETERS, e.getErrorCode());
+    }
+
+    @Test
+    public void testWithoutFilter() {
+        assertShape(shape(null, null), ITEM + "|E|", "SELECT e FROM Item e");
+    }
+
+    @Test
+    public void testValuesAreNotPartOfTheKey() {
+        final SearchShape miller = shape(stringEquals("name", "Miller"), null);
+        final SearchShape smith = shape(stringEquals("name", "Smith"), null);
+        Assertions.assertEquals(miller.getKey(), smith.getKey());
+        assertShape(smith, ITEM + "|E||Wname=1", "SELECT e FROM Item e WHERE e.name = ?1", "Smith");
+    }
+
+    @Test
+    public void testSingleTenant() {
+        assertShape(shape(stringEquals("name", "Miller"), List.of("ACME")), ITEM + "|E||W(name=1)&T=2",
+          "SELECT e FROM Item e WHERE (e.name = ?1) AND e.tenantId = ?2", "Miller", "ACME");
+    }
+
+    @Test
+    public void testTenantList() {
+        final List<String> tenants = List.of("@", "ACME");
+        assertShape(shape(null, tenants), ITEM + "|E||WT@1", "SELECT e FROM Item e WHERE e.tenantId IN ?1", tenants);
+    }
+
+    @Test
+    public void testNullAndBooleanFilters() {
+        assertShape(shape(and(new NullFilter("name"), new BooleanFilter("isActive", true)), null), ITEM + "|E||W(name~&isActive=1)",
+          "SELECT e FROM Item e WHERE (e.name IS NULL AND e.isActive = ?1)", Boolean.TRUE);
+    }
+
+    @Test
+    public void testStringOperators() {
+        final StringFilter like = new StringFilter("name");
+        like.setLikeValue("Mil%");
+        assertShape(shape(like, null), ITEM + "|E||Wname%1", "SELECT e FROM Item e WHERE e.name LIKE ?1", "Mil%");
+
+        final StringFilter between = new StringFilter("name");
+        between.setLowerBound("A");
+        between.setUpperBound("M");
+        assertShape(shape(between, null), ITEM + "|E||Wname[1,2", "SELECT e FROM Item e WHERE e.name BETWEEN ?1 AND ?2", "A", "M");
+
+        final StringFilter in = new StringFilter("name");
+        in.setValueList(List.of("A", "B"));
+        assertShape(shape(in, null), ITEM + "|E||Wname@1", "SELECT e FROM Item e WHERE e.name IN ?1", List.of("A", "B"));
+    }
+
+    @Test
+    public void testCaseInsensitiveStrings() {
+        final StringFilter equals = stringEquals("name", "Miller");
+        equals.setCaseInsensitive(Boolean.TRUE);
+        assertShape(shape(equals, null), ITEM + "|E||Wi(name)=1", "SELECT e FROM Item e WHERE LOWER(e.name) = ?1", "miller");
+
+        final StringFilter like = new StringFilter("name");
+        like.setLikeValue("MIL%");
+        like.setCaseInsensitive(Boolean.TRUE);
+        assertShape(shape(like, null), ITEM + "|E||Wi(name)%1", "SELECT e FROM Item e WHERE LOWER(e.name) LIKE ?1", "mil%");
+
+        final StringFilter in = new StringFilter("name");
+        in.setValueList(List.of("Miller", "SMITH"));
+        in.setCaseInsensitive(Boolean.TRUE);
+        assertShape(shape(in, null), ITEM + "|E||Wi(name)@1", "SELECT e FROM Item e WHERE LOWER(e.name) IN ?1", List.of("miller", "smith"));
+
+        final StringFilter between = new StringFilter("name");
+        between.setLowerBound("A");
+        between.setUpperBound("M");
+        between.setCaseInsensitive(Boolean.TRUE);
+        assertShape(shape(between, null), ITEM + "|E||Wi(name)[1,2", "SELECT e FROM Item e WHERE LOWER(e.name) BETWEEN ?1 AND ?2", "a", "m");
+    }
+
+    @Test
+    public void testNumericOperators() {
+        final IntFilter in = new IntFilter("intValue");
+        in.setValueList(List.of(1, 2, 3));
+        assertShape(shape(in, null), ITEM + "|E||WintValue@1", "SELECT e FROM Item e WHERE e.intValue IN ?1", List.of(1, 2, 3));
+
+        final DecimalFilter between = new DecimalFilter("decimalValue");
+        between.setLowerBound(BigDecimal.ONE);
+        between.setUpperBound(BigDecimal.TEN);
+        assertShape(shape(between, null), ITEM + "|E||WdecimalValue[1,2", "SELECT e FROM Item e WHERE e.decimalValue BETWEEN ?1 AND ?2",
+          BigDecimal.ONE, BigDecimal.TEN);
+
+        final LongFilter lower = new LongFilter("longValue");
+        lower.setLowerBound(5L);
+        assertShape(shape(lower, null), ITEM + "|E||WlongValue>1", "SELECT e FROM Item e WHERE e.longValue >= ?1", 5L);
+
+        final LongFilter upper = new LongFilter("longValue");
+        upper.setUpperBound(7L);
+        assertShape(shape(upper, null), ITEM + "|E||WlongValue<1", "SELECT e FROM Item e WHERE e.longValue <= ?1", 7L);
+    }
+
+    @Test
+    public void testEqualsForAllFilterTypes() {
+        final ByteFilter byteFilter = new ByteFilter("byteValue");
+        byteFilter.setEqualsValue((byte) 1);
+        final ShortFilter shortFilter = new ShortFilter("shortValue");
+        shortFilter.setEqualsValue((short) 2);
+        final IntFilter intFilter = new IntFilter("intValue");
+        intFilter.setEqualsValue(3);
+        final LongFilter longFilter = new LongFilter("longValue");
+        longFilter.setEqualsValue(4L);
+        final FloatFilter floatFilter = new FloatFilter("floatValue");
+        floatFilter.setEqualsValue(5.0f);
+        final DoubleFilter doubleFilter = new DoubleFilter("doubleValue");
+        doubleFilter.setEqualsValue(6.0);
+        final DecimalFilter decimalFilter = new DecimalFilter("decimalValue");
+        decimalFilter.setEqualsValue(BigDecimal.TEN);
+        final DayFilter dayFilter = new DayFilter("day");
+        dayFilter.setEqualsValue(LocalDate.of(2026, 10, 17));
+        final TimestampFilter timestampFilter = new TimestampFilter("timestamp");
+        timestampFilter.setEqualsValue(LocalDateTime.of(2026, 10, 17, 12, 0));
+        final InstantFilter instantFilter = new InstantFilter("instant");
+        instantFilter.setEqualsValue(Instant.EPOCH);
+        final TimeFilter timeFilter = new TimeFilter("time");
+        timeFilter.setEqualsValue(LocalTime.NOON);
+        final UuidFilter uuidFilter = new UuidFilter("uuid");
+        uuidFilter.setEqualsValue(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        final BytesFilter bytesFilter = new BytesFilter("bytes");
+        bytesFilter.setEqualsValue(new ByteArray(new byte[] { 3 }));
+        final ByteArrayFilter byteArrayFilter = new ByteArrayFilter("byteArray");
+        byteArrayFilter.setEqualsValue(new byte[] { 1, 2 });
+
+        final List<SearchFilter> filters = List.of(byteFilter, shortFilter, intFilter, longFilter, floatFilter, doubleFilter, decimalFilter,
+          dayFilter, timestampFilter, instantFilter, timeFilter, uuidFilter, bytesFilter, byteArrayFilter);
+        final List<String> fieldNames = List.of("byteValue", "shortValue", "intValue", "longValue", "floatValue", "doubleValue", "decimalValue",
+          "day", "timestamp", "instant", "time", "uuid", "bytes", "byteArray");
+        final List<Object> values = List.of((byte) 1, (short) 2, 3, 4L, 5.0f, 6.0, BigDecimal.TEN, LocalDate.of(2026, 10, 17),
+          LocalDateTime.of(2026, 10, 17, 12, 0), Instant.EPOCH, LocalTime.NOON, UUID.fromString("00000000-0000-0000-0000-000000000001"),
+          bytesFilter.getEqualsValue(), byteArrayFilter.getEqualsValue());
+        for (int i = 0; i < filters.size(); ++i) {
+            final String fieldName = fieldNames.get(i);
+            assertShape(shape(filters.get(i), null), ITEM + "|E||W" + fieldName + "=1", "SELECT e FROM Item e WHERE e." + fieldName + " = ?1",
+              values.get(i));
+        }
+    }
+
+    @Test
+    public void testAndOrNot() {
+        final SearchFilter filter = and(or(new NullFilter("name"), new BooleanFilter("isActive", true)), not(stringEquals("name", "Miller")));
+        assertShape(shape(filter, null), ITEM + "|E||W((name~/isActive=1)&!(name=2))",
+          "SELECT e FROM Item e WHERE ((e.name IS NULL OR e.isActive = ?1) AND NOT (e.name = ?2))", Boolean.TRUE, "Miller");
+    }
+
+    @Test
+    public void testJoinsAndEmbeddables() {
+        final SearchFilter filter = and(stringEquals("tags.code", "A"), or(stringEquals("tags.code", "B"), stringEquals("address.city", "Berlin")));
+        assertShape(shape(filter, null), ITEM + "|E||W(tags.code=1&(tags.code=2/address.city=3))",
+          "SELECT e FROM Item e LEFT JOIN e.tags j1 LEFT JOIN e.tags j2 WHERE (j1.code = ?1 AND (j2.code = ?2 OR e.address.city = ?3))",
+          "A", "B", "Berlin");
+    }
+
+    @Test
+    public void testSelectionAndSortOrder() {
+        final List<SortColumn> sortColumns = List.of(new SortColumn("name", false), new SortColumn("objectRef", true));
+        assertShape(new SearchShape(Item.class, SearchShape.SELECT_KEY, "objectRef", true, null, null, sortColumns, false),
+          ITEM + "|KD|objectRef|Sname+,objectRef-", "SELECT DISTINCT e.objectRef FROM Item e ORDER BY e.name ASC,e.objectRef DESC");
+        assertShape(new SearchShape(Item.class, SearchShape.SELECT_ENTITY, null, false, null, null, sortColumns, true),
+          ITEM + "|EN||Sname+,objectRef-", "SELECT e FROM Item e ORDER BY e.name ASC NULLS LAST,e.objectRef DESC NULLS FIRST");
+        assertShape(new SearchShape(Item.class, SearchShape.SELECT_COUNT, null, false, null, List.of("ACME"), null, false),
+          ITEM + "|C||WT=1", "SELECT COUNT(e) FROM Item e WHERE e.tenantId = ?1", "ACME");
+    }
+
+    @Test
+    public void testUnsupportedShapes() {
+        final StringFilter emptyList = new StringFilter("name");
+        emptyList.setValueList(List.of());
+        Assertions.assertFalse(shape(emptyList, null).isSupported());
+        Assertions.assertFalse(shape(new StringFilter("name"), null).isSupported());
+    }
+
+    @Test
+    public void testInvalidFieldNames() {
+        assertInvalid(() -> shape(stringEquals("name OR 1=1", "x"), null));
+        assertInvalid(() -> shape(stringEquals("unknown", "x"), null).toJpql("Item"));
+        assertInvalid(() -> shape(stringEquals("tags.unknown", "x"), null).toJpql("Item"));
+        assertInvalid(() -> shape(stringEquals("address.unknown", "x"), null).toJpql("Item"));
+        assertInvalid(() -> shape(stringEquals("name.value", "x"), null).toJpql("Item"));
+        assertInvalid(() -> new SearchShape(Item.class, SearchShape.SELECT_ENTITY, null, false, null, null, List.of(new SortColumn("unknown", false)), false)
+          .toJpql("Item"));
+    }
+}
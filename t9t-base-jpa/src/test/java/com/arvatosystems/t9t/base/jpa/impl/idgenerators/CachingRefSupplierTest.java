@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.jpa.impl.idgenerators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.arvatosystems.t9t.base.services.ISingleRefGenerator;
+
+public class CachingRefSupplierTest {
+    private static final String KEY = "SELECT nextval('cm_idgen_0001_seq')";
+
+    /** Sequence which counts the fetches and the maximum number of concurrent fetches. */
+    private static final class FakeSequence implements ISingleRefGenerator {
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicInteger fetches = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final long delayInMillis;
+
+        private FakeSequence(final long delayInMillis) {
+            this.delayInMillis = delayInMillis;
+        }
+
+        @Override
+        public long getNextSequence(final String selectStatementOrGeneralParameter) {
+            Assertions.assertEquals(KEY, selectStatementOrGeneralParameter);
+            fetches.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                if (delayInMillis > 0) {
+                    Thread.sleep(delayInMillis);
+                }
+                return sequence.incrementAndGet();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    public void testSequentialValuesWithoutPrefetch() {
+        final FakeSequence sequence = new FakeSequence(0L);
+        final CachingRefSupplier supplier = new CachingRefSupplier(KEY, 10, sequence, false, null, 0);
+        for (long expected = 10L; expected < 35L; ++expected) {
+            Assertions.assertEquals(expected, supplier.getAsLong());
+        }
+        Assertions.assertEquals(3, sequence.fetches.get());
+    }
+
+    @Test
+    public void testBackgroundPrefetch() {
+        final FakeSequence sequence = new FakeSequence(0L);
+        // run the background fetches synchronously, for predictable counts
+        final CachingRefSupplier supplier = new CachingRefSupplier(KEY, 8, sequence, false, Runnable::run, 1);
+        Assertions.assertEquals(8L, supplier.getAsLong());
+        Assertions.assertEquals(2, sequence.fetches.get(), "the first block plus one prefetched block");
+        for (long expected = 9L; expected < 16L; ++expected) {
+            Assertions.assertEquals(expected, supplier.getAsLong());
+        }
+        Assertions.assertEquals(2, sequence.fetches.get());
+        Assertions.assertEquals(16L, supplier.getAsLong());
+        Assertions.assertEquals(3, sequence.fetches.get(), "switching to the prefetched block triggers the next prefetch");
+    }
+
+    @Test
+    public void testConcurrentCallersFetchOnce() throws Exception {
+        final int numThreads = 16;
+        final FakeSequence sequence = new FakeSequence(100L);
+        final CachingRefSupplier supplier = new CachingRefSupplier(KEY, 100, sequence, false, null, 0);
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Long>> results = new ArrayList<>(numThreads);
+            for (int i = 0; i < numThreads; ++i) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return supplier.getAsLong();
+                }));
+            }
+            start.countDown();
+            final Set<Long> values = ConcurrentHashMap.newKeySet();
+            for (final Future<Long> result : results) {
+                values.add(result.get(10, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(numThreads, values.size(), "values must be unique");
+            Assertions.assertEquals(1, sequence.fetches.get(), "only one caller fetches, the others wait for its block");
+            Assertions.assertEquals(1, sequence.maxInFlight.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUniqueValuesWithPrefetch() throws Exception {
+        final int numThreads = 8;
+        final int valuesPerThread = 2000;
+        final FakeSequence sequence = new FakeSequence(1L);
+        final ExecutorService prefetchExecutor = Executors.newFixedThreadPool(2);
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final CachingRefSupplier supplier = new CachingRefSupplier(KEY, 10, sequence, false, prefetchExecutor, 4);
+            final Set<Long> values = ConcurrentHashMap.newKeySet();
+            final List<Future<?>> results = new ArrayList<>(numThreads);
+            for (int i = 0; i < numThreads; ++i) {
+                results.add(executor.submit(() -> {
+                    for (int j = 0; j < valuesPerThread; ++j) {
+                        Assertions.assertTrue(values.add(supplier.getAsLong()), "duplicate value");
+                    }
+                }));
+            }
+            for (final Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+            Assertions.assertEquals(numThreads * valuesPerThread, values.size());
+        } finally {
+            executor.shutdownNow();
+            prefetchExecutor.shutdownNow();
+        }
+    }
+}
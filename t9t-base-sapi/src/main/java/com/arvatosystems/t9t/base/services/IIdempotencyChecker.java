@@ -34,4 +34,8 @@ public interface IIdempotencyChecker {
 
     /** Stores the result of a finished request. */
     void storeIdempotencyResult(String tenantId, UUID messageId, RetryAdviceType idempotencyBehaviour, RequestParameters rp, ServiceResponse resp);
+
+    /** Writes results which have been stored asynchronously and are still pending. Called on shutdown. */
+    default void flushPendingResults() {
+    }
 }
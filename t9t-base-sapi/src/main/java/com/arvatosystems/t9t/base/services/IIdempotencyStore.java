@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.services;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import com.arvatosystems.t9t.base.api.ServiceResponse;
+
+/**
+ * Persistent store of idempotency entries, shared by all nodes of a cluster.
+ * Used by the cluster wide implementation of {@link IIdempotencyChecker}.
+ */
+public interface IIdempotencyStore {
+    /** The final result of a request, or a removal of the entry, if response is null. */
+    record Result(@Nonnull String tenantId, @Nonnull UUID messageId, @Nullable ServiceResponse response) {
+    }
+
+    /**
+     * Atomically claims the messageId for processing.
+     * Returns null if the messageId has not been seen before (and is marked as "in progress" now),
+     * otherwise the stored result, or a response with return code REQUEST_STILL_PROCESSING, if the request is not yet complete.
+     */
+    @Nullable
+    ServiceResponse claim(@Nonnull String tenantId, @Nonnull UUID messageId);
+
+    /** Stores the results of completed requests. Entries with a null response are removed. */
+    void storeResults(@Nonnull List<Result> results);
+
+    /** Removes all entries created before the given instant. */
+    void purgeOlderThan(@Nonnull Instant cutoff);
+}
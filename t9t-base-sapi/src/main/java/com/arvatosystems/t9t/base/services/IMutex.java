@@ -15,10 +15,21 @@
  */
 package com.arvatosystems.t9t.base.services;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /** interface to allow synchronizing on a specific object, referenced by objectRef. */
 @FunctionalInterface
 public interface IMutex<T> {
     T runSynchronizedOn(Long objectRef, Supplier<T> code);
+
+    /**
+     * Runs code while holding the lock for objectRef, but waits at most the specified time to obtain it.
+     * A timeout of 0 just tries to get the lock once (try-lock semantics).
+     * Throws a T9tException with code COULD_NOT_ACQUIRE_LOCK if the lock could not be obtained in time.
+     * Implementations without timeout support wait without limit.
+     */
+    default T runSynchronizedOn(final Long objectRef, final long timeout, final TimeUnit unit, final Supplier<T> code) {
+        return runSynchronizedOn(objectRef, code);
+    }
 }
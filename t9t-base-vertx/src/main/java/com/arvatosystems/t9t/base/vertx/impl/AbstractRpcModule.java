@@ -107,7 +107,7 @@ public abstract class AbstractRpcModule implements IServiceModule {
                 return;
             }
 
-            vertx.<byte[]>executeBlocking(() -> {
+            BlockingExecution.<byte[]>executeBlocking(vertx, () -> {
                 try {
                     final long startInWorkerThread = System.nanoTime();
                     // get the authentication info
@@ -181,7 +181,7 @@ public abstract class AbstractRpcModule implements IServiceModule {
                     LOGGER.error(e.getClass().getSimpleName() + " in request: " + e.getMessage(), e);
                     throw e;
                 }
-            }, false).onComplete((final AsyncResult<byte[]> asyncResult) -> {
+            }).onComplete((final AsyncResult<byte[]> asyncResult) -> {
                 if (asyncResult.succeeded()) {
                     if (origin != null) {
                         ctx.response().putHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
@@ -177,6 +177,7 @@ public class AsyncProcessor implements IAsyncRequestProcessor {
     @Override
     public void send(final EventData data) {
         LOGGER.debug("async event {} sent via vert.x EventBus", data.getData().ret$PQON());
+        data.freeze(); // async must freeze it to avoid subsequent modification, and to allow local delivery without a copy
         if (bus != null) {
             final EventParameters attribs = data.getData();
             if (attribs instanceof GenericEvent genericEvent) {
@@ -193,6 +194,7 @@ public class AsyncProcessor implements IAsyncRequestProcessor {
     @Override
     public void publish(final EventData data) {
         LOGGER.debug("async event {} published via vert.x EventBus", data.getData().ret$PQON());
+        data.freeze(); // async must freeze it to avoid subsequent modification, and to allow local delivery without a copy
         if (bus != null) {
             final EventParameters attribs = data.getData();
             if (attribs instanceof GenericEvent genericEvent) {
@@ -333,7 +335,10 @@ public class AsyncProcessor implements IAsyncRequestProcessor {
             }
         };
 
-        if (asyncExecutorPool != null && (msgBody.getRequestHeader() == null || !Boolean.TRUE.equals(msgBody.getRequestHeader().getPriorityRequest()))) {
+        if (BlockingExecution.isVirtual()) {
+            // virtual threads: no need for a separate pool, priority requests cannot be starved
+            BlockingExecution.executeBlocking(vertx, blockingCodeHandler).onComplete(resultHandler);
+        } else if (asyncExecutorPool != null && (msgBody.getRequestHeader() == null || !Boolean.TRUE.equals(msgBody.getRequestHeader().getPriorityRequest()))) {
             // there is a separate pool for async requests, and this is not a priority request
             asyncExecutorPool.executeBlocking(blockingCodeHandler, false).onComplete(resultHandler);
         } else {
@@ -350,7 +355,9 @@ public class AsyncProcessor implements IAsyncRequestProcessor {
 
         final ApplicationConfiguration applicationConfiguration = ConfigProvider.getConfiguration().getApplicationConfiguration();
         Integer asyncPoolSize = applicationConfiguration == null ? null : applicationConfiguration.getLocalAsyncPoolSize();
-        if (asyncPoolSize == null) {
+        if (BlockingExecution.isVirtual()) {
+            LOGGER.info("Running async requests on virtual threads");
+        } else if (asyncPoolSize == null) {
             LOGGER.info("Sharing executor pool with sync requests");
         } else {
             LOGGER.info("Using separate executor pool of {} threads for async requests", asyncPoolSize);
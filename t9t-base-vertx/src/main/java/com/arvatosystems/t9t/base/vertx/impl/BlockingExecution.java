@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.base.vertx.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
+
+/**
+ * Runs blocking request processing either on the vert.x worker pool, or on virtual threads, if ApplicationConfiguration.useVirtualThreads is set.
+ * In both cases, the result is delivered on the vert.x context of the caller.
+ */
+public final class BlockingExecution {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlockingExecution.class);
+    private static final ExecutorService VIRTUAL_THREAD_EXECUTOR = createExecutor();
+
+    private BlockingExecution() { }
+
+    private static ExecutorService createExecutor() {
+        if (!ExecutorServiceFactory.useVirtualThreads()) {
+            return null;
+        }
+        LOGGER.info("Using virtual threads for blocking request processing");
+        return ExecutorServiceFactory.newVirtualThreadPerTaskExecutor("t9t-vworker-");
+    }
+
+    /** Returns true if blocking code is run on virtual threads. */
+    public static boolean isVirtual() {
+        return VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /** Runs blocking code, without ordering constraints. */
+    public static <T> Future<T> executeBlocking(final Vertx vertx, final Callable<T> blockingCode) {
+        if (VIRTUAL_THREAD_EXECUTOR == null) {
+            return vertx.executeBlocking(blockingCode, false);
+        }
+        final Context context = vertx.getOrCreateContext();
+        final Promise<T> promise = Promise.promise();
+        VIRTUAL_THREAD_EXECUTOR.execute(() -> {
+            try {
+                final T result = blockingCode.call();
+                context.runOnContext(unused -> promise.complete(result));
+            } catch (final Throwable e) {
+                context.runOnContext(unused -> promise.fail(e));
+            }
+        });
+        return promise.future();
+    }
+}
@@ -15,8 +15,12 @@
  */
 package com.arvatosystems.t9t.base.vertx.impl;
 
+import java.lang.ref.WeakReference;
+
+import io.netty.buffer.ByteBuf;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.internal.buffer.BufferInternal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,39 +31,73 @@ import de.jpaw.bonaparte.core.StaticMeta;
 import de.jpaw.util.ByteUtil;
 import de.jpaw.util.ExceptionUtil;
 
+/**
+ * Event bus codec using compact bonaparte serialization.
+ * The composer is reused per thread. If the same frozen object is encoded repeatedly by the same thread, as it happens if a message is published
+ * to multiple remote nodes, it is serialized only once.
+ * Heap backed buffers are parsed in place, without copying the message.
+ * Objects delivered locally are passed by reference if frozen. Therefore, the AsyncProcessor freezes all objects before sending them.
+ */
 public class CompactMessageCodec implements MessageCodec<BonaPortable, BonaPortable> {
     private static final Logger LOGGER = LoggerFactory.getLogger(CompactMessageCodec.class);
     private static final int BYTES_OF_INT = 4;  // C developers would cry for this hard coded 4, but it's from the official vert.x examples...
 
     public static final String COMPACT_MESSAGE_CODEC_ID = "cb";
 
+    /** Per thread serialization state: the composer and the object its buffer currently holds. */
+    private static final class Encoder {
+        private final CompactByteArrayComposer cbac = new CompactByteArrayComposer();
+        private WeakReference<BonaPortable> lastEncoded = new WeakReference<>(null);
+    }
+
+    private static final ThreadLocal<Encoder> ENCODER = ThreadLocal.withInitial(Encoder::new);
+
     @Override
     public void encodeToWire(final Buffer buffer, final BonaPortable obj) {
-        final CompactByteArrayComposer cbac = new CompactByteArrayComposer();
-        cbac.writeObject(obj);
+        final Encoder encoder = ENCODER.get();
+        final CompactByteArrayComposer cbac = encoder.cbac;
+        if (!obj.was$Frozen() || encoder.lastEncoded.get() != obj) {
+            // new or mutable object: serialize it. Frozen objects cannot have changed since they have been serialized
+            cbac.reset();
+            cbac.writeObject(obj);
+            encoder.lastEncoded = new WeakReference<>(obj.was$Frozen() ? obj : null);
+            LOGGER.debug("Serialization of {} for sending over wire in COMPACT encoding as {} bytes", obj.ret$PQON(), cbac.getLength());
+        } else {
+            LOGGER.debug("Reusing serialized form of {} for sending over wire ({} bytes)", obj.ret$PQON(), cbac.getLength());
+        }
         buffer.appendInt(cbac.getLength());
         buffer.appendBytes(cbac.getBuffer(), 0, cbac.getLength());
-        LOGGER.debug("Serialization of {} for sending over wire in COMPACT encoding as {} bytes", obj.ret$PQON(), cbac.getLength());
-        cbac.close();
     }
 
     @Override
     public BonaPortable decodeFromWire(final int pos, final Buffer buffer) {
         final int messageLength = buffer.getInt(pos);
         LOGGER.debug("Received COMPACT message of {} bytes via eventBus with offset {}", messageLength, pos);
-        final byte[] buff = buffer.getBytes(pos + BYTES_OF_INT, pos + BYTES_OF_INT + messageLength);
+        final byte[] data;
+        final int offset;
+        final ByteBuf bb = buffer instanceof BufferInternal internal ? internal.getByteBuf() : null;
+        if (bb != null && bb.hasArray()) {
+            // parse in place
+            data = bb.array();
+            offset = bb.arrayOffset() + pos + BYTES_OF_INT;  // buffer positions are absolute indexes of the ByteBuf
+        } else {
+            // direct (off heap) buffer: a copy is required
+            data = buffer.getBytes(pos + BYTES_OF_INT, pos + BYTES_OF_INT + messageLength);
+            offset = 0;
+        }
         try {
-            final CompactByteArrayParser cbap = new CompactByteArrayParser(buff, 0, messageLength);
+            // the parser expects the end position of the data, not its length
+            final CompactByteArrayParser cbap = new CompactByteArrayParser(data, offset, offset + messageLength);
             final BonaPortable obj = cbap.readObject(StaticMeta.OUTER_BONAPORTABLE, BonaPortable.class);
             LOGGER.debug("Deserialization of {} received over wire", obj.ret$PQON());
             return obj;
         } catch (final Exception e) {
             LOGGER.error("Failed to decode: {}: {}", e.getMessage(), ExceptionUtil.causeChain(e));
-            LOGGER.debug("Buffer contents is\n{}", ByteUtil.dump(buff, Math.min(messageLength, 2048)));
+            LOGGER.debug("Buffer contents is\n{}", ByteUtil.dump(buffer.getBytes(pos + BYTES_OF_INT, pos + BYTES_OF_INT + messageLength),
+              Math.min(messageLength, 2048)));
             throw e;
         }
     }
-
     @Override
     public BonaPortable transform(final BonaPortable s) {
         if (s.was$Frozen())
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.bpmn.be.request;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jpaw.dp.Jdp;
+
+import com.arvatosystems.t9t.base.T9tUtil;
+import com.arvatosystems.t9t.base.api.RequestParameters;
+import com.arvatosystems.t9t.base.api.ServiceResponse;
+import com.arvatosystems.t9t.base.services.AbstractRequestHandler;
+import com.arvatosystems.t9t.base.services.IExecutor;
+import com.arvatosystems.t9t.base.services.RequestContext;
+import com.arvatosystems.t9t.bpmn.request.DispatchDueProcessesRequest;
+import com.arvatosystems.t9t.bpmn.services.IBpmnPersistenceAccess;
+import com.arvatosystems.t9t.bpmn.services.IBpmnPersistenceAccess.ClaimedTask;
+import com.arvatosystems.t9t.bpmn.services.IDueProcessDispatcher;
+
+public class DispatchDueProcessesRequestHandler extends AbstractRequestHandler<DispatchDueProcessesRequest> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DispatchDueProcessesRequestHandler.class);
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int DEFAULT_LOOK_AHEAD_SECONDS = 60;
+    private static final int DEFAULT_LEASE_SECONDS = 300;
+
+    private final IBpmnPersistenceAccess persistenceAccess = Jdp.getRequired(IBpmnPersistenceAccess.class);
+    private final IDueProcessDispatcher dispatcher = Jdp.getRequired(IDueProcessDispatcher.class);
+    private final IExecutor executor = Jdp.getRequired(IExecutor.class);
+
+    @Override
+    public ServiceResponse execute(final RequestContext ctx, final DispatchDueProcessesRequest rq) {
+        final int batchSize = T9tUtil.nvl(rq.getBatchSize(), DEFAULT_BATCH_SIZE);
+        final Instant dueUntil = ctx.executionStart.plusSeconds(T9tUtil.nvl(rq.getLookAheadSeconds(), DEFAULT_LOOK_AHEAD_SECONDS));
+        final Instant leaseUntil = dueUntil.plusSeconds(T9tUtil.nvl(rq.getLeaseSeconds(), DEFAULT_LEASE_SECONDS));
+
+        ctx.statusText = "Claiming processes due until " + dueUntil;
+        final List<ClaimedTask> claimed = persistenceAccess.claimTasksDue(dueUntil, leaseUntil, batchSize);
+        LOGGER.debug("Claimed {} processes due until {}, {} processes pending already", claimed.size(), dueUntil, dispatcher.getNumberOfPendingTasks());
+        if (!claimed.isEmpty()) {
+            // the row locks are released by the commit, therefore the processes can only be run afterwards
+            ctx.addPostCommitHook((final RequestContext previousRequestContext, final RequestParameters rp, final ServiceResponse rs) ->
+                dispatcher.schedule(previousRequestContext, claimed));
+        }
+        if (claimed.size() >= batchSize) {
+            // there may be more, continue in a new transaction
+            executor.executeAsynchronous(ctx, rq);
+        }
+        return ok();
+    }
+}
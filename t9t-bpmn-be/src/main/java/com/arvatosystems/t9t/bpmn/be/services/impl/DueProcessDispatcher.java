@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.bpmn.be.services.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jpaw.dp.Jdp;
+import de.jpaw.dp.Singleton;
+import de.jpaw.util.ExceptionUtil;
+
+import com.arvatosystems.t9t.base.api.ServiceRequest;
+import com.arvatosystems.t9t.base.api.ServiceRequestHeader;
+import com.arvatosystems.t9t.base.auth.JwtAuthentication;
+import com.arvatosystems.t9t.base.services.IAsyncRequestProcessor;
+import com.arvatosystems.t9t.base.services.RequestContext;
+import com.arvatosystems.t9t.bpmn.request.TriggerSingleProcessNowRequest;
+import com.arvatosystems.t9t.bpmn.services.IBpmnPersistenceAccess.ClaimedTask;
+import com.arvatosystems.t9t.bpmn.services.IDueProcessDispatcher;
+
+/**
+ * Hashed timing wheel with a resolution of 100 ms. Each slot holds the processes due at that tick, or at a later revolution of the wheel.
+ * Inserts and the removal of due entries are O(1) per process, independent of the number of pending processes.
+ * Due processes are submitted to the asynchronous request processor, which runs them in its worker pool.
+ */
+@Singleton
+public class DueProcessDispatcher implements IDueProcessDispatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DueProcessDispatcher.class);
+    private static final long TICK_IN_MS = 100L;
+    private static final int WHEEL_SIZE = 1024;  // one revolution takes 102.4 seconds
+
+    private record Entry(long dueTick, ServiceRequest request) {
+    }
+
+    protected final IAsyncRequestProcessor asyncProcessor = Jdp.getRequired(IAsyncRequestProcessor.class);
+
+    private final List<List<Entry>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final ReentrantLock lock = new ReentrantLock();  // guards wheel, nextTick and numberOfPendingTasks
+    private final long startMillis = System.currentTimeMillis();
+    private long nextTick = 0L;
+    private int numberOfPendingTasks = 0;
+
+    public DueProcessDispatcher() {
+        for (int i = 0; i < WHEEL_SIZE; ++i) {
+            wheel.add(new ArrayList<>());
+        }
+        final Thread ticker = new Thread(this::tickLoop, "t9t-BpmnDueProcessDispatcher");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @Override
+    public void schedule(final RequestContext ctx, final List<ClaimedTask> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        final JwtAuthentication authentication = new JwtAuthentication(ctx.internalHeaderParameters.getEncodedJwt());
+        final List<Entry> entries = new ArrayList<>(tasks.size());
+        for (final ClaimedTask task : tasks) {
+            entries.add(new Entry(toTick(task.dueAt()), createRequest(ctx, authentication, task.processStatusRef())));
+        }
+        lock.lock();
+        try {
+            for (final Entry entry : entries) {
+                // entries which are due already are run at the next tick
+                final Entry adjusted = entry.dueTick() < nextTick ? new Entry(nextTick, entry.request()) : entry;
+                wheel.get((int) (adjusted.dueTick() % WHEEL_SIZE)).add(adjusted);
+            }
+            numberOfPendingTasks += entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getNumberOfPendingTasks() {
+        lock.lock();
+        try {
+            return numberOfPendingTasks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected ServiceRequest createRequest(final RequestContext ctx, final JwtAuthentication authentication, final Long processStatusRef) {
+        final TriggerSingleProcessNowRequest rq = new TriggerSingleProcessNowRequest(processStatusRef);
+        rq.setEssentialKey(Long.toString(processStatusRef));
+        final ServiceRequestHeader requestHeader = new ServiceRequestHeader();
+        requestHeader.setLanguageCode(ctx.internalHeaderParameters.getLanguageCode());
+        requestHeader.setInvokingProcessRef(ctx.internalHeaderParameters.getProcessRef());
+        final ServiceRequest srq = new ServiceRequest();
+        srq.setRequestHeader(requestHeader);
+        srq.setRequestParameters(rq);
+        srq.setAuthentication(authentication);
+        return srq;
+    }
+
+    private long toTick(final Instant when) {
+        final long millis = when.toEpochMilli() - startMillis;
+        return millis <= 0L ? 0L : (millis + TICK_IN_MS - 1L) / TICK_IN_MS;
+    }
+
+    /** Main loop of the ticker thread: waits for the next tick and submits all processes due at it. */
+    private void tickLoop() {
+        final List<Entry> due = new ArrayList<>();
+        for (;;) {
+            try {
+                final long delay = startMillis + nextTick * TICK_IN_MS - System.currentTimeMillis();
+                if (delay > 0L) {
+                    Thread.sleep(delay);
+                }
+                lock.lock();
+                try {
+                    final Iterator<Entry> iter = wheel.get((int) (nextTick % WHEEL_SIZE)).iterator();
+                    while (iter.hasNext()) {
+                        final Entry entry = iter.next();
+                        if (entry.dueTick() <= nextTick) {
+                            due.add(entry);
+                            iter.remove();
+                        }
+                    }
+                    numberOfPendingTasks -= due.size();
+                    ++nextTick;
+                } finally {
+                    lock.unlock();
+                }
+                for (final Entry entry : due) {
+                    submit(entry.request());
+                }
+                due.clear();
+            } catch (final InterruptedException e) {
+                LOGGER.warn("Due process dispatcher interrupted with {} pending processes - terminating", getNumberOfPendingTasks());
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void submit(final ServiceRequest srq) {
+        try {
+            asyncProcessor.submitTask(srq, true, false);
+        } catch (final Exception e) {
+            // the process will be claimed again once its lease has expired
+            LOGGER.error("Could not submit {}: {}", srq.getRequestParameters(), ExceptionUtil.causeChain(e));
+        }
+    }
+}
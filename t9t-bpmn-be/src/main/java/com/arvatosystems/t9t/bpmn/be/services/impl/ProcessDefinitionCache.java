@@ -29,28 +29,36 @@ import com.arvatosystems.t9t.base.services.ICacheInvalidationRegistry;
 import com.arvatosystems.t9t.bpmn.ProcessDefinitionDTO;
 import com.arvatosystems.t9t.bpmn.services.IBpmnPersistenceAccess;
 import com.arvatosystems.t9t.bpmn.services.IProcessDefinitionCache;
+import com.arvatosystems.t9t.bpmn.services.IWorkflowStepCache;
+import com.arvatosystems.t9t.bpmn.services.WorkflowPlan;
 
 @Singleton
 public class ProcessDefinitionCache implements IProcessDefinitionCache {
     private static final Logger LOGGER  = LoggerFactory.getLogger(ProcessDefinitionCache.class);
 
-    protected final Cache<String, ProcessDefinitionDTO> cache = Caffeine.newBuilder().expireAfterWrite(2L,  TimeUnit.MINUTES).build();
+    protected final Cache<String, WorkflowPlan> cache = Caffeine.newBuilder().expireAfterWrite(2L,  TimeUnit.MINUTES).build();
     protected final IBpmnPersistenceAccess persistenceAccess = Jdp.getRequired(IBpmnPersistenceAccess.class);
+    protected final IWorkflowStepCache workflowStepCache = Jdp.getRequired(IWorkflowStepCache.class);
     protected final ICacheInvalidationRegistry registry = Jdp.getRequired(ICacheInvalidationRegistry.class);
 
     public ProcessDefinitionCache() {
-        // register the invalidation callback
+        // register the invalidation callback. Also used by the workflow step cache, because plans refer to the step implementations
         registry.registerInvalidator(ProcessDefinitionDTO.class.getSimpleName(), key -> cache.invalidateAll());
     }
 
     @Override
     public ProcessDefinitionDTO getCachedProcessDefinitionDTO(final String tenantId, final String processDefinitionId) {
+        return getCachedWorkflowPlan(tenantId, processDefinitionId).getProcessDefinition();
+    }
+
+    @Override
+    public WorkflowPlan getCachedWorkflowPlan(final String tenantId, final String processDefinitionId) {
         final String key = tenantId + ":" + processDefinitionId;
         return cache.get(key, unused -> {
             LOGGER.info("Loading cache for ProcessDefinition {} for tenant {}", processDefinitionId, tenantId);
             final ProcessDefinitionDTO dto = persistenceAccess.getProcessDefinitionDTO(processDefinitionId);
             dto.freeze();  // because it's used by many processes, it should not be modifiable any more
-            return dto;
+            return WorkflowPlan.compile(dto, workflowStepCache);
         });
     }
 }
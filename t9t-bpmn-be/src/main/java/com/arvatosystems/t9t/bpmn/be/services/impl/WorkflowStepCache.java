@@ -17,17 +17,21 @@ package com.arvatosystems.t9t.bpmn.be.services.impl;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.jpaw.bonaparte.core.BonaPortable;
 import de.jpaw.dp.Jdp;
 import de.jpaw.dp.Singleton;
 
 import com.arvatosystems.t9t.annotations.IsLogicallyFinal;
 import com.arvatosystems.t9t.base.T9tException;
+import com.arvatosystems.t9t.base.services.ICacheInvalidationRegistry;
 import com.arvatosystems.t9t.bpmn.IBPMObjectFactory;
 import com.arvatosystems.t9t.bpmn.IWorkflowStep;
+import com.arvatosystems.t9t.bpmn.ProcessDefinitionDTO;
 import com.arvatosystems.t9t.bpmn.T9tBPMException;
 import com.arvatosystems.t9t.bpmn.services.IWorkflowStepCache;
 
@@ -35,6 +39,7 @@ import com.arvatosystems.t9t.bpmn.services.IWorkflowStepCache;
 public class WorkflowStepCache implements IWorkflowStepCache {
     private static final Logger LOGGER = LoggerFactory.getLogger(WorkflowStepCache.class);
     private final Map<String, IWorkflowStep> workflowSteps = new ConcurrentHashMap<String, IWorkflowStep>(200);
+    private final ICacheInvalidationRegistry registry = Jdp.getRequired(ICacheInvalidationRegistry.class);
 
     @IsLogicallyFinal
     private Map<String, IBPMObjectFactory> bpmObjectFactories = null;
@@ -90,5 +95,10 @@ public class WorkflowStepCache implements IWorkflowStepCache {
     public void addToCache(final IWorkflowStep<?> step, final String name) {
         workflowSteps.put(name, step);
         Jdp.bindInstanceTo(step, IWorkflowStep.class, name);
+        // compiled workflows may refer to a previous implementation of this step
+        final Consumer<BonaPortable> invalidator = registry.getInvalidator(ProcessDefinitionDTO.class.getSimpleName());
+        if (invalidator != null) {
+            invalidator.accept(null);
+        }
     }
 }
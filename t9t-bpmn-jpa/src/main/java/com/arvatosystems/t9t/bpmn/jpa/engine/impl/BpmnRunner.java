@@ -15,6 +15,7 @@
  */
 package com.arvatosystems.t9t.bpmn.jpa.engine.impl;
 
+import java.lang.reflect.Method;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -77,6 +78,8 @@ import com.arvatosystems.t9t.bpmn.services.IBpmnEngineRunner;
 import com.arvatosystems.t9t.bpmn.services.IBpmnRunner;
 import com.arvatosystems.t9t.bpmn.services.IProcessDefinitionCache;
 import com.arvatosystems.t9t.bpmn.services.IWorkflowStepCache;
+import com.arvatosystems.t9t.bpmn.services.WorkflowPlan;
+import com.arvatosystems.t9t.bpmn.services.WorkflowPlan.CompiledCondition;
 
 @Singleton
 public class BpmnRunner implements IBpmnRunner {
@@ -88,6 +91,23 @@ public class BpmnRunner implements IBpmnRunner {
     private final IAutonomousExecutor autonomousExecutor = Jdp.getRequired(IAutonomousExecutor.class);
 
     private final AtomicInteger dbgCtr = new AtomicInteger(886688000);
+    private final boolean useCompiledConditions = !overridesConditionEvaluation(getClass());
+
+    /**
+     * Checks if a subclass customizes the evaluation of conditions by overriding evaluateCondition or one of the evaluate* methods.
+     * Compiled conditions bypass these methods, therefore such subclasses use the interpreter.
+     */
+    private static boolean overridesConditionEvaluation(final Class<?> runnerClass) {
+        for (Class<?> cls = runnerClass; cls != BpmnRunner.class && cls != null; cls = cls.getSuperclass()) {
+            for (final Method method : cls.getDeclaredMethods()) {
+                if (method.getName().startsWith("evaluate") && !method.isSynthetic()) {
+                    LOGGER.info("{} overrides {}, compiled workflow conditions will not be used", runnerClass.getName(), method.getName());
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 
     @Override
     public boolean run(final RequestContext ctx, final Long statusRef) {
@@ -116,11 +136,12 @@ public class BpmnRunner implements IBpmnRunner {
         }
 
         // 2.) get process configuration
-        final ProcessDefinitionDTO pd = pdCache.getCachedProcessDefinitionDTO(ctx.tenantId, statusEntity.getProcessDefinitionId());
+        final WorkflowPlan plan = pdCache.getCachedWorkflowPlan(ctx.tenantId, statusEntity.getProcessDefinitionId());
+        final ProcessDefinitionDTO pd = plan.getProcessDefinition();
         ctx.statusText = ctx.tenantId + ":" + pd.getProcessDefinitionId() + "(" + statusRef.toString() + ")";
 
         // 3.) obtain a factory to initialize the object (or use a dummy)
-        final IBPMObjectFactory<Object> factory = getFactory(pd);
+        final IBPMObjectFactory<Object> factory = getFactory(plan);
 
         // decide if the execution must set one or multiple locks
         final long timeout = pd.getJvmLockTimeoutInMillis() == null ? T9tConstants.DEFAULT_JVM_LOCK_TIMEOUT : pd.getJvmLockTimeoutInMillis();
@@ -137,16 +158,17 @@ public class BpmnRunner implements IBpmnRunner {
             final IBpmnEngineRunner engineRunner = Jdp.getRequired(IBpmnEngineRunner.class, pd.getEngine());
             return engineRunner.run(ctx, statusRef, pd, factory);
         }
-        return run(ctx, statusEntity, pd, factory, refToLock, statusEntity.getLockId());
+        return run(ctx, statusEntity, plan, factory, refToLock, statusEntity.getLockId());
     }
 
     @Override
     public PerformSingleStepResponse singleStep(final RequestContext ctx, final PerformSingleStepRequest rq) {
         // get process configuration
-        final ProcessDefinitionDTO pd = pdCache.getCachedProcessDefinitionDTO(ctx.tenantId, rq.getProcessDefinitionId());
+        final WorkflowPlan plan = pdCache.getCachedWorkflowPlan(ctx.tenantId, rq.getProcessDefinitionId());
+        final ProcessDefinitionDTO pd = plan.getProcessDefinition();
 
         // obtain a factory to initialize the object (or use a dummy)
-        final IBPMObjectFactory<Object> factory = getFactory(pd);
+        final IBPMObjectFactory<Object> factory = getFactory(plan);
 
         // decide if the execution must set a lock
         final long timeout = pd.getJvmLockTimeoutInMillis() == null ? T9tConstants.DEFAULT_JVM_LOCK_TIMEOUT : pd.getJvmLockTimeoutInMillis();
@@ -159,11 +181,17 @@ public class BpmnRunner implements IBpmnRunner {
         final ProcessExecStatusEntity statusEntity = statusResolver.newEntityInstance();
         final PerformSingleStepResponse resp = new PerformSingleStepResponse();
         final Map<String, Object> parameters = rq.getParameters() != null ? new HashMap<>(rq.getParameters()) : new HashMap<>();
-        resp.setWorkflowReturnCode(execute(rq.getWorkflowStep(), ctx, pd, statusEntity, workflowObject, parameters));
+        resp.setWorkflowReturnCode(execute(rq.getWorkflowStep(), ctx, plan, statusEntity, workflowObject, parameters));
         resp.setParameters(parameters);
         return resp;
     }
 
+    /** Returns the factory resolved by the compiled workflow, or the regular lookup result (which may throw an exception). */
+    protected IBPMObjectFactory<Object> getFactory(final WorkflowPlan plan) {
+        final IBPMObjectFactory<Object> factory = plan.getFactory();
+        return factory != null ? factory : getFactory(plan.getProcessDefinition());
+    }
+
     @SuppressWarnings("unchecked")
     protected IBPMObjectFactory<Object> getFactory(final ProcessDefinitionDTO pd) {
         final String factoryName = pd.getFactoryName();
@@ -173,8 +201,9 @@ public class BpmnRunner implements IBpmnRunner {
         return (IBPMObjectFactory<Object>) workflowStepCache.getBPMObjectFactoryForName(factoryName);
     }
 
-    protected boolean run(final RequestContext ctx, final ProcessExecStatusEntity statusEntity, final ProcessDefinitionDTO pd,
+    protected boolean run(final RequestContext ctx, final ProcessExecStatusEntity statusEntity, final WorkflowPlan plan,
             final IBPMObjectFactory<?> factory, final Long lockRef, final String lockId) {
+        final ProcessDefinitionDTO pd = plan.getProcessDefinition();
         MDC.put(T9tInternalConstants.MDC_BPMN_PROCESS, pd.getName() == null ? Objects.toString(pd.getObjectRef()) : pd.getName());
         MDC.put(T9tInternalConstants.MDC_BPMN_PROCESS_INSTANCE, Objects.toString(statusEntity.getObjectRef()));
 
@@ -193,7 +222,7 @@ public class BpmnRunner implements IBpmnRunner {
             //////////////////////////////////////////////////
             // find where to (re)start...
             //////////////////////////////////////////////////
-            int nextStepToExecute = findStep(pd, statusEntity.getNextStep());
+            int nextStepToExecute = findStep(plan, statusEntity.getNextStep());
             LOGGER.debug("(Re)starting workflow {}: {} for ref {} at step {} ({})", ctx.tenantId, pd.getProcessDefinitionId(),
                     statusEntity.getTargetObjectRef(), nextStepToExecute, statusEntity.getNextStep() == null ? "" : statusEntity.getNextStep());
 
@@ -208,7 +237,7 @@ public class BpmnRunner implements IBpmnRunner {
                 try {
                     LOGGER.debug("Starting workflow step {}: {} for ref {} at step {} ({})", ctx.tenantId, pd.getProcessDefinitionId(),
                             statusEntity.getTargetObjectRef(), nextStepToExecute, statusEntity.getNextStep() == null ? "" : statusEntity.getNextStep());
-                    final WorkflowReturnCode wfReturnCode = execute(nextStep, ctx, pd, statusEntity, workflowObject, parameters);
+                    final WorkflowReturnCode wfReturnCode = execute(nextStep, ctx, plan, statusEntity, workflowObject, parameters);
                     LOGGER.debug("{}.{} ({}) returned {} on object {}", pd.getProcessDefinitionId(), nextStep.getLabel(), nextStep.ret$PQON(), wfReturnCode,
                             statusEntity.getTargetObjectRef());
 
@@ -310,15 +339,14 @@ public class BpmnRunner implements IBpmnRunner {
         return statusEntity;
     }
 
-    public int findStep(final ProcessDefinitionDTO pd, final String label) {
+    public int findStep(final WorkflowPlan plan, final String label) {
+        final ProcessDefinitionDTO pd = plan.getProcessDefinition();
         if (label == null || pd.getAlwaysRestartAtStep1()) {
             return 0;
         }
-        final List<T9tAbstractWorkflowStep> steps = pd.getWorkflow().getSteps();
-        for (int i = 0; i < steps.size(); i++) {
-            if (steps.get(i).getLabel().equals(label)) {
-                return i;
-            }
+        final Integer index = plan.getStepIndex(label);
+        if (index != null) {
+            return index;
         }
         LOGGER.error("Invalid label name {} referenced for workflow {}", label, pd.getProcessDefinitionId());
         throw new T9tException(T9tBPMException.BPM_LABEL_NOT_FOUND, pd.getProcessDefinitionId() + ": " + label);
@@ -352,41 +380,45 @@ public class BpmnRunner implements IBpmnRunner {
     // WORKFLOW STEP TYPE EXECUTIONS
     //
 
-    public WorkflowReturnCode execute(final T9tAbstractWorkflowStep step, final RequestContext ctx, final ProcessDefinitionDTO pd,
+    public WorkflowReturnCode execute(final T9tAbstractWorkflowStep step, final RequestContext ctx, final WorkflowPlan plan,
             final ProcessExecStatusEntity statusEntity, final Object workflowObject, final Map<String, Object> parameters) {
         if (step instanceof T9tWorkflowStepAddParameters wfStepParameters) {
-            return executeAddParameters(wfStepParameters, ctx, pd, statusEntity, workflowObject, parameters);
+            return executeAddParameters(wfStepParameters, ctx, plan, statusEntity, workflowObject, parameters);
         } else if (step instanceof T9tWorkflowStepCondition wfStepCondition) {
-            return executeCondition(wfStepCondition, ctx, pd, statusEntity, workflowObject, parameters);
+            return executeCondition(wfStepCondition, ctx, plan, statusEntity, workflowObject, parameters);
         } else if (step instanceof T9tWorkflowStepGoto wfStepGoto) {
-            return executeGoto(wfStepGoto, ctx, pd, statusEntity, workflowObject, parameters);
+            return executeGoto(wfStepGoto, ctx, plan, statusEntity, workflowObject, parameters);
         } else if (step instanceof T9tWorkflowStepJavaTask wfStepJavaTask) {
-            final String variant = pd.getVariant();
+            final String variant = plan.getProcessDefinition().getVariant();
             if (variant == null) {
                 // regular execution
-                return executeJavaTask(wfStepJavaTask, ctx, pd, statusEntity, workflowObject, parameters);
+                return executeJavaTask(wfStepJavaTask, ctx, plan, statusEntity, workflowObject, parameters);
             } else {
                 parameters.put(IWorkflowStep.PROCESS_VARIABLE_VARIANT, variant);
-                final WorkflowReturnCode result = executeJavaTask(wfStepJavaTask, ctx, pd, statusEntity, workflowObject, parameters);
+                final WorkflowReturnCode result = executeJavaTask(wfStepJavaTask, ctx, plan, statusEntity, workflowObject, parameters);
                 parameters.remove(IWorkflowStep.PROCESS_VARIABLE_VARIANT);
                 return result;
             }
         } else if (step instanceof T9tWorkflowStepRestart wfStepRestart) {
-            return executeRestart(wfStepRestart, ctx, pd, statusEntity, workflowObject, parameters);
+            return executeRestart(wfStepRestart, ctx, plan, statusEntity, workflowObject, parameters);
         } else if (step instanceof T9tWorkflowStepYield wfStepYield) {
-            return executeYield(wfStepYield, ctx, pd, statusEntity, workflowObject, parameters);
+            return executeYield(wfStepYield, ctx, plan, statusEntity, workflowObject, parameters);
         } else if (step != null) {
-            return executeDefault(step, ctx, pd, statusEntity, workflowObject, parameters);
+            return executeDefault(step, ctx, plan, statusEntity, workflowObject, parameters);
         } else {
             throw new IllegalArgumentException(
-                    "Unhandled parameter types: " + Arrays.<Object>asList(step, ctx, pd, statusEntity, workflowObject, parameters).toString());
+                    "Unhandled parameter types: " + Arrays.<Object>asList(step, ctx, plan, statusEntity, workflowObject, parameters).toString());
         }
     }
 
     @SuppressWarnings("unchecked")
-    protected WorkflowReturnCode executeJavaTask(final T9tWorkflowStepJavaTask step, final RequestContext ctx, final ProcessDefinitionDTO pd,
+    protected WorkflowReturnCode executeJavaTask(final T9tWorkflowStepJavaTask step, final RequestContext ctx, final WorkflowPlan plan,
             final ProcessExecStatusEntity statusEntity, final Object workflowObject, final Map<String, Object> parameters) {
-        final IWorkflowStep<Object> javaWfStep = (IWorkflowStep<Object>) workflowStepCache.getWorkflowStepForName(step.getStepName());
+        final ProcessDefinitionDTO pd = plan.getProcessDefinition();
+        final IWorkflowStep<Object> boundStep = plan.getJavaTask(step);
+        final IWorkflowStep<Object> javaWfStep = boundStep != null
+            ? boundStep
+            : (IWorkflowStep<Object>) workflowStepCache.getWorkflowStepForName(step.getStepName());
         final WorkflowRunnableCode runnable = javaWfStep.mayRun(workflowObject, parameters);
         if (runnable == null) {
          // coding issue
@@ -432,16 +464,18 @@ public class BpmnRunner implements IBpmnRunner {
         return WorkflowReturnCode.PROCEED_NEXT;
     }
 
-    protected WorkflowReturnCode executeCondition(final T9tWorkflowStepCondition step, final RequestContext ctx, final ProcessDefinitionDTO pd,
+    protected WorkflowReturnCode executeCondition(final T9tWorkflowStepCondition step, final RequestContext ctx, final WorkflowPlan plan,
             final ProcessExecStatusEntity statusEntity, final Object workflowObject, final Map<String, Object> parameters) {
-        // need the factory for variable name lookup
-        final boolean result = evaluateCondition(step.getCondition(), getFactory(pd), workflowObject, parameters);
+        final CompiledCondition compiled = useCompiledConditions ? plan.getCondition(step.getCondition()) : null;
+        final boolean result = compiled != null
+            ? compiled.test(workflowObject, parameters)
+            : evaluateCondition(step.getCondition(), getFactory(plan), workflowObject, parameters);  // need the factory for variable name lookup
         final List<T9tAbstractWorkflowStep> stepsToPerform = result ? step.getThenDo() : step.getElseDo();
         final WorkflowReturnCode returnCode = WorkflowReturnCode.PROCEED_NEXT;
         boolean gotCommit = false;
         if (stepsToPerform != null) {
             for (final T9tAbstractWorkflowStep theStep : stepsToPerform) {
-                final WorkflowReturnCode theCode = execute(theStep, ctx, pd, statusEntity, workflowObject, parameters);
+                final WorkflowReturnCode theCode = execute(theStep, ctx, plan, statusEntity, workflowObject, parameters);
                 if (theCode != null) {
                     switch (theCode) {
                     case YIELD:
@@ -467,7 +501,7 @@ public class BpmnRunner implements IBpmnRunner {
         return returnCode;
     }
 
-    protected WorkflowReturnCode executeAddParameters(final T9tWorkflowStepAddParameters step, final RequestContext ctx, final ProcessDefinitionDTO pd,
+    protected WorkflowReturnCode executeAddParameters(final T9tWorkflowStepAddParameters step, final RequestContext ctx, final WorkflowPlan plan,
             final ProcessExecStatusEntity statusEntity, final Object workflowObject, final Map<String, Object> parameters) {
         for (final Map.Entry<String, Object> e : step.getParameters().entrySet()) {
             parameters.put(e.getKey(), e.getValue());
@@ -475,28 +509,28 @@ public class BpmnRunner implements IBpmnRunner {
         return WorkflowReturnCode.PROCEED_NEXT;
     }
 
-    protected WorkflowReturnCode executeRestart(final T9tWorkflowStepRestart step, final RequestContext ctx, final ProcessDefinitionDTO pd,
+    protected WorkflowReturnCode executeRestart(final T9tWorkflowStepRestart step, final RequestContext ctx, final WorkflowPlan plan,
             final ProcessExecStatusEntity statusEntity, final Object workflowObject, final Map<String, Object> parameters) {
         statusEntity.setNextStep(null);
         statusEntity.setCurrentParameters(parameters.isEmpty() ? null : parameters);
         return WorkflowReturnCode.GOTO;
     }
 
-    protected WorkflowReturnCode executeGoto(final T9tWorkflowStepGoto step, final RequestContext ctx, final ProcessDefinitionDTO pd,
+    protected WorkflowReturnCode executeGoto(final T9tWorkflowStepGoto step, final RequestContext ctx, final WorkflowPlan plan,
             final ProcessExecStatusEntity statusEntity, final Object workflowObject, final Map<String, Object> parameters) {
-        findStep(pd, step.getToLabel()); // throws exception if invalid
+        findStep(plan, step.getToLabel()); // throws exception if invalid
         statusEntity.setNextStep(step.getToLabel());
         statusEntity.setCurrentParameters(parameters.isEmpty() ? null : parameters);
         return WorkflowReturnCode.GOTO;
     }
 
-    protected WorkflowReturnCode executeYield(final T9tWorkflowStepYield step, final RequestContext ctx, final ProcessDefinitionDTO pd,
+    protected WorkflowReturnCode executeYield(final T9tWorkflowStepYield step, final RequestContext ctx, final WorkflowPlan plan,
             final ProcessExecStatusEntity statusEntity, final Object workflowObject, final Map<String, Object> parameters) {
         statusEntity.setYieldUntil(ctx.executionStart.plusSeconds(step.getWaitSeconds()));
         return WorkflowReturnCode.YIELD_NEXT; // must be YIELD_NEXT, not YIELD, because YIELD would result in an endless loop.
     }
 
-    protected WorkflowReturnCode executeDefault(final T9tAbstractWorkflowStep step, final RequestContext ctx, final ProcessDefinitionDTO pd,
+    protected WorkflowReturnCode executeDefault(final T9tAbstractWorkflowStep step, final RequestContext ctx, final WorkflowPlan plan,
             final ProcessExecStatusEntity statusEntity, final Object workflowObject, final Map<String, Object> parameters) {
         throw new T9tException(T9tException.NOT_YET_IMPLEMENTED, "Workflow step type " + step.getClass().getCanonicalName());
     }
@@ -21,7 +21,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import jakarta.annotation.Nullable;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.TypedQuery;
 
 import com.google.common.base.Objects;
@@ -35,6 +37,7 @@ import de.jpaw.dp.Singleton;
 import com.arvatosystems.t9t.base.JsonUtil;
 import com.arvatosystems.t9t.base.T9tException;
 import com.arvatosystems.t9t.base.entities.FullTrackingWithVersion;
+import com.arvatosystems.t9t.base.jpa.ormspecific.IQueryHintSetter;
 import com.arvatosystems.t9t.base.services.IClusterEnvironment;
 import com.arvatosystems.t9t.base.services.IExecutor;
 import com.arvatosystems.t9t.base.services.RequestContext;
@@ -59,6 +62,7 @@ import com.arvatosystems.t9t.cfg.be.ServerConfiguration;
 @Singleton
 public class BpmnPersistenceAccess implements IBpmnPersistenceAccess {
     private static final Logger LOGGER = LoggerFactory.getLogger(BpmnPersistenceAccess.class);
+    private static final String NODE_CONDITION = " AND MOD(s.runOnNode, :partitions) IN :listOfPartitions";
 
     protected final IProcessDefinitionEntityResolver resolver = Jdp.getRequired(IProcessDefinitionEntityResolver.class);
     protected final IProcessDefinitionDTOMapper mapper = Jdp.getRequired(IProcessDefinitionDTOMapper.class);
@@ -66,6 +70,7 @@ public class BpmnPersistenceAccess implements IBpmnPersistenceAccess {
     protected final IProcessExecutionStatusDTOMapper statusMapper = Jdp.getRequired(IProcessExecutionStatusDTOMapper.class);
     protected final IExecutor executor = Jdp.getRequired(IExecutor.class);
     protected final IClusterEnvironment clusterEnvironment = Jdp.getRequired(IClusterEnvironment.class);
+    protected final IQueryHintSetter queryHintSetter = Jdp.getRequired(IQueryHintSetter.class);
     protected final ServerConfiguration serverConfiguration = ConfigProvider.getConfiguration().getServerConfiguration();
     protected final boolean updateYieldUntil = serverConfiguration != null && Boolean.TRUE.equals(serverConfiguration.getUpdateYieldUntil());
     protected final boolean updateYieldUntilIfFarFuture = serverConfiguration != null && Boolean.TRUE.equals(serverConfiguration.getUpdateYieldUntilIfFarFuture());
@@ -130,6 +135,32 @@ public class BpmnPersistenceAccess implements IBpmnPersistenceAccess {
         return statusMapper.mapToDto(statusResolver.findByProcessDefinitionIdAndTargetObjectRef(true, processDefinitionId, targetObjectRef));
     }
 
+    /**
+     * Determines the partitions of process status records which should be processed by this node.
+     * Returns null if no partition is assigned to this node, and an empty list if all of them are.
+     */
+    @Nullable
+    protected Collection<Integer> getShardsOfThisNode(final String tenantId, final int numPartitions) {
+        final Collection<Integer> shards = clusterEnvironment.getListOfShards(tenantId);
+        if (shards.isEmpty()) {
+            LOGGER.debug("getTasksDue(): No process partitions assigned to this node");
+            return null;
+        }
+        if (shards.size() < numPartitions) {
+            // we want a subset of the data only
+            if (LOGGER.isDebugEnabled()) {
+                final StringBuilder sb = new StringBuilder(200);
+                for (final Integer shard : shards) {
+                    sb.append(' ').append(shard);
+                }
+                LOGGER.debug("getTasksDue(): only {} of {} partitions assigned to this node, namely {}", numPartitions, shards.size(), sb);
+            }
+            return shards;
+        }
+        LOGGER.debug("getTasksDue(): all partitions are assigned to this node");
+        return Collections.emptyList();
+    }
+
     protected <E> List<E> getQueryForDueTasks(final Class<E> type, final String field, final String onlyForProcessDefinitionId, final Instant whenDue,
       final boolean includeErrorStatus, final boolean allClusterNodes, final String onlyForNextStep, final Collection<Integer> returnCodes,
       final Integer maxTasks, final boolean ignoreDueDate) {
@@ -139,23 +170,12 @@ public class BpmnPersistenceAccess implements IBpmnPersistenceAccess {
         final String tenantId = statusResolver.getSharedTenantId();
         if (!allClusterNodes) {
             numPartitions = clusterEnvironment.getNumberOfNodes();
-            shards = clusterEnvironment.getListOfShards(tenantId);
-            if (shards.isEmpty()) {
-                LOGGER.debug("getTasksDue(): No process partitions assigned to this node");
+            shards = getShardsOfThisNode(tenantId, numPartitions);
+            if (shards == null) {
                 return Collections.emptyList();
             }
-            if (shards.size() < numPartitions) {
-                // we want a subset of the data only
-                nodeCondition = " AND MOD(s.runOnNode, :partitions) IN :listOfPartitions";
-                if (LOGGER.isDebugEnabled()) {
-                    final StringBuilder sb = new StringBuilder(200);
-                    for (final Integer shard : shards) {
-                        sb.append(' ').append(shard);
-                    }
-                    LOGGER.debug("getTasksDue(): only {} of {} partitions assigned to this node, namely {}", numPartitions, shards.size(), sb);
-                }
-            } else {
-                LOGGER.debug("getTasksDue(): all partitions are assigned to this node");
+            if (!shards.isEmpty()) {
+                nodeCondition = NODE_CONDITION;
             }
         }
         final String errorCondition;
@@ -218,6 +238,38 @@ public class BpmnPersistenceAccess implements IBpmnPersistenceAccess {
           onlyForNextStep, returnCodes, maxTasks, ignoreDueDate);
     }
 
+    @Override
+    public List<ClaimedTask> claimTasksDue(final Instant dueUntil, final Instant leaseUntil, final int maxTasks) {
+        final String tenantId = statusResolver.getSharedTenantId();
+        final int numPartitions = clusterEnvironment.getNumberOfNodes();
+        final Collection<Integer> shards = getShardsOfThisNode(tenantId, numPartitions);
+        if (shards == null) {
+            return Collections.emptyList();
+        }
+        final String queryString = "SELECT s FROM " + statusResolver.getEntityClass().getSimpleName()
+                + " s WHERE s.tenantId = :tenantId AND s.yieldUntil <= :timeLimit AND s.returnCode IS NULL"
+                + (shards.isEmpty() ? "" : NODE_CONDITION) + " ORDER BY s.yieldUntil";
+        final TypedQuery<ProcessExecStatusEntity> query = statusResolver.getEntityManager().createQuery(queryString, ProcessExecStatusEntity.class);
+        query.setParameter("tenantId", tenantId);
+        query.setParameter("timeLimit", dueUntil);
+        if (!shards.isEmpty()) {
+            query.setParameter("partitions", numPartitions);
+            query.setParameter("listOfPartitions", shards);
+        }
+        query.setMaxResults(maxTasks);
+        query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        queryHintSetter.setSkipLocked(query);  // concurrent dispatchers of other nodes get disjoint sets of tasks
+
+        final List<ProcessExecStatusEntity> entities = query.getResultList();
+        final List<ClaimedTask> claimed = new ArrayList<>(entities.size());
+        for (final ProcessExecStatusEntity e : entities) {
+            claimed.add(new ClaimedTask(e.getObjectRef(), e.getYieldUntil()));
+            e.setYieldUntil(leaseUntil);
+        }
+        LOGGER.debug("Claimed {} tasks due until {}, lease until {}", claimed.size(), dueUntil, leaseUntil);
+        return claimed;
+    }
+
     @Override
     public Long createOrUpdateNewStatus(final RequestContext ctx, final ProcessExecutionStatusDTO dto, final ExecuteProcessWithRefRequest rq,
       final boolean restart) {
@@ -32,6 +32,9 @@ import com.arvatosystems.t9t.bpmn.ProcessExecutionStatusDTO;
 import com.arvatosystems.t9t.bpmn.request.ExecuteProcessWithRefRequest;
 
 public interface IBpmnPersistenceAccess {
+    /** A claimed process status record, with the point in time it was due originally. */
+    record ClaimedTask(@Nonnull Long processStatusRef, @Nonnull Instant dueAt) {
+    }
 
     void save(ProcessDefinitionDTO dto);
 
@@ -57,6 +60,14 @@ public interface IBpmnPersistenceAccess {
         boolean includeErrorStatus, boolean allClusterNodes,
         @Nullable String onlyForNextStep, @Nullable Collection<Integer> returnCodes, @Nullable Integer maxTasks, boolean ignoreDueDate);
 
+    /**
+     * Claims up to maxTasks active processes of the partitions of this node which are due until dueUntil, in order of their due time.
+     * Records locked by other transactions are skipped.
+     * The claim sets yieldUntil of the records to leaseUntil, which hides them from other dispatchers and from polling.
+     * If the process has not been run before the lease expires, it becomes due again.
+     */
+    List<ClaimedTask> claimTasksDue(@Nonnull Instant dueUntil, @Nonnull Instant leaseUntil, int maxTasks);
+
     /** Update existing process execution status */
     Long createOrUpdateNewStatus(RequestContext ctx, ProcessExecutionStatusDTO dto, ExecuteProcessWithRefRequest rq, boolean restart);
 
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.bpmn.services;
+
+import java.util.List;
+
+import jakarta.annotation.Nonnull;
+
+import com.arvatosystems.t9t.base.services.RequestContext;
+
+/**
+ * Starts claimed processes once they are due, via the asynchronous request processor of this node.
+ * Pending entries are kept in memory only. They are lost on shutdown, in which case the processes become due again when their claim expires.
+ */
+public interface IDueProcessDispatcher {
+    /** Triggers the given processes at their due time, or immediately, if that has passed already, on behalf of the user of the given context. */
+    void schedule(@Nonnull RequestContext ctx, @Nonnull List<IBpmnPersistenceAccess.ClaimedTask> tasks);
+
+    /** Returns the number of processes which are waiting for their due time. */
+    int getNumberOfPendingTasks();
+}
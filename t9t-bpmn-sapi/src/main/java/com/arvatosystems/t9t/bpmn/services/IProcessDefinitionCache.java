@@ -19,4 +19,7 @@ import com.arvatosystems.t9t.bpmn.ProcessDefinitionDTO;
 
 public interface IProcessDefinitionCache {
     ProcessDefinitionDTO getCachedProcessDefinitionDTO(String tenantId, String processDefinitionId);
+
+    /** Returns the compiled form of a process definition. It is replaced whenever process definitions or workflow steps change. */
+    WorkflowPlan getCachedWorkflowPlan(String tenantId, String processDefinitionId);
 }
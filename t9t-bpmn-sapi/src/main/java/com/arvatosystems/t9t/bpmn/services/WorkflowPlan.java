@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.bpmn.services;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.arvatosystems.t9t.base.T9tException;
+import com.arvatosystems.t9t.bpmn.IBPMObjectFactory;
+import com.arvatosystems.t9t.bpmn.IWorkflowStep;
+import com.arvatosystems.t9t.bpmn.ProcessDefinitionDTO;
+import com.arvatosystems.t9t.bpmn.T9tAbstractWorkflowCondition;
+import com.arvatosystems.t9t.bpmn.T9tAbstractWorkflowConditionVariable;
+import com.arvatosystems.t9t.bpmn.T9tAbstractWorkflowStep;
+import com.arvatosystems.t9t.bpmn.T9tWorkflowConditionAnd;
+import com.arvatosystems.t9t.bpmn.T9tWorkflowConditionNot;
+import com.arvatosystems.t9t.bpmn.T9tWorkflowConditionOr;
+import com.arvatosystems.t9t.bpmn.T9tWorkflowConditionVariableEquals;
+import com.arvatosystems.t9t.bpmn.T9tWorkflowConditionVariableIsIn;
+import com.arvatosystems.t9t.bpmn.T9tWorkflowConditionVariableIsNull;
+import com.arvatosystems.t9t.bpmn.T9tWorkflowConditionVariableIsTrue;
+import com.arvatosystems.t9t.bpmn.T9tWorkflowConditionVariableStartsOrEndsWith;
+import com.arvatosystems.t9t.bpmn.T9tWorkflowStepCondition;
+import com.arvatosystems.t9t.bpmn.T9tWorkflowStepJavaTask;
+
+/**
+ * Executable form of a (frozen) process definition, compiled once when the definition is loaded into the {@link IProcessDefinitionCache}.
+ * It provides the index of each step label, the java task implementations bound to the steps which reference them,
+ * and the conditions as predicate trees, with the object factory and the variable accessors resolved in advance.
+ *
+ * Parts which cannot be compiled (custom condition types, unknown factories or java tasks) are not contained in the plan.
+ * For these, the lookup methods return null, and the runner falls back to the regular evaluation, which also reports any errors.
+ */
+public final class WorkflowPlan {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkflowPlan.class);
+
+    /** A condition with all references resolved. */
+    @FunctionalInterface
+    public interface CompiledCondition {
+        boolean test(Object workflowObject, Map<String, Object> parameters);
+    }
+
+    private final ProcessDefinitionDTO processDefinition;
+    private final IBPMObjectFactory<Object> factory;
+    private final Map<String, Integer> labelIndex = new HashMap<>();
+    private final Map<T9tWorkflowStepJavaTask, IWorkflowStep<Object>> javaTasks = new IdentityHashMap<>();
+    private final Map<T9tAbstractWorkflowCondition, CompiledCondition> conditions = new IdentityHashMap<>();
+
+    private WorkflowPlan(final ProcessDefinitionDTO processDefinition, final IWorkflowStepCache workflowStepCache) {
+        this.processDefinition = processDefinition;
+        this.factory = resolveFactory(processDefinition.getFactoryName(), workflowStepCache);
+        if (processDefinition.getWorkflow() != null && processDefinition.getWorkflow().getSteps() != null) {
+            final List<T9tAbstractWorkflowStep> steps = processDefinition.getWorkflow().getSteps();
+            for (int i = 0; i < steps.size(); ++i) {
+                labelIndex.putIfAbsent(steps.get(i).getLabel(), i);  // first occurrence wins, as for the former linear search
+            }
+            compileSteps(steps, workflowStepCache);
+        }
+    }
+
+    /** Compiles a process definition. The definition must be frozen, because the plan refers to its components by identity. */
+    @Nonnull
+    public static WorkflowPlan compile(@Nonnull final ProcessDefinitionDTO processDefinition, @Nonnull final IWorkflowStepCache workflowStepCache) {
+        final WorkflowPlan plan = new WorkflowPlan(processDefinition, workflowStepCache);
+        LOGGER.debug("Compiled workflow {}: {} labels, {} java tasks, {} conditions", processDefinition.getProcessDefinitionId(),
+            plan.labelIndex.size(), plan.javaTasks.size(), plan.conditions.size());
+        return plan;
+    }
+
+    @Nonnull
+    public ProcessDefinitionDTO getProcessDefinition() {
+        return processDefinition;
+    }
+
+    /** Returns the object factory of the process definition, or null if none has been specified or it does not exist. */
+    @Nullable
+    public IBPMObjectFactory<Object> getFactory() {
+        return factory;
+    }
+
+    /** Returns the index of the first step with the given label, or null if no such step exists. */
+    @Nullable
+    public Integer getStepIndex(@Nonnull final String label) {
+        return labelIndex.get(label);
+    }
+
+    /** Returns the implementation of the given java task of this workflow, or null if it could not be resolved. */
+    @Nullable
+    public IWorkflowStep<Object> getJavaTask(@Nonnull final T9tWorkflowStepJavaTask step) {
+        return javaTasks.get(step);
+    }
+
+    /** Returns the compiled form of the given condition of this workflow, or null if it could not be compiled. */
+    @Nullable
+    public CompiledCondition getCondition(@Nonnull final T9tAbstractWorkflowCondition condition) {
+        return conditions.get(condition);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IBPMObjectFactory<Object> resolveFactory(final String factoryName, final IWorkflowStepCache workflowStepCache) {
+        if (factoryName == null) {
+            return null;
+        }
+        try {
+            return (IBPMObjectFactory<Object>) workflowStepCache.getBPMObjectFactoryForName(factoryName);
+        } catch (final T9tException e) {
+            LOGGER.warn("BPM object factory {} not found, workflow cannot access object variables", factoryName);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compileSteps(final List<T9tAbstractWorkflowStep> steps, final IWorkflowStepCache workflowStepCache) {
+        if (steps == null) {
+            return;
+        }
+        for (final T9tAbstractWorkflowStep step : steps) {
+            if (step instanceof T9tWorkflowStepJavaTask javaTask) {
+                try {
+                    javaTasks.put(javaTask, (IWorkflowStep<Object>) workflowStepCache.getWorkflowStepForName(javaTask.getStepName()));
+                } catch (final T9tException e) {
+                    LOGGER.warn("Workflow {} references unknown java task {}", processDefinition.getProcessDefinitionId(), javaTask.getStepName());
+                }
+            } else if (step instanceof T9tWorkflowStepCondition conditionStep) {
+                final CompiledCondition compiled = compileCondition(conditionStep.getCondition());
+                if (compiled != null) {
+                    conditions.put(conditionStep.getCondition(), compiled);
+                }
+                compileSteps(conditionStep.getThenDo(), workflowStepCache);
+                compileSteps(conditionStep.getElseDo(), workflowStepCache);
+            }
+        }
+    }
+
+    /** Compiles a condition tree. Returns null if any part of it cannot be compiled. */
+    private CompiledCondition compileCondition(final T9tAbstractWorkflowCondition condition) {
+        if (condition instanceof T9tWorkflowConditionAnd and) {
+            final CompiledCondition[] parts = compileConditions(and.getConditions());
+            return parts == null ? null : (obj, parameters) -> {
+                for (final CompiledCondition part : parts) {
+                    if (!part.test(obj, parameters)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        } else if (condition instanceof T9tWorkflowConditionOr or) {
+            final CompiledCondition[] parts = compileConditions(or.getConditions());
+            return parts == null ? null : (obj, parameters) -> {
+                for (final CompiledCondition part : parts) {
+                    if (part.test(obj, parameters)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        } else if (condition instanceof T9tWorkflowConditionNot not) {
+            final CompiledCondition inner = compileCondition(not.getCondition());
+            return inner == null ? null : (obj, parameters) -> !inner.test(obj, parameters);
+        } else if (condition instanceof T9tAbstractWorkflowConditionVariable variableCondition) {
+            final BiFunction<Object, Map<String, Object>, Object> accessor = compileAccessor(variableCondition);
+            if (accessor == null) {
+                return null;
+            }
+            if (condition instanceof T9tWorkflowConditionVariableIsNull) {
+                return (obj, parameters) -> accessor.apply(obj, parameters) == null;
+            } else if (condition instanceof T9tWorkflowConditionVariableIsTrue) {
+                return (obj, parameters) -> Boolean.TRUE.equals(accessor.apply(obj, parameters));
+            } else if (condition instanceof T9tWorkflowConditionVariableEquals equals) {
+                final Object value = equals.getValue();
+                return (obj, parameters) -> value.equals(accessor.apply(obj, parameters));
+            } else if (condition instanceof T9tWorkflowConditionVariableIsIn isIn) {
+                final Set<Object> values = isIn.getValues();
+                return (obj, parameters) -> {
+                    final Object variable = accessor.apply(obj, parameters);
+                    return variable != null && values.contains(variable);
+                };
+            } else if (condition instanceof T9tWorkflowConditionVariableStartsOrEndsWith startsOrEndsWith) {
+                final String pattern = startsOrEndsWith.getPattern();
+                final boolean ends = startsOrEndsWith.getEnds();
+                return (obj, parameters) -> {
+                    final Object variable = accessor.apply(obj, parameters);
+                    if (variable == null) {
+                        return false;
+                    }
+                    return ends ? variable.toString().endsWith(pattern) : variable.toString().startsWith(pattern);
+                };
+            }
+        }
+        return null;
+    }
+
+    private CompiledCondition[] compileConditions(final List<T9tAbstractWorkflowCondition> list) {
+        final CompiledCondition[] compiled = new CompiledCondition[list.size()];
+        for (int i = 0; i < compiled.length; ++i) {
+            compiled[i] = compileCondition(list.get(i));
+            if (compiled[i] == null) {
+                return null;
+            }
+        }
+        return compiled;
+    }
+
+    private BiFunction<Object, Map<String, Object>, Object> compileAccessor(final T9tAbstractWorkflowConditionVariable condition) {
+        final String variableName = condition.getVariableName();
+        if (condition.getFromMap()) {
+            return (obj, parameters) -> parameters.get(variableName);
+        }
+        final IBPMObjectFactory<Object> boundFactory = factory;
+        return boundFactory == null ? null : (obj, parameters) -> boundFactory.getVariable(variableName, obj);
+    }
+}
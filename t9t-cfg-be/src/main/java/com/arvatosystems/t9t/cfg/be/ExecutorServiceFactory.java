@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.cfg.be;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors used to run requests, either as pools of platform threads, or using virtual threads,
+ * if configured via ApplicationConfiguration.useVirtualThreads.
+ * With virtual threads, the number of concurrently running requests is no longer limited by a pool size,
+ * but by the downstream resources such as the JDBC connection pool.
+ */
+public final class ExecutorServiceFactory {
+
+    private ExecutorServiceFactory() { }
+
+    /** Returns true if requests should be run on virtual threads. */
+    public static boolean useVirtualThreads() {
+        final T9tServerConfiguration cfg = ConfigProvider.getConfiguration();
+        final ApplicationConfiguration applCfg = cfg == null ? null : cfg.getApplicationConfiguration();
+        return applCfg != null && Boolean.TRUE.equals(applCfg.getUseVirtualThreads());
+    }
+
+    /** Creates an executor which starts a new virtual thread per task. Thread names are the prefix followed by a counter. */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(final String threadNamePrefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 1L).factory());
+    }
+
+    /**
+     * Creates an executor for request processing: a virtual thread per task, if configured, else a fixed pool of platform threads.
+     *
+     * @param threadNamePrefix          prefix of the names of virtual threads (a "v" and a counter are appended)
+     * @param poolSize                  the number of platform threads
+     * @param platformThreadFactory     the factory for platform threads
+     */
+    public static ExecutorService newRequestExecutor(final String threadNamePrefix, final int poolSize, final ThreadFactory platformThreadFactory) {
+        if (useVirtualThreads()) {
+            return newVirtualThreadPerTaskExecutor(threadNamePrefix + "v");
+        }
+        return Executors.newFixedThreadPool(poolSize, platformThreadFactory);
+    }
+
+    /**
+     * Creates an executor for background tasks such as cache refreshes: a virtual thread per task, if configured,
+     * else a fixed pool of daemon platform threads, which do not prevent the JVM from exiting.
+     *
+     * @param threadNamePrefix          prefix of the thread names (a counter is appended, for virtual threads after a "v")
+     * @param poolSize                  the number of platform threads
+     */
+    public static ExecutorService newBackgroundExecutor(final String threadNamePrefix, final int poolSize) {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        return newRequestExecutor(threadNamePrefix, poolSize, (final Runnable r) -> {
+            final Thread thread = new Thread(r, threadNamePrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates an executor for work which runs in parallel to the submitting request: a virtual thread per task, if configured,
+     * else up to maxThreads daemon platform threads. Tasks are never queued: if all platform threads are busy, the task is run
+     * by the submitting thread, i.e. sequentially, rather than waiting for other requests.
+     *
+     * @param threadNamePrefix          prefix of the thread names (a counter is appended, for virtual threads after a "v")
+     * @param maxThreads                the maximum number of platform threads
+     */
+    public static ExecutorService newCallerRunsExecutor(final String threadNamePrefix, final int maxThreads) {
+        if (useVirtualThreads()) {
+            return newVirtualThreadPerTaskExecutor(threadNamePrefix + "v");
+        }
+        final AtomicInteger threadCounter = new AtomicInteger();
+        return new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), (final Runnable r) -> {
+            final Thread thread = new Thread(r, threadNamePrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
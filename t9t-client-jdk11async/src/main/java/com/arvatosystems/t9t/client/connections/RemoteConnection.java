@@ -22,10 +22,14 @@ import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import de.jpaw.api.ConfigurationReader;
 import de.jpaw.bonaparte.util.IMarshaller;
 import de.jpaw.bonaparte.util.impl.RecordMarshallerCompactBonaparteIdentity;
 import de.jpaw.dp.Jdp;
 import de.jpaw.dp.Singleton;
+import de.jpaw.util.ConfigurationReaderFactory;
 import de.jpaw.util.ExceptionUtil;
 
 import com.arvatosystems.t9t.base.AbstractAsyncRemoteConnection;
@@ -40,9 +44,15 @@ import com.arvatosystems.t9t.base.auth.AuthenticationRequest;
 @Singleton
 public class RemoteConnection extends AbstractAsyncRemoteConnection implements IRemoteConnection {
     private static final Logger LOGGER = LoggerFactory.getLogger(RemoteConnection.class);
+    private static final ConfigurationReader CONFIG_READER = ConfigurationReaderFactory.getConfigReaderForName("t9t.remote", null);
 
     protected final IRemoteDefaultUrlRetriever cfgRetriever = Jdp.getRequired(IRemoteDefaultUrlRetriever.class);
-    protected final RemoteHttpClient client = new RemoteHttpClient(20, 10);  // FIXME: obtain from JNDI
+    protected final RemoteHttpClient client = new RemoteHttpClient(
+        Boolean.TRUE.equals(CONFIG_READER.getBooleanProperty("t9t.remote.virtualThreads")),  // use virtual threads instead of a fixed pool
+        CONFIG_READER.getIntProperty("t9t.remote.threads",                  20),    // size of the fixed thread pool
+        CONFIG_READER.getIntProperty("t9t.remote.minConnections",           10),    // initial number of http clients
+        CONFIG_READER.getIntProperty("t9t.remote.maxConnections",           32),    // upper limit for the number of http clients
+        CONFIG_READER.getIntProperty("t9t.remote.maxPendingPerConnection",  20));   // add a client if the best one has this many requests outstanding
     protected final URI authUri;
     protected final URI rpcUri;
 
@@ -65,6 +75,11 @@ public class RemoteConnection extends AbstractAsyncRemoteConnection implements I
         LOGGER.debug("created a RemoteConnection pool for rpc URI {} and auth URI {}", rpcUri, authUri);
     }
 
+    /** Returns the meters of the connection pool. They must be bound (once) to the registry which is exported by the application. */
+    public MeterBinder getMetrics() {
+        return client.getMetrics();
+    }
+
 
     @Override
     public CompletableFuture<ServiceResponse> executeAsync(final String authentication, final String sessionToken, final RequestParameters rp) {
@@ -23,11 +23,11 @@ import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandler;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
@@ -47,69 +47,116 @@ import com.arvatosystems.t9t.base.api.ServiceResponse;
 import com.arvatosystems.t9t.base.auth.AuthenticationRequest;
 import com.arvatosystems.t9t.base.auth.AuthenticationResponse;
 
+/**
+ * Pool of JDK http clients for the connection to the backend. Every client maintains its own HTTP/2 connection, which multiplexes many requests.
+ * Requests are distributed by the "power of two choices": of two randomly picked clients, the one with the lower expected completion time is used,
+ * which is the average latency multiplied by the number of outstanding requests.
+ * The pool starts with the configured minimum number of clients and grows up to the maximum,
+ * whenever even the best choice has more outstanding requests than the configured threshold.
+ */
 class RemoteHttpClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(RemoteHttpClient.class);
+    private static final int STATISTICS_INTERVAL = 1_000_000;  // log statistics after this many requests
+
+    // reused per thread, the serialized request is copied into an array of exact size
+    private static final ThreadLocal<CompactByteArrayComposer> COMPOSER = ThreadLocal.withInitial(() -> new CompactByteArrayComposer(false));
 
     protected final AtomicInteger threadCounter = new AtomicInteger();
-    protected final AtomicInteger nextConnection = new AtomicInteger(0);
-    protected final int poolSize;
-    protected final List<SingleConnection> httpClients;
+    protected final AtomicInteger requestCounter = new AtomicInteger(0);
+    protected final int maxConnections;
+    protected final int maxPendingPerConnection;
+    protected volatile SingleConnection[] httpClients;  // copy on write, replaced when the pool grows
+    protected final RemoteHttpClientMetrics metrics = new RemoteHttpClientMetrics(this);
     private final ExecutorService executorService;
 
     protected void statisticsOut() {
         for (final SingleConnection me: httpClients) {
-            LOGGER.info("Connection {}: current = {}, peak = {}, total = {}", me.index, me.currentPending.get(), me.peakUse.get(), me.totalUses.get());
+            LOGGER.info("Connection {}: current = {}, peak = {}, total = {}, avg latency = {} us", me.index, me.currentPending.get(), me.peakUse.get(),
+              me.totalUses.get(), me.ewmaLatency.get() / 1000L);
+        }
+    }
+
+    RemoteHttpClient(final boolean useVirtualThreads, final int threadPoolSize, final int minConnections, final int maxConnections,
+      final int maxPendingPerConnection) {
+        LOGGER.info("Creating new HttpClient for remote connections, using {} and {} to {} separate instances",
+          useVirtualThreads ? "virtual threads" : threadPoolSize + " threads", minConnections, maxConnections);
+        if (useVirtualThreads) {
+            executorService = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("t9t-http-async-v", 1L).factory());
+        } else {
+            executorService = Executors.newFixedThreadPool(threadPoolSize, (r) -> {
+                final String threadName = "t9t-http-async-" + threadCounter.incrementAndGet();
+                LOGGER.info("Launching thread {} of {} for asynchronous http response processing", threadName, threadPoolSize);
+                return new Thread(r, threadName);
+            });
         }
+        this.maxConnections = Math.max(minConnections, maxConnections);
+        this.maxPendingPerConnection = maxPendingPerConnection;
+        final SingleConnection[] initialClients = new SingleConnection[Math.max(1, minConnections)];
+        for (int i = 0; i < initialClients.length; ++i) {
+            initialClients[i] = new SingleConnection(i, executorService);
+        }
+        httpClients = initialClients;
+    }
+
+    /** Returns the meters of this pool, to be bound to a registry. */
+    RemoteHttpClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    int getNumberOfConnections() {
+        return httpClients.length;
     }
 
-    RemoteHttpClient(final int threadPoolSize, final int parallelConnections) {
-        LOGGER.info("Creating new HttpClient for remote connections, using {} threads and {} separate instances", threadPoolSize, parallelConnections);
-        executorService = Executors.newFixedThreadPool(threadPoolSize, (r) -> {
-            final String threadName = "t9t-http-async-" + threadCounter.incrementAndGet();
-            LOGGER.info("Launching thread {} of {} for asynchronous http response processing", threadName, threadPoolSize);
-            return new Thread(r, threadName);
-        });
-
-        httpClients = new ArrayList<>(parallelConnections);
-        poolSize = parallelConnections;
-        for (int i = 0; i < parallelConnections; ++i) {
-            httpClients.add(new SingleConnection(i, executorService));
+    int getNumberOfPendingRequests() {
+        int pending = 0;
+        for (final SingleConnection me: httpClients) {
+            pending += me.currentPending.get();
         }
+        return pending;
     }
 
     protected SingleConnection pickConnectionToUse() {
-        // first choice is the next one, round robin,
-        int initialChoiceIndex = nextConnection.incrementAndGet();
-        if (initialChoiceIndex > 1_000_000) {
-            nextConnection.set(0);
+        if (requestCounter.incrementAndGet() % STATISTICS_INTERVAL == 0) {
             executorService.submit(() -> statisticsOut());
         }
-        initialChoiceIndex = initialChoiceIndex % poolSize;
-        final SingleConnection initialChoice = httpClients.get(initialChoiceIndex);
-        // use this, unless we find a connection which is a lot less active
-        final int pendingForinitialChoice = initialChoice.currentPending.get();
-        if (pendingForinitialChoice < 20) {
-            return initialChoice;
+        final SingleConnection[] clients = httpClients;
+        final SingleConnection choice;
+        if (clients.length == 1) {
+            choice = clients[0];
+        } else {
+            final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            final int first = rnd.nextInt(clients.length);
+            final int second = (first + 1 + rnd.nextInt(clients.length - 1)) % clients.length;  // always different from the first
+            choice = clients[first].score() <= clients[second].score() ? clients[first] : clients[second];
         }
-        final int limit = pendingForinitialChoice / 2;  // at least 10...
-        // fall back for selection of initial best
-        for (int i = 0; i < poolSize; ++i) {
-            final SingleConnection alternateChoice = httpClients.get(i);
-            if (alternateChoice.currentPending.get() <= limit) {
-                return alternateChoice;
-            }
+        if (choice.currentPending.get() >= maxPendingPerConnection && clients.length < maxConnections) {
+            return addConnection(clients);
         }
-        return initialChoice;
+        return choice;
+    }
+
+    /** Adds a new client to the pool, unless another thread has done so in the meantime. Returns the newest client. */
+    protected synchronized SingleConnection addConnection(final SingleConnection[] seen) {
+        final SingleConnection[] current = httpClients;
+        if (current == seen) {
+            final SingleConnection[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = new SingleConnection(current.length, executorService);
+            httpClients = grown;
+            LOGGER.info("All remote connections are busy, increased pool size to {}", grown.length);
+            return grown[current.length];
+        }
+        return current[current.length - 1];
     }
 
     public HttpRequest buildRequest(final URI uri, final String authentication, final String sessionToken, final BonaPortable request) throws Exception {
-        final CompactByteArrayComposer bac = new CompactByteArrayComposer(false);
+        final CompactByteArrayComposer bac = COMPOSER.get();
+        bac.reset();
         bac.writeRecord(request);
-        bac.close();
+        final byte[] payload = bac.getBytes();  // the publisher reads the data asynchronously, therefore the buffer itself cannot be passed
 
         final HttpRequest.Builder httpRequestBuilder = HttpRequest.newBuilder(uri)
                 .version(Version.HTTP_2)
-                .POST(BodyPublishers.ofByteArray(bac.getBuffer(), 0, bac.getLength()))
+                .POST(BodyPublishers.ofByteArray(payload))
                 .timeout(Duration.ofSeconds(55));
 
         if (authentication != null) {
@@ -142,16 +189,18 @@ class RemoteHttpClient {
         final HttpRequest httpRq = buildRequest(uri, authentication, sessionToken, request);
         final BodyHandler<byte[]> serializedRequest = HttpResponse.BodyHandlers.ofByteArray();
         final SingleConnection myConnection = pickConnectionToUse();
-        final int newHigh = myConnection.currentPending.incrementAndGet();
-        if (newHigh > myConnection.peakUse.get()) {
-            myConnection.peakUse.set(newHigh);
-        }
+        myConnection.requestStarted();
+        final long start = System.nanoTime();
         final CompletableFuture<HttpResponse<byte[]>> responseF = myConnection.httpClient.sendAsync(httpRq, serializedRequest);
-        return responseF.thenApply(response -> {
-            myConnection.currentPending.decrementAndGet();
-            myConnection.totalUses.incrementAndGet();
-            return convertResponse(response2object(response), request instanceof AuthenticationRequest);
-        });
+        return responseF.whenComplete((response, error) -> {
+            final long latency = System.nanoTime() - start;
+            myConnection.requestCompleted(latency);
+            if (error != null) {
+                metrics.recordError();
+            } else {
+                metrics.recordLatency(latency);
+            }
+        }).thenApply(response -> convertResponse(response2object(response), request instanceof AuthenticationRequest));
     }
 
     private ServiceResponse convertResponse(final HttpPostResponseObject resp, final boolean isAuthentication) {
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.client.connections;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link MeterBinder} for exporting statistics of the {@link RemoteHttpClient} pool.<br>
+ * Sample output:
+ * <pre>
+ * t9t_remote_inflight 12.0
+ * t9t_remote_connections 10.0
+ * t9t_remote_latency_seconds_count 50000.0
+ * t9t_remote_latency_seconds_sum 410.5
+ * t9t_remote_errors_total 3.0
+ * </pre>
+ */
+class RemoteHttpClientMetrics implements MeterBinder {
+
+    private static final String PREFIX = "t9t.remote";
+
+    private static final String METRIC_INFLIGHT = PREFIX + ".inflight";
+    private static final String METRIC_INFLIGHT_DESC = "Number of requests sent to the backend and waiting for a response";
+
+    private static final String METRIC_CONNECTIONS = PREFIX + ".connections";
+    private static final String METRIC_CONNECTIONS_DESC = "Number of http client instances in the pool";
+
+    private static final String METRIC_LATENCY = PREFIX + ".latency";
+    private static final String METRIC_LATENCY_DESC = "Time from sending a request to the backend until its response has been received";
+
+    private static final String METRIC_ERRORS = PREFIX + ".errors";
+    private static final String METRIC_ERRORS_DESC = "Number of requests which failed with an I/O error";
+
+    private final RemoteHttpClient client;
+
+    private volatile Timer latency;
+    private volatile Counter errors;
+
+    RemoteHttpClientMetrics(final RemoteHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder(METRIC_INFLIGHT, client::getNumberOfPendingRequests).description(METRIC_INFLIGHT_DESC).register(registry);
+        Gauge.builder(METRIC_CONNECTIONS, client::getNumberOfConnections).description(METRIC_CONNECTIONS_DESC).register(registry);
+        latency = Timer.builder(METRIC_LATENCY).description(METRIC_LATENCY_DESC).register(registry);  // no histogram, the gateway registry exports count and sum only
+        errors = Counter.builder(METRIC_ERRORS).description(METRIC_ERRORS_DESC).register(registry);
+    }
+
+    /** Records the latency of a completed request. Does nothing as long as no registry has been bound. */
+    public void recordLatency(final long latencyInNanos) {
+        final Timer currentLatency = latency;
+        if (currentLatency != null) {
+            currentLatency.record(latencyInNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Records a failed request. */
+    public void recordError() {
+        final Counter currentErrors = errors;
+        if (currentErrors != null) {
+            currentErrors.increment();
+        }
+    }
+}
@@ -20,13 +20,18 @@ import java.net.http.HttpClient.Version;
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class SingleConnection {
+    private static final int EWMA_SHIFT = 3;  // weight of a new sample is 1/8
+    private static final long INITIAL_LATENCY_IN_NANOS = 1_000_000L;  // assume 1 ms until measured, to make new connections attractive
+
     protected final int index;
     protected final HttpClient httpClient;
     protected final AtomicInteger currentPending = new AtomicInteger(0);
     protected final AtomicInteger totalUses = new AtomicInteger(0);
     protected final AtomicInteger peakUse = new AtomicInteger(0);
+    protected final AtomicLong ewmaLatency = new AtomicLong(INITIAL_LATENCY_IN_NANOS);  // exponentially weighted moving average, in nanoseconds
 
     protected SingleConnection(final int instanceNo, final ExecutorService executorService) {
         index = instanceNo;
@@ -36,4 +41,24 @@ public class SingleConnection {
                 .executor(executorService)
                 .build();
     }
+
+    /** Marks the start of a request on this connection. */
+    protected void requestStarted() {
+        final int newHigh = currentPending.incrementAndGet();
+        peakUse.accumulateAndGet(newHigh, Math::max);
+    }
+
+    /** Marks the end of a request on this connection, and updates the latency average. */
+    protected void requestCompleted(final long latencyInNanos) {
+        currentPending.decrementAndGet();
+        totalUses.incrementAndGet();
+        // lost updates due to concurrent completions are acceptable for an average
+        final long previous = ewmaLatency.get();
+        ewmaLatency.lazySet(previous + ((latencyInNanos - previous) >> EWMA_SHIFT));
+    }
+
+    /** Returns the expected time to complete a new request on this connection, assuming pending requests delay it. Lower is better. */
+    protected long score() {
+        return ewmaLatency.get() * (currentPending.get() + 1);
+    }
 }
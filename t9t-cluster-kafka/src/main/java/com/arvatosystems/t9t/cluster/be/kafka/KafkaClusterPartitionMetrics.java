@@ -16,7 +16,10 @@
 package com.arvatosystems.t9t.cluster.be.kafka;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.binder.MeterBinder;
@@ -32,7 +35,12 @@ import com.arvatosystems.t9t.cluster.be.kafka.KafkaPartitionOrderedRequestProces
  * t9t_kafka_partitions_paused_total{topic="t9tRequestToMAIN",} 3.0
  * t9t_kafka_partitions_tasks_pending_total{topic="t9tRequestToMAIN",} 8.0
  * t9t_kafka_partitions_tasks_total{topic="t9tRequestToMAIN",} 15.0
+ * t9t_kafka_partitions_records_processed_total{partition="0",topic="t9tRequestToMAIN",} 81234.0
+ * t9t_kafka_partitions_records_inflight{partition="0",topic="t9tRequestToMAIN",} 12.0
+ * t9t_kafka_partitions_backpressure{topic="t9tRequestToMAIN",} 0.0
  * </pre>
+ * The throughput of a partition is the rate of records_processed_total, the processing lag is given by records_inflight.
+ * The consumer lag (records not yet polled) is exported per partition by the kafka client metrics.
  */
 public class KafkaClusterPartitionMetrics implements MeterBinder {
 
@@ -53,13 +61,50 @@ public class KafkaClusterPartitionMetrics implements MeterBinder {
     private static final String METRIC_TASKS_TOTAL = PREFIX + ".tasks.total";
     private static final String METRIC_TASKS_TOTAL_DESC = "Total number of currently assigned tasks";
 
+    private static final String METRIC_RECORDS_PROCESSED = PREFIX + ".records.processed";
+    private static final String METRIC_RECORDS_PROCESSED_DESC = "Number of records processed per partition";
+
+    private static final String METRIC_RECORDS_INFLIGHT = PREFIX + ".records.inflight";
+    private static final String METRIC_RECORDS_INFLIGHT_DESC = "Number of polled records per partition which have not yet been processed";
+
+    private static final String METRIC_BACKPRESSURE = PREFIX + ".backpressure";
+    private static final String METRIC_BACKPRESSURE_DESC = "1 if polling has been paused because the in-flight window is full, else 0";
+
     private static final String TAG_TOPIC = "topic";
+    private static final String TAG_PARTITION = "partition";
+
+    /** Counters of a single partition, updated by the workers. */
+    static final class PartitionStats {
+        private final LongAdder processed = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        void addInFlight(final int delta) {
+            inFlight.addAndGet(delta);
+        }
+
+        void recordProcessed() {
+            processed.increment();
+            inFlight.decrementAndGet();
+        }
+
+        int getInFlight() {
+            return inFlight.get();
+        }
+
+        double getProcessed() {
+            return processed.doubleValue();
+        }
+    }
 
     private final Map<TopicPartition, PartitionMonitor> partitionStatusTable;
+    private final Map<Integer, PartitionStats> partitionStats;
+    private final KafkaPartitionOrderedRequestProcessor processor;
     private final String topicName;
 
-    public KafkaClusterPartitionMetrics(final Map<TopicPartition, PartitionMonitor> partitionStatusTable, final String topicName) {
-        this.partitionStatusTable = partitionStatusTable;
+    public KafkaClusterPartitionMetrics(final KafkaPartitionOrderedRequestProcessor processor, final String topicName) {
+        this.processor = processor;
+        this.partitionStatusTable = processor.getPartitionStatusTable();
+        this.partitionStats = processor.getPartitionStats();
         this.topicName = topicName;
     }
 
@@ -102,6 +147,17 @@ public class KafkaClusterPartitionMetrics implements MeterBinder {
             }
             return total;
         }).description(METRIC_TASKS_TOTAL_DESC).tag(TAG_TOPIC, topicName).register(registry);
+
+        Gauge.builder(METRIC_BACKPRESSURE, () -> processor.isBackPressureActive() ? 1 : 0).description(METRIC_BACKPRESSURE_DESC).tag(TAG_TOPIC, topicName)
+                .register(registry);
+
+        partitionStats.forEach((partition, stats) -> {
+            final String partitionTag = partition.toString();
+            FunctionCounter.builder(METRIC_RECORDS_PROCESSED, stats, PartitionStats::getProcessed).description(METRIC_RECORDS_PROCESSED_DESC)
+                    .tag(TAG_TOPIC, topicName).tag(TAG_PARTITION, partitionTag).register(registry);
+            Gauge.builder(METRIC_RECORDS_INFLIGHT, stats, PartitionStats::getInFlight).description(METRIC_RECORDS_INFLIGHT_DESC)
+                    .tag(TAG_TOPIC, topicName).tag(TAG_PARTITION, partitionTag).register(registry);
+        });
     }
 
 }
@@ -15,15 +15,18 @@
  */
 package com.arvatosystems.t9t.cluster.be.kafka;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.TopicPartition;
@@ -45,15 +48,18 @@ import com.arvatosystems.t9t.server.services.IUnauthenticatedServiceRequestExecu
 
 /**
  * Utilized by {@link KafkaPartitionOrderedRequestProcessor} to process a batch of records (which belong to same partition).
+ * Records are distributed to up to maxParallelKeys lanes by their key. Each lane is processed sequentially, therefore the order of records
+ * with the same key is preserved, while records with different keys can be processed in parallel. Records without a key all use the same lane.
+ * With maxParallelKeys = 1, all records of the partition are processed in order.
+ * The offset reported for commit is the one after the last record of the contiguous range of processed records.
  */
-final class KafkaMultipleRecordsProcessor implements Runnable {
+final class KafkaMultipleRecordsProcessor {
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaMultipleRecordsProcessor.class);
 
     private final IUnauthenticatedServiceRequestExecutor requestProcessor = Jdp.getRequired(IUnauthenticatedServiceRequestExecutor.class);
 
     // controls to handle threaded processing
     private final ReentrantLock processingLock = new ReentrantLock();
-    private final AtomicBoolean startedProcessing = new AtomicBoolean(false);
     private final AtomicBoolean stoppedProcessing = new AtomicBoolean(false);
     private final AtomicBoolean finishedProcessing = new AtomicBoolean(false);
     private final CompletableFuture<Long> completion = new CompletableFuture<>();
@@ -64,53 +70,112 @@ final class KafkaMultipleRecordsProcessor implements Runnable {
     private final AtomicLong lastProcessedOffset = new AtomicLong(-1);
     private final List<ConsumerRecord<String, byte[]>> records;
     private final TopicPartition topicPartition;
+    private final List<List<Integer>> lanes;            // indexes into records, per lane
+    private final AtomicInteger remainingLanes;
+    private final boolean[] done;                       // records which have been processed, guarded by processingLock
+    private int contiguousDone = 0;                     // number of records processed without gap, guarded by processingLock
+    private int startedLanes = 0;                       // guarded by processingLock
+    private final KafkaClusterPartitionMetrics.PartitionStats stats;
+    private final Consumer<KafkaMultipleRecordsProcessor> onFinished;
 
     KafkaMultipleRecordsProcessor(final TopicPartition topicPartition, final List<ConsumerRecord<String, byte[]>> records,
-            final AuthenticationParameters defaultAuthHeader) {
+            final AuthenticationParameters defaultAuthHeader, final int maxParallelKeys, final KafkaClusterPartitionMetrics.PartitionStats stats,
+            final Consumer<KafkaMultipleRecordsProcessor> onFinished) {
         this.topicPartition = topicPartition;
         this.records = records;
         this.defaultAuthHeader = defaultAuthHeader;
+        this.stats = stats;
+        this.onFinished = onFinished;
+        this.done = new boolean[records.size()];
 
-        LOGGER.debug("{} started for partition={}, topic={}, #records={}", this.getClass().getSimpleName(), topicPartition.partition(), topicPartition.topic(),
-                records.size());
+        final int numberOfLanes = Math.max(1, Math.min(maxParallelKeys, records.size()));
+        final List<List<Integer>> allLanes = new ArrayList<>(numberOfLanes);
+        for (int i = 0; i < numberOfLanes; ++i) {
+            allLanes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < records.size(); ++i) {
+            final String key = records.get(i).key();
+            allLanes.get(key == null ? 0 : Math.floorMod(key.hashCode(), numberOfLanes)).add(i);
+        }
+        allLanes.removeIf(List::isEmpty);
+        this.lanes = allLanes;
+        this.remainingLanes = new AtomicInteger(allLanes.size());
+        stats.addInFlight(records.size());
+
+        LOGGER.debug("{} started for partition={}, topic={}, #records={}, #lanes={}", this.getClass().getSimpleName(), topicPartition.partition(),
+                topicPartition.topic(), records.size(), allLanes.size());
     }
 
-    @Override
-    public void run() {
+    /** Submits the lanes of this batch for processing. */
+    public void submitTo(final ExecutorService executor) {
+        if (lanes.isEmpty()) {
+            finish();
+            return;
+        }
+        for (final List<Integer> lane : lanes) {
+            executor.execute(() -> processLane(lane));
+        }
+    }
+
+    private void processLane(final List<Integer> lane) {
         processingLock.lock();
         try {
-            if (stoppedProcessing.get()) {
-                return;
+            if (!stoppedProcessing.get()) {
+                ++startedLanes;
             }
-            startedProcessing.set(true);
         } finally {
             processingLock.unlock();
         }
+        try {
+            for (final Integer index : lane) {
+                if (stoppedProcessing.get()) {
+                    break;
+                }
+                if (processRequest(records.get(index))) {
+                    // true means: request has been processed (with or without exceptions)
+                    markDone(index);
+                } else {
+                    // false means: SHUTDOWN IN PROGRESS, stop working and do not commit offset of this task
+                    stopProcessing();
+                    break;
+                }
+            }
+        } finally {
+            if (remainingLanes.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+    }
 
-        for (final ConsumerRecord<String, byte[]> consumerRecord : records) {
-            if (stoppedProcessing.get()) {
-                break;
+    private void markDone(final int index) {
+        recordsProcessed.incrementAndGet();
+        stats.recordProcessed();
+        processingLock.lock();
+        try {
+            done[index] = true;
+            while (contiguousDone < done.length && done[contiguousDone]) {
+                ++contiguousDone;
             }
-            if (processRequest(consumerRecord)) {
-                // true means: request has been processed (with or without exceptions)
-                lastProcessedOffset.set(consumerRecord.offset() + 1); // according to documentation: + 1
-                recordsProcessed.incrementAndGet();
-            } else {
-                // false means: SHUTDOWN IN PROGRESS, stop working and do not commit offset of this task
-                stopProcessing();
-                break;
+            if (contiguousDone > 0) {
+                lastProcessedOffset.set(records.get(contiguousDone - 1).offset() + 1); // according to documentation: + 1
             }
+        } finally {
+            processingLock.unlock();
         }
+    }
 
+    private void finish() {
+        stats.addInFlight(-(records.size() - recordsProcessed.get()));  // records skipped due to a stop
         finishedProcessing.set(true);
         completion.complete(lastProcessedOffset.get());
+        onFinished.accept(this);
     }
 
     public void stopProcessing() {
         processingLock.lock();
         try {
             stoppedProcessing.set(true);
-            if (!startedProcessing.get()) {
+            if (startedLanes == 0) {
                 // not even started? Then mark as finished and leave records unprocessed
                 finishedProcessing.set(true);
                 completion.complete(-1L);
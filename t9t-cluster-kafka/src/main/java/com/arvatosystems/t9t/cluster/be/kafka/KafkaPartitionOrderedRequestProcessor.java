@@ -19,11 +19,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -40,6 +43,7 @@ import de.jpaw.bonaparte.util.FreezeTools;
 import com.arvatosystems.t9t.base.T9tUtil;
 import com.arvatosystems.t9t.base.auth.ApiKeyAuthentication;
 import com.arvatosystems.t9t.base.types.AuthenticationParameters;
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
 import com.arvatosystems.t9t.cfg.be.KafkaConfiguration;
 import com.arvatosystems.t9t.cfg.be.StatusProvider;
 import com.arvatosystems.t9t.kafka.service.IKafkaTopicReader;
@@ -49,9 +53,11 @@ import com.arvatosystems.t9t.kafka.service.impl.KafkaTopicReader;
  * Kafka prossing implementation with following key features:
  * <ul>
  *   <li>Multithreaded with the help of a fixed thread pool (based on CPUs or {@code clusterManagerPoolSize} config.</li>
- *   <li>Grouping of records by partitions. Starting a processing thread for each batch of records (with same partition)</li>
- *   <li>Keeping order of records within one partition, i.e. sequential processing of each partition.</li>
- *   <li>Processor pauses consumer for 'busy' partitions and resume once the last batch has been finished.</li>
+ *   <li>Grouping of records by partitions. Starting a processing task for each batch of records (with same partition)</li>
+ *   <li>Keeping order of records within one partition, i.e. sequential processing of each partition, or, if {@code maxParallelKeysPerPartition}
+ *       is configured, keeping order of records with the same key only, processing up to that number of keys of a partition in parallel.</li>
+ *   <li>Processor pauses consumer for 'busy' partitions and resume once the last batch has been finished (signalled by a completion callback).</li>
+ *   <li>If {@code maxInFlightRecords} is configured, all partitions are paused while more records are in flight (back-pressure).</li>
  *   <li>Processed offsets will be collected and committed after a configured time interval.</li>
  *   <li>Handling of revoked partitions via {@link KafkaClusterRebalancer}</li>
  * </ul>
@@ -65,6 +71,7 @@ final class KafkaPartitionOrderedRequestProcessor implements KafkaProcessor {
     private static final int DEFAULT_MONITOR_INTERVAL = 5000; // monitor interval
     private static final int DEFAULT_TIMEOUT_THREADPOOL_SHUTDOWN_MS = 10_000;
     private static final int DEFAULT_WORKER_POOL_SIZE = 6;
+    private static final int DEFAULT_MAX_PARALLEL_KEYS_PER_PARTITION = 1;
 
     private final IKafkaTopicReader consumer;
     private final AuthenticationParameters defaultAuthHeader;
@@ -77,6 +84,13 @@ final class KafkaPartitionOrderedRequestProcessor implements KafkaProcessor {
     private long lastCommitTime;
     private long lastMonitorTime;
     private final Map<TopicPartition, PartitionMonitor> partitionStatusTable;
+    private final Map<Integer, KafkaClusterPartitionMetrics.PartitionStats> partitionStats;
+    private final BlockingQueue<KafkaMultipleRecordsProcessor> finishedProcessors = new LinkedBlockingQueue<>();
+    private final Set<TopicPartition> knownPartitions = new HashSet<>();   // partitions which have been seen in polls
+    private final Set<TopicPartition> throttledPartitions = new HashSet<>();  // partitions paused due to back-pressure
+    private final int maxParallelKeysPerPartition;
+    private final int maxInFlightRecords;
+    private volatile boolean backPressureActive = false;
     private final long commitIntervalInMs;
     private final long monitorIntervalInMs;
     private final long shutdownThreadpoolIntervalInMs;
@@ -105,7 +119,11 @@ final class KafkaPartitionOrderedRequestProcessor implements KafkaProcessor {
         final int numberOfPartitions = consumer.getNumberOfPartitions();
         this.activeProcessors = new HashMap<>(FreezeTools.getInitialHashMapCapacity(numberOfPartitions));
         this.offsetsToCommit = new HashMap<>(FreezeTools.getInitialHashMapCapacity(numberOfPartitions));
-        this.partitionStatusTable = new HashMap<>(FreezeTools.getInitialHashMapCapacity(numberOfPartitions));
+        this.partitionStatusTable = new ConcurrentHashMap<>(FreezeTools.getInitialHashMapCapacity(numberOfPartitions));  // also read by metrics
+        this.partitionStats = new ConcurrentHashMap<>(FreezeTools.getInitialHashMapCapacity(numberOfPartitions));
+        for (int i = 0; i < numberOfPartitions; ++i) {
+            partitionStats.put(i, new KafkaClusterPartitionMetrics.PartitionStats());
+        }
         this.lastCommitTime = System.currentTimeMillis();
         this.lastMonitorTime = System.currentTimeMillis();
 
@@ -114,10 +132,14 @@ final class KafkaPartitionOrderedRequestProcessor implements KafkaProcessor {
         this.monitorIntervalInMs = T9tUtil.nvl(config.getMonitorInterval(), DEFAULT_MONITOR_INTERVAL).longValue();
         this.shutdownThreadpoolIntervalInMs = T9tUtil.nvl(config.getShutdownThreadpoolInterval(), DEFAULT_TIMEOUT_THREADPOOL_SHUTDOWN_MS).longValue();
         this.idleIntervalInMs = T9tUtil.nvl(config.getIdleInterval(), Integer.valueOf(0)).longValue(); // disabled when no value provided
+        this.maxParallelKeysPerPartition = Math.max(1, T9tUtil.nvl(config.getMaxParallelKeysPerPartition(), DEFAULT_MAX_PARALLEL_KEYS_PER_PARTITION));
+        this.maxInFlightRecords = T9tUtil.nvl(config.getMaxInFlightRecords(), Integer.valueOf(0)); // disabled when no value provided
+        LOGGER.info("Processing up to {} keys per partition in parallel, in-flight window is {}", maxParallelKeysPerPartition,
+                maxInFlightRecords > 0 ? maxInFlightRecords : "unlimited");
 
         final int workerPoolSize = this.getPoolSize(config, numberOfPartitions);
         LOGGER.info("Launching kafka processing thread pool with size: {}", workerPoolSize);
-        this.executorKafkaWorker = Executors.newFixedThreadPool(workerPoolSize, (threadFactory) -> {
+        this.executorKafkaWorker = ExecutorServiceFactory.newRequestExecutor("t9t-KafkaWorker-", workerPoolSize, (threadFactory) -> {
             final String threadName = "t9t-KafkaWorker-" + workerThreadCounter.incrementAndGet();
             LOGGER.info("Launching thread {} of {} for kafka worker", threadName, workerPoolSize);
             return new Thread(threadFactory, threadName);
@@ -139,8 +161,10 @@ final class KafkaPartitionOrderedRequestProcessor implements KafkaProcessor {
                 lastinfo = startChunk;
             }
 
-            // poll records
-            final ConsumerRecords<String, byte[]> consumerRecords = consumer.poll(KafkaTopicReader.DEFAULT_POLL_INTERVAL);
+            KafkaMultipleRecordsProcessor firstFinished = null;
+
+            // poll records. If tasks are running, do not block in poll, but wait for completions instead (see below)
+            final ConsumerRecords<String, byte[]> consumerRecords = consumer.poll(activeProcessors.isEmpty() ? KafkaTopicReader.DEFAULT_POLL_INTERVAL : 0L);
             if (consumerRecords == null) {
                 // some exception (it is OK during shutdown)
                 if (StatusProvider.isShutdownInProgress()) {
@@ -155,12 +179,21 @@ final class KafkaPartitionOrderedRequestProcessor implements KafkaProcessor {
                 for (final TopicPartition partition : partitions) {
                     final List<ConsumerRecord<String, byte[]>> recordsByPartition = consumerRecords.records(partition);
                     final KafkaMultipleRecordsProcessor kafkaMultipleRecordsProcessor = new KafkaMultipleRecordsProcessor(partition,
-                            recordsByPartition, defaultAuthHeader);
-                    executorKafkaWorker.submit(kafkaMultipleRecordsProcessor);
+                            recordsByPartition, defaultAuthHeader, maxParallelKeysPerPartition, getStats(partition), finishedProcessors::add);
                     activeProcessors.put(partition, kafkaMultipleRecordsProcessor);
+                    knownPartitions.add(partition);
+                    kafkaMultipleRecordsProcessor.submitTo(executorKafkaWorker);
                 }
 
                 pauseTopicPartitions(partitions);
+            } else if (!activeProcessors.isEmpty()) {
+                // nothing new, but busy: wait for a completion callback
+                try {
+                    firstFinished = finishedProcessors.poll(KafkaTopicReader.DEFAULT_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    LOGGER.warn("Interrupted while waiting for completion of kafka workers");
+                    Thread.currentThread().interrupt();
+                }
             }
 
             if (idleIntervalInMs > 0 && activeProcessors.isEmpty() && offsetsToCommit.isEmpty()) {
@@ -169,22 +202,29 @@ final class KafkaPartitionOrderedRequestProcessor implements KafkaProcessor {
             }
 
             // collect offsets from finished processors
-            final Collection<TopicPartition> finishedPartitions = new ArrayList<>(activeProcessors.size());
-            activeProcessors.forEach((partition, processor) -> {
-                if (processor.isFinished()) {
+            final Collection<TopicPartition> finishedPartitions = new ArrayList<>();
+            for (KafkaMultipleRecordsProcessor processor = firstFinished != null ? firstFinished : finishedProcessors.poll(); processor != null;
+              processor = finishedProcessors.poll()) {
+                final TopicPartition partition = processor.getPartition();
+                if (activeProcessors.get(partition) == processor) {  // otherwise revoked in the meantime
+                    activeProcessors.remove(partition);
                     finishedPartitions.add(partition);
+                    collectOffset(partition, processor);
                 }
-                // collect current state even if not finished yet
-                final long lastProcessedOffset = processor.getLastProcessedOffset();
-                if (lastProcessedOffset > 0) { // initial or error value is -1
-                    offsetsToCommit.put(partition, new OffsetAndMetadata(lastProcessedOffset));
-                }
-            });
+            }
 
-            finishedPartitions.forEach(partition -> activeProcessors.remove(partition));
+            // collect current state of processors which are not finished yet, if it is time to commit
+            if (System.currentTimeMillis() - lastCommitTime > commitIntervalInMs) {
+                activeProcessors.forEach(this::collectOffset);
+            }
 
-            // resume finished partitions (if not empty)
-            resumeTopicPartitions(finishedPartitions);
+            // resume finished partitions (if not empty), unless all are paused due to back-pressure
+            if (backPressureActive) {
+                throttledPartitions.addAll(finishedPartitions);
+            } else {
+                resumeTopicPartitions(finishedPartitions);
+            }
+            applyBackPressure();
 
             // show what you are busy with (if interval reached)
             printMonitor();
@@ -211,6 +251,54 @@ final class KafkaPartitionOrderedRequestProcessor implements KafkaProcessor {
         return Boolean.FALSE;
     }
 
+    private KafkaClusterPartitionMetrics.PartitionStats getStats(final TopicPartition partition) {
+        return partitionStats.computeIfAbsent(partition.partition(), unused -> new KafkaClusterPartitionMetrics.PartitionStats());
+    }
+
+    private void collectOffset(final TopicPartition partition, final KafkaMultipleRecordsProcessor processor) {
+        final long lastProcessedOffset = processor.getLastProcessedOffset();
+        if (lastProcessedOffset > 0) { // initial or error value is -1
+            offsetsToCommit.put(partition, new OffsetAndMetadata(lastProcessedOffset));
+        }
+    }
+
+    /**
+     * Pauses all known partitions if the number of records in flight exceeds the configured window,
+     * and resumes the idle ones once the number has dropped to half of the window.
+     */
+    private void applyBackPressure() {
+        if (maxInFlightRecords <= 0) {
+            return;
+        }
+        int inFlight = 0;
+        for (final KafkaClusterPartitionMetrics.PartitionStats stats : partitionStats.values()) {
+            inFlight += stats.getInFlight();
+        }
+        if (!backPressureActive && inFlight >= maxInFlightRecords) {
+            backPressureActive = true;
+            for (final TopicPartition partition : knownPartitions) {
+                if (!activeProcessors.containsKey(partition)) {
+                    throttledPartitions.add(partition);  // busy partitions are paused already
+                }
+            }
+            LOGGER.debug("{} records in flight, pausing {} idle partitions", inFlight, throttledPartitions.size());
+            consumer.pause(throttledPartitions);
+        } else if (backPressureActive && inFlight <= maxInFlightRecords / 2) {
+            backPressureActive = false;
+            LOGGER.debug("{} records in flight, resuming {} partitions", inFlight, throttledPartitions.size());
+            resumeTopicPartitions(throttledPartitions);
+            throttledPartitions.clear();
+        }
+    }
+
+    boolean isBackPressureActive() {
+        return backPressureActive;
+    }
+
+    Map<Integer, KafkaClusterPartitionMetrics.PartitionStats> getPartitionStats() {
+        return partitionStats;
+    }
+
     private void checkGlobalTriggers() {
         // global pause/resume flag
         if (globalPauseTrigger.compareAndSet(true, false)) {
@@ -286,10 +374,12 @@ final class KafkaPartitionOrderedRequestProcessor implements KafkaProcessor {
             LOGGER.error("Could not get info about available CPUs: {}", exc.getMessage());
         }
         int workerPoolSize = T9tUtil.nvl(config.getClusterManagerPoolSize(), availableProcessors);
-        if (workerPoolSize > numberOfPartitions) {
-            LOGGER.warn("Configured more workers ({}) than available partitions ({}) - cutting to number of overall partitions", workerPoolSize,
-                    numberOfPartitions);
-            workerPoolSize = numberOfPartitions;
+        // with parallel keys, each partition can keep up to maxParallelKeysPerPartition workers busy
+        final int maxUsefulWorkers = numberOfPartitions * maxParallelKeysPerPartition;
+        if (workerPoolSize > maxUsefulWorkers) {
+            LOGGER.warn("Configured more workers ({}) than can be used by {} partitions with up to {} parallel keys each - cutting to {}", workerPoolSize,
+                    numberOfPartitions, maxParallelKeysPerPartition, maxUsefulWorkers);
+            workerPoolSize = maxUsefulWorkers;
         }
         return workerPoolSize;
     }
@@ -336,6 +426,8 @@ final class KafkaPartitionOrderedRequestProcessor implements KafkaProcessor {
             }
             // remove from monitor
             partitionStatusTable.remove(partition);
+            knownPartitions.remove(partition);
+            throttledPartitions.remove(partition);
         });
 
         // commit finally
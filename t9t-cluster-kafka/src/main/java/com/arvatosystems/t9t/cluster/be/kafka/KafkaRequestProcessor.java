@@ -19,7 +19,6 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -38,6 +37,7 @@ import com.arvatosystems.t9t.base.api.ServiceRequestHeader;
 import com.arvatosystems.t9t.base.api.TransactionOriginType;
 import com.arvatosystems.t9t.base.auth.ApiKeyAuthentication;
 import com.arvatosystems.t9t.base.types.AuthenticationParameters;
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
 import com.arvatosystems.t9t.cfg.be.KafkaConfiguration;
 import com.arvatosystems.t9t.cfg.be.StatusProvider;
 import com.arvatosystems.t9t.kafka.service.IKafkaTopicReader;
@@ -74,7 +74,7 @@ final class KafkaRequestProcessor implements KafkaProcessor {
         }
 
         final int workerPoolSize = T9tUtil.nvl(config.getClusterManagerPoolSize(), DEFAULT_WORKER_POOL_SIZE);
-        executorKafkaWorker = Executors.newFixedThreadPool(workerPoolSize, (threadFactory) -> {
+        executorKafkaWorker = ExecutorServiceFactory.newRequestExecutor("t9t-KafkaWorker-", workerPoolSize, (threadFactory) -> {
             final String threadName = "t9t-KafkaWorker-" + workerThreadCounter.incrementAndGet();
             LOGGER.info("Launching thread {} of {} for kafka worker", threadName, workerPoolSize);
             return new Thread(threadFactory, threadName);
@@ -127,7 +127,7 @@ public class KafkaRequestProcessorAndClusterManagerInitializer implements Startu
             LOGGER.info("Adding metrics provider for kafka consumer");
             consumer.registerMetrics((kafkaConsumer) -> this.metricsProvider.addMeter(new KafkaClientMetrics(kafkaConsumer)));
             if (processingStrategy instanceof KafkaPartitionOrderedRequestProcessor proc) {
-                final KafkaClusterPartitionMetrics customMetrics = new KafkaClusterPartitionMetrics(proc.getPartitionStatusTable(), consumer.getKafkaTopic());
+                final KafkaClusterPartitionMetrics customMetrics = new KafkaClusterPartitionMetrics(proc, consumer.getKafkaTopic());
                 this.metricsProvider.addMeter(customMetrics);
             }
         } else {
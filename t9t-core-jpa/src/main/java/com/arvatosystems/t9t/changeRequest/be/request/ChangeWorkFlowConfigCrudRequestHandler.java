@@ -43,9 +43,12 @@ public class ChangeWorkFlowConfigCrudRequestHandler extends AbstractCrudSurrogat
     @Override
     public CrudSurrogateKeyResponse<ChangeWorkFlowConfigDTO, FullTrackingWithVersion> execute(@Nonnull final RequestContext ctx,
         @Nonnull final ChangeWorkFlowConfigCrudRequest request) throws Exception {
+        final CrudSurrogateKeyResponse<ChangeWorkFlowConfigDTO, FullTrackingWithVersion> response = execute(ctx, mapper, resolver, request);
         if (request.getCrud() != OperationType.READ) {
-            executor.clearCache(ChangeWorkFlowConfigDTO.class.getSimpleName(), null);
+            // invalidate the modified record only, if its key is known
+            executor.clearCache(ChangeWorkFlowConfigDTO.class.getSimpleName(),
+              response.getKey() == null ? null : new ChangeWorkFlowConfigRef(response.getKey()));
         }
-        return execute(ctx, mapper, resolver, request);
+        return response;
     }
 }
@@ -0,0 +1,16 @@
+-- SQL migration: shared store for the cluster wide idempotency checker (idempotencyStrategy = "cluster")
+
+CREATE TABLE IF NOT EXISTS p28_int_idempotency (
+    tenant_id varchar(16) NOT NULL
+    , message_id uuid NOT NULL
+    , c_timestamp timestamp(0) without time zone NOT NULL DEFAULT current_timestamp
+    , return_code integer
+    , response bytea
+    , CONSTRAINT p28_int_idempotency_pk PRIMARY KEY (tenant_id, message_id)
+);
+
+CREATE INDEX IF NOT EXISTS p28_int_idempotency_i1 ON p28_int_idempotency (c_timestamp);
+
+COMMENT ON TABLE p28_int_idempotency IS 'idempotency entries shared by all nodes, removed after the configured idempotencyCacheExpiry';
+COMMENT ON COLUMN p28_int_idempotency.return_code IS 'return code of the completed request, null while the request is processing';
+COMMENT ON COLUMN p28_int_idempotency.response IS 'the ServiceResponse, in compact bonaparte format, null while the request is processing';
@@ -59,7 +59,7 @@ public class AsyncTools implements IAsyncTools {
     }
 
     @Override
-    public boolean tryToSend(final IAsyncSender sender, final InMemoryMessage nextMsg, final int defaultTimeout) {
+    public boolean tryToSend(final IAsyncSender sender, final InMemoryMessage nextMsg, final int defaultTimeout, final boolean batchedStatusUpdates) {
         // Returns true is the message was sent successfully, else false
         final String channelId = nextMsg.getAsyncChannelId();
         final String tenantId = nextMsg.getTenantId();
@@ -69,7 +69,7 @@ public class AsyncTools implements IAsyncTools {
         final AsyncChannelDTO channel = getCachedAsyncChannelDTO(tenantId, channelId);
         if (!channel.getIsActive()) {
             LOGGER.debug("ASYNC: Discard message due to inactive channel {}", channelId);
-            messageUpdater.updateMessage(nextMsg.getObjectRef(), ExportStatusEnum.RESPONSE_OK, null, null);
+            updateMessage(batchedStatusUpdates, nextMsg.getObjectRef(), ExportStatusEnum.RESPONSE_OK, null, null);
             return true;
         } else {
             // log message if desired (expensive!)
@@ -89,7 +89,7 @@ public class AsyncTools implements IAsyncTools {
                     final ExportStatusEnum newStatus2 = sender.httpCodeToStatus(asyncResponse.getHttpReturnCode(), channel);
                     LOGGER.debug("ASYNC: Received response for channel {} ref {}: HTTP code {} mapped to new status {}",
                         channel.getAsyncChannelId(), messageObjectRef, newStatus2, asyncResponse.getHttpReturnCode());
-                    messageUpdater.updateMessage(messageObjectRef, newStatus2, asyncResponse.getHttpReturnCode(), asyncResponse);
+                    updateMessage(batchedStatusUpdates, messageObjectRef, newStatus2, asyncResponse.getHttpReturnCode(), asyncResponse);
                 };
                 return sender.send(channel, timeout, nextMsg, resultProcessor, whenStarted);
             } catch (SocketException | UnknownHostException | SocketTimeoutException e) {
@@ -97,16 +97,25 @@ public class AsyncTools implements IAsyncTools {
                         "ASYNC: IO Exception in outbound HTTP call for channel {}, message with ref {}: {}. "
                         + "Allow retry of async messages as later processing is likely to succeed.",
                         channel.getAsyncChannelId(), nextMsg.getObjectRef(), ExceptionUtil.causeChain(e));
-                messageUpdater.updateMessage(nextMsg.getObjectRef(), ExportStatusEnum.RESPONSE_TIMEOUT, T9tConstants.HTTP_STATUS_INTERNAL_TIMEOUT, null);
+                updateMessage(batchedStatusUpdates, nextMsg.getObjectRef(), ExportStatusEnum.RESPONSE_TIMEOUT, T9tConstants.HTTP_STATUS_INTERNAL_TIMEOUT, null);
                 return false;   // error, gate to RED
             } catch (final Exception e) {
                 LOGGER.error(
                         "ASYNC: Exception in outbound HTTP call for channel {}, message with ref {}: {}. RESPONSE_ABORT will be set as a final state. "
                         + "No retry will be performed.",
                         channel.getAsyncChannelId(), nextMsg.getObjectRef(), ExceptionUtil.causeChain(e));
-                messageUpdater.updateMessage(nextMsg.getObjectRef(), ExportStatusEnum.RESPONSE_ABORT, T9tConstants.HTTP_STATUS_ILE_OTHER_EXCEPTION, null);
+                updateMessage(batchedStatusUpdates, nextMsg.getObjectRef(), ExportStatusEnum.RESPONSE_ABORT, T9tConstants.HTTP_STATUS_ILE_OTHER_EXCEPTION, null);
                 return false;   // error, gate to RED
             }
         }
     }
+
+    private void updateMessage(final boolean batched, final Long objectRef, final ExportStatusEnum newStatus, final Integer httpCode,
+      final AsyncHttpResponse resp) {
+        if (batched) {
+            messageUpdater.updateMessageAsync(objectRef, newStatus, httpCode, resp);
+        } else {
+            messageUpdater.updateMessage(objectRef, newStatus, httpCode, resp);
+        }
+    }
 }
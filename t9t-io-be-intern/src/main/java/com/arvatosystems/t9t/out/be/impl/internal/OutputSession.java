@@ -21,9 +21,11 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import jakarta.annotation.Nonnull;
@@ -45,6 +47,7 @@ import de.jpaw.util.ExceptionUtil;
 
 import com.arvatosystems.t9t.base.FieldMappers;
 import com.arvatosystems.t9t.base.IInputQueuePartitioner;
+import com.arvatosystems.t9t.base.JsonUtil;
 import com.arvatosystems.t9t.base.T9tException;
 import com.arvatosystems.t9t.base.T9tUtil;
 import com.arvatosystems.t9t.base.output.EnumOutputType;
@@ -82,6 +85,12 @@ import com.arvatosystems.t9t.uiprefsv3.request.LeanGridConfigResponse;
 @Dependent
 public class OutputSession implements IOutputSession {
     private static final Logger LOGGER = LoggerFactory.getLogger(OutputSession.class);
+    /** Key in the data sink's z field: if true, records are formatted and written by separate threads. The buffer size is taken from bufferSize. */
+    public static final String Z_KEY_PIPELINED_EXPORT = "pipelinedExport";
+    private static final int DEFAULT_PIPELINE_BUFFER_SIZE = 256 * 1024;
+    private static final int PIPELINE_QUEUE_SIZE = 1024;  // number of records waiting for the formatter
+    private static final Set<CommunicationTargetChannelType> STREAM_CHANNELS = EnumSet.of(CommunicationTargetChannelType.FILE,
+      CommunicationTargetChannelType.S3, CommunicationTargetChannelType.GCS, CommunicationTargetChannelType.AZURE);
 
     protected final RequestContext        ctx              = Jdp.getRequired(RequestContext.class);
     protected final IOutPersistenceAccess dpl              = Jdp.getRequired(IOutPersistenceAccess.class);
@@ -111,6 +120,8 @@ public class OutputSession implements IOutputSession {
     protected IInputQueuePartitioner    processingSplitter  = null;  // only set if copyToAsyncChannel != null
     protected MediaData                 lazyReference       = null;
     protected String                    asyncCategory       = "SINK";
+    protected PipelinedOutputResource   pipelinedResource   = null;  // only set for pipelined exports
+    protected PipelinedFormatGenerator  pipelinedGenerator  = null;  // only set for pipelined exports
 
     /**
      * {@inheritDoc}
@@ -220,7 +231,15 @@ public class OutputSession implements IOutputSession {
         }
 
         outputResource = Jdp.getRequired(IOutputResource.class, sinkCfg.getCommTargetChannelType().name());
-
+        if (T9tUtil.isTrue(JsonUtil.getZBoolean(sinkCfg.getZ(), Z_KEY_PIPELINED_EXPORT, Boolean.FALSE))) {
+            if (STREAM_CHANNELS.contains(communicationTargetChannelType)) {
+                pipelinedResource = new PipelinedOutputResource(outputResource, T9tUtil.nvl(sinkCfg.getBufferSize(), DEFAULT_PIPELINE_BUFFER_SIZE));
+                outputResource = pipelinedResource;
+            } else {
+                LOGGER.warn("Pipelined export is not supported for channel {} of data sink {}, writing synchronously",
+                    communicationTargetChannelType, sinkCfg.getDataSinkId());
+            }
+        }
 
         // if everything is okay, log data sink into database
         thisSink.setObjectRef(thisSinkRef);
@@ -258,6 +277,14 @@ public class OutputSession implements IOutputSession {
             openStream();
 
         validateState(State.OPENED);
+        if (pipelinedGenerator != null) {
+            // the caller writes directly, therefore all previously stored records must be in the stream before
+            try {
+                pipelinedGenerator.awaitFormatted();
+            } catch (final IOException e) {
+                throw new T9tException(T9tIOException.IO_EXCEPTION, e.getMessage());
+            }
+        }
         return outputResource.getOutputStream();
     }
 
@@ -368,6 +395,10 @@ public class OutputSession implements IOutputSession {
             thisSink.setNumberOfSourceRecords(sourceRecordCounter);  // do not record the footer records
             thisSink.setNumberOfMappedRecords(mappedRecordCounter);
             thisSink.setProcessingTime((int) ((System.nanoTime() - exportStarted) / 1000_000L));  // compute number of milliseconds
+            if (pipelinedGenerator != null) {
+                thisSink.setFormatTime((int) (pipelinedGenerator.getFormatNanos() / 1000_000L));
+                thisSink.setWriteTime((int) (pipelinedResource.getWriteNanos() / 1000_000L));
+            }
             dpl.storeNewSink(thisSink);
 
             // now make sink information available as lazy reference, if suitable
@@ -482,6 +513,10 @@ public class OutputSession implements IOutputSession {
     protected void openStream() {
         outputResource.open(sinkCfg, params, thisSinkRef, thisSink.getFileOrQueueName(), usedFormat, encoding);
         dataGenerator = createDataGenerator(thisSink.getCommFormatType());
+        if (pipelinedResource != null) {
+            pipelinedGenerator = new PipelinedFormatGenerator(dataGenerator, PIPELINE_QUEUE_SIZE);
+            dataGenerator = pipelinedGenerator;
+        }
 
         currentState = State.OPENED;
 
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.out.be.impl.internal;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jpaw.bonaparte.core.BonaPortable;
+import de.jpaw.bonaparte.pojos.api.media.MediaXType;
+import de.jpaw.util.ExceptionUtil;
+
+import com.arvatosystems.t9t.base.T9tException;
+import com.arvatosystems.t9t.base.output.OutputSessionParameters;
+import com.arvatosystems.t9t.io.DataSinkDTO;
+import com.arvatosystems.t9t.io.T9tIOException;
+import com.arvatosystems.t9t.out.services.FoldableParams;
+import com.arvatosystems.t9t.out.services.ICommunicationFormatGenerator;
+import com.arvatosystems.t9t.out.services.IOutputResource;
+
+/**
+ * Format stage of a pipelined export. Decorates a format generator, which is invoked by a separate thread.
+ * Records are passed through a bounded queue, which blocks the caller if the formatter (or the I/O stage behind it) falls behind.
+ * The records must not be modified by the caller after they have been passed in.
+ * Errors of the formatter are reported by the next call following them, or by close().
+ */
+public class PipelinedFormatGenerator implements ICommunicationFormatGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedFormatGenerator.class);
+    private static final Step END_OF_DATA = () -> { };
+
+    /** A unit of work of the formatter thread. */
+    @FunctionalInterface
+    private interface Step {
+        void run() throws IOException;
+    }
+
+    /** A step which is executed even after an error, because the caller waits for it. */
+    private static final class Barrier implements Step {
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        @Override
+        public void run() {
+            done.countDown();
+        }
+    }
+
+    private final ICommunicationFormatGenerator delegate;
+    private final BlockingQueue<Step> queue;
+    private Thread formatter = null;
+    private volatile Exception formatError = null;
+    private long formatNanos = 0L;  // written by the formatter thread only, read after it has terminated
+
+    public PipelinedFormatGenerator(final ICommunicationFormatGenerator delegate, final int queueSize) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    @Override
+    public void open(final DataSinkDTO sinkCfg, final OutputSessionParameters outputSessionParameters, final MediaXType effectiveType,
+      final FoldableParams fp, final IOutputResource destination, final Charset encoding, final String tenantId) throws IOException {
+        delegate.open(sinkCfg, outputSessionParameters, effectiveType, fp, destination, encoding, tenantId);
+        formatter = new Thread(this::formatLoop, "t9t-ExportFormatter-" + sinkCfg.getDataSinkId());
+        formatter.setDaemon(true);
+        formatter.start();
+    }
+
+    @Override
+    public void generateData(final int recordNo, final int mappedRecordNo, final long recordId, final String partitionKey, final String recordKey,
+      final BonaPortable record) throws IOException {
+        submit(() -> delegate.generateData(recordNo, mappedRecordNo, recordId, partitionKey, recordKey, record));
+    }
+
+    @Override
+    public <T> void storeCustomElement(final String name, final Class<T> valueClass, final Object value) throws IOException {
+        submit(() -> delegate.storeCustomElement(name, valueClass, value));
+    }
+
+    /** Waits until all records passed in so far have been formatted. */
+    public void awaitFormatted() throws IOException {
+        final Barrier barrier = new Barrier();
+        submit(barrier);
+        try {
+            barrier.done.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for export formatter", e);
+        }
+        checkFormatError();
+    }
+
+    /** Formats all pending records, writes the footer of the delegate and stops the formatter thread. */
+    @Override
+    public void close() throws IOException {
+        if (formatter == null) {
+            // open() has failed
+            delegate.close();
+            return;
+        }
+        try {
+            submit(delegate::close);
+        } finally {
+            try {
+                queue.put(END_OF_DATA);
+                formatter.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for export formatter", e);
+            }
+        }
+        checkFormatError();
+    }
+
+    /** Returns the time spent by the formatter thread in the delegate, including time waiting for the I/O stage. Complete after close(). */
+    public long getFormatNanos() {
+        return formatNanos;
+    }
+
+    private void submit(final Step step) throws IOException {
+        checkFormatError();
+        try {
+            queue.put(step);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for export formatter", e);
+        }
+    }
+
+    private void checkFormatError() throws IOException {
+        final Exception e = formatError;
+        if (e != null) {
+            if (e instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e instanceof T9tException t9tException) {
+                throw t9tException;
+            }
+            throw new T9tException(T9tIOException.IO_EXCEPTION, ExceptionUtil.causeChain(e));
+        }
+    }
+
+    private void formatLoop() {
+        for (;;) {
+            final Step step;
+            try {
+                step = queue.take();
+            } catch (final InterruptedException e) {
+                formatError = e;
+                return;
+            }
+            if (step == END_OF_DATA) {
+                return;
+            }
+            if (formatError == null || step instanceof Barrier) {
+                final long start = System.nanoTime();
+                try {
+                    step.run();
+                } catch (final Exception e) {
+                    // keep consuming, in order not to block the producer
+                    LOGGER.error("Export formatter failed: {}", ExceptionUtil.causeChain(e));
+                    formatError = e;
+                }
+                formatNanos += System.nanoTime() - start;
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.out.be.impl.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jpaw.bonaparte.pojos.api.media.MediaTypeDescriptor;
+import de.jpaw.util.ExceptionUtil;
+
+import com.arvatosystems.t9t.base.T9tException;
+import com.arvatosystems.t9t.base.output.OutputSessionParameters;
+import com.arvatosystems.t9t.io.DataSinkDTO;
+import com.arvatosystems.t9t.io.T9tIOException;
+import com.arvatosystems.t9t.out.services.IOutputResource;
+
+/**
+ * I/O stage of a pipelined export. Decorates a stream oriented output resource (file, object storage).
+ * All data is collected in large buffers, which are written by a separate thread, while the next buffer is being filled.
+ * A fixed number of buffers is allocated per export and reused, therefore the producer blocks if the writer falls behind.
+ * Partition and record keys are not passed on, which means this class must not be used for message oriented resources.
+ */
+public class PipelinedOutputResource implements IOutputResource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedOutputResource.class);
+    private static final int NUMBER_OF_BUFFERS = 3;  // one being filled, one being written, one spare to absorb jitter
+    private static final Chunk END_OF_DATA = new Chunk(new byte[0]);
+
+    /** A reusable buffer, with the number of valid bytes. */
+    private static final class Chunk {
+        private final byte[] data;
+        private int length = 0;
+
+        private Chunk(final byte[] data) {
+            this.data = data;
+        }
+    }
+
+    private final IOutputResource delegate;
+    private final int bufferSize;
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(NUMBER_OF_BUFFERS + 1);  // plus end marker
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(NUMBER_OF_BUFFERS);
+    private final OutputStream stream = new ChunkingOutputStream();
+    private Charset encoding;
+    private Chunk current = null;
+    private Thread writer = null;
+    private volatile Exception writeError = null;
+    private volatile long writeNanos = 0L;  // written by the writer thread only
+    private long bytesWritten = 0L;
+    private long producerWaitNanos = 0L;
+
+    public PipelinedOutputResource(final IOutputResource delegate, final int bufferSize) {
+        this.delegate = delegate;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void open(final DataSinkDTO config, final OutputSessionParameters params, final Long sinkRef, final String targetName,
+      final MediaTypeDescriptor mediaType, final Charset xencoding) {
+        delegate.open(config, params, sinkRef, targetName, mediaType, xencoding);
+        this.encoding = xencoding;
+        for (int i = 0; i < NUMBER_OF_BUFFERS; ++i) {
+            free.add(new Chunk(new byte[bufferSize]));
+        }
+        current = free.poll();
+        writer = new Thread(this::writeLoop, "t9t-ExportWriter-" + sinkRef);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public String getEffectiveFilename() {
+        return delegate.getEffectiveFilename();
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return stream;
+    }
+
+    @Override
+    public void write(final String partitionKey, final String recordKey, final byte[] buffer, final int offset, final int len, final boolean isDataRecord) {
+        try {
+            stream.write(buffer, offset, len);
+        } catch (final IOException e) {
+            throw new T9tException(T9tIOException.IO_EXCEPTION, e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(final String partitionKey, final String recordKey, final String data) {
+        if (data != null) {
+            final byte[] bytes = data.getBytes(encoding);
+            write(partitionKey, recordKey, bytes, 0, bytes.length, true);
+        }
+    }
+
+    /** Writes all pending data, then closes the underlying resource. Write errors are reported after the resource has been closed. */
+    @Override
+    public void close() {
+        try {
+            try {
+                try {
+                    if (current.length > 0) {
+                        handOver();
+                    }
+                } finally {
+                    // there is always room for the marker, because the queue can hold all buffers plus one
+                    filled.put(END_OF_DATA);
+                    writer.join();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new T9tException(T9tIOException.IO_EXCEPTION, "Interrupted while waiting for export writer");
+            }
+        } finally {
+            delegate.close();
+        }
+        checkWriteError();
+        LOGGER.debug("Pipelined export wrote {} bytes in {} ms, producer waited {} ms", bytesWritten, writeNanos / 1_000_000L, producerWaitNanos / 1_000_000L);
+    }
+
+    /** Returns the time spent by the writer thread in the underlying resource. Complete after close(). */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /** Returns the time the producer was blocked because all buffers were waiting to be written. */
+    public long getProducerWaitNanos() {
+        return producerWaitNanos;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private void checkWriteError() {
+        final Exception e = writeError;
+        if (e != null) {
+            if (e instanceof T9tException t9tException) {
+                throw t9tException;
+            }
+            throw new T9tException(T9tIOException.IO_EXCEPTION, ExceptionUtil.causeChain(e));
+        }
+    }
+
+    /** Passes the current buffer to the writer and obtains an empty one. */
+    private void handOver() throws InterruptedException {
+        checkWriteError();
+        bytesWritten += current.length;
+        final long start = System.nanoTime();
+        filled.put(current);
+        current = free.take();
+        producerWaitNanos += System.nanoTime() - start;
+        current.length = 0;
+    }
+
+    private void writeLoop() {
+        long nanos = 0L;
+        for (;;) {
+            final Chunk chunk;
+            try {
+                chunk = filled.take();
+            } catch (final InterruptedException e) {
+                writeError = e;
+                return;
+            }
+            if (chunk == END_OF_DATA) {
+                return;
+            }
+            if (writeError == null) {
+                try {
+                    final long start = System.nanoTime();
+                    delegate.write(null, null, chunk.data, 0, chunk.length, true);
+                    nanos += System.nanoTime() - start;
+                    writeNanos = nanos;
+                } catch (final Exception e) {
+                    // keep consuming, in order not to block the producer. The error is reported on its next hand over
+                    LOGGER.error("Export writer failed: {}", ExceptionUtil.causeChain(e));
+                    writeError = e;
+                }
+            }
+            free.add(chunk);
+        }
+    }
+
+    /** The stream used by the format generators. Fills the current buffer. */
+    private final class ChunkingOutputStream extends OutputStream {
+        @Override
+        public void write(final int b) throws IOException {
+            if (current.length == bufferSize) {
+                handOverUninterruptibly();
+            }
+            current.data[current.length++] = (byte) b;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0) {
+                if (current.length == bufferSize) {
+                    handOverUninterruptibly();
+                }
+                final int n = Math.min(remaining, bufferSize - current.length);
+                System.arraycopy(b, offset, current.data, current.length, n);
+                current.length += n;
+                offset += n;
+                remaining -= n;
+            }
+        }
+
+        @Override
+        public void flush() {
+            // buffers are written when full or on close. The underlying resource is flushed by its close()
+        }
+
+        @Override
+        public void close() {
+            // closed together with the resource
+        }
+
+        private void handOverUninterruptibly() throws IOException {
+            try {
+                handOver();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for export writer", e);
+            }
+        }
+    }
+}
@@ -22,11 +22,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,9 +45,11 @@ import de.jpaw.bonaparte.pojos.meta.AlphanumericElementaryDataItem;
 import de.jpaw.dp.Dependent;
 import de.jpaw.dp.Jdp;
 import de.jpaw.util.ApplicationException;
+import de.jpaw.util.ExceptionUtil;
 
 import com.arvatosystems.t9t.base.IInputQueuePartitioner;
 import com.arvatosystems.t9t.base.IStatefulServiceSession;
+import com.arvatosystems.t9t.base.JsonUtil;
 import com.arvatosystems.t9t.base.StringTrimmer;
 import com.arvatosystems.t9t.base.T9tException;
 import com.arvatosystems.t9t.base.api.RequestParameters;
@@ -52,8 +58,12 @@ import com.arvatosystems.t9t.base.auth.ApiKeyAuthentication;
 import com.arvatosystems.t9t.base.crud.CrudSurrogateKeyResponse;
 import com.arvatosystems.t9t.base.entities.FullTrackingWithVersion;
 import com.arvatosystems.t9t.base.output.ExportStatusEnum;
+import com.arvatosystems.t9t.base.request.BatchWithResponsesRequest;
+import com.arvatosystems.t9t.base.request.BatchWithResponsesResponse;
 import com.arvatosystems.t9t.base.request.ErrorRequest;
+import com.arvatosystems.t9t.base.request.PingRequest;
 import com.arvatosystems.t9t.base.types.SessionParameters;
+import com.arvatosystems.t9t.cfg.be.ExecutorServiceFactory;
 import com.arvatosystems.t9t.in.services.IInputDataTransformer;
 import com.arvatosystems.t9t.in.services.IInputFormatConverter;
 import com.arvatosystems.t9t.in.services.IInputSession;
@@ -75,6 +85,13 @@ public class InputSession implements IInputSession {
     private static final DataConverter<String, AlphanumericElementaryDataItem> STRING_TRIMMER = new StringTrimmer();
     private static final int MAX_RESPONSES = 1000; // maximum number of responses which are buffered
     private static final String WORKER_THREAD_NAME_PREFIX = "t9t-InputSessionWorker-";
+    /** Key in the data sink's z field: number of records to process within a single transaction (batching is disabled if less than 2). */
+    public static final String Z_KEY_BATCH_SIZE = "inputProcessingBatchSize";
+    /** Key in the data sink's z field: maximum time in milliseconds to wait for further records before an incomplete batch is sent. */
+    public static final String Z_KEY_BATCH_WINDOW = "inputProcessingBatchWindow";
+    private static final int DEFAULT_BATCH_WINDOW_MS = 200;
+    private static final int QUEUED_BATCHES_PER_WORKER = 4; // the parser is blocked once this number of batches is waiting for a worker
+    private static final RequestParameters END_OF_INPUT = new PingRequest(); // marker, compared by identity only
 
     private final IStatefulServiceSession session = Jdp.getRequired(IStatefulServiceSession.class); // holds the backend connection
     protected final AtomicInteger numSource = new AtomicInteger(); // unmapped records
@@ -96,6 +113,10 @@ public class InputSession implements IInputSession {
     protected Integer inputProcessingParallel;
     protected List<ExecutorService> workerThreadExecutors;
     protected List<Future<ServiceResponse>> pooledProcessingFutures = new ArrayList<>();
+    protected int batchSize = 1;
+    protected long batchWindowInNanos;
+    protected List<BatchingWorker> batchingWorkers;
+    protected final ReentrantLock responseLock = new ReentrantLock(); // protects response processing by batching workers
 
     @SuppressWarnings("unchecked")
     @Override
@@ -177,6 +198,12 @@ public class InputSession implements IInputSession {
                         "Input processing splitter has not been defined for data sink {}" + dataSinkCfg.getDataSinkId());
             }
             inputProcessingSplitter = Jdp.getRequired(IInputQueuePartitioner.class, dataSinkCfg.getInputProcessingSplitter());
+        }
+        batchSize = JsonUtil.getZInteger(dataSinkCfg.getZ(), Z_KEY_BATCH_SIZE, 1);
+        if (batchSize >= 2) {
+            batchWindowInNanos = TimeUnit.MILLISECONDS.toNanos(JsonUtil.getZInteger(dataSinkCfg.getZ(), Z_KEY_BATCH_WINDOW, DEFAULT_BATCH_WINDOW_MS));
+            initBatchingWorkers(isPooledProcessing ? inputProcessingParallel : 1);
+        } else if (isPooledProcessing) {
             initWorkerThreadExecutors();
         }
 
@@ -198,8 +225,9 @@ public class InputSession implements IInputSession {
             process(rp);
         }
 
-        // waiting for pooledProcessingFutures to be processed
+        // waiting for pooledProcessingFutures or batches to be processed
         processAndPurgePooledProcessingFutures();
+        shutdownBatchingWorkers();
         // shutdown and purge the worker threads if any
         shutdownAndPurgeWorkerThreadExecutors();
 
@@ -301,7 +329,11 @@ public class InputSession implements IInputSession {
         }
 
         numProcessed.incrementAndGet();
-        if (isPooledProcessing) {
+        if (batchingWorkers != null) {
+            final int threadNum = isPooledProcessing ? Math.abs(inputProcessingSplitter.determinePartitionKey(rp) % inputProcessingParallel) : 0;
+            batchingWorkers.get(threadNum).submit(rp);
+            return new ServiceResponse();
+        } else if (isPooledProcessing) {
             final int threadNum = Math.abs(inputProcessingSplitter.determinePartitionKey(rp) % inputProcessingParallel);
             final ExecutorService executor = workerThreadExecutors.get(threadNum);
             pooledProcessingFutures.add(executor.submit(() -> {
@@ -415,7 +447,7 @@ public class InputSession implements IInputSession {
         if (workerThreadExecutors != null) {
             for (int i = 0; i < workerThreadExecutors.size(); i++) {
                 final String threadName = WORKER_THREAD_NAME_PREFIX + i;
-                final ExecutorService executor = workerThreadExecutors.get(0);
+                final ExecutorService executor = workerThreadExecutors.get(i);
                 LOGGER.debug("Shutting down thread: {}", threadName);
                 executor.shutdown();
             }
@@ -450,4 +482,132 @@ public class InputSession implements IInputSession {
         }
         pooledProcessingFutures.clear();
     }
+
+    protected void initBatchingWorkers(final int numberOfWorkers) {
+        LOGGER.info("Processing input in batches of up to {} records, using {} worker threads", batchSize, numberOfWorkers);
+        batchingWorkers = new ArrayList<>(numberOfWorkers);
+        for (int i = 0; i < numberOfWorkers; i++) {
+            batchingWorkers.add(new BatchingWorker(WORKER_THREAD_NAME_PREFIX + i));
+        }
+    }
+
+    /** Signals the end of input to all batching workers and waits until they have processed all pending records. */
+    protected void shutdownBatchingWorkers() {
+        if (batchingWorkers != null) {
+            for (final BatchingWorker worker : batchingWorkers) {
+                worker.submit(END_OF_INPUT);
+            }
+            for (final BatchingWorker worker : batchingWorkers) {
+                worker.await();
+            }
+            batchingWorkers = null;
+        }
+    }
+
+    /** Processes a response of a batching worker. The response buffer is shared by all workers. */
+    protected void processServiceResponseOfWorker(final ServiceResponse response) {
+        responseLock.lock();
+        try {
+            processServiceResponse(response);
+        } finally {
+            responseLock.unlock();
+        }
+    }
+
+    /**
+     * Sends the records of a single partition in batches. A batch is sent once it is complete, or once the batch window
+     * has elapsed since its first record has been received. If the batch fails, its records are processed individually,
+     * in order to obtain the individual results and to commit the good records.
+     */
+    protected class BatchingWorker implements Runnable {
+        private final BlockingQueue<RequestParameters> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES_PER_WORKER * batchSize);
+        private final String name;
+        private final ExecutorService executor;
+        private final Future<?> completion;
+
+        protected BatchingWorker(final String name) {
+            this.name = name;
+            this.executor = ExecutorServiceFactory.newBackgroundExecutor(name + "-", 1);
+            this.completion = executor.submit(this);
+        }
+
+        /** Queues a request, blocks the caller if the queue is full. */
+        protected void submit(final RequestParameters rp) {
+            try {
+                queue.put(rp);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new T9tException(T9tException.THREAD_INTERRUPTED, "Waiting for input processing worker " + name);
+            }
+        }
+
+        protected void await() {
+            try {
+                completion.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new T9tException(T9tException.THREAD_INTERRUPTED, "Waiting for completion of input processing worker " + name);
+            } catch (final ExecutionException e) {
+                LOGGER.error("Input processing worker {} terminated abnormally: {}", name, ExceptionUtil.causeChain(e.getCause()));
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        @Override
+        public void run() {
+            final List<RequestParameters> batch = new ArrayList<>(batchSize);
+            try {
+                boolean endOfInput = false;
+                while (!endOfInput) {
+                    final RequestParameters first = queue.take();
+                    if (first == END_OF_INPUT) {
+                        break;
+                    }
+                    batch.add(first);
+                    final long deadline = System.nanoTime() + batchWindowInNanos;
+                    while (batch.size() < batchSize) {
+                        final RequestParameters next = queue.poll(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;  // window elapsed
+                        }
+                        if (next == END_OF_INPUT) {
+                            endOfInput = true;
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    executeBatch(batch);
+                    batch.clear();
+                }
+            } catch (final InterruptedException e) {
+                numError.addAndGet(batch.size() + queue.size());
+                LOGGER.error("Input processing worker {} interrupted, {} records not processed", name, batch.size() + queue.size());
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        protected void executeBatch(final List<RequestParameters> batch) {
+            try {
+                if (batch.size() > 1) {
+                    final BatchWithResponsesRequest batchRequest = new BatchWithResponsesRequest();
+                    batchRequest.setCommands(new ArrayList<>(batch));
+                    final ServiceResponse response = session.execute(batchRequest);
+                    if (response instanceof BatchWithResponsesResponse batchResponse) {
+                        for (final ServiceResponse singleResponse : batchResponse.getResponses()) {
+                            processServiceResponseOfWorker(singleResponse);
+                        }
+                        return;
+                    }
+                    LOGGER.debug("Batch of {} records failed with return code {}, processing them individually", batch.size(), response.getReturnCode());
+                }
+                for (final RequestParameters rp : batch) {
+                    processServiceResponseOfWorker(session.execute(rp));
+                }
+            } catch (final Exception e) {
+                numError.addAndGet(batch.size());
+                LOGGER.error("Input processing worker {} failed to process a batch of {} records", name, batch.size(), e);
+            }
+        }
+    }
 }
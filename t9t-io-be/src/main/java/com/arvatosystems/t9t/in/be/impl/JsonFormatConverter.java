@@ -43,7 +43,7 @@ import com.arvatosystems.t9t.io.T9tIOException;
 /**
  * JSON format converter which allows import of arbitrary data in JSON format, using the Bonaparte encoder.
  * This implementation is intended for smaller input, because it converts the whole file in memory (JAXB like),
- * instead of the preferred Stax-like approach (one object at a time).
+ * instead of the preferred Stax-like approach (one object at a time), which is provided by {@link JsonStreamingFormatConverter}.
  * It is up to the configured IInputDataTransformer to create a valid request. (e.g. an file upload request.)
  */
 @Dependent
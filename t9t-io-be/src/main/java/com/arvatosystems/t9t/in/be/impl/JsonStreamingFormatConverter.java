@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.in.be.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jpaw.dp.Dependent;
+import de.jpaw.dp.Named;
+import de.jpaw.util.ExceptionUtil;
+
+import com.arvatosystems.t9t.base.T9tException;
+import com.arvatosystems.t9t.io.T9tIOException;
+
+/**
+ * JSON format converter with the same mapping as {@link JsonFormatConverter}, but reading the input incrementally (Stax-like),
+ * one object at a time. Each record is passed to the input session as soon as its closing brace has been read,
+ * therefore the memory consumption does not depend on the size of the file.
+ *
+ * Accepted input is any sequence of top level values, each of them either an object or an array of objects.
+ * This covers a single JSON array, a single object, and newline delimited JSON (NDJSON / JSON lines).
+ */
+@Dependent
+@Named("JSON-STREAM")
+@Named("NDJSON")
+public class JsonStreamingFormatConverter extends JsonFormatConverter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JsonStreamingFormatConverter.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();  // thread safe, reused for all parsers
+
+    @Override
+    public void processBuffered(final InputStream is) {
+        int numRecords = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(new InputStreamReader(is, importCharset))) {
+            for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                if (token == JsonToken.START_ARRAY) {
+                    for (token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                        processRecord(parser, token);
+                        ++numRecords;
+                    }
+                } else {
+                    processRecord(parser, token);
+                    ++numRecords;
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.error("JSON input error after {} records for data sink {}: {}", numRecords, importDataSinkDTO.getDataSinkId(),
+              ExceptionUtil.causeChain(e));
+            throw new T9tException(T9tIOException.IO_EXCEPTION, e.getMessage());
+        }
+        LOGGER.debug("Streamed {} JSON records for data sink {}", numRecords, importDataSinkDTO.getDataSinkId());
+    }
+
+    /** Reads a single record, which must be an object or null, and passes it to the input session. */
+    protected void processRecord(final JsonParser parser, final JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            processBonaPortable(null);
+        } else if (token == JsonToken.START_OBJECT) {
+            processBonaPortable(readObject(parser));
+        } else {
+            LOGGER.error("Expected a JSON object, but got {} at {}", token, parser.currentLocation());
+            throw new T9tException(T9tIOException.FORMAT_MISMATCH, "Expected a JSON object, got " + token);
+        }
+    }
+
+    /** Reads an object, the parser is positioned at its START_OBJECT token. The representation is the same as the one of the jpaw JsonParser. */
+    protected Map<String, Object> readObject(final JsonParser parser) throws IOException {
+        final Map<String, Object> map = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.currentName();
+            map.put(fieldName, readValue(parser, parser.nextToken()));
+        }
+        return map;
+    }
+
+    protected Object readValue(final JsonParser parser, final JsonToken token) throws IOException {
+        switch (token) {
+        case START_OBJECT:
+            return readObject(parser);
+        case START_ARRAY:
+            final List<Object> list = new ArrayList<>();
+            for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY; element = parser.nextToken()) {
+                list.add(readValue(parser, element));
+            }
+            return list;
+        case VALUE_STRING:
+            return parser.getText();
+        case VALUE_NUMBER_INT:
+            return parser.getNumberValue();    // Integer, Long or BigInteger, depending on the magnitude
+        case VALUE_NUMBER_FLOAT:
+            return parser.getDecimalValue();   // no loss of precision
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_NULL:
+            return null;
+        default:
+            throw new T9tException(T9tIOException.FORMAT_MISMATCH, "Unexpected JSON token " + token);
+        }
+    }
+}
@@ -18,6 +18,10 @@ package com.arvatosystems.t9t.out.jpa.impl;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
@@ -46,37 +50,31 @@ import com.arvatosystems.t9t.out.services.IAsyncMessageUpdater;
  * Class which updates a single message entity.
  * This is a special implementation because no request context is available.
  * It is comparable to MsglogPersistenceAccess in t9t-msglog-jpa.
+ * Asynchronous updates are queued and written in batches by a separate thread, using a single transaction per batch.
+ * The writer is not a daemon thread, in order not to lose queued updates when the JVM exits. It terminates when idle (or interrupted),
+ * and is started again by the next update.
  */
 @Singleton
 public class AsyncMessageUpdater implements IAsyncMessageUpdater {
     private static final Logger LOGGER = LoggerFactory.getLogger(AsyncMessageUpdater.class);
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long WRITER_IDLE_TIMEOUT_MS = 1000L;
+
+    /** A queued status update. */
+    private record StatusUpdate(Long objectRef, ExportStatusEnum newStatus, Integer httpCode, AsyncHttpResponse resp) {
+    }
+
     protected final EntityManagerFactory emf = Jdp.getRequired(EntityManagerFactory.class);
+    private final BlockingQueue<StatusUpdate> pendingUpdates = new LinkedBlockingQueue<>();
+    private final Object writeLock = new Object();  // serializes batches of the writer thread and flushes
+    private final AtomicBoolean writerStarted = new AtomicBoolean();
 
     @Override
     public void updateMessage(final Long objectRef, final ExportStatusEnum newStatus, final Integer httpCode,
       final AsyncHttpResponse resp) {
         try (EntityManager em = emf.createEntityManager()) {
             em.getTransaction().begin();
-            final AsyncMessageEntity m = em.find(AsyncMessageEntity.class, objectRef);
-            LOGGER.debug("Updating asyncMessageRef {} to new Status {} (http {}): {}", objectRef, newStatus, httpCode, m == null ? "NOT FOUND" : "OK");
-            if (m != null) {
-                // message was persisted initially, or had an error before
-                m.setAttempts(m.getAttempts() + 1);
-                m.setLastAttempt(Instant.now());
-                m.setStatus(newStatus);
-                m.setHttpResponseCode(httpCode);
-                updateByResponse(m, resp);
-            } else if (newStatus != ExportStatusEnum.RESPONSE_OK) {
-                // initially not persisted, but we encountered an error, and should do so now
-                // issue is that we do not have any valid tenant reference, nor request context to populate the creation tracking fields
-                final AsyncMessageEntity msg = new AsyncMessageEntity();
-                msg.setAttempts(1);
-                msg.setLastAttempt(Instant.now());
-                msg.setStatus(newStatus);
-                msg.setHttpResponseCode(httpCode);
-                updateByResponse(msg, resp);
-                // not creating due to missing context
-            }
+            applyUpdate(em, objectRef, newStatus, httpCode, resp);
             em.getTransaction().commit();
             em.clear();
         } catch (final Throwable e) {
@@ -84,6 +82,99 @@ public class AsyncMessageUpdater implements IAsyncMessageUpdater {
         }
     }
 
+    @Override
+    public void updateMessageAsync(final Long objectRef, final ExportStatusEnum newStatus, final Integer httpCode, final AsyncHttpResponse resp) {
+        pendingUpdates.add(new StatusUpdate(objectRef, newStatus, httpCode, resp));
+        if (writerStarted.compareAndSet(false, true)) {
+            new Thread(this::writeUpdates, "t9t-AsyncMsgUpdater").start();
+        }
+    }
+
+    @Override
+    public void flushPendingUpdates() {
+        final List<StatusUpdate> batch = new ArrayList<>();
+        synchronized (writeLock) {
+            // any batch taken by the writer thread before has been written when we obtain the lock
+            pendingUpdates.drainTo(batch);
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+        }
+    }
+
+    /** Main loop of the writer thread: writes queued updates in batches. */
+    protected void writeUpdates() {
+        final List<StatusUpdate> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        for (;;) {
+            try {
+                final StatusUpdate first = pendingUpdates.poll(WRITER_IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // idle: terminate, unless an update arrived meanwhile and no other writer has been started for it
+                    writerStarted.set(false);
+                    if (pendingUpdates.isEmpty() || !writerStarted.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                synchronized (writeLock) {
+                    batch.add(first);
+                    pendingUpdates.drainTo(batch, MAX_BATCH_SIZE - 1);
+                    writeBatch(batch);
+                }
+                batch.clear();
+            } catch (final InterruptedException e) {
+                // the pending updates are written by the next writer, or by flushPendingUpdates()
+                LOGGER.warn("Async message updater interrupted with {} pending updates - terminating", pendingUpdates.size());
+                writerStarted.set(false);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /** Writes a batch of updates in a single transaction. If that fails, the updates are written individually. */
+    protected void writeBatch(final List<StatusUpdate> batch) {
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            for (final StatusUpdate u : batch) {
+                applyUpdate(em, u.objectRef(), u.newStatus(), u.httpCode(), u.resp());
+            }
+            em.getTransaction().commit();
+            em.clear();
+            LOGGER.trace("Wrote {} async message updates", batch.size());
+            return;
+        } catch (final Throwable e) {
+            LOGGER.error("Msg update problem for batch of {} updates, retrying individually: {}", batch.size(), ExceptionUtil.causeChain(e));
+        }
+        for (final StatusUpdate u : batch) {
+            updateMessage(u.objectRef(), u.newStatus(), u.httpCode(), u.resp());
+        }
+    }
+
+    protected void applyUpdate(final EntityManager em, final Long objectRef, final ExportStatusEnum newStatus, final Integer httpCode,
+      final AsyncHttpResponse resp) {
+        final AsyncMessageEntity m = em.find(AsyncMessageEntity.class, objectRef);
+        LOGGER.debug("Updating asyncMessageRef {} to new Status {} (http {}): {}", objectRef, newStatus, httpCode, m == null ? "NOT FOUND" : "OK");
+        if (m != null) {
+            // message was persisted initially, or had an error before
+            m.setAttempts(m.getAttempts() + 1);
+            m.setLastAttempt(Instant.now());
+            m.setStatus(newStatus);
+            m.setHttpResponseCode(httpCode);
+            updateByResponse(m, resp);
+        } else if (newStatus != ExportStatusEnum.RESPONSE_OK) {
+            // initially not persisted, but we encountered an error, and should do so now
+            // issue is that we do not have any valid tenant reference, nor request context to populate the creation tracking fields
+            final AsyncMessageEntity msg = new AsyncMessageEntity();
+            msg.setAttempts(1);
+            msg.setLastAttempt(Instant.now());
+            msg.setStatus(newStatus);
+            msg.setHttpResponseCode(httpCode);
+            updateByResponse(msg, resp);
+            // not creating due to missing context
+        }
+    }
+
     protected void updateByResponse(final AsyncMessageEntity m, final AsyncHttpResponse resp) {
         if (resp != null) {
             m.setReturnCode(resp.getClientReturnCode());
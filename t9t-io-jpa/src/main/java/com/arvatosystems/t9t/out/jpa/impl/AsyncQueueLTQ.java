@@ -16,14 +16,20 @@
 package com.arvatosystems.t9t.out.jpa.impl;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import jakarta.persistence.EntityManager;
@@ -39,6 +45,7 @@ import de.jpaw.dp.Named;
 import de.jpaw.dp.Singleton;
 import de.jpaw.util.ExceptionUtil;
 
+import com.arvatosystems.t9t.base.JsonUtil;
 import com.arvatosystems.t9t.base.api.RequestParameters;
 import com.arvatosystems.t9t.base.api.ServiceResponse;
 import com.arvatosystems.t9t.base.services.RequestContext;
@@ -49,6 +56,7 @@ import com.arvatosystems.t9t.io.AsyncQueueDTO;
 import com.arvatosystems.t9t.io.InMemoryMessage;
 import com.arvatosystems.t9t.io.jpa.entities.AsyncMessageEntity;
 import com.arvatosystems.t9t.io.request.QueueStatus;
+import com.arvatosystems.t9t.metrics.IMetricsProvider;
 import com.arvatosystems.t9t.out.services.IAsyncMessageUpdater;
 import com.arvatosystems.t9t.out.services.IAsyncQueue;
 import com.arvatosystems.t9t.out.services.IAsyncSender;
@@ -58,6 +66,11 @@ import com.arvatosystems.t9t.out.services.IAsyncTools;
 @Named("LTQ")
 public class AsyncQueueLTQ<R extends BonaPortable> implements IAsyncQueue {
     private static final Logger LOGGER = LoggerFactory.getLogger(AsyncQueueLTQ.class);
+    /** Key in the queue's z field: number of messages (of different partitions) which are sent in parallel. */
+    public static final String Z_KEY_SENDER_THREADS = "senderThreads";
+
+    /** Metrics per queue ID, registered once, because meters cannot be removed from the metrics provider. */
+    private static final ConcurrentMap<String, AsyncQueueMetrics> METRICS_BY_QUEUE_ID = new ConcurrentHashMap<>();
 
     private final IAsyncMessageUpdater messageUpdater = Jdp.getRequired(IAsyncMessageUpdater.class);
     private final ConcurrentMap<Long, QueueData> queueData;
@@ -122,9 +135,14 @@ public class AsyncQueueLTQ<R extends BonaPortable> implements IAsyncQueue {
         private final AsyncQueueDTO myQueueCfg;
         private final IAsyncSender sender;
         private final IAsyncTools asyncTools = Jdp.getRequired(IAsyncTools.class);
+        private final IAsyncMessageUpdater messageUpdater = Jdp.getRequired(IAsyncMessageUpdater.class);
         private final EntityManagerFactory emf = Jdp.getRequired(EntityManagerFactory.class);
         private final AsyncTransmitterConfiguration globalServerConfig = ConfigProvider.getConfiguration().getAsyncMsgConfiguration();
         private final AtomicReference<Instant> lastMessageSent = new AtomicReference<>();
+        private final int parallelism;
+        private final IAsyncSender[] laneSenders;    // one sender per parallel send, because senders are not thread safe
+        private final ExecutorService laneExecutor;  // null if messages are sent sequentially
+        private final AsyncQueueMetrics metrics;
 
         private WriterThread(final AsyncQueueDTO myCfg) {
             myQueueCfg = myCfg;
@@ -145,8 +163,106 @@ public class AsyncQueueLTQ<R extends BonaPortable> implements IAsyncQueue {
             if (myCfg.getWaitAfterDbErrors() != null)
                 serverConfig.setWaitAfterDbErrors(myCfg.getWaitAfterDbErrors());
 
-            sender = Jdp.getRequired(IAsyncSender.class, myCfg.getSenderQualifier() == null ? "POST" : myCfg.getSenderQualifier());
+            final String senderQualifier = myCfg.getSenderQualifier() == null ? "POST" : myCfg.getSenderQualifier();
+            sender = Jdp.getRequired(IAsyncSender.class, senderQualifier);
             sender.init(myCfg);
+            parallelism = Math.max(1, JsonUtil.getZInteger(myCfg.getZ(), Z_KEY_SENDER_THREADS, 1));
+            laneSenders = new IAsyncSender[parallelism];
+            laneSenders[0] = sender;
+            for (int i = 1; i < parallelism; ++i) {
+                laneSenders[i] = Jdp.getRequired(IAsyncSender.class, senderQualifier);
+                laneSenders[i].init(myCfg);
+            }
+            if (parallelism > 1) {
+                final AtomicInteger laneCounter = new AtomicInteger();
+                laneExecutor = Executors.newFixedThreadPool(parallelism, t -> new Thread(t, threadName + "-" + laneCounter.incrementAndGet()));
+                LOGGER.info("Queue {} sends up to {} messages of different partitions in parallel", myCfg.getAsyncQueueId(), parallelism);
+            } else {
+                laneExecutor = null;
+            }
+            metrics = METRICS_BY_QUEUE_ID.computeIfAbsent(myCfg.getAsyncQueueId(), queueId -> {
+                final AsyncQueueMetrics newMetrics = new AsyncQueueMetrics(queueId);
+                final IMetricsProvider metricsProvider = Jdp.getOptional(IMetricsProvider.class);
+                if (metricsProvider != null) {
+                    metricsProvider.addMeter(newMetrics);
+                }
+                return newMetrics;
+            });
+            metrics.attach(queue, gate);
+        }
+
+        /**
+         * Determines the messages to send next: the head of the queue, plus following messages as long as their partitions differ,
+         * up to the configured parallelism. Messages without partition are sent alone.
+         */
+        private List<InMemoryMessage> nextMessages() {
+            final List<InMemoryMessage> batch = new ArrayList<>(parallelism);
+            final Set<Integer> partitions = new HashSet<>();
+            for (final InMemoryMessage m : queue) {
+                final Integer partition = m.getPartition();
+                if (partition == null) {
+                    if (batch.isEmpty()) {
+                        batch.add(m);
+                    }
+                    break;
+                }
+                if (!partitions.add(partition)) {
+                    break;  // a previous message of this partition must be delivered first
+                }
+                batch.add(m);
+                if (batch.size() >= parallelism) {
+                    break;
+                }
+            }
+            return batch;
+        }
+
+        private boolean sendAndMeasure(final IAsyncSender laneSender, final InMemoryMessage msg) {
+            final long start = System.nanoTime();
+            final boolean ok = asyncTools.tryToSend(laneSender, msg, serverConfig.getTimeoutExternal(), true);  // flushed before reloads and on shutdown
+            metrics.recordSend(System.nanoTime() - start, ok);
+            return ok;
+        }
+
+        /** Sends the messages, in parallel if more than one, and removes the ones sent successfully from the queue. Returns false if any failed. */
+        private boolean sendMessages(final List<InMemoryMessage> batch) throws InterruptedException {
+            if (batch.size() == 1) {
+                if (!sendAndMeasure(sender, batch.get(0))) {
+                    return false;
+                }
+                // eat message, it was sent successfully
+                lastMessageSent.set(Instant.now());
+                if (queue.poll() == null) {
+                    LOGGER.error("ILE: queue element no longer available!");
+                }
+                return true;
+            }
+            final List<Future<Boolean>> results = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); ++i) {
+                final IAsyncSender laneSender = laneSenders[i];
+                final InMemoryMessage msg = batch.get(i);
+                results.add(laneExecutor.submit(() -> sendAndMeasure(laneSender, msg)));
+            }
+            boolean allOk = true;
+            for (int i = 0; i < batch.size(); ++i) {
+                boolean ok;
+                try {
+                    ok = results.get(i).get();
+                } catch (final ExecutionException e) {
+                    LOGGER.error("Exception in Async transmitter thread: {}", ExceptionUtil.causeChain(e.getCause()));
+                    ok = false;
+                }
+                if (ok) {
+                    // messages of other partitions may remain in the queue before this one, therefore remove it explicitly
+                    if (!queue.remove(batch.get(i))) {
+                        LOGGER.error("ILE: queue element no longer available!");
+                    }
+                } else {
+                    allOk = false;
+                }
+            }
+            lastMessageSent.set(Instant.now());
+            return allOk;
         }
 
         /**
@@ -172,19 +288,13 @@ public class AsyncQueueLTQ<R extends BonaPortable> implements IAsyncQueue {
             LOGGER.info("Starting async thread {} for queue {}", threadName, myQueueCfg.getAsyncQueueId());
             while (!shutdownInProgress.get()) {
                 try {
-                    final InMemoryMessage nextMsg = queue.peek();
-                    if (nextMsg != null) {
-                        if (!asyncTools.tryToSend(sender, nextMsg, serverConfig.getTimeoutExternal())) {
+                    final List<InMemoryMessage> nextMsgs = nextMessages();
+                    if (!nextMsgs.isEmpty()) {
+                        if (!sendMessages(nextMsgs)) {
                             // switch to RED and wait
                             if (gate.getAndSet(false))
                                 LOGGER.debug("Flipping gate to RED (transmission error)");
                             sleepShallow(serverConfig.getTimeoutIdleRed());
-                        } else {
-                            // eat message, it was sent successfully
-                            lastMessageSent.set(Instant.now());
-                            if (queue.poll() == null) {
-                                LOGGER.error("ILE: queue element no longer available!");
-                            }
                         }
                     } else if (gate.get()) {
                         // gate is "GREEN", any message would be in memory, if it existed. No need to check the DB
@@ -209,7 +319,13 @@ public class AsyncQueueLTQ<R extends BonaPortable> implements IAsyncQueue {
                 }
             }
             LOGGER.info("Stopping async thread {} for queue {} due to shutdown request: closing sender", threadName, myQueueCfg.getAsyncQueueId());
-            sender.close();
+            if (laneExecutor != null) {
+                laneExecutor.shutdown();
+            }
+            for (final IAsyncSender laneSender : laneSenders) {
+                laneSender.close();
+            }
+            messageUpdater.flushPendingUpdates();
             LOGGER.info("Stopping async thread {} for queue {} due to shutdown request: finished", threadName, myQueueCfg.getAsyncQueueId());
         }
 
@@ -221,6 +337,7 @@ public class AsyncQueueLTQ<R extends BonaPortable> implements IAsyncQueue {
 
             synchronized (lock) {
                 try {
+                    messageUpdater.flushPendingUpdates();  // status updates of messages sent so far must be visible to the query
                     em.getTransaction().begin();
                     final TypedQuery<AsyncMessageEntity> query = em.createQuery(
                             "SELECT m FROM AsyncMessageEntity m WHERE m.status is not null AND m.asyncQueueRef = :queueRef ORDER BY m.objectRef",
@@ -289,6 +406,7 @@ public class AsyncQueueLTQ<R extends BonaPortable> implements IAsyncQueue {
         private void close() {
             LOGGER.info("Shutting down async transmitter {} (in current state {})", threadName, gate.get());
             gate.set(false);
+            metrics.detach(queue);
         }
     }
 
@@ -304,6 +422,7 @@ public class AsyncQueueLTQ<R extends BonaPortable> implements IAsyncQueue {
             m.setAsyncChannelId(channel.getAsyncChannelId());
             m.setObjectRef(objectRef);
             m.setPayload(payload);
+            m.setPartition(partition);
             queue.writerThread.send(ctx, m);
         }
     }
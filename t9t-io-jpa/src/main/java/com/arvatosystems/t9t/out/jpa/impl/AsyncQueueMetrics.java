@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.out.jpa.impl;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link MeterBinder} for exporting the state of a single queue of {@link AsyncQueueLTQ}, tagged by the queue ID.<br>
+ * Sample output:
+ * <pre>
+ * t9t_async_queue_depth{queue="ERP"} 17.0
+ * t9t_async_queue_gate{queue="ERP"} 1.0
+ * t9t_async_queue_send_time_seconds_count{queue="ERP"} 5000.0
+ * t9t_async_queue_send_time_seconds_sum{queue="ERP"} 42.0
+ * t9t_async_queue_send_failures_total{queue="ERP"} 2.0
+ * </pre>
+ * The meters are registered once per queue ID and survive closing and reopening of the queue: the gauges read the state of the queue
+ * which is currently attached, and report NaN while the queue is closed.
+ */
+public class AsyncQueueMetrics implements MeterBinder {
+
+    private static final String PREFIX = "t9t.async.queue";
+    private static final String TAG_QUEUE = "queue";
+
+    private static final String METRIC_DEPTH = PREFIX + ".depth";
+    private static final String METRIC_DEPTH_DESC = "Number of messages in memory waiting to be sent";
+
+    private static final String METRIC_GATE = PREFIX + ".gate";
+    private static final String METRIC_GATE_DESC = "State of the queue: 1 for GREEN (all messages in memory), 0 for RED (messages pending in the database)";
+
+    private static final String METRIC_SEND_TIME = PREFIX + ".send.time";
+    private static final String METRIC_SEND_TIME_DESC = "Time spent per send attempt";
+
+    private static final String METRIC_SEND_FAILURES = PREFIX + ".send.failures";
+    private static final String METRIC_SEND_FAILURES_DESC = "Number of send attempts which failed";
+
+    /** The state of an open queue. */
+    private record QueueState(Collection<?> queue, AtomicBoolean gate) {
+    }
+
+    private final String queueId;
+    private final AtomicReference<QueueState> state = new AtomicReference<>();
+
+    private volatile Timer sendTime;
+    private volatile Counter sendFailures;
+
+    public AsyncQueueMetrics(final String queueId) {
+        this.queueId = queueId;
+    }
+
+    /** Exports the state of a newly opened queue. */
+    public void attach(final Collection<?> queue, final AtomicBoolean gate) {
+        state.set(new QueueState(queue, gate));
+    }
+
+    /** Stops exporting the state of a closed queue, unless a new instance of the queue has been attached meanwhile. */
+    public void detach(final Collection<?> queue) {
+        final QueueState current = state.get();
+        if (current != null && current.queue() == queue) {
+            state.compareAndSet(current, null);
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder(METRIC_DEPTH, state, s -> {
+            final QueueState current = s.get();
+            return current == null ? Double.NaN : current.queue().size();
+        }).description(METRIC_DEPTH_DESC).tag(TAG_QUEUE, queueId).register(registry);
+        Gauge.builder(METRIC_GATE, state, s -> {
+            final QueueState current = s.get();
+            return current == null ? Double.NaN : current.gate().get() ? 1.0 : 0.0;
+        }).description(METRIC_GATE_DESC).tag(TAG_QUEUE, queueId).register(registry);
+        sendTime = Timer.builder(METRIC_SEND_TIME).description(METRIC_SEND_TIME_DESC).tag(TAG_QUEUE, queueId).publishPercentileHistogram().register(registry);
+        sendFailures = Counter.builder(METRIC_SEND_FAILURES).description(METRIC_SEND_FAILURES_DESC).tag(TAG_QUEUE, queueId).register(registry);
+    }
+
+    /** Records a send attempt. Does nothing as long as no registry has been bound. */
+    public void recordSend(final long durationInNanos, final boolean success) {
+        final Timer currentSendTime = sendTime;
+        if (currentSendTime != null) {
+            currentSendTime.record(durationInNanos, TimeUnit.NANOSECONDS);
+        }
+        if (!success) {
+            final Counter currentSendFailures = sendFailures;
+            if (currentSendFailures != null) {
+                currentSendFailures.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+-- Per stage timings of pipelined exports
+
+DROP VIEW IF EXISTS p42_dat_sinks_nt;
+DROP VIEW IF EXISTS p42_dat_sinks_v;
+
+ALTER TABLE p42_dat_sinks
+    ADD COLUMN IF NOT EXISTS format_time integer
+    , ADD COLUMN IF NOT EXISTS write_time integer;
+
+COMMENT ON COLUMN p42_dat_sinks.format_time IS 'pipelined exports: milliseconds spent formatting records';
+COMMENT ON COLUMN p42_dat_sinks.write_time IS 'pipelined exports: milliseconds spent writing to the output resource';
+
+CREATE OR REPLACE VIEW p42_dat_sinks_nt AS SELECT
+    -- columns of java class InternalTenantId
+    t0.tenant_id AS tenant_id
+    -- columns of java class AbstractRef
+    -- columns of java class Ref
+    , t0.object_ref AS object_ref
+    -- columns of java class SinkRef
+    -- columns of java class SinkDTO
+    , t0.comm_target_channel_type AS comm_target_channel_type
+    , t0.comm_format_type AS comm_format_type
+    , t0.file_or_queue_name AS file_or_queue_name
+    , t0.number_of_source_records AS number_of_source_records
+    , t0.number_of_mapped_records AS number_of_mapped_records
+    , t0.number_of_error_records AS number_of_error_records
+    , t0.planned_run_date AS planned_run_date
+    , t0.processing_time AS processing_time
+    , t0.format_time AS format_time
+    , t0.write_time AS write_time
+    , t0.originator_ref AS originator_ref
+    , t0.configuration_ref AS configuration_ref
+    , t0.data_sink_ref AS data_sink_ref
+    , t0.file_size AS file_size
+    , t0.last_download_timestamp AS last_download_timestamp
+    , t0.required_permission AS required_permission
+    , t0.generic_refs1 AS generic_refs1
+    , t0.generic_refs2 AS generic_refs2
+    , t0.is_input AS is_input
+    , t0.category AS category
+    , t0.camel_transfer_status AS camel_transfer_status
+    , t0.processed AS processed
+    , t0.generic_id1 AS generic_id1
+    , t0.generic_id2 AS generic_id2
+FROM p42_dat_sinks t0;
+
+CREATE OR REPLACE VIEW p42_dat_sinks_v AS SELECT
+    -- columns of java class TrackingBase
+    -- columns of java class WriteTracking
+    t0.c_app_user_id AS c_app_user_id
+    , t0.c_timestamp AS c_timestamp
+    , t0.c_process_ref AS c_process_ref
+    -- columns of java class FullTracking
+    , t0.m_app_user_id AS m_app_user_id
+    , t0.m_timestamp AS m_timestamp
+    , t0.m_process_ref AS m_process_ref
+    -- columns of java class FullTrackingWithVersion
+    , t0.version AS version
+    -- columns of java class InternalTenantId
+    , t0.tenant_id AS tenant_id
+    -- columns of java class AbstractRef
+    -- columns of java class Ref
+    , t0.object_ref AS object_ref
+    -- columns of java class SinkRef
+    -- columns of java class SinkDTO
+    , t0.comm_target_channel_type AS comm_target_channel_type
+    , t0.comm_format_type AS comm_format_type
+    , t0.file_or_queue_name AS file_or_queue_name
+    , t0.number_of_source_records AS number_of_source_records
+    , t0.number_of_mapped_records AS number_of_mapped_records
+    , t0.number_of_error_records AS number_of_error_records
+    , t0.planned_run_date AS planned_run_date
+    , t0.processing_time AS processing_time
+    , t0.format_time AS format_time
+    , t0.write_time AS write_time
+    , t0.originator_ref AS originator_ref
+    , t0.configuration_ref AS configuration_ref
+    , t0.data_sink_ref AS data_sink_ref
+    , t0.file_size AS file_size
+    , t0.last_download_timestamp AS last_download_timestamp
+    , t0.required_permission AS required_permission
+    , t0.generic_refs1 AS generic_refs1
+    , t0.generic_refs2 AS generic_refs2
+    , t0.is_input AS is_input
+    , t0.category AS category
+    , t0.camel_transfer_status AS camel_transfer_status
+    , t0.processed AS processed
+    , t0.generic_id1 AS generic_id1
+    , t0.generic_id2 AS generic_id2
+FROM p42_dat_sinks t0;
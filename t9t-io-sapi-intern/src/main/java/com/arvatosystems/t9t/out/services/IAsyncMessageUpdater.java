@@ -40,6 +40,18 @@ public interface IAsyncMessageUpdater {
      */
     void updateMessage(@Nonnull Long objectRef, @Nonnull ExportStatusEnum newStatus, @Nullable Integer httpCode, @Nullable AsyncHttpResponse resp);
 
+    /**
+     * Queues an update of a message entry, to be written together with other updates. Parameters are as for updateMessage.
+     * The default implementation writes the update immediately.
+     */
+    default void updateMessageAsync(@Nonnull final Long objectRef, @Nonnull final ExportStatusEnum newStatus, @Nullable final Integer httpCode,
+      @Nullable final AsyncHttpResponse resp) {
+        updateMessage(objectRef, newStatus, httpCode, resp);
+    }
+
+    /** Writes all updates queued so far. To be called before message states are read from the database. */
+    default void flushPendingUpdates() { }
+
     /** Reads all active queues (all tenants) from the database. */
     @Nonnull
     List<AsyncQueueDTO> getActiveQueues();
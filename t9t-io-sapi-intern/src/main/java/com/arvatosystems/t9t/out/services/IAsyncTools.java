@@ -27,5 +27,14 @@ public interface IAsyncTools {
     AsyncChannelDTO getCachedAsyncChannelDTO(String tenantId, String asyncChanneId);
 
     /** Sends the message via async sender, and updates the database status accordingly. */
-    boolean tryToSend(IAsyncSender sender, InMemoryMessage m, int timeout);
+    default boolean tryToSend(IAsyncSender sender, InMemoryMessage m, int timeout) {
+        return tryToSend(sender, m, timeout, false);
+    }
+
+    /**
+     * Sends the message via async sender, and updates the database status accordingly.
+     * With batchedStatusUpdates, the status is written asynchronously. Queues using this must call
+     * IAsyncMessageUpdater.flushPendingUpdates() before they read message states, and on shutdown.
+     */
+    boolean tryToSend(IAsyncSender sender, InMemoryMessage m, int timeout, boolean batchedStatusUpdates);
 }
@@ -31,10 +31,13 @@ import org.slf4j.LoggerFactory;
 
 import de.jpaw.dp.Jdp;
 
+import com.arvatosystems.t9t.base.IRemoteConnection;
 import com.arvatosystems.t9t.base.MessagingUtil;
+import com.arvatosystems.t9t.client.connections.RemoteConnection;
 import com.arvatosystems.t9t.jdp.Init;
 import com.arvatosystems.t9t.jetty.ISwaggerInit;
 import com.arvatosystems.t9t.jetty.rest.endpoints.StaticResourcesResource;
+import com.arvatosystems.t9t.jetty.statistics.T9tMeterBinderCollector;
 import com.arvatosystems.t9t.rest.converters.JakartarsParamConverterProvider;
 import com.arvatosystems.t9t.rest.exception.mapper.GeneralExceptionMapper;
 import com.arvatosystems.t9t.rest.exception.mapper.ReaderExceptionMapper;
@@ -59,6 +62,11 @@ public class ApplicationConfig extends Application {
         Init.initializeT9t();
         LOGGER.info("t9t servlet context initialization COMPLETE");
 
+        // export the metrics of the backend connection pool via the metrics servlet
+        if (Jdp.getRequired(IRemoteConnection.class) instanceof RemoteConnection remoteConnection) {
+            new T9tMeterBinderCollector(remoteConnection.getMetrics()).register();
+        }
+
         // get remote connection config BEFORE we call a connection
 //        Jdp.bindInstanceTo(new SystemConfigurationProvider(), IRemoteDefaultUrlRetriever.class);
 
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.jetty.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.prometheus.client.Collector;
+
+/**
+ * Exports the gauges, counters and timers of a micrometer {@link MeterBinder} via the prometheus simpleclient registry,
+ * which is the one served by the metrics servlet of the gateway.
+ * Tags are not exported.
+ */
+public class T9tMeterBinderCollector extends Collector {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    public T9tMeterBinderCollector(final MeterBinder binder) {
+        binder.bindTo(registry);
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        final List<MetricFamilySamples> samples = new ArrayList<>();
+        for (final Meter meter : registry.getMeters()) {
+            final String name = sanitizeMetricName(meter.getId().getName());
+            final String help = meter.getId().getDescription() == null ? name : meter.getId().getDescription();
+            if (meter instanceof Gauge gauge) {
+                samples.add(new MetricFamilySamples(name, Type.GAUGE, help, Collections.singletonList(sample(name, gauge.value()))));
+            } else if (meter instanceof Counter counter) {
+                samples.add(new MetricFamilySamples(name, Type.COUNTER, help, Collections.singletonList(sample(name + "_total", counter.count()))));
+            } else if (meter instanceof Timer timer) {
+                final String timerName = name + "_seconds";
+                samples.add(new MetricFamilySamples(timerName, Type.SUMMARY, help, Arrays.asList(
+                    sample(timerName + "_count", timer.count()),
+                    sample(timerName + "_sum", timer.totalTime(TimeUnit.SECONDS)))));
+                samples.add(new MetricFamilySamples(timerName + "_max", Type.GAUGE, help,
+                    Collections.singletonList(sample(timerName + "_max", timer.max(TimeUnit.SECONDS)))));
+            }
+        }
+        return samples;
+    }
+
+    private static MetricFamilySamples.Sample sample(final String name, final double value) {
+        return new MetricFamilySamples.Sample(name, Collections.emptyList(), Collections.emptyList(), value);
+    }
+}
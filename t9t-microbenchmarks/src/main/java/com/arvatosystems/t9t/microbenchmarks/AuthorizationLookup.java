@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.jpaw.bonaparte.pojos.api.auth.JwtInfo;
+import de.jpaw.bonaparte.pojos.api.auth.Permissionset;
+import de.jpaw.bonaparte.pojos.api.auth.UserLogLevelType;
+import de.jpaw.dp.Jdp;
+
+import com.arvatosystems.t9t.auth.be.impl.Authorization;
+import com.arvatosystems.t9t.auth.services.IAuthPersistenceAccess;
+import com.arvatosystems.t9t.base.auth.PermissionType;
+
+// java -jar target/t9t-microbenchmarks.jar -i 3 -f 3 -wf 1 -wi 3 ".*AuthorizationLookup.*"
+// Measures Authorization.getPermissions, which runs for every backend request, for the common kinds of JWTs:
+// permissions from the (in memory) database cached per session, without a session (index built per call),
+// and a JWT restricted to a list of resources.
+
+@State(value = Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class AuthorizationLookup {
+    private static final AtomicLong SESSION_REF = new AtomicLong(1_000_000L);  // the permission cache is static, avoid hits of prior parameter sets
+
+    // class Inputs prevents the constants from being propagated too early
+    @State(Scope.Benchmark)
+    public static class Inputs {
+        @Param({ "20", "200", "2000" })
+        private int numberOfEntries;
+
+        private Authorization authorization;
+        private JwtInfo sessionJwt;
+        private JwtInfo sessionlessJwt;
+        private JwtInfo resourceListJwt;
+        private String[] resources;
+        private int counter = 0;
+
+        @Setup
+        public void setup() {
+            Jdp.reset();
+            Jdp.bindInstanceTo(InMemoryStubs.authPersistence(InMemoryStubs.permissions(numberOfEntries)), IAuthPersistenceAccess.class);
+            authorization = new Authorization();
+            sessionJwt = InMemoryStubs.jwtInfo(SESSION_REF.incrementAndGet(), UserLogLevelType.MESSAGE_ENTRY);
+
+            final JwtInfo noSession = sessionJwt.ret$MutableClone(true, true);
+            noSession.setSessionRef(null);
+            noSession.freeze();
+            sessionlessJwt = noSession;
+
+            final JwtInfo resourceList = sessionJwt.ret$MutableClone(true, true);
+            resourceList.setResource("B.t9t.auth.,B.t9t.base.,B.t9t.io.,B.t9t.solr.");
+            resourceList.setResourceIsWildcard(Boolean.TRUE);
+            resourceList.setPermissionsMin(new Permissionset(0x0f));
+            resourceList.freeze();
+            resourceListJwt = resourceList;
+
+            resources = LookupFixture.resources("", numberOfEntries);
+        }
+
+        public String nextResource() {
+            counter = LookupFixture.next(counter);
+            return resources[counter];
+        }
+    }
+
+    @Benchmark
+    public void sessionCached(final Blackhole bh, final Inputs input) {
+        bh.consume(input.authorization.getPermissions(input.sessionJwt, PermissionType.BACKEND, input.nextResource()));
+    }
+
+    @Benchmark
+    public void withoutSession(final Blackhole bh, final Inputs input) {
+        bh.consume(input.authorization.getPermissions(input.sessionlessJwt, PermissionType.BACKEND, input.nextResource()));
+    }
+
+    @Benchmark
+    public void jwtResourceList(final Blackhole bh, final Inputs input) {
+        bh.consume(input.authorization.getPermissions(input.resourceListJwt, PermissionType.BACKEND, input.nextResource()));
+    }
+}
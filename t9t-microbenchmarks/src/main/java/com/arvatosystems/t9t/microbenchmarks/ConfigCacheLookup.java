@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.jpaw.bonaparte.jpa.BonaPersistableKey;
+import de.jpaw.bonaparte.jpa.BonaPersistableTracking;
+import de.jpaw.bonaparte.pojos.apiw.Ref;
+import de.jpaw.dp.Jdp;
+
+import com.arvatosystems.t9t.base.T9tConstants;
+import com.arvatosystems.t9t.base.entities.FullTrackingWithVersion;
+import com.arvatosystems.t9t.base.jpa.impl.AbstractConfigCache;
+
+// java -jar target/t9t-microbenchmarks.jar -i 3 -f 3 -wf 1 -wi 3 ".*ConfigCacheLookup.*"
+// Measures lookups of the AbstractConfigCache, as done by the config caches of the modules: tenant specific hits,
+// and misses which fall back to the global tenant. The data is loaded from memory instead of the database.
+
+@State(value = Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class ConfigCacheLookup {
+    private static final String TENANT_ID = "ACME";
+    private static final int TENANT_SPECIFIC_EVERY = 4;  // every 4th record has a tenant specific entry
+
+    /** Config cache with synthetic data, without a resolver. */
+    private static final class InMemoryConfigCache<E extends BonaPersistableKey<Long> & BonaPersistableTracking<FullTrackingWithVersion>>
+      extends AbstractConfigCache<Ref, FullTrackingWithVersion, E> {
+        private final int numberOfRecords;
+
+        private InMemoryConfigCache(final int numberOfRecords) {
+            super(null, Ref.class, true);
+            this.numberOfRecords = numberOfRecords;
+        }
+
+        @Override
+        protected Map<Ref, Ref> readWholeTenant(final String tenantId) {
+            final boolean isGlobal = T9tConstants.GLOBAL_TENANT_ID.equals(tenantId);
+            final ConcurrentMap<Ref, Ref> resultMap = new ConcurrentHashMap<>(numberOfRecords * 4, 0.75f, 1);
+            for (int i = 0; i < numberOfRecords; ++i) {
+                if (isGlobal || i % TENANT_SPECIFIC_EVERY == 0) {
+                    final Ref key = new Ref(Long.valueOf(i));
+                    key.freeze();
+                    resultMap.put(key, key);
+                }
+            }
+            return resultMap;
+        }
+
+        @Override
+        protected Map<Ref, Ref> readWholeTenantInBackground(final String tenantId) {
+            return readWholeTenant(tenantId);
+        }
+
+        @Override
+        protected void populateCache(final Map<Ref, Ref> cache, final E e) {
+            throw new UnsupportedOperationException("No entities in the in memory config cache");
+        }
+
+        /** Same as getOrNull(), but without a request context. */
+        private Ref lookup(final Ref key) {
+            final Ref myCfg = getConfigForTenant(TENANT_ID, key);
+            return myCfg != null ? myCfg : getConfigForTenant(T9tConstants.GLOBAL_TENANT_ID, key);
+        }
+    }
+
+    // class Inputs prevents the constants from being propagated too early
+    @State(Scope.Benchmark)
+    public static class Inputs {
+        @Param({ "100", "10000" })
+        private int numberOfRecords;
+
+        private InMemoryConfigCache<?> cache;
+        private Ref[] tenantKeys;
+        private Ref[] globalKeys;
+        private int counter = 0;
+
+        @Setup
+        public void setup() {
+            Jdp.reset();
+            cache = new InMemoryConfigCache<>(numberOfRecords);
+            tenantKeys = new Ref[LookupFixture.NUMBER_OF_KEYS];
+            globalKeys = new Ref[LookupFixture.NUMBER_OF_KEYS];
+            for (int i = 0; i < LookupFixture.NUMBER_OF_KEYS; ++i) {
+                final int n = LookupFixture.keyPosition(i, numberOfRecords);
+                tenantKeys[i] = new Ref(Long.valueOf(n - n % TENANT_SPECIFIC_EVERY));
+                globalKeys[i] = new Ref(Long.valueOf(n - n % TENANT_SPECIFIC_EVERY + 1));
+            }
+            // load both tenants before measuring
+            cache.lookup(globalKeys[0]);
+        }
+
+        public int next() {
+            counter = LookupFixture.next(counter);
+            return counter;
+        }
+    }
+
+    @Benchmark
+    public void tenantHit(final Blackhole bh, final Inputs input) {
+        bh.consume(input.cache.lookup(input.tenantKeys[input.next()]));
+    }
+
+    @Benchmark
+    public void globalFallback(final Blackhole bh, final Inputs input) {
+        bh.consume(input.cache.lookup(input.globalKeys[input.next()]));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.jpaw.bonaparte.core.BonaPortable;
+import de.jpaw.bonaparte.core.CompactByteArrayComposer;
+import de.jpaw.bonaparte.core.CompactByteArrayParser;
+import de.jpaw.bonaparte.core.StaticMeta;
+
+import com.arvatosystems.t9t.base.event.EventData;
+import com.arvatosystems.t9t.base.event.EventHeader;
+import com.arvatosystems.t9t.base.event.GenericEvent;
+import com.arvatosystems.t9t.base.vertx.impl.CompactMessageCodec;
+
+// java -jar target/t9t-microbenchmarks.jar -i 3 -f 3 -wf 1 -wi 3 ".*EventBusCodec.*"
+// Compares the former event bus codec, which serialized the event for every remote node and copied it out of the buffer again,
+// with the current one, which serializes once per publish and parses in place. Includes the decoding on the receiving side.
+
+@State(value = Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class EventBusCodec {
+    private static final int BYTES_OF_INT = 4;
+
+    // class Inputs prevents the constants from being propagated too early
+    @State(Scope.Benchmark)
+    public static class Inputs {
+        @Param({ "1", "4", "16" })
+        private int numberOfRemoteNodes;
+
+        private final CompactMessageCodec codec = new CompactMessageCodec();
+        private EventData mutableEvent;
+        private EventData frozenEvent;
+
+        @Setup
+        public void setup() {
+            final EventHeader header = new EventHeader();
+            header.setTenantId("ACME");
+            header.setInvokingProcessRef(4711_000_001L);
+            header.setEncodedJwt("eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9." + "x".repeat(600) + ".signature");
+            final Map<String, Object> z = new HashMap<>();
+            for (int i = 0; i < 20; ++i) {
+                z.put("key" + i, "value of parameter " + i);
+            }
+            final GenericEvent event = new GenericEvent();
+            event.setEventID("orderShipped");
+            event.setZ(z);
+            mutableEvent = new EventData();
+            mutableEvent.setHeader(header);
+            mutableEvent.setData(event);
+            frozenEvent = mutableEvent.ret$FrozenClone();
+        }
+    }
+
+    private static void legacyEncodeToWire(final Buffer buffer, final BonaPortable obj) {
+        final CompactByteArrayComposer cbac = new CompactByteArrayComposer();
+        cbac.writeObject(obj);
+        buffer.appendInt(cbac.getLength());
+        buffer.appendBytes(cbac.getBuffer(), 0, cbac.getLength());
+        cbac.close();
+    }
+
+    private static BonaPortable legacyDecodeFromWire(final int pos, final Buffer buffer) {
+        final int messageLength = buffer.getInt(pos);
+        final byte[] buff = buffer.getBytes(pos + BYTES_OF_INT, pos + BYTES_OF_INT + messageLength);
+        return new CompactByteArrayParser(buff, 0, messageLength).readObject(StaticMeta.OUTER_BONAPORTABLE, BonaPortable.class);
+    }
+
+    @Benchmark
+    public void legacyPublish(final Blackhole bh, final Inputs input) {
+        for (int i = 0; i < input.numberOfRemoteNodes; ++i) {
+            final Buffer buffer = Buffer.buffer();
+            legacyEncodeToWire(buffer, input.mutableEvent);
+            bh.consume(legacyDecodeFromWire(0, buffer));
+        }
+    }
+
+    @Benchmark
+    public void pooledPublish(final Blackhole bh, final Inputs input) {
+        for (int i = 0; i < input.numberOfRemoteNodes; ++i) {
+            final Buffer buffer = Buffer.buffer();
+            input.codec.encodeToWire(buffer, input.frozenEvent);
+            bh.consume(input.codec.decodeFromWire(0, buffer));
+        }
+    }
+
+    @Benchmark
+    public void legacyLocalDelivery(final Blackhole bh, final Inputs input) {
+        bh.consume(input.codec.transform(input.mutableEvent));
+    }
+
+    @Benchmark
+    public void frozenLocalDelivery(final Blackhole bh, final Inputs input) {
+        bh.consume(input.codec.transform(input.frozenEvent));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.jpaw.bonaparte.pojos.api.auth.JwtInfo;
+import de.jpaw.bonaparte.pojos.api.auth.Permissionset;
+import de.jpaw.bonaparte.pojos.api.auth.UserLogLevelType;
+
+import com.arvatosystems.t9t.auth.services.IAuthPersistenceAccess;
+import com.arvatosystems.t9t.base.auth.PermissionEntry;
+import com.arvatosystems.t9t.base.services.IRefGenerator;
+
+/**
+ * In memory replacements of the persistence layer, shared by the benchmarks of the request pipeline.
+ * They allow to measure the CPU cost of the core paths without a database.
+ */
+final class InMemoryStubs {
+    private InMemoryStubs() { }
+
+    /** Returns the permissions of {@link LookupFixture}, plus a grant for everything. */
+    static List<PermissionEntry> permissions(final int numberOfEntries) {
+        final List<PermissionEntry> entries = new ArrayList<>(numberOfEntries + 1);
+        entries.add(new PermissionEntry("B.", new Permissionset(0xfffff)));
+        entries.addAll(LookupFixture.permissions(numberOfEntries));
+        return entries;
+    }
+
+    /**
+     * Returns an auth persistence layer which provides a fixed list of permissions.
+     * All other methods throw an exception, because the benchmarks do not need them.
+     */
+    static IAuthPersistenceAccess authPersistence(final List<PermissionEntry> permissions) {
+        return (IAuthPersistenceAccess) Proxy.newProxyInstance(IAuthPersistenceAccess.class.getClassLoader(),
+          new Class<?>[] { IAuthPersistenceAccess.class }, (proxy, method, args) -> {
+              if (method.getName().equals("getAllDBPermissions")) {
+                  // the caller modifies and freezes the entries, therefore return fresh copies
+                  final List<PermissionEntry> copy = new ArrayList<>(permissions.size());
+                  for (final PermissionEntry p : permissions) {
+                      copy.add(new PermissionEntry(p.getResourceId(), new Permissionset(p.getPermissions().getBitmap())));
+                  }
+                  return copy;
+              }
+              throw new UnsupportedOperationException(method.getName() + " is not supported by the in memory stub");
+          });
+    }
+
+    /** Returns a reference generator based on a counter. */
+    static IRefGenerator refGenerator() {
+        final AtomicLong counter = new AtomicLong();
+        return new IRefGenerator() {
+            @Override
+            public long generateRef(final String tablename, final int rttiOffset) {
+                return counter.incrementAndGet() * KEY_FACTOR + rttiOffset;
+            }
+
+            @Override
+            public long generateUnscaledRef(final String sequenceName) {
+                return counter.incrementAndGet();
+            }
+        };
+    }
+
+    /** Returns a complete JWT of a user whose permissions are read from the (stubbed) database. */
+    static JwtInfo jwtInfo(final long sessionRef, final UserLogLevelType logLevel) {
+        final JwtInfo jwtInfo = new JwtInfo();
+        jwtInfo.setUserId("benchmark");
+        jwtInfo.setUserRef(4711L);
+        jwtInfo.setTenantId("ACME");
+        jwtInfo.setSessionId(UUID.randomUUID());
+        jwtInfo.setSessionRef(sessionRef);
+        jwtInfo.setLocale("en-US");
+        jwtInfo.setLogLevel(logLevel);
+        jwtInfo.setLogLevelErrors(logLevel);
+        jwtInfo.setIssuedAt(Instant.now());
+        jwtInfo.setExpiresAt(Instant.now().plusSeconds(86400L));
+        jwtInfo.freeze();
+        return jwtInfo;
+    }
+}
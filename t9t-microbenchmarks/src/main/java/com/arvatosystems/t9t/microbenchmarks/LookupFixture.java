@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.jpaw.bonaparte.pojos.api.auth.Permissionset;
+
+import com.arvatosystems.t9t.base.auth.PermissionEntry;
+
+/**
+ * Synthetic data shared by the lookup benchmarks: permissions of the t9t modules, and a fixed number of lookup keys,
+ * which are spread deterministically over the range of possible keys and consumed cyclically.
+ */
+final class LookupFixture {
+    static final int NUMBER_OF_KEYS = 64;  // must be a power of 2, see next()
+    private static final int SPREAD = 7919;  // a prime, scatters consecutive indexes over the range
+    private static final String[] MODULES = { "auth", "base", "bpmn", "core", "doc", "email", "io", "msglog", "rep", "solr", "ssm", "uiprefs" };
+
+    private LookupFixture() { }
+
+    /** Returns the position of the key with the given index within a range of keys. */
+    static int keyPosition(final int index, final int range) {
+        return (index * SPREAD) % range;
+    }
+
+    /** Returns the index of the key following the given one. */
+    static int next(final int index) {
+        return (index + 1) & (NUMBER_OF_KEYS - 1);
+    }
+
+    /** Returns a mix of module level grants (every 10th entry) and grants for individual requests, with resource IDs B.t9t.(module).request(n). */
+    static List<PermissionEntry> permissions(final int numberOfEntries) {
+        final List<PermissionEntry> entries = new ArrayList<>(numberOfEntries + 1);
+        for (int i = 0; i < numberOfEntries; ++i) {
+            final String module = MODULES[i % MODULES.length];
+            final String resourceId = (i % 10 == 0) ? "B.t9t." + module + "." : "B.t9t." + module + ".request" + i;
+            entries.add(new PermissionEntry(resourceId, new Permissionset(1 + (i & 0x0f))));
+        }
+        return entries;
+    }
+
+    /** Returns NUMBER_OF_KEYS resources to check, of which about half match a specific entry of the permissions created above. */
+    static String[] resources(final String prefix, final int numberOfEntries) {
+        final String[] resources = new String[NUMBER_OF_KEYS];
+        for (int i = 0; i < NUMBER_OF_KEYS; ++i) {
+            final int n = keyPosition(i, 2 * numberOfEntries);
+            resources[i] = prefix + "t9t." + MODULES[n % MODULES.length] + ".request" + n;
+        }
+        return resources;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.jpaw.bonaparte.pojos.api.auth.Permissionset;
+
+import com.arvatosystems.t9t.auth.be.impl.PermissionIndex;
+import com.arvatosystems.t9t.base.auth.PermissionEntry;
+
+// java -jar target/t9t-microbenchmarks.jar -i 3 -f 3 -wf 1 -wi 3 ".*PermissionLookup.*"
+// Compares the former linear scan of the sorted permission list in Authorization.getPermissions
+// with the binary search based longest prefix match of PermissionIndex.
+
+@State(value = Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class PermissionLookup {
+
+    // class Inputs prevents the constants from being propagated too early
+    @State(Scope.Benchmark)
+    public static class Inputs {
+        @Param({ "20", "200", "2000" })
+        private int numberOfEntries;
+
+        private List<PermissionEntry> sortedEntries;
+        private PermissionIndex index;
+        private String[] resources;
+        private int counter = 0;
+
+        @Setup
+        public void setup() {
+            final List<PermissionEntry> entries = LookupFixture.permissions(numberOfEntries);
+            Collections.sort(entries, (a, b) -> a.getResourceId().compareTo(b.getResourceId()));
+            sortedEntries = entries;
+            index = new PermissionIndex(entries);
+            resources = LookupFixture.resources("B.", numberOfEntries);
+        }
+
+        public String nextResource() {
+            counter = LookupFixture.next(counter);
+            return resources[counter];
+        }
+    }
+
+    @Benchmark
+    public void linearScan(final Blackhole bh, final Inputs input) {
+        final String resource = input.nextResource();
+        Permissionset result = null;
+        for (final PermissionEntry p : input.sortedEntries) {
+            if (resource.startsWith(p.getResourceId())) {
+                result = p.getPermissions();
+                break;
+            }
+        }
+        bh.consume(result);
+    }
+
+    @Benchmark
+    public void prefixIndex(final Blackhole bh, final Inputs input) {
+        bh.consume(input.index.findLongestPrefix(input.nextResource()));
+    }
+}
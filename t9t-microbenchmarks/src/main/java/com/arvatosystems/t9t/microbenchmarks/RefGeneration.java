@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.jpaw.dp.Jdp;
+
+import com.arvatosystems.t9t.base.jpa.impl.idgenerators.SequenceBasedRefGenerator;
+import com.arvatosystems.t9t.base.services.ISingleRefGenerator;
+import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+import com.arvatosystems.t9t.cfg.be.KeyPrefetchConfiguration;
+import com.arvatosystems.t9t.cfg.be.T9tServerConfiguration;
+
+// java -jar target/t9t-microbenchmarks.jar -i 3 -f 3 -wf 1 -wi 3 ".*RefGeneration.*"
+// Measures SequenceBasedRefGenerator.generateRef, with a simulated database sequence which takes a configurable time per block of keys.
+// With prefetching, the blocks are fetched in background, and the latency of the sequence should not show up in the results.
+
+@State(value = Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class RefGeneration {
+    private static final String[] TABLES = { "p28_dat_order", "p28_dat_order_item", "p28_dat_shipment", "p28_dat_invoice" };
+
+    /** Sequence which simulates the roundtrip to the database. */
+    private static final class SimulatedSequence implements ISingleRefGenerator {
+        private final AtomicLong counter = new AtomicLong();
+        private final long latencyInNanos;
+
+        private SimulatedSequence(final long latencyInNanos) {
+            this.latencyInNanos = latencyInNanos;
+        }
+
+        @Override
+        public long getNextSequence(final String selectStatementOrGeneralParameter) {
+            if (latencyInNanos > 0L) {
+                LockSupport.parkNanos(latencyInNanos);
+            }
+            return counter.incrementAndGet();
+        }
+
+        @Override
+        public boolean needSelectStatement() {
+            return false;
+        }
+    }
+
+    // class Inputs prevents the constants from being propagated too early
+    @State(Scope.Benchmark)
+    public static class Inputs {
+        @Param({ "0", "500" })
+        private int sequenceLatencyInMicros;
+
+        @Param({ "0", "4" })
+        private int maxPrefetchedBlocks;
+
+        private SequenceBasedRefGenerator generator;
+        private int counter = 0;
+
+        @Setup
+        public void setup() {
+            Jdp.reset();
+            final KeyPrefetchConfiguration keyCfg = new KeyPrefetchConfiguration();
+            keyCfg.setStrategy("simulated");
+            keyCfg.setLocationOffset(0);
+            keyCfg.setUseSequencePerTable(Boolean.TRUE);
+            keyCfg.setMaxPrefetchedBlocks(maxPrefetchedBlocks);
+            final T9tServerConfiguration cfg = ConfigProvider.getConfiguration().ret$MutableClone(true, true);
+            cfg.setKeyPrefetchConfiguration(keyCfg);
+            Jdp.bindInstanceTo(cfg, T9tServerConfiguration.class);
+            Jdp.bindInstanceTo(new SimulatedSequence(TimeUnit.MICROSECONDS.toNanos(sequenceLatencyInMicros)), ISingleRefGenerator.class, "simulated");
+            generator = new SequenceBasedRefGenerator();
+        }
+
+        public String nextTable() {
+            counter = (counter + 1) & 3;
+            return TABLES[counter];
+        }
+    }
+
+    @Benchmark
+    public void generateRef(final Blackhole bh, final Inputs input) {
+        bh.consume(input.generator.generateRef(input.nextTable(), 42));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import de.jpaw.bonaparte.pojos.api.auth.UserLogLevelType;
+import de.jpaw.dp.Jdp;
+
+import com.arvatosystems.t9t.base.api.ServiceResponse;
+import com.arvatosystems.t9t.base.request.LogMessageRequest;
+import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+import com.arvatosystems.t9t.cfg.be.LogWriterConfiguration;
+import com.arvatosystems.t9t.msglog.MessageDTO;
+import com.arvatosystems.t9t.msglog.be.impl.AsyncRequestLogger;
+import com.arvatosystems.t9t.msglog.services.IMsglogPersistenceAccess;
+import com.arvatosystems.t9t.server.ExecutionSummary;
+import com.arvatosystems.t9t.server.InternalHeaderParameters;
+
+// java -jar target/t9t-microbenchmarks.jar -i 3 -f 3 -wf 1 -wi 3 ".*RequestLogging.*"
+// Measures the throughput of AsyncRequestLogger.logRequest for 4 concurrent request threads, which is the cost on the request path.
+// The writer threads write into an in memory stub, which takes a configurable time per batch, as a database insert would.
+
+@State(value = Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Threads(4)
+public class RequestLogging {
+
+    /** Persistence stub which counts the entries and simulates the time of a batch insert. */
+    private static final class InMemoryMsglog implements IMsglogPersistenceAccess {
+        private final AtomicLong written = new AtomicLong();
+        private final long latencyInNanos;
+
+        private InMemoryMsglog(final long latencyInNanos) {
+            this.latencyInNanos = latencyInNanos;
+        }
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void write(final List<MessageDTO> entries) {
+            if (latencyInNanos > 0L) {
+                LockSupport.parkNanos(latencyInNanos);
+            }
+            written.addAndGet(entries.size());
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // class Inputs prevents the constants from being propagated too early
+    @State(Scope.Benchmark)
+    public static class Inputs {
+        @Param({ "1", "4" })
+        private int numberOfWriterThreads;
+
+        @Param({ "0", "2000" })
+        private int batchLatencyInMicros;
+
+        private AsyncRequestLogger logger;
+        private InternalHeaderParameters hdr;
+        private ExecutionSummary summary;
+        private LogMessageRequest params;
+        private ServiceResponse response;
+
+        @Setup
+        public void setup() {
+            Jdp.reset();
+            Jdp.bindInstanceTo(new InMemoryMsglog(TimeUnit.MICROSECONDS.toNanos(batchLatencyInMicros)), IMsglogPersistenceAccess.class);
+            final LogWriterConfiguration logCfg = new LogWriterConfiguration();
+            logCfg.setNumberOfWriterThreads(numberOfWriterThreads);
+            ConfigProvider.getConfiguration().setLogWriterConfiguration(logCfg);
+            logger = new AsyncRequestLogger();
+            logger.open();
+
+            hdr = new InternalHeaderParameters();
+            hdr.setJwtInfo(InMemoryStubs.jwtInfo(4713L, UserLogLevelType.REQUESTS));
+            hdr.setEncodedJwt("jwt");
+            hdr.setProcessRef(4711_000_001L);
+            hdr.setLanguageCode("en");
+            hdr.setExecutionStartedAt(Instant.now());
+            hdr.setRequestParameterPqon(LogMessageRequest.BClass.INSTANCE.getPqon());
+            hdr.setMessageId(UUID.randomUUID());
+            hdr.freeze();
+            summary = new ExecutionSummary();
+            summary.setProcessingTimeInMillisecs(3L);
+            summary.freeze();
+            params = new LogMessageRequest();
+            params.setMessage("Order 4711000 has been released for picking in warehouse DE-01");
+            params.freeze();
+            response = new ServiceResponse();
+            response.freeze();
+        }
+
+        @TearDown
+        public void tearDown() {
+            logger.close();
+        }
+    }
+
+    @Benchmark
+    public void logRequest(final Inputs input) {
+        input.logger.logRequest(input.hdr, input.summary, input.params, input.response, 0);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.jpaw.bonaparte.pojos.api.auth.JwtInfo;
+import de.jpaw.bonaparte.pojos.api.auth.UserLogLevelType;
+import de.jpaw.dp.Jdp;
+
+import com.arvatosystems.t9t.auth.be.impl.Authorization;
+import com.arvatosystems.t9t.auth.services.IAuthPersistenceAccess;
+import com.arvatosystems.t9t.base.api.RequestParameters;
+import com.arvatosystems.t9t.base.be.execution.Executor;
+import com.arvatosystems.t9t.base.be.execution.RequestContextScope;
+import com.arvatosystems.t9t.base.be.execution.RequestProcessor;
+import com.arvatosystems.t9t.base.be.impl.BackendStringSanitizerFactory;
+import com.arvatosystems.t9t.base.be.impl.DefaultRequestHandlerResolver;
+import com.arvatosystems.t9t.base.be.impl.IdempotencyCheckerSingleNode;
+import com.arvatosystems.t9t.base.be.stubs.NoAsyncProcessor;
+import com.arvatosystems.t9t.base.be.stubs.NoCustomization;
+import com.arvatosystems.t9t.base.be.stubs.NoopBucketWriter;
+import com.arvatosystems.t9t.base.be.stubs.NoopMsglogWriter;
+import com.arvatosystems.t9t.base.be.stubs.NoopRequestPhaseTimer;
+import com.arvatosystems.t9t.base.request.BatchRequest;
+import com.arvatosystems.t9t.base.request.PingRequest;
+import com.arvatosystems.t9t.base.services.IAsyncRequestProcessor;
+import com.arvatosystems.t9t.base.services.IBackendStringSanitizerFactory;
+import com.arvatosystems.t9t.base.services.IBucketWriter;
+import com.arvatosystems.t9t.base.services.ICustomization;
+import com.arvatosystems.t9t.base.services.IExecutor;
+import com.arvatosystems.t9t.base.services.IIdempotencyChecker;
+import com.arvatosystems.t9t.base.services.IRefGenerator;
+import com.arvatosystems.t9t.base.services.IRequestHandlerResolver;
+import com.arvatosystems.t9t.base.services.RequestContext;
+import com.arvatosystems.t9t.server.services.IAuthorize;
+import com.arvatosystems.t9t.server.services.IRequestLogger;
+import com.arvatosystems.t9t.server.services.IRequestPhaseTimer;
+
+// java -jar target/t9t-microbenchmarks.jar -i 3 -f 3 -wf 1 -wi 3 ".*RequestPipeline.*"
+// Measures the overhead of RequestProcessor.execute around a trivial request handler: sanitizing, JWT checks, context creation,
+// permission check, commit processing and message logging. Persistence is replaced by in memory stubs.
+// Debug logging of the measured packages must be off (see logback.xml), otherwise the log output dominates the results.
+
+@State(value = Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class RequestPipeline {
+    private static final int BATCH_SIZE = 10;
+
+    // class Inputs prevents the constants from being propagated too early
+    @State(Scope.Benchmark)
+    public static class Inputs {
+        @Param({ "false", "true" })
+        private boolean checkPermissions;
+
+        private RequestProcessor processor;
+        private JwtInfo jwtInfo;
+        private RequestParameters ping;
+        private RequestParameters batch;
+
+        @Setup
+        public void setup() {
+            Jdp.reset();
+            Jdp.bindInstanceTo(InMemoryStubs.authPersistence(InMemoryStubs.permissions(200)), IAuthPersistenceAccess.class);
+            Jdp.bindInstanceTo(InMemoryStubs.refGenerator(), IRefGenerator.class);
+            Jdp.bindInstanceTo(new NoopMsglogWriter(), IRequestLogger.class);
+            Jdp.bindInstanceTo(new NoopBucketWriter(), IBucketWriter.class);
+            Jdp.bindInstanceTo(new NoopRequestPhaseTimer(), IRequestPhaseTimer.class);
+            Jdp.bindInstanceTo(new NoAsyncProcessor(), IAsyncRequestProcessor.class);
+            Jdp.bindInstanceTo(new BackendStringSanitizerFactory(), IBackendStringSanitizerFactory.class);
+            Jdp.bindInstanceTo(new IdempotencyCheckerSingleNode(), IIdempotencyChecker.class);
+            Jdp.bindInstanceTo(new DefaultRequestHandlerResolver(), IRequestHandlerResolver.class);
+            Jdp.bindInstanceTo(new NoCustomization(), ICustomization.class);
+            Jdp.bindInstanceTo(new Authorization(), IAuthorize.class);
+            final RequestContextScope scope = new RequestContextScope();
+            Jdp.bindInstanceTo(scope, RequestContextScope.class);
+            Jdp.registerWithCustomProvider(RequestContext.class, scope);
+            Jdp.bindInstanceTo(new Executor(), IExecutor.class);
+            processor = new RequestProcessor();
+
+            jwtInfo = InMemoryStubs.jwtInfo(4712L, UserLogLevelType.MESSAGE_ENTRY);
+            ping = new PingRequest();
+            final List<RequestParameters> commands = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; ++i) {
+                commands.add(new PingRequest());
+            }
+            final BatchRequest batchRequest = new BatchRequest();
+            batchRequest.setCommands(commands);
+            batch = batchRequest;
+        }
+    }
+
+    @Benchmark
+    public void singleRequest(final Blackhole bh, final Inputs input) {
+        bh.consume(input.processor.execute(null, input.ping, input.jwtInfo, "jwt", null, null, !input.checkPermissions, null));
+    }
+
+    @Benchmark
+    public void batchRequest(final Blackhole bh, final Inputs input) {
+        bh.consume(input.processor.execute(null, input.batch, input.jwtInfo, "jwt", null, null, !input.checkPermissions, null));
+    }
+}
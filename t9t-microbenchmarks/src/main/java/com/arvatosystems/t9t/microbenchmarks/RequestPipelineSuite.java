@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// java -cp target/t9t-microbenchmarks.jar com.arvatosystems.t9t.microbenchmarks.RequestPipelineSuite [resultFile]
+// Runs the benchmarks of the core request path with the standard settings and writes the results as JSON (default target/jmh-request-pipeline.json),
+// which allows to compare them with those of a previous build, for example by a CI job.
+// Individual benchmarks can write JSON as well: java -jar target/t9t-microbenchmarks.jar -rf json -rff result.json ".*Name.*"
+
+public final class RequestPipelineSuite {
+    private static final String DEFAULT_RESULT_FILE = "target/jmh-request-pipeline.json";
+    private static final Class<?>[] BENCHMARKS = {
+        RequestPipeline.class,
+        AuthorizationLookup.class,
+        RefGeneration.class,
+        ServiceRequestMarshalling.class,
+        ConfigCacheLookup.class,
+        RequestLogging.class
+    };
+
+    private RequestPipelineSuite() { }
+
+    public static void main(final String[] args) throws RunnerException {
+        final OptionsBuilder builder = new OptionsBuilder();
+        for (final Class<?> benchmark : BENCHMARKS) {
+            builder.include("\\." + benchmark.getSimpleName() + "\\.");
+        }
+        final Options options = builder
+          .warmupIterations(3)
+          .measurementIterations(3)
+          .warmupForks(1)
+          .forks(3)
+          .resultFormat(ResultFormatType.JSON)
+          .result(args.length > 0 ? args[0] : DEFAULT_RESULT_FILE)
+          .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.microbenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.jpaw.bonaparte.core.CompactByteArrayComposer;
+import de.jpaw.bonaparte.core.CompactByteArrayParser;
+import de.jpaw.bonaparte.core.JsonComposer;
+import de.jpaw.bonaparte.core.MapParser;
+import de.jpaw.bonaparte.core.MessageParserException;
+import de.jpaw.bonaparte.core.StaticMeta;
+import de.jpaw.json.JsonParser;
+
+import com.arvatosystems.t9t.base.api.RequestParameters;
+import com.arvatosystems.t9t.base.api.RetryAdviceType;
+import com.arvatosystems.t9t.base.api.ServiceRequest;
+import com.arvatosystems.t9t.base.api.ServiceRequestHeader;
+import com.arvatosystems.t9t.base.auth.ApiKeyAuthentication;
+import com.arvatosystems.t9t.base.request.BatchRequest;
+import com.arvatosystems.t9t.base.request.LogMessageRequest;
+
+// java -jar target/t9t-microbenchmarks.jar -i 3 -f 3 -wf 1 -wi 3 ".*ServiceRequestMarshalling.*"
+// Compares serialization and deserialization of a ServiceRequest in compact bonaparte format (RPC, event bus, kafka)
+// with JSON (REST gateways), for a single request and a batch of requests.
+
+@State(value = Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class ServiceRequestMarshalling {
+
+    // class Inputs prevents the constants from being propagated too early
+    @State(Scope.Benchmark)
+    public static class Inputs {
+        @Param({ "1", "20" })
+        private int numberOfCommands;
+
+        private ServiceRequest request;
+        private byte[] compact;
+        private String json;
+
+        @Setup
+        public void setup() {
+            final List<RequestParameters> commands = new ArrayList<>(numberOfCommands);
+            for (int i = 0; i < numberOfCommands; ++i) {
+                final LogMessageRequest logRq = new LogMessageRequest();
+                logRq.setMessage("Order " + (4711_000 + i) + " has been released for picking in warehouse DE-01");
+                logRq.setEssentialKey("ORD-" + (4711_000 + i));
+                commands.add(logRq);
+            }
+            final RequestParameters rp;
+            if (numberOfCommands == 1) {
+                rp = commands.get(0);
+            } else {
+                final BatchRequest batch = new BatchRequest();
+                batch.setCommands(commands);
+                rp = batch;
+            }
+            final ServiceRequestHeader hdr = new ServiceRequestHeader();
+            hdr.setMessageId(UUID.randomUUID());
+            hdr.setIdempotencyBehaviour(RetryAdviceType.RETRY_ON_ERROR);
+            hdr.setLanguageCode("en");
+            request = new ServiceRequest();
+            request.setRequestHeader(hdr);
+            request.setRequestParameters(rp);
+            request.setAuthentication(new ApiKeyAuthentication(UUID.randomUUID()));
+            request.freeze();
+            compact = CompactByteArrayComposer.marshalAsByteArray(StaticMeta.OUTER_BONAPORTABLE, request);
+            json = JsonComposer.toJsonString(request);
+        }
+    }
+
+    @Benchmark
+    public void compactCompose(final Blackhole bh, final Inputs input) {
+        bh.consume(CompactByteArrayComposer.marshalAsByteArray(StaticMeta.OUTER_BONAPORTABLE, input.request));
+    }
+
+    @Benchmark
+    public void compactParse(final Blackhole bh, final Inputs input) throws MessageParserException {
+        bh.consume(new CompactByteArrayParser(input.compact, 0, -1).readRecord());
+    }
+
+    @Benchmark
+    public void jsonCompose(final Blackhole bh, final Inputs input) {
+        bh.consume(JsonComposer.toJsonString(input.request));
+    }
+
+    @Benchmark
+    public void jsonParse(final Blackhole bh, final Inputs input) throws MessageParserException {
+        bh.consume(MapParser.asBonaPortable(new JsonParser(input.json, false).parseObject(), StaticMeta.OUTER_BONAPORTABLE));
+    }
+}
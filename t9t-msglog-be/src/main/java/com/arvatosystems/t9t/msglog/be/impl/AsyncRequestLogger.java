@@ -48,6 +48,7 @@ import com.arvatosystems.t9t.base.api.ServiceRequestHeader;
 import com.arvatosystems.t9t.base.api.ServiceResponse;
 import com.arvatosystems.t9t.cfg.be.ConfigProvider;
 import com.arvatosystems.t9t.cfg.be.LogWriterConfiguration;
+import com.arvatosystems.t9t.metrics.IMetricsProvider;
 import com.arvatosystems.t9t.msglog.MessageDTO;
 import com.arvatosystems.t9t.msglog.services.IMsglogPersistenceAccess;
 import com.arvatosystems.t9t.server.ExecutionSummary;
@@ -63,11 +64,9 @@ public class AsyncRequestLogger implements IRequestLogger {
 
     // tunable parameters
     private static final int DEFAULT_ALERT_ON_QUEUE_SIZE            = 1000; // max num of entries in queue before alert is triggered
-    private static final int MAX_ELEMENTS_PER_BATCH                 = 200;  // max num of requests to log at a time
-    private static final int MIN_ELEMENTS_FOR_RERUN                 = 100;  // if min. this num of requests had to be processed, rerun immediately!
-
-    private static final long LONG_SLEEP_DURATION_AFTER_IDLE        = 500L; // time to sleep after no requests have been found
-    private static final long SHORT_SLEEP_DURATION_AFTER_ACTIVITY   = 250L; // time to sleep after requests have been processed
+    private static final int DEFAULT_MIN_BATCH_SIZE                 = 200;  // initial (and lowest) limit of requests to log at a time
+    private static final int DEFAULT_MAX_BATCH_SIZE                 = 5000; // upper bound for the adaptive batch size
+    private static final int DEFAULT_NUMBER_OF_WRITER_THREADS       = 1;    // number of threads which write to the persistence layer
 
     private final AtomicInteger countGood = new AtomicInteger();
     private final AtomicInteger countErrors = new AtomicInteger();
@@ -77,58 +76,80 @@ public class AsyncRequestLogger implements IRequestLogger {
     private final LinkedTransferQueue<MessageDTO> queue = new LinkedTransferQueue<>();
     private final IMsglogPersistenceAccess persistenceAccess = Jdp.getRequired(IMsglogPersistenceAccess.class);
     private final Map<String, Function<ServiceResponse, String>> businessKeyExtractorRegistry = new ConcurrentHashMap<>();
+    private final IMetricsProvider metricsProvider = Jdp.getOptional(IMetricsProvider.class);
+    private final AsyncRequestLoggerMetrics metrics = new AsyncRequestLoggerMetrics(queue);
 
     @IsLogicallyFinal  // set by open() method
     private ExecutorService executor;
     @IsLogicallyFinal  // set by open() method
-    private Future<Boolean> writerResult;
+    private List<Future<Boolean>> writerResults;
     @IsLogicallyFinal  // set by open() method
     private LogWriterConfiguration logWriterConfiguration;
     @IsLogicallyFinal  // set by open() method
     private int alertOnQueueSize;
+    @IsLogicallyFinal  // set by open() method
+    private int minBatchSize;
+    @IsLogicallyFinal  // set by open() method
+    private int maxBatchSize;
+    @IsLogicallyFinal  // set by open() method
+    private int numberOfWriterThreads;
 
+    /**
+     * Writer which blocks until a message arrives and then writes everything which has accumulated in the meantime (group commit).
+     * The batch limit doubles whenever a batch was filled completely (the writer is falling behind) and shrinks again once the queue has calmed down.
+     */
     private final class WriterThread implements Callable<Boolean> {
         private int count = 0;
 
         @Override
         public Boolean call() throws Exception {
             boolean atEnd = false;
-            final List<MessageDTO> workPool = new ArrayList<>(MAX_ELEMENTS_PER_BATCH);
+            int batchLimit = minBatchSize;
+            final List<MessageDTO> workPool = new ArrayList<>(batchLimit);
             do {
                 try {
-                    int num = queue.drainTo(workPool, MAX_ELEMENTS_PER_BATCH);
-                    if (num == 0) {
-                        T9tUtil.sleepAndWarnIfInterrupted(LONG_SLEEP_DURATION_AFTER_IDLE, LOGGER, null);
-                    } else {
-                        // check for end marker
-                        for (int i = 0; i < num; ++i) {
-                            if (workPool.get(i) == SHUTDOWN_RQ) {
-                                LOGGER.info("Message log shutdown received after {} entries", count + i);
+                    final MessageDTO first = queue.take();  // block until there is some work
+                    workPool.add(first);
+                    int num = 1 + queue.drainTo(workPool, batchLimit - 1);
+                    // adapt the batch size to the current backlog
+                    if (num >= batchLimit) {
+                        batchLimit = Math.min(2 * batchLimit, maxBatchSize);
+                    } else if (num < batchLimit / 4) {
+                        batchLimit = Math.max(batchLimit / 2, minBatchSize);
+                    }
+                    // check for end marker
+                    for (int i = num - 1; i >= 0; --i) {
+                        if (workPool.get(i) == SHUTDOWN_RQ) {
+                            workPool.remove(i);
+                            --num;
+                            if (atEnd) {
+                                queue.put(SHUTDOWN_RQ);  // marker belongs to a different writer thread
+                            } else {
+                                LOGGER.info("Message log shutdown received by {} after {} entries", Thread.currentThread().getName(), count + num);
                                 atEnd = true;
-                                workPool.remove(i);
-                                --num;
                             }
                         }
-                        if (num > 0) {
-                            count += num;
-                            LOGGER.info("Logging {} messages to disk", num);
-                            final long beforeWrite = System.nanoTime();
-                            persistenceAccess.write(workPool);
-                            if (logWriterConfiguration.getMaxWriteTimeInMillis() != null) {
-                                final long writingTime = (System.nanoTime() - beforeWrite) / 1000L;
-                                if (writingTime < 1000L * logWriterConfiguration.getMaxWriteTimeInMillis().longValue()) {
-                                    LOGGER.debug("Writing {} entries took {} us - GREEN", num, writingTime);
-                                } else {
-                                    LOGGER.warn("Writing {} entries took {} us", num, writingTime);
-                                }
-                            }
-                            if (num < MIN_ELEMENTS_FOR_RERUN) {
-                                // do not attempt to rerun now
-                                workPool.clear();
-                                T9tUtil.sleepAndWarnIfInterrupted(SHORT_SLEEP_DURATION_AFTER_ACTIVITY, LOGGER, null);
+                    }
+                    if (num > 0) {
+                        count += num;
+                        LOGGER.debug("Logging {} messages to disk", num);
+                        final long beforeWrite = System.nanoTime();
+                        persistenceAccess.write(workPool);
+                        final long writingTimeInNanos = System.nanoTime() - beforeWrite;
+                        metrics.recordWrite(num, writingTimeInNanos);
+                        if (logWriterConfiguration.getMaxWriteTimeInMillis() != null) {
+                            final long writingTime = writingTimeInNanos / 1000L;
+                            if (writingTime < 1000L * logWriterConfiguration.getMaxWriteTimeInMillis().longValue()) {
+                                LOGGER.debug("Writing {} entries took {} us - GREEN", num, writingTime);
+                            } else {
+                                LOGGER.warn("Writing {} entries took {} us", num, writingTime);
                             }
                         }
                     }
+                } catch (final InterruptedException e) {
+                    LOGGER.warn("Message log writer {} interrupted after {} entries - terminating", Thread.currentThread().getName(), count);
+                    Thread.currentThread().interrupt();
+                    atEnd = true;
                 } catch (final Exception e) {
                     LOGGER.error("Exception {} while writing messages to disk", ExceptionUtil.causeChain(e));
                     LOGGER.error("Stack trace is ", e);
@@ -143,17 +164,31 @@ public class AsyncRequestLogger implements IRequestLogger {
 
     @Override
     public void open() {
-        LOGGER.info("Async Log writer selected - any message logs will be written by a separate thread");
-        persistenceAccess.open();   // open disk channel
-        // launch a separate thread which continuously drains the transfer queue
-        executor = Executors.newSingleThreadExecutor(call -> new Thread(call, "t9t-MsgLog"));
-        writerResult = executor.submit(new WriterThread());
+        LOGGER.info("Async Log writer selected - any message logs will be written by separate threads");
         logWriterConfiguration = ConfigProvider.getConfiguration().getLogWriterConfiguration();
         if (logWriterConfiguration == null) {
             logWriterConfiguration = new LogWriterConfiguration();  // create a default one, to avoid double null checks
         }
-        alertOnQueueSize = logWriterConfiguration.getAlertOnQueueSize() == null
-            ? DEFAULT_ALERT_ON_QUEUE_SIZE : logWriterConfiguration.getAlertOnQueueSize().intValue();
+        alertOnQueueSize = T9tUtil.nvl(logWriterConfiguration.getAlertOnQueueSize(), DEFAULT_ALERT_ON_QUEUE_SIZE);
+        minBatchSize = Math.max(1, T9tUtil.nvl(logWriterConfiguration.getMinBatchSize(), DEFAULT_MIN_BATCH_SIZE));
+        maxBatchSize = Math.max(minBatchSize, T9tUtil.nvl(logWriterConfiguration.getMaxBatchSize(), DEFAULT_MAX_BATCH_SIZE));
+        numberOfWriterThreads = Math.max(1, T9tUtil.nvl(logWriterConfiguration.getNumberOfWriterThreads(), DEFAULT_NUMBER_OF_WRITER_THREADS));
+        LOGGER.info("Using {} message log writer thread(s), batch size between {} and {}", numberOfWriterThreads, minBatchSize, maxBatchSize);
+
+        persistenceAccess.open();   // open disk channel
+        // launch separate threads which continuously drain the transfer queue
+        final AtomicInteger threadCounter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(numberOfWriterThreads, call -> new Thread(call,
+          numberOfWriterThreads == 1 ? "t9t-MsgLog" : "t9t-MsgLog-" + threadCounter.incrementAndGet()));
+        writerResults = new ArrayList<>(numberOfWriterThreads);
+        for (int i = 0; i < numberOfWriterThreads; ++i) {
+            writerResults.add(executor.submit(new WriterThread()));
+        }
+        if (metricsProvider != null) {
+            metricsProvider.addMeter(metrics);
+        } else {
+            LOGGER.debug("Metrics provider not available - message log metrics will not be exported");
+        }
     }
 
     @Override
@@ -247,13 +282,17 @@ public class AsyncRequestLogger implements IRequestLogger {
                 countGood.get(), countErrors.get(), totalTime.get());
         // drain queue
         final long start = System.nanoTime();
-        queue.put(SHUTDOWN_RQ);
-        try {
-            writerResult.get();
-        } catch (final InterruptedException e) {
-            LOGGER.error("Interrupted:", e);
-        } catch (final ExecutionException e) {
-            LOGGER.error("ExecutionException:", e);
+        for (int i = 0; i < numberOfWriterThreads; ++i) {
+            queue.put(SHUTDOWN_RQ);  // one end marker per writer thread
+        }
+        for (final Future<Boolean> writerResult : writerResults) {
+            try {
+                writerResult.get();
+            } catch (final InterruptedException e) {
+                LOGGER.error("Interrupted:", e);
+            } catch (final ExecutionException e) {
+                LOGGER.error("ExecutionException:", e);
+            }
         }
         final long end = System.nanoTime();
         LOGGER.info("Queue drained after {} us.", (end - start) / 1000L);
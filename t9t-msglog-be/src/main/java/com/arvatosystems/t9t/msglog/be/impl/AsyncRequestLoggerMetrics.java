@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.msglog.be.impl;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link MeterBinder} for exporting queue and writer statistics of the {@link AsyncRequestLogger}.<br>
+ * Sample output:
+ * <pre>
+ * t9t_msglog_queue_size 17.0
+ * t9t_msglog_batch_size_count 1234.0
+ * t9t_msglog_batch_size_sum 98765.0
+ * t9t_msglog_write_time_seconds_count 1234.0
+ * t9t_msglog_write_time_seconds_sum 12.3
+ * </pre>
+ */
+public class AsyncRequestLoggerMetrics implements MeterBinder {
+
+    private static final String PREFIX = "t9t.msglog";
+
+    private static final String METRIC_QUEUE_SIZE = PREFIX + ".queue.size";
+    private static final String METRIC_QUEUE_SIZE_DESC = "Number of message log entries waiting to be written";
+
+    private static final String METRIC_BATCH_SIZE = PREFIX + ".batch.size";
+    private static final String METRIC_BATCH_SIZE_DESC = "Number of message log entries written per batch";
+
+    private static final String METRIC_WRITE_TIME = PREFIX + ".write.time";
+    private static final String METRIC_WRITE_TIME_DESC = "Duration of a single batch write to the persistence layer";
+
+    private final Queue<?> queue;
+
+    private volatile DistributionSummary batchSize;
+    private volatile Timer writeTime;
+
+    public AsyncRequestLoggerMetrics(final Queue<?> queue) {
+        this.queue = queue;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder(METRIC_QUEUE_SIZE, () -> queue.size()).description(METRIC_QUEUE_SIZE_DESC).register(registry);
+        batchSize = DistributionSummary.builder(METRIC_BATCH_SIZE).description(METRIC_BATCH_SIZE_DESC).publishPercentileHistogram().register(registry);
+        writeTime = Timer.builder(METRIC_WRITE_TIME).description(METRIC_WRITE_TIME_DESC).publishPercentileHistogram().register(registry);
+    }
+
+    /** Records a completed batch write. Does nothing as long as no registry has been bound. */
+    public void recordWrite(final int numberOfEntries, final long durationInNanos) {
+        final DistributionSummary currentBatchSize = batchSize;
+        if (currentBatchSize != null) {
+            currentBatchSize.record(numberOfEntries);
+        }
+        final Timer currentWriteTime = writeTime;
+        if (currentWriteTime != null) {
+            currentWriteTime.record(durationInNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
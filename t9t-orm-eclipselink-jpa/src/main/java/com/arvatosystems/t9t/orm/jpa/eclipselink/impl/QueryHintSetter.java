@@ -35,4 +35,9 @@ public class QueryHintSetter implements IQueryHintSetter {
     @Override
     public void setComment(final Query query, final String text) {
     }
+
+    @Override
+    public void setFetchSize(final Query query, final int fetchSize) {
+        query.setHint(QueryHints.JDBC_FETCH_SIZE, fetchSize);
+    }
 }
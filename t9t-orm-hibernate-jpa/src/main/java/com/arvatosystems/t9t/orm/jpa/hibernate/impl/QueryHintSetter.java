@@ -20,7 +20,9 @@ import jakarta.persistence.Query;
 
 import org.hibernate.FlushMode;
 import org.hibernate.Session;
+import org.hibernate.Timeouts;
 import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 
 import de.jpaw.dp.Singleton;
 
@@ -56,4 +58,14 @@ public class QueryHintSetter implements IQueryHintSetter {
     public void setComment(final Query query, final String text) {
         query.setHint(HibernateHints.HINT_COMMENT, text);
     }
+
+    @Override
+    public void setSkipLocked(final Query query) {
+        query.setHint(SpecHints.HINT_SPEC_LOCK_TIMEOUT, Timeouts.SKIP_LOCKED_MILLI);
+    }
+
+    @Override
+    public void setFetchSize(final Query query, final int fetchSize) {
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+    }
 }
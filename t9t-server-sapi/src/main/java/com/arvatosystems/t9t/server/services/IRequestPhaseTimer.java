@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.server.services;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * API used by the central request dispatcher to report the duration of the individual processing phases of a request.
+ * The default implementation discards the data, implementations based on metrics frameworks can export them.
+ */
+public interface IRequestPhaseTimer {
+
+    /** The phases of top level request processing, in order of execution. */
+    enum Phase {
+        SANITIZING,             // treeWalkString with the string sanitizer
+        IDEMPOTENCY_CHECK,      // check for a prior execution of the same message ID
+        REF_GENERATION,         // assignment of the processRef
+        PERMISSION_CHECK,       // authorization of the request
+        HANDLER_EXECUTION,      // execution of the top level request handler
+        COMMIT,                 // commit of the transaction
+        POST_COMMIT,            // post commit actions and bucket writes
+        MESSAGE_LOGGING         // handover to the message log
+    }
+
+    /** Returns true if timings are collected. Callers may skip obtaining timestamps if this returns false. */
+    boolean isEnabled();
+
+    /** Records the duration of a single phase of a request. */
+    void record(@Nonnull Phase phase, @Nonnull String pqon, @Nullable String tenantId, long durationInNanos);
+}
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,7 +78,7 @@ public class TranslatorService implements ITranslator {
 
     }
     protected static final Map<String, ITranslationsCache> CACHE = new ConcurrentHashMap<String, ITranslationsCache>(20);
-    protected static final Map<String, Object> MUTEXES = new ConcurrentHashMap<String, Object>(20);
+    protected static final Map<String, ReentrantLock> MUTEXES = new ConcurrentHashMap<String, ReentrantLock>(20);
 
     protected ITranslationsCache getCache(String tenantId, String languageCode) {
         String key = tenantId + ":" + languageCode;
@@ -85,12 +86,10 @@ public class TranslatorService implements ITranslator {
         if (cache != null)
             return cache;
         // read the translations from disk and create a new Cache
-        // use a mutex to ensure that the expensive disk read is not performed twice
-        Object mutex = new Object();
-        Object mutex2 = MUTEXES.putIfAbsent(key, mutex);
-        if (mutex2 == null)
-            mutex2 = mutex;
-        synchronized (mutex2) {
+        // use a mutex to ensure that the expensive disk read is not performed twice (a lock instead of synchronized, to avoid pinning virtual threads)
+        final ReentrantLock mutex = MUTEXES.computeIfAbsent(key, unused -> new ReentrantLock());
+        mutex.lock();
+        try {
             // retry the cache get to avoid a race condition
             cache = CACHE.get(key);
             if (cache != null)
@@ -103,6 +102,8 @@ public class TranslatorService implements ITranslator {
                 cache = EMPTY_CACHE;
             }
             CACHE.put(key, cache);
+        } finally {
+            mutex.unlock();
         }
         return cache;
     }
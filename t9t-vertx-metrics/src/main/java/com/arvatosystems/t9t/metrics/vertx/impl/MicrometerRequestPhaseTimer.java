@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2012 - 2025 Arvato Systems GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.arvatosystems.t9t.metrics.vertx.impl;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jpaw.dp.Jdp;
+import de.jpaw.dp.Singleton;
+
+import com.arvatosystems.t9t.cfg.be.ApplicationConfiguration;
+import com.arvatosystems.t9t.cfg.be.ConfigProvider;
+import com.arvatosystems.t9t.metrics.IMetricsProvider;
+import com.arvatosystems.t9t.server.services.IRequestPhaseTimer;
+
+/**
+ * Exports the durations of the request processing phases as Micrometer timers, tagged by phase, request PQON and tenant.
+ * Collection must be enabled via <code>applicationConfiguration.requestPhaseMetrics</code>, because the number of time series
+ * grows with the number of distinct requests and tenants.<br>
+ * Sample output:
+ * <pre>
+ * t9t_request_phase_seconds_count{phase="commit",pqon="t9t.base.request.PingRequest",tenant="@",} 17.0
+ * t9t_request_phase_seconds_sum{phase="commit",pqon="t9t.base.request.PingRequest",tenant="@",} 0.0123
+ * </pre>
+ */
+@Singleton
+public class MicrometerRequestPhaseTimer implements IRequestPhaseTimer, MeterBinder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MicrometerRequestPhaseTimer.class);
+
+    private static final String METRIC_REQUEST_PHASE = "t9t.request.phase";
+    private static final String METRIC_REQUEST_PHASE_DESC = "Duration of a processing phase of top level requests";
+
+    private static final String TAG_PHASE = "phase";
+    private static final String TAG_PQON = "pqon";
+    private static final String TAG_TENANT = "tenant";
+    private static final String NO_TENANT = "-";
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final boolean enabled;
+    private final String[] phaseTags = new String[PHASES.length];
+    // per phase: timers by PQON and tenant
+    private final Map<String, Map<String, Timer>>[] timers;
+    private volatile MeterRegistry registry;
+
+    @SuppressWarnings("unchecked")
+    public MicrometerRequestPhaseTimer() {
+        final ApplicationConfiguration applCfg = ConfigProvider.getConfiguration().getApplicationConfiguration();
+        enabled = applCfg != null && Boolean.TRUE.equals(applCfg.getRequestPhaseMetrics());
+        timers = new Map[PHASES.length];
+        for (final Phase phase : PHASES) {
+            phaseTags[phase.ordinal()] = phase.name().toLowerCase(Locale.ROOT);
+            timers[phase.ordinal()] = new ConcurrentHashMap<>();
+        }
+        if (enabled) {
+            LOGGER.info("Request phase timings will be exported");
+            Jdp.getRequired(IMetricsProvider.class).addMeter(this);
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry meterRegistry) {
+        registry = meterRegistry;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled && registry != null;
+    }
+
+    @Override
+    public void record(final Phase phase, final String pqon, final String tenantId, final long durationInNanos) {
+        final MeterRegistry currentRegistry = registry;
+        if (!enabled || currentRegistry == null) {
+            return;
+        }
+        final String tenant = tenantId == null ? NO_TENANT : tenantId;
+        final Timer timer = timers[phase.ordinal()]
+          .computeIfAbsent(pqon, unused -> new ConcurrentHashMap<>())
+          .computeIfAbsent(tenant, unused -> Timer.builder(METRIC_REQUEST_PHASE)
+            .description(METRIC_REQUEST_PHASE_DESC)
+            .tag(TAG_PHASE, phaseTags[phase.ordinal()])
+            .tag(TAG_PQON, pqon)
+            .tag(TAG_TENANT, tenant)
+            .register(currentRegistry));
+        timer.record(durationInNanos, TimeUnit.NANOSECONDS);
+    }
+}
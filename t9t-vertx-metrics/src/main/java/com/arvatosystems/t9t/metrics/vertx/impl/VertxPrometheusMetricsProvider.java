@@ -22,6 +22,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.binder.MeterBinder;
 import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
 import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
@@ -57,6 +58,7 @@ public class VertxPrometheusMetricsProvider implements IVertxMetricsProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(VertxPrometheusMetricsProvider.class);
     private final AtomicBoolean metricsEnabled = new AtomicBoolean(false);
     private final Collection<MeterBinder> additionalMeters = Collections.synchronizedCollection(new ArrayList<>());
+    private volatile MeterRegistry installedRegistry;   // set once installMeters() has run
 
     @Override
     public Handler<RoutingContext> getMetricsHandler() {
@@ -101,10 +103,13 @@ public class VertxPrometheusMetricsProvider implements IVertxMetricsProvider {
         LOGGER.info("Added JVM meters.");
 
         LOGGER.info("Adding t9t and custom meters...");
-        this.additionalMeters.forEach(meter -> {
-            LOGGER.info("Add {}", meter.getClass().getSimpleName());
-            meter.bindTo(registry);
-        });
+        synchronized (this.additionalMeters) {
+            this.additionalMeters.forEach(meter -> {
+                LOGGER.info("Add {}", meter.getClass().getSimpleName());
+                meter.bindTo(registry);
+            });
+            installedRegistry = registry;
+        }
         new T9tVersionMetrics().bindTo(registry);
         LOGGER.info("Added t9t and custom meters.");
 
@@ -135,8 +140,16 @@ public class VertxPrometheusMetricsProvider implements IVertxMetricsProvider {
 
     @Override
     public void addMeter(final MeterBinder meterBinder) {
-        LOGGER.info("Adding {} to list of additional meters", meterBinder.getClass().getSimpleName());
-        this.additionalMeters.add(meterBinder);
+        synchronized (this.additionalMeters) {
+            if (installedRegistry != null) {
+                // meters have been installed already: bind it immediately
+                LOGGER.info("Adding {} to installed meters", meterBinder.getClass().getSimpleName());
+                meterBinder.bindTo(installedRegistry);
+            } else {
+                LOGGER.info("Adding {} to list of additional meters", meterBinder.getClass().getSimpleName());
+                this.additionalMeters.add(meterBinder);
+            }
+        }
     }
 
 }
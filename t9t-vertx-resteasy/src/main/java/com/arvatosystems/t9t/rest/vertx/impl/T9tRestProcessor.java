@@ -50,6 +50,7 @@ import com.arvatosystems.t9t.base.api.TransactionOriginType;
 import com.arvatosystems.t9t.base.auth.AuthenticationInfo;
 import com.arvatosystems.t9t.base.auth.AuthenticationRequest;
 import com.arvatosystems.t9t.base.services.T9tInternalConstants;
+import com.arvatosystems.t9t.base.vertx.impl.BlockingExecution;
 import com.arvatosystems.t9t.ipblocker.services.impl.IPAddressBlocker;
 import com.arvatosystems.t9t.rest.services.IT9tRestProcessor;
 import com.arvatosystems.t9t.rest.utils.RestUtils;
@@ -123,7 +124,7 @@ public class T9tRestProcessor implements IT9tRestProcessor {
         requestParameters.setTransactionOriginType(TransactionOriginType.GATEWAY_INTERNAL);
         LOGGER.debug("Starting {} with assigned messageId {}", infoMsg, requestParameters.getMessageId());
 
-        vertx.<ServiceResponse>executeBlocking(
+        BlockingExecution.<ServiceResponse>executeBlocking(vertx,
             () -> {
                 try {
                     return performSyncBackendRequest(requestParameters, authHeader, infoMsg);
@@ -131,7 +132,7 @@ public class T9tRestProcessor implements IT9tRestProcessor {
                     LOGGER.debug("{}: processing exception", infoMsg);
                     throw e;
                 }
-            }, false).onComplete(ar -> {
+            }).onComplete(ar -> {
                 if (ar.succeeded()) {
                     final ServiceResponse sr = ar.result();
                     if (!ApplicationException.isOk(sr.getReturnCode())) {